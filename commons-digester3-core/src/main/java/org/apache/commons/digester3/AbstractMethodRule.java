@@ -20,14 +20,27 @@ package org.apache.commons.digester3;
  */
 
 import static java.lang.String.format;
+import static org.apache.commons.beanutils.MethodUtils.getAccessibleMethod;
+import static org.apache.commons.beanutils.MethodUtils.getMatchingAccessibleMethod;
 import static org.apache.commons.beanutils.MethodUtils.invokeExactMethod;
 import static org.apache.commons.beanutils.MethodUtils.invokeMethod;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.xml.sax.Attributes;
 
 /**
  * Abstract implementation for {@link org.apache.commons.digester3.SetNextRule},
  * {@link org.apache.commons.digester3.SetRootRule} and {@link org.apache.commons.digester3.SetTopRule} rules.
+ * <p>
+ * The method is resolved once for each pair of parent and argument classes, the same way
+ * {@code org.apache.commons.beanutils.MethodUtils} would, and then invoked through a cached {@code MethodHandle}.
  *
  * @since 3.0
  */
@@ -35,6 +48,57 @@ public abstract class AbstractMethodRule
     extends Rule
 {
 
+    /**
+     * The type all the resolved methods are adapted to, {@code (parent, child) -> result}.
+     */
+    private static final MethodType INVOKER_TYPE = MethodType.methodType( Object.class, Object.class, Object.class );
+
+    /**
+     * A resolved method and the classes and matching mode it was resolved for.
+     */
+    private static final class ResolvedMethod
+    {
+
+        final Class<?> parentType;
+
+        final Class<?> argumentType;
+
+        final boolean exactMatch;
+
+        final MethodHandle invoker;
+
+        ResolvedMethod( final Class<?> parentType, final Class<?> argumentType, final boolean exactMatch,
+                        final MethodHandle invoker )
+        {
+            this.parentType = parentType;
+            this.argumentType = argumentType;
+            this.exactMatch = exactMatch;
+            this.invoker = invoker;
+        }
+
+    }
+
+    /**
+     * The parameter type loaded by name, and the class loader and name it was loaded with.
+     */
+    private static final class LoadedParamType
+    {
+
+        final ClassLoader classLoader;
+
+        final String name;
+
+        final Class<?> type;
+
+        LoadedParamType( final ClassLoader classLoader, final String name, final Class<?> type )
+        {
+            this.classLoader = classLoader;
+            this.name = name;
+            this.type = type;
+        }
+
+    }
+
     /**
      * The method name to call on the parent object.
      */
@@ -61,6 +125,26 @@ public abstract class AbstractMethodRule
      */
     protected boolean fireOnBegin;
 
+    /**
+     * The methods resolved so far when matching the best overload, by parent class and argument class.
+     */
+    private final Map<Class<?>, Map<Class<?>, MethodHandle>> matchingMethods = new ConcurrentHashMap<>();
+
+    /**
+     * The methods resolved so far when matching exactly, by parent class and argument class.
+     */
+    private final Map<Class<?>, Map<Class<?>, MethodHandle>> exactMethods = new ConcurrentHashMap<>();
+
+    /**
+     * The last method resolved, as most rules always link objects of the same classes.
+     */
+    private ResolvedMethod lastResolved;
+
+    /**
+     * The parameter type loaded by the digester class loader, if any.
+     */
+    private LoadedParamType loadedParamType;
+
     /**
      * Constructs a "set next" rule with the specified method name. The method's argument type is assumed to be the class
      * of the child object.
@@ -135,16 +219,42 @@ public abstract class AbstractMethodRule
     protected abstract Object getParent();
 
     /**
-     * Just performs the method execution.
+     * Just performs the method execution, deferred until the objects are constructed if needed.
      *
      * @throws Exception if any error occurs.
      */
     private void invoke()
         throws Exception
     {
-        // Identify the objects to be used
-        final Object child = getChild();
+        // Identify the objects to be used, once constructed
         final Object parent = getParent();
+        final Object child = getChild();
+        if ( child instanceof DeferredInstance )
+        {
+            ( (DeferredInstance) child ).defer( object -> invokeOnParent( parent, object ) );
+        }
+        else
+        {
+            invokeOnParent( parent, child );
+        }
+    }
+
+    private void invokeOnParent( final Object parent, final Object child )
+        throws Exception
+    {
+        if ( parent instanceof DeferredInstance )
+        {
+            ( (DeferredInstance) parent ).defer( target -> invoke( target, child ) );
+        }
+        else
+        {
+            invoke( parent, child );
+        }
+    }
+
+    private void invoke( final Object parent, final Object child )
+        throws Exception
+    {
         if ( getDigester().getLogger().isDebugEnabled() )
         {
             if ( parent == null )
@@ -167,24 +277,99 @@ public abstract class AbstractMethodRule
         }
 
         // Call the specified method
-        final Class<?>[] paramTypes = new Class<?>[1];
-        if ( paramType != null )
+        final Class<?> argumentType = paramType != null ? loadParamType() : child.getClass();
+
+        // a child not matching the parameter type is reported by MethodUtils, not by the invoked method
+        final MethodHandle invoker = parent != null && argumentType.isInstance( child )
+                        ? resolve( parent.getClass(), argumentType ) : null;
+        if ( invoker == null )
         {
-            paramTypes[0] = getDigester().getClassLoader().loadClass( paramTypeName );
+            // let MethodUtils report the failure, or invoke the methods that cannot be unreflected
+            final Class<?>[] paramTypes = { argumentType };
+            if ( useExactMatch )
+            {
+                invokeExactMethod( parent, methodName, new Object[] { child }, paramTypes );
+            }
+            else
+            {
+                invokeMethod( parent, methodName, new Object[] { child }, paramTypes );
+            }
+            return;
         }
-        else
+
+        try
         {
-            paramTypes[0] = child.getClass();
+            final Object ignored = (Object) invoker.invokeExact( parent, child );
         }
+        catch ( final Throwable t )
+        {
+            // thrown by the invoked method, the same failure as Method.invoke()
+            throw new InvocationTargetException( t );
+        }
+    }
 
-        if ( useExactMatch )
+    /**
+     * Returns the parameter type loaded by the digester class loader, loaded again only if the class loader or the
+     * parameter type name changed.
+     */
+    private Class<?> loadParamType()
+        throws ClassNotFoundException
+    {
+        final ClassLoader classLoader = getDigester().getClassLoader();
+        final LoadedParamType loaded = loadedParamType;
+        if ( loaded != null && loaded.classLoader == classLoader && loaded.name.equals( paramTypeName ) )
         {
-            invokeExactMethod( parent, methodName, new Object[] { child }, paramTypes );
+            return loaded.type;
         }
-        else
+        final Class<?> type = ClassResolutionCache.loadClass( classLoader, paramTypeName );
+        loadedParamType = new LoadedParamType( classLoader, paramTypeName, type );
+        return type;
+    }
+
+    /**
+     * Returns the method to be invoked on a parent of the given class, resolving it the first time the given classes
+     * are linked as {@code MethodUtils} would: exactly if {@link #isExactMatch()}, otherwise choosing the best
+     * matching overload.
+     *
+     * @param parentType the class of the parent object
+     * @param argumentType the class of the argument
+     * @return the method to invoke, null if no method can be resolved or unreflected
+     */
+    private MethodHandle resolve( final Class<?> parentType, final Class<?> argumentType )
+    {
+        // the protected field may be changed without the setter
+        final boolean exactMatch = useExactMatch;
+        final ResolvedMethod last = lastResolved;
+        if ( last != null && last.parentType == parentType && last.argumentType == argumentType
+            && last.exactMatch == exactMatch )
+        {
+            return last.invoker;
+        }
+
+        final Map<Class<?>, MethodHandle> byArgumentType = ( exactMatch ? exactMethods : matchingMethods )
+            .computeIfAbsent( parentType, type -> new ConcurrentHashMap<>() );
+        MethodHandle invoker = byArgumentType.get( argumentType );
+        if ( invoker == null )
         {
-            invokeMethod( parent, methodName, new Object[] { child }, paramTypes );
+            final Class<?>[] paramTypes = { argumentType };
+            final Method method = exactMatch ? getAccessibleMethod( parentType, methodName, paramTypes )
+                            : getMatchingAccessibleMethod( parentType, methodName, paramTypes );
+            if ( method == null )
+            {
+                return null;
+            }
+            try
+            {
+                invoker = MethodHandles.lookup().unreflect( method ).asType( INVOKER_TYPE );
+            }
+            catch ( final IllegalAccessException e )
+            {
+                return null;
+            }
+            byArgumentType.put( argumentType, invoker );
         }
+        lastResolved = new ResolvedMethod( parentType, argumentType, exactMatch, invoker );
+        return invoker;
     }
 
     /**
@@ -0,0 +1,237 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static java.lang.String.format;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.xml.sax.Attributes;
+
+/**
+ * Rule implementation decoding the Base64 body text of each matching element to an {@link OutputStream} as it is
+ * parsed, the stream being opened when the element begins and closed when it ends. The white space between the
+ * encoded characters is ignored, and the final padding is optional.
+ *
+ * @since 3.3
+ */
+public class Base64BodyRule
+    extends StreamingBodyRule
+{
+
+    /**
+     * The value of each encoded character, -1 if invalid.
+     */
+    private static final byte[] VALUES = new byte[128];
+
+    static
+    {
+        Arrays.fill( VALUES, (byte) -1 );
+        final String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for ( int i = 0; i < alphabet.length(); i++ )
+        {
+            VALUES[alphabet.charAt( i )] = (byte) i;
+        }
+    }
+
+    private final Destination<? extends OutputStream> destination;
+
+    private OutputStream output;
+
+    private byte[] decoded = new byte[0];
+
+    /**
+     * The bits of the characters of the current quantum decoded so far.
+     */
+    private int bits;
+
+    /**
+     * The number of characters of the current quantum decoded so far, 0 to 3.
+     */
+    private int pending;
+
+    /**
+     * The number of padding characters still expected, -1 until the padding begins.
+     */
+    private int paddingExpected;
+
+    /**
+     * Constructs a rule decoding the bodies to the streams opened by the given destination.
+     *
+     * @param destination opens the stream of the body of each matching element
+     */
+    public Base64BodyRule( final Destination<? extends OutputStream> destination )
+    {
+        if ( destination == null )
+        {
+            throw new IllegalArgumentException( "Body destination must not be null" );
+        }
+        this.destination = destination;
+    }
+
+    /**
+     * Constructs a rule decoding the bodies to the given file, replaced by each matching element.
+     *
+     * @param path the file the bodies are decoded to
+     */
+    public Base64BodyRule( final Path path )
+    {
+        this( Destination.toPath( path ) );
+    }
+
+    @Override
+    public void begin( final String namespace, final String name, final Attributes attributes )
+        throws Exception
+    {
+        output = destination.open( namespace, name, attributes );
+        bits = 0;
+        pending = 0;
+        paddingExpected = -1;
+        super.begin( namespace, name, attributes );
+    }
+
+    @Override
+    protected void bodyChunk( final char[] buffer, final int start, final int length )
+        throws Exception
+    {
+        if ( decoded.length < length )
+        {
+            decoded = new byte[Math.max( length, 1024 )];
+        }
+
+        int count = 0;
+        for ( int i = start; i < start + length; i++ )
+        {
+            final char c = buffer[i];
+            if ( c == ' ' || c == '\n' || c == '\r' || c == '\t' )
+            {
+                continue;
+            }
+            if ( c == '=' )
+            {
+                count = pad( count );
+                continue;
+            }
+
+            final int value = c < VALUES.length ? VALUES[c] : -1;
+            if ( value < 0 || paddingExpected >= 0 )
+            {
+                throw getDigester().createSAXException( format( "[Base64BodyRule]{%s} Invalid Base64 character '%s'",
+                                                                getDigester().getMatch(), c ) );
+            }
+            bits = bits << 6 | value;
+            if ( ++pending == 4 )
+            {
+                decoded[count++] = (byte) ( bits >> 16 );
+                decoded[count++] = (byte) ( bits >> 8 );
+                decoded[count++] = (byte) bits;
+                bits = 0;
+                pending = 0;
+            }
+        }
+        output.write( decoded, 0, count );
+    }
+
+    /**
+     * Decodes the last quantum of the body at the first padding character.
+     *
+     * @return the number of decoded bytes
+     */
+    private int pad( final int count )
+        throws Exception
+    {
+        int decodedCount = count;
+        if ( paddingExpected > 0 )
+        {
+            paddingExpected--;
+            return decodedCount;
+        }
+        if ( paddingExpected < 0 && pending == 2 )
+        {
+            decoded[decodedCount++] = (byte) ( bits >> 4 );
+            paddingExpected = 1;
+        }
+        else if ( paddingExpected < 0 && pending == 3 )
+        {
+            decoded[decodedCount++] = (byte) ( bits >> 10 );
+            decoded[decodedCount++] = (byte) ( bits >> 2 );
+            paddingExpected = 0;
+        }
+        else
+        {
+            throw getDigester().createSAXException( format( "[Base64BodyRule]{%s} Unexpected Base64 padding",
+                                                            getDigester().getMatch() ) );
+        }
+        bits = 0;
+        pending = 0;
+        return decodedCount;
+    }
+
+    @Override
+    public void end( final String namespace, final String name )
+        throws Exception
+    {
+        final OutputStream current = output;
+        output = null;
+        try
+        {
+            if ( pending == 1 )
+            {
+                throw getDigester().createSAXException( format( "[Base64BodyRule]{%s} Truncated Base64 body",
+                                                                getDigester().getMatch() ) );
+            }
+            if ( pending > 1 )
+            {
+                // the padding is omitted
+                current.write( decoded, 0, pad( 0 ) );
+            }
+        }
+        finally
+        {
+            current.close();
+        }
+    }
+
+    /**
+     * Closes the output stream of a body whose element did not end, the parse having failed or been stopped.
+     */
+    @Override
+    public void finish()
+        throws Exception
+    {
+        super.finish();
+        final OutputStream current = output;
+        if ( current != null )
+        {
+            output = null;
+            pending = 0;
+            current.close();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return format( "Base64BodyRule[destination=%s]", destination );
+    }
+
+}
@@ -0,0 +1,271 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static java.lang.String.format;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * Rule implementation that collects the top object of the stack when a matching element ends, and hands the objects
+ * to a consumer in fixed-size batches, e.g. to insert records in a database with one round trip per batch instead of
+ * one per record. The last, incomplete, batch is flushed when the document ends.
+ * </p>
+ * <p>
+ * Batches are consumed on the parsing thread unless an {@link Executor} is set. In that case they are consumed one
+ * at a time, in order, on the executor, and at most {@link #getMaxPendingBatches()} batches wait to be consumed:
+ * beyond that the parse waits for the consumer to catch up. A failure of the consumer is rethrown into the parse the
+ * next time a matching element ends, or when the document ends, which waits for all the batches to be consumed.
+ * </p>
+ *
+ * @param <T> the type of the collected objects
+ * @since 3.3
+ */
+public class BatchingRule<T>
+    extends Rule
+{
+
+    /**
+     * The batches consumed in order on the executor, and the first failure of the consumer. A chain is abandoned once
+     * its failure is rethrown: the batches still chained on it fail in turn, and must not be reported again.
+     */
+    private static final class Chain
+    {
+
+        CompletableFuture<Void> lastBatch = CompletableFuture.completedFuture( null );
+
+        volatile Throwable failure;
+
+    }
+
+    private final Consumer<? super List<T>> consumer;
+
+    private final int batchSize;
+
+    private Executor executor;
+
+    private int maxPendingBatches = 4;
+
+    private List<T> batch;
+
+    private Semaphore pendingBatches;
+
+    private Chain chain = new Chain();
+
+    /**
+     * Constructs a batching rule.
+     *
+     * @param consumer the consumer of the batches of objects
+     * @param batchSize the number of objects in each batch
+     */
+    public BatchingRule( final Consumer<? super List<T>> consumer, final int batchSize )
+    {
+        if ( consumer == null )
+        {
+            throw new IllegalArgumentException( "Batch consumer must not be null" );
+        }
+        if ( batchSize < 1 )
+        {
+            throw new IllegalArgumentException( "Batch size must be positive, was " + batchSize );
+        }
+        this.consumer = consumer;
+        this.batchSize = batchSize;
+        this.batch = new ArrayList<>( batchSize );
+    }
+
+    /**
+     * Returns the number of objects in each batch.
+     *
+     * @return the number of objects in each batch
+     */
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    /**
+     * Returns the executor consuming the batches.
+     *
+     * @return the executor consuming the batches, null if they are consumed on the parsing thread
+     */
+    public Executor getExecutor()
+    {
+        return executor;
+    }
+
+    /**
+     * Sets the executor consuming the batches.
+     *
+     * @param executor the executor consuming the batches, null to consume them on the parsing thread
+     */
+    public void setExecutor( final Executor executor )
+    {
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the maximum number of batches waiting to be consumed by the executor.
+     *
+     * @return the maximum number of batches waiting to be consumed by the executor
+     */
+    public int getMaxPendingBatches()
+    {
+        return maxPendingBatches;
+    }
+
+    /**
+     * Sets the maximum number of batches waiting to be consumed by the executor, 4 by default.
+     *
+     * @param maxPendingBatches the maximum number of batches waiting to be consumed by the executor
+     */
+    public void setMaxPendingBatches( final int maxPendingBatches )
+    {
+        if ( maxPendingBatches < 1 )
+        {
+            throw new IllegalArgumentException( "Max pending batches must be positive, was " + maxPendingBatches );
+        }
+        this.maxPendingBatches = maxPendingBatches;
+    }
+
+    /**
+     * Discards the objects collected and not yet flushed, e.g. before reusing this rule after a failed parse.
+     */
+    public void clear()
+    {
+        batch = new ArrayList<>( batchSize );
+    }
+
+    @Override
+    public void end( final String namespace, final String name )
+        throws Exception
+    {
+        rethrowFailure();
+        final Object top = getDigester().peek();
+        if ( top instanceof DeferredInstance )
+        {
+            ( (DeferredInstance) top ).defer( this::add );
+        }
+        else
+        {
+            add( top );
+        }
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private void add( final Object object )
+        throws InterruptedException
+    {
+        batch.add( (T) object );
+        if ( batch.size() == batchSize )
+        {
+            flush();
+        }
+    }
+
+    @Override
+    public void finish()
+        throws Exception
+    {
+        if ( !batch.isEmpty() )
+        {
+            flush();
+        }
+
+        // wait for all the batches to be consumed
+        try
+        {
+            chain.lastBatch.join();
+        }
+        catch ( final CompletionException e )
+        {
+            // reported through the failure of the chain
+        }
+        finally
+        {
+            chain.lastBatch = CompletableFuture.completedFuture( null );
+            pendingBatches = null;
+        }
+        rethrowFailure();
+    }
+
+    private void flush()
+        throws InterruptedException
+    {
+        final List<T> full = batch;
+        batch = new ArrayList<>( batchSize );
+
+        if ( executor == null )
+        {
+            consumer.accept( full );
+            return;
+        }
+
+        if ( pendingBatches == null )
+        {
+            pendingBatches = new Semaphore( maxPendingBatches );
+        }
+        final Semaphore permits = pendingBatches;
+        permits.acquire();
+        final Chain current = chain;
+        current.lastBatch = current.lastBatch.thenRunAsync( () -> consumer.accept( full ), executor )
+            .whenComplete( ( result, error ) ->
+            {
+                if ( error != null && current.failure == null )
+                {
+                    current.failure = error instanceof CompletionException ? error.getCause() : error;
+                }
+                permits.release();
+            } );
+    }
+
+    private void rethrowFailure()
+        throws Exception
+    {
+        final Throwable error = chain.failure;
+        if ( error == null )
+        {
+            return;
+        }
+        batch = new ArrayList<>( batchSize );
+        // the batches chained after the failed one are skipped, start a new chain
+        chain = new Chain();
+        pendingBatches = null;
+        if ( error instanceof Error )
+        {
+            throw (Error) error;
+        }
+        throw (Exception) error;
+    }
+
+    @Override
+    public String toString()
+    {
+        return format( "BatchingRule[batchSize=%s, executor=%s, maxPendingBatches=%s]", batchSize, executor,
+                       maxPendingBatches );
+    }
+
+}
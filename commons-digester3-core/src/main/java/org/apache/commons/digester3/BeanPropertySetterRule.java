@@ -119,18 +119,26 @@ public class BeanPropertySetterRule
     public void end( final String namespace, final String name )
         throws Exception
     {
-        String property = propertyName;
+        // If we don't have a specific property name,
+        // use the element name.
+        final String property = propertyName != null ? propertyName : name;
+        final String text = bodyText;
 
-        if ( property == null )
+        // Set the property of the top object, once constructed
+        final Object top = getDigester().peek();
+        if ( top instanceof DeferredInstance )
         {
-            // If we don't have a specific property name,
-            // use the element name.
-            property = name;
+            ( (DeferredInstance) top ).defer( object -> setBeanProperty( object, property, text ) );
         }
+        else
+        {
+            setBeanProperty( top, property, text );
+        }
+    }
 
-        // Get a reference to the top object
-        final Object top = getDigester().peek();
-
+    private void setBeanProperty( final Object top, final String property, final String text )
+        throws Exception
+    {
         // log some debugging information
         if ( getDigester().getLogger().isDebugEnabled() )
         {
@@ -138,7 +146,7 @@ public class BeanPropertySetterRule
                                                      getDigester().getMatch(),
                                                      top.getClass().getName(),
                                                      property,
-                                                     bodyText ) );
+                                                     text ) );
         }
 
         // Force an exception if the property does not exist
@@ -162,7 +170,7 @@ public class BeanPropertySetterRule
         }
 
         // Set the property (with conversion as necessary)
-        setProperty( top, property, bodyText );
+        setProperty( top, property, text );
     }
 
     @Override
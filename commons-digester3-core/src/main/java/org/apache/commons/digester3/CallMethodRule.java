@@ -401,7 +401,20 @@ public class CallMethodRule
                                             getDigester().getMatch(), targetOffset, getDigester().getCount() ) );
         }
 
-        // Invoke the required method on the top object
+        // Invoke the required method on the top object, once constructed
+        if ( target instanceof DeferredInstance )
+        {
+            ( (DeferredInstance) target ).defer( object -> invoke( object, paramValues ) );
+        }
+        else
+        {
+            invoke( target, paramValues );
+        }
+    }
+
+    private void invoke( final Object target, final Object[] paramValues )
+        throws Exception
+    {
         if ( getDigester().getLogger().isDebugEnabled() )
         {
             final Formatter formatter =
@@ -474,7 +487,8 @@ public class CallMethodRule
             {
                 try
                 {
-                    this.paramTypes[i] = digester.getClassLoader().loadClass( this.paramClassNames[i] );
+                    this.paramTypes[i] =
+                        ClassResolutionCache.loadClass( digester.getClassLoader(), this.paramClassNames[i] );
                 }
                 catch ( final ClassNotFoundException e )
                 {
@@ -0,0 +1,228 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Lock-free cache of the classes resolved by name through a {@link ClassLoader}, shared by the rules and the binder.
+ * <p>
+ * Primitive type names ({@code int}, {@code boolean}, ...) are resolved without querying any class loader. Failed
+ * lookups are remembered as well, so a missing class is only searched once per class loader. Class loaders are
+ * weakly referenced, so caching classes never prevents a redeployed class loader from being collected.
+ *
+ * @since 3.3
+ */
+public final class ClassResolutionCache
+{
+
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES;
+    static
+    {
+        final HashMap<String, Class<?>> primitiveTypes = new HashMap<>();
+        primitiveTypes.put( "boolean", boolean.class );
+        primitiveTypes.put( "byte", byte.class );
+        primitiveTypes.put( "short", short.class );
+        primitiveTypes.put( "int", int.class );
+        primitiveTypes.put( "char", char.class );
+        primitiveTypes.put( "long", long.class );
+        primitiveTypes.put( "float", float.class );
+        primitiveTypes.put( "double", double.class );
+        PRIMITIVE_TYPES = Collections.unmodifiableMap( primitiveTypes );
+    }
+
+    /**
+     * Marks the names that could not be resolved.
+     */
+    private static final Object NOT_FOUND = new Object();
+
+    /**
+     * Keyed by {@link LoaderKey}, values are either a {@link WeakReference} to the resolved class or
+     * {@link #NOT_FOUND}. Classes are weakly referenced too, as a class strongly references its own loader.
+     */
+    private static final ConcurrentMap<Object, ConcurrentMap<String, Object>> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Classes resolved through the bootstrap class loader, which is never collected.
+     */
+    private static final ConcurrentMap<String, Object> BOOTSTRAP_CACHE = new ConcurrentHashMap<>();
+
+    private static final ReferenceQueue<ClassLoader> COLLECTED_LOADERS = new ReferenceQueue<>();
+
+    /**
+     * Weak reference to a class loader, compared by identity.
+     */
+    private static final class LoaderKey
+        extends WeakReference<ClassLoader>
+    {
+
+        private final int hashCode;
+
+        LoaderKey( final ClassLoader classLoader, final ReferenceQueue<ClassLoader> queue )
+        {
+            super( classLoader, queue );
+            hashCode = System.identityHashCode( classLoader );
+        }
+
+        @Override
+        public boolean equals( final Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( obj instanceof LoaderKey )
+            {
+                final ClassLoader classLoader = get();
+                return classLoader != null && classLoader == ( (LoaderKey) obj ).get();
+            }
+            if ( obj instanceof LookupKey )
+            {
+                final ClassLoader classLoader = get();
+                return classLoader != null && classLoader == ( (LookupKey) obj ).classLoader;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+    }
+
+    /**
+     * Strong, short lived, key used to query the cache without allocating a weak reference.
+     */
+    private static final class LookupKey
+    {
+
+        private final ClassLoader classLoader;
+
+        LookupKey( final ClassLoader classLoader )
+        {
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        public boolean equals( final Object obj )
+        {
+            if ( obj instanceof LoaderKey )
+            {
+                return classLoader == ( (LoaderKey) obj ).get();
+            }
+            return obj instanceof LookupKey && classLoader == ( (LookupKey) obj ).classLoader;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return System.identityHashCode( classLoader );
+        }
+
+    }
+
+    private static ConcurrentMap<String, Object> getClasses( final ClassLoader classLoader )
+    {
+        if ( classLoader == null )
+        {
+            return BOOTSTRAP_CACHE;
+        }
+
+        Reference<? extends ClassLoader> collected;
+        while ( ( collected = COLLECTED_LOADERS.poll() ) != null )
+        {
+            CACHE.remove( collected );
+        }
+
+        final ConcurrentMap<String, Object> classes = CACHE.get( new LookupKey( classLoader ) );
+        if ( classes != null )
+        {
+            return classes;
+        }
+        final ConcurrentMap<String, Object> created = new ConcurrentHashMap<>();
+        final ConcurrentMap<String, Object> existing =
+            CACHE.putIfAbsent( new LoaderKey( classLoader, COLLECTED_LOADERS ), created );
+        return existing != null ? existing : created;
+    }
+
+    /**
+     * Resolves a class, or a primitive type, by name.
+     *
+     * @param classLoader the class loader the class is loaded from, null for the bootstrap class loader
+     * @param name the binary name of the class, or the name of a primitive type
+     * @return the resolved class
+     * @throws ClassNotFoundException if the class cannot be found, now or in a previous lookup
+     */
+    public static Class<?> loadClass( final ClassLoader classLoader, final String name )
+        throws ClassNotFoundException
+    {
+        final Class<?> primitiveType = PRIMITIVE_TYPES.get( name );
+        if ( primitiveType != null )
+        {
+            return primitiveType;
+        }
+
+        final ConcurrentMap<String, Object> classes = getClasses( classLoader );
+        final Object cached = classes.get( name );
+        if ( cached == NOT_FOUND )
+        {
+            throw new ClassNotFoundException( name );
+        }
+        if ( cached != null )
+        {
+            final Class<?> type = (Class<?>) ( (Reference<?>) cached ).get();
+            if ( type != null )
+            {
+                return type;
+            }
+        }
+
+        final Class<?> type;
+        try
+        {
+            type = classLoader != null ? classLoader.loadClass( name ) : Class.forName( name, false, null );
+        }
+        catch ( final ClassNotFoundException e )
+        {
+            classes.put( name, NOT_FOUND );
+            throw e;
+        }
+        classes.put( name, new WeakReference<Class<?>>( type ) );
+        return type;
+    }
+
+    /**
+     * This class can't be instantiated.
+     */
+    private ClassResolutionCache()
+    {
+        // this class can't be instantiated
+    }
+
+}
@@ -0,0 +1,688 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.apache.commons.beanutils.ConstructorUtils.getAccessibleConstructor;
+import static org.apache.commons.beanutils.ConvertUtils.convert;
+import static org.apache.commons.beanutils.MethodUtils.getAccessibleMethod;
+import static org.apache.commons.beanutils.PropertyUtils.getPropertyDescriptor;
+
+import java.beans.IndexedPropertyDescriptor;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.commons.beanutils.MappedPropertyDescriptor;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+
+/**
+ * {@link ContentHandler} specialized for a finished set of rules made only of built-in rule types, used by the
+ * {@link Digester} instead of its generic dispatch when {@link Digester#setCompileRules(boolean)} is enabled.
+ * <p>
+ * The patterns are compiled to a tree of element names walked as elements start, so no match path is built and no
+ * rule list is looked up per element; the body text is only collected for the elements having rules that read it.
+ * {@link ObjectCreateRule}s, {@link SetPropertiesRule}s and {@link BeanPropertySetterRule}s are replaced by
+ * equivalents constructing the objects and calling the setters through method handles resolved once per class and
+ * property; {@link CallMethodRule}s, {@link CallParamRule}s and {@link SetNextRule}s are fired as they are. The
+ * replacements delegate to the original rule for the cases they do not handle themselves, such as
+ * {@link DynaBean}s, {@link Map}s or nested property names.
+ *
+ * @since 3.3
+ */
+final class CompiledRulesHandler
+    implements ContentHandler
+{
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType( Object.class );
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType( void.class, Object.class, Object.class );
+
+    /**
+     * An element name of a pattern, with the rules matching it and the names of its child elements.
+     */
+    private static final class Node
+    {
+
+        private final String match;
+
+        private final Map<String, Node> children = new HashMap<>();
+
+        private Rule[] rules = {};
+
+        private Rule[] bodyRules = {};
+
+        Node( final String match )
+        {
+            this.match = match;
+        }
+
+        Node child( final String name )
+        {
+            return children.computeIfAbsent( name, key -> new Node( match.isEmpty() ? key : match + '/' + key ) );
+        }
+
+    }
+
+    /**
+     * How a property is set on the objects of a given class.
+     */
+    private static final class Setter
+    {
+
+        /** The class has no such property. */
+        static final Setter MISSING = new Setter( null, null );
+
+        /** The property has no write method. */
+        static final Setter READ_ONLY = new Setter( null, null );
+
+        /** The property is set by {@code BeanUtils}, e.g. indexed, mapped or array properties. */
+        static final Setter INDIRECT = new Setter( null, null );
+
+        private final MethodHandle handle;
+
+        private final Class<?> type;
+
+        Setter( final MethodHandle handle, final Class<?> type )
+        {
+            this.handle = handle;
+            this.type = type;
+        }
+
+        void set( final Object bean, final String value )
+            throws InvocationTargetException
+        {
+            final Object converted = convert( value, type );
+            try
+            {
+                handle.invokeExact( bean, converted );
+            }
+            catch ( final Throwable t )
+            {
+                // same failure as Method.invoke()
+                throw new InvocationTargetException( t );
+            }
+        }
+
+    }
+
+    /**
+     * The setters resolved so far, by class and property name.
+     */
+    private static final class Setters
+    {
+
+        private final Map<Class<?>, Map<String, Setter>> setters = new HashMap<>();
+
+        Setter get( final Object bean, final String property )
+        {
+            if ( bean instanceof DynaBean || bean instanceof Map || bean instanceof DeferredInstance
+                || !isSimple( property ) )
+            {
+                return Setter.INDIRECT;
+            }
+            return setters.computeIfAbsent( bean.getClass(), type -> new HashMap<>() )
+                          .computeIfAbsent( property, name -> resolve( bean, name ) );
+        }
+
+        private static boolean isSimple( final String property )
+        {
+            for ( int i = 0; i < property.length(); i++ )
+            {
+                switch ( property.charAt( i ) )
+                {
+                    case '.':
+                    case '[':
+                    case '(':
+                    case ':':
+                        return false;
+                    default:
+                        break;
+                }
+            }
+            return true;
+        }
+
+        private static Setter resolve( final Object bean, final String property )
+        {
+            final PropertyDescriptor descriptor;
+            try
+            {
+                descriptor = getPropertyDescriptor( bean, property );
+            }
+            catch ( final Exception e )
+            {
+                return Setter.INDIRECT;
+            }
+            if ( descriptor == null )
+            {
+                return Setter.MISSING;
+            }
+            if ( descriptor instanceof IndexedPropertyDescriptor || descriptor instanceof MappedPropertyDescriptor )
+            {
+                return Setter.INDIRECT;
+            }
+            if ( descriptor.getWriteMethod() == null )
+            {
+                return Setter.READ_ONLY;
+            }
+
+            final Method method = getAccessibleMethod( bean.getClass(), descriptor.getWriteMethod() );
+            if ( method == null || method.getParameterTypes()[0].isArray() )
+            {
+                return Setter.INDIRECT;
+            }
+            try
+            {
+                return new Setter( MethodHandles.publicLookup().unreflect( method ).asType( SETTER_TYPE ),
+                                   method.getParameterTypes()[0] );
+            }
+            catch ( final IllegalAccessException e )
+            {
+                return Setter.INDIRECT;
+            }
+        }
+
+    }
+
+    /**
+     * Replaces an {@link ObjectCreateRule} creating objects of a known class with its no-arguments constructor.
+     */
+    private static final class ObjectCreateStep
+        extends Rule
+    {
+
+        private final MethodHandle constructor;
+
+        ObjectCreateStep( final MethodHandle constructor )
+        {
+            this.constructor = constructor;
+        }
+
+        @Override
+        public void begin( final String namespace, final String name, final Attributes attributes )
+            throws Exception
+        {
+            final Object instance;
+            try
+            {
+                instance = (Object) constructor.invokeExact();
+            }
+            catch ( final Throwable t )
+            {
+                // same failure as Constructor.newInstance()
+                throw new InvocationTargetException( t );
+            }
+            getDigester().push( instance );
+        }
+
+        @Override
+        public void end( final String namespace, final String name )
+            throws Exception
+        {
+            getDigester().pop();
+        }
+
+    }
+
+    /**
+     * Replaces a {@link SetPropertiesRule}.
+     */
+    private static final class SetPropertiesStep
+        extends Rule
+    {
+
+        private final SetPropertiesRule rule;
+
+        private final Map<String, String> aliases;
+
+        private final Setters setters;
+
+        SetPropertiesStep( final SetPropertiesRule rule, final Setters setters )
+        {
+            this.rule = rule;
+            this.aliases = rule.getAliases();
+            this.setters = setters;
+        }
+
+        @Override
+        public void begin( final String namespace, final String name, final Attributes attributes )
+            throws Exception
+        {
+            final Object top = getDigester().peek();
+            if ( top == null || top instanceof DynaBean || top instanceof Map || top instanceof DeferredInstance )
+            {
+                rule.begin( namespace, name, attributes );
+                return;
+            }
+
+            final Setter[] resolved = new Setter[attributes.getLength()];
+            for ( int i = 0; i < resolved.length; i++ )
+            {
+                String property = attributes.getLocalName( i );
+                if ( property == null || property.isEmpty() )
+                {
+                    property = attributes.getQName( i );
+                }
+                if ( aliases.containsKey( property ) )
+                {
+                    property = aliases.get( property );
+                }
+                if ( property == null )
+                {
+                    continue;
+                }
+
+                final Setter setter = setters.get( top, property );
+                if ( setter == Setter.INDIRECT )
+                {
+                    // let BeanUtils handle the whole element
+                    rule.begin( namespace, name, attributes );
+                    return;
+                }
+                if ( !rule.isIgnoreMissingProperty() && ( setter == Setter.MISSING || setter == Setter.READ_ONLY ) )
+                {
+                    throw new NoSuchMethodException( "Property " + property + " can't be set" );
+                }
+                resolved[i] = setter;
+            }
+
+            for ( int i = 0; i < resolved.length; i++ )
+            {
+                if ( resolved[i] != null && resolved[i].handle != null )
+                {
+                    resolved[i].set( top, attributes.getValue( i ) );
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Replaces a {@link BeanPropertySetterRule}.
+     */
+    private static final class BeanPropertySetterStep
+        extends Rule
+    {
+
+        private final BeanPropertySetterRule rule;
+
+        private final Setters setters;
+
+        private String bodyText;
+
+        BeanPropertySetterStep( final BeanPropertySetterRule rule, final Setters setters )
+        {
+            this.rule = rule;
+            this.setters = setters;
+        }
+
+        @Override
+        public void body( final String namespace, final String name, final String text )
+            throws Exception
+        {
+            bodyText = text.trim();
+        }
+
+        @Override
+        public void end( final String namespace, final String name )
+            throws Exception
+        {
+            final String property = rule.getPropertyName() != null ? rule.getPropertyName() : name;
+            final Object top = getDigester().peek();
+            final Setter setter = top != null ? setters.get( top, property ) : Setter.INDIRECT;
+            if ( setter == Setter.INDIRECT )
+            {
+                rule.body( namespace, name, bodyText );
+                rule.end( namespace, name );
+            }
+            else if ( setter == Setter.MISSING )
+            {
+                throw new NoSuchMethodException( "Bean has no property named " + property );
+            }
+            else if ( setter != Setter.READ_ONLY )
+            {
+                setter.set( top, bodyText );
+            }
+        }
+
+    }
+
+    private final Digester digester;
+
+    private final Node root;
+
+    private Node[] nodes = new Node[16];
+
+    /**
+     * The match paths of the open elements.
+     */
+    private String[] matches = new String[16];
+
+    private StringBuilder[] bodyTexts = new StringBuilder[16];
+
+    private int depth;
+
+    private CompiledRulesHandler( final Digester digester, final Node root )
+    {
+        this.digester = digester;
+        this.root = root;
+    }
+
+    /**
+     * Compiles the rules of the given digester.
+     *
+     * @param digester the digester whose rules are compiled
+     * @return the handler firing the compiled rules, null if the rules are not made only of built-in rule types
+     *         bound to patterns without wildcards nor namespaces
+     */
+    static CompiledRulesHandler compile( final Digester digester )
+    {
+        final Rules rules = digester.getRules();
+        if ( rules.getClass() != RulesBase.class || !( (RulesBase) rules ).wildcardCache.isEmpty() )
+        {
+            return null;
+        }
+
+        final Setters setters = new Setters();
+        final Node root = new Node( "" );
+        for ( final Map.Entry<String, List<Rule>> entry : ( (RulesBase) rules ).cache.entrySet() )
+        {
+            final String pattern = entry.getKey();
+            if ( pattern.indexOf( '*' ) >= 0 )
+            {
+                return null;
+            }
+
+            final List<Rule> patternRules = entry.getValue();
+            final Rule[] steps = new Rule[patternRules.size()];
+            int bodyRules = 0;
+            for ( int i = 0; i < steps.length; i++ )
+            {
+                final Rule rule = patternRules.get( i );
+                if ( rule.getNamespaceURI() != null )
+                {
+                    return null;
+                }
+                steps[i] = compile( rule, setters );
+                if ( steps[i] == null )
+                {
+                    return null;
+                }
+                steps[i].setDigester( digester );
+                if ( hasBody( rule ) )
+                {
+                    bodyRules++;
+                }
+            }
+
+            Node node = root;
+            for ( final String name : pattern.split( "/" ) )
+            {
+                node = node.child( name );
+            }
+            node.rules = steps;
+            node.bodyRules = new Rule[bodyRules];
+            int j = 0;
+            for ( int i = 0; i < steps.length; i++ )
+            {
+                if ( hasBody( patternRules.get( i ) ) )
+                {
+                    node.bodyRules[j++] = steps[i];
+                }
+            }
+        }
+        return new CompiledRulesHandler( digester, root );
+    }
+
+    private static boolean hasBody( final Rule rule )
+    {
+        return rule instanceof BeanPropertySetterRule || rule instanceof CallMethodRule
+            || rule instanceof CallParamRule;
+    }
+
+    private static Rule compile( final Rule rule, final Setters setters )
+    {
+        final Class<?> type = rule.getClass();
+        if ( type == ObjectCreateRule.class )
+        {
+            final ObjectCreateRule objectCreateRule = (ObjectCreateRule) rule;
+            final Class<?>[] argumentTypes = objectCreateRule.getConstructorArgumentTypes();
+            if ( objectCreateRule.clazz == null || objectCreateRule.attributeName != null
+                || argumentTypes != null && argumentTypes.length > 0 )
+            {
+                return rule;
+            }
+            final Constructor<?> constructor = getAccessibleConstructor( objectCreateRule.clazz, new Class<?>[0] );
+            if ( constructor == null )
+            {
+                return rule;
+            }
+            try
+            {
+                return new ObjectCreateStep( MethodHandles.publicLookup()
+                                                          .unreflectConstructor( constructor )
+                                                          .asType( CONSTRUCTOR_TYPE ) );
+            }
+            catch ( final IllegalAccessException e )
+            {
+                return rule;
+            }
+        }
+        if ( type == SetPropertiesRule.class )
+        {
+            return new SetPropertiesStep( (SetPropertiesRule) rule, setters );
+        }
+        if ( type == BeanPropertySetterRule.class )
+        {
+            return new BeanPropertySetterStep( (BeanPropertySetterRule) rule, setters );
+        }
+        if ( type == CallMethodRule.class || type == CallParamRule.class || type == SetNextRule.class )
+        {
+            return rule;
+        }
+        return null;
+    }
+
+    @Override
+    public void setDocumentLocator( final Locator locator )
+    {
+        digester.setDocumentLocator( locator );
+    }
+
+    @Override
+    public void startDocument()
+        throws SAXException
+    {
+        depth = 0;
+        digester.startDocument();
+    }
+
+    @Override
+    public void endDocument()
+        throws SAXException
+    {
+        Arrays.fill( nodes, null );
+        Arrays.fill( matches, null );
+        digester.endDocument();
+    }
+
+    @Override
+    public void startPrefixMapping( final String prefix, final String uri )
+        throws SAXException
+    {
+        digester.startPrefixMapping( prefix, uri );
+    }
+
+    @Override
+    public void endPrefixMapping( final String prefix )
+        throws SAXException
+    {
+        digester.endPrefixMapping( prefix );
+    }
+
+    @Override
+    public void startElement( final String uri, final String localName, final String qName, final Attributes atts )
+        throws SAXException
+    {
+        final String name = localName == null || localName.isEmpty() ? qName : localName;
+        final Node parent = depth == 0 ? root : nodes[depth - 1];
+        final Node node = parent != null ? parent.children.get( name ) : null;
+
+        if ( depth == nodes.length )
+        {
+            nodes = Arrays.copyOf( nodes, depth * 2 );
+            matches = Arrays.copyOf( matches, depth * 2 );
+            bodyTexts = Arrays.copyOf( bodyTexts, depth * 2 );
+        }
+        nodes[depth] = node;
+        if ( node != null )
+        {
+            matches[depth] = node.match;
+        }
+        else
+        {
+            matches[depth] = depth == 0 ? name : matches[depth - 1] + '/' + name;
+        }
+        digester.setMatch( matches[depth] );
+        if ( bodyTexts[depth] == null )
+        {
+            bodyTexts[depth] = new StringBuilder();
+        }
+        else
+        {
+            bodyTexts[depth].setLength( 0 );
+        }
+        depth++;
+
+        digester.countElement( node != null ? node.rules.length : 0 );
+        if ( node == null )
+        {
+            return;
+        }
+        for ( final Rule rule : node.rules )
+        {
+            try
+            {
+                rule.begin( uri, name, atts );
+            }
+            catch ( final Exception e )
+            {
+                digester.getLogger().error( "Begin event threw exception", e );
+                throw digester.createSAXException( e );
+            }
+        }
+    }
+
+    @Override
+    public void endElement( final String uri, final String localName, final String qName )
+        throws SAXException
+    {
+        depth--;
+        final Node node = nodes[depth];
+        if ( node == null )
+        {
+            restoreMatch();
+            return;
+        }
+
+        final String name = localName == null || localName.isEmpty() ? qName : localName;
+        if ( node.bodyRules.length > 0 )
+        {
+            final String bodyText = bodyTexts[depth].toString();
+            for ( final Rule rule : node.bodyRules )
+            {
+                try
+                {
+                    rule.body( uri, name, bodyText );
+                }
+                catch ( final Exception e )
+                {
+                    digester.getLogger().error( "Body event threw exception", e );
+                    throw digester.createSAXException( e );
+                }
+            }
+        }
+        for ( int i = node.rules.length - 1; i >= 0; i-- )
+        {
+            try
+            {
+                node.rules[i].end( uri, name );
+            }
+            catch ( final Exception e )
+            {
+                digester.getLogger().error( "End event threw exception", e );
+                throw digester.createSAXException( e );
+            }
+        }
+        restoreMatch();
+    }
+
+    private void restoreMatch()
+    {
+        digester.setMatch( depth == 0 ? "" : matches[depth - 1] );
+    }
+
+    @Override
+    public void characters( final char[] ch, final int start, final int length )
+    {
+        if ( depth > 0 )
+        {
+            final Node node = nodes[depth - 1];
+            if ( node != null && node.bodyRules.length > 0 )
+            {
+                bodyTexts[depth - 1].append( ch, start, length );
+            }
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace( final char[] ch, final int start, final int length )
+        throws SAXException
+    {
+        digester.ignorableWhitespace( ch, start, length );
+    }
+
+    @Override
+    public void processingInstruction( final String target, final String data )
+        throws SAXException
+    {
+        digester.processingInstruction( target, data );
+    }
+
+    @Override
+    public void skippedEntity( final String name )
+        throws SAXException
+    {
+        digester.skippedEntity( name );
+    }
+
+}
@@ -0,0 +1,87 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A {@link Reader} that keeps track of the number of characters read through it.
+ *
+ * @since 3.3
+ */
+final class CountingReader
+    extends FilterReader
+{
+
+    private long count;
+
+    CountingReader( final Reader in )
+    {
+        super( in );
+    }
+
+    long getCount()
+    {
+        return count;
+    }
+
+    @Override
+    public int read()
+        throws IOException
+    {
+        final int read = super.read();
+        if ( read != -1 )
+        {
+            count++;
+        }
+        return read;
+    }
+
+    @Override
+    public int read( final char[] cbuf, final int off, final int len )
+        throws IOException
+    {
+        final int read = super.read( cbuf, off, len );
+        if ( read > 0 )
+        {
+            count += read;
+        }
+        return read;
+    }
+
+    @Override
+    public long skip( final long n )
+        throws IOException
+    {
+        final long skipped = super.skip( n );
+        count += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        // a reset would make the count meaningless
+        return false;
+    }
+
+}
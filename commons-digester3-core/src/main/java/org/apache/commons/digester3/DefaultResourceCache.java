@@ -0,0 +1,288 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import org.xml.sax.SAXException;
+
+/**
+ * A size-bounded, least recently used, {@link ResourceCache}.
+ * <p>
+ * Resource contents are bounded by their total size in bytes, compiled schemas by their number. Entries loaded from
+ * a file, or from an archive stored in a file, are reloaded as soon as the file modification time changes; entries
+ * loaded from any other location are kept until they are evicted.
+ * <p>
+ * Instances are thread-safe and are meant to be shared, e.g. by all the digesters created by a
+ * {@link org.apache.commons.digester3.binder.DigesterLoader}.
+ *
+ * @since 3.3
+ */
+public class DefaultResourceCache
+    implements ResourceCache
+{
+
+    /**
+     * The default maximum total size of the cached contents, 4 MiB.
+     */
+    public static final long DEFAULT_MAX_CONTENT_BYTES = 4L * 1024 * 1024;
+
+    /**
+     * The default maximum number of cached schemas.
+     */
+    public static final int DEFAULT_MAX_SCHEMAS = 16;
+
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private static final class Entry<V>
+    {
+
+        private final V value;
+
+        private final long lastModified;
+
+        Entry( final V value, final long lastModified )
+        {
+            this.value = value;
+            this.lastModified = lastModified;
+        }
+
+    }
+
+    private final long maxContentBytes;
+
+    private final int maxSchemas;
+
+    private final LinkedHashMap<String, Entry<byte[]>> contents = new LinkedHashMap<>( 16, 0.75f, true );
+
+    private final LinkedHashMap<String, Entry<Schema>> schemas = new LinkedHashMap<>( 16, 0.75f, true );
+
+    private long contentBytes;
+
+    /**
+     * Creates a new cache with the default bounds.
+     */
+    public DefaultResourceCache()
+    {
+        this( DEFAULT_MAX_CONTENT_BYTES, DEFAULT_MAX_SCHEMAS );
+    }
+
+    /**
+     * Creates a new cache with the given bounds.
+     *
+     * @param maxContentBytes the maximum total size of the cached contents, in bytes
+     * @param maxSchemas the maximum number of cached schemas
+     */
+    public DefaultResourceCache( final long maxContentBytes, final int maxSchemas )
+    {
+        if ( maxContentBytes < 0 )
+        {
+            throw new IllegalArgumentException( "Maximum content size must not be negative, was " + maxContentBytes );
+        }
+        if ( maxSchemas < 0 )
+        {
+            throw new IllegalArgumentException( "Maximum number of schemas must not be negative, was " + maxSchemas );
+        }
+        this.maxContentBytes = maxContentBytes;
+        this.maxSchemas = maxSchemas;
+    }
+
+    /**
+     * Discards all the cached entries.
+     */
+    public synchronized void clear()
+    {
+        contents.clear();
+        schemas.clear();
+        contentBytes = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] getContent( final URL url )
+        throws IOException
+    {
+        final String key = url.toExternalForm();
+        final long lastModified = getLastModified( url );
+        synchronized ( this )
+        {
+            final Entry<byte[]> entry = contents.get( key );
+            if ( entry != null && entry.lastModified == lastModified )
+            {
+                return entry.value;
+            }
+        }
+
+        // read outside the lock, concurrent misses may read the same resource more than once
+        final byte[] content = readContent( url );
+        synchronized ( this )
+        {
+            final Entry<byte[]> previous = contents.remove( key );
+            if ( previous != null )
+            {
+                contentBytes -= previous.value.length;
+            }
+            if ( content.length <= maxContentBytes )
+            {
+                contents.put( key, new Entry<>( content, lastModified ) );
+                contentBytes += content.length;
+                final Iterator<Entry<byte[]>> eldest = contents.values().iterator();
+                while ( contentBytes > maxContentBytes )
+                {
+                    contentBytes -= eldest.next().value.length;
+                    eldest.remove();
+                }
+            }
+        }
+        return content;
+    }
+
+    /**
+     * Returns the modification time of the file backing the given resource, used to invalidate the cached entries.
+     *
+     * @param url the resource location
+     * @return the modification time of the file backing the resource, {@code Long.MIN_VALUE} if the resource is not
+     *         backed by a file
+     * @throws IOException if the resource location cannot be inspected
+     */
+    protected long getLastModified( final URL url )
+        throws IOException
+    {
+        URL fileUrl = url;
+        if ( "jar".equals( url.getProtocol() ) )
+        {
+            final URLConnection connection = url.openConnection();
+            fileUrl = ( (JarURLConnection) connection ).getJarFileURL();
+        }
+        if ( !"file".equals( fileUrl.getProtocol() ) )
+        {
+            return NO_TIMESTAMP;
+        }
+
+        try
+        {
+            return new File( fileUrl.toURI() ).lastModified();
+        }
+        catch ( final URISyntaxException | IllegalArgumentException e )
+        {
+            return NO_TIMESTAMP;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Schema getSchema( final URL url, final String schemaLanguage )
+        throws IOException, SAXException
+    {
+        final String key = schemaLanguage + ' ' + url.toExternalForm();
+        final long lastModified = getLastModified( url );
+        synchronized ( this )
+        {
+            final Entry<Schema> entry = schemas.get( key );
+            if ( entry != null && entry.lastModified == lastModified )
+            {
+                return entry.value;
+            }
+        }
+
+        final Schema schema = newSchema( url, schemaLanguage );
+        synchronized ( this )
+        {
+            schemas.put( key, new Entry<>( schema, lastModified ) );
+            final Iterator<Map.Entry<String, Entry<Schema>>> eldest = schemas.entrySet().iterator();
+            while ( schemas.size() > maxSchemas )
+            {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return schema;
+    }
+
+    /**
+     * Compiles the schema located at the given URL.
+     *
+     * @param url the schema location
+     * @param schemaLanguage the schema language
+     * @return the compiled schema
+     * @throws SAXException if the schema cannot be compiled
+     */
+    protected Schema newSchema( final URL url, final String schemaLanguage )
+        throws SAXException
+    {
+        return SchemaFactory.newInstance( schemaLanguage ).newSchema( url );
+    }
+
+    /**
+     * Reads the content of the given resource.
+     *
+     * @param url the resource location
+     * @return the resource content
+     * @throws IOException if the resource cannot be read
+     */
+    protected byte[] readContent( final URL url )
+        throws IOException
+    {
+        return read( url );
+    }
+
+    /**
+     * Reads the whole content of the given resource, bypassing the connection caches so that changes are seen.
+     *
+     * @param url the resource location
+     * @return the resource content
+     * @throws IOException if the resource cannot be read
+     */
+    static byte[] read( final URL url )
+        throws IOException
+    {
+        final URLConnection connection = url.openConnection();
+        connection.setUseCaches( false );
+        try ( InputStream input = connection.getInputStream() )
+        {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ( ( read = input.read( buffer ) ) != -1 )
+            {
+                output.write( buffer, 0, read );
+            }
+            return output.toByteArray();
+        }
+    }
+
+}
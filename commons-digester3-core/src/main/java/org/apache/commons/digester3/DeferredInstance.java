@@ -0,0 +1,126 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Value holder pushed by an {@link ObjectCreateRule} not using proxies in place of an object whose constructor
+ * arguments are not known yet: it buffers the constructor arguments and the calls the standard rules make on the
+ * object, until the object is constructed once when the element ends.
+ *
+ * @since 3.3
+ */
+final class DeferredInstance
+{
+
+    /**
+     * A call to be made on an object, possibly deferred until the object is constructed.
+     */
+    interface Invocation
+    {
+
+        /**
+         * Makes the call on the given object.
+         *
+         * @param target the object
+         * @throws Exception if any error occurs
+         */
+        void invoke( Object target )
+            throws Exception;
+
+    }
+
+    private final Class<?> type;
+
+    private final MethodHandle constructor;
+
+    private final Object[] arguments;
+
+    private final List<Invocation> invocations = new ArrayList<>();
+
+    /**
+     * Creates a holder for an object to be constructed with the given constructor.
+     *
+     * @param type the class of the object
+     * @param constructor the constructor, taking the arguments as an {@code Object[]} and returning an {@code Object}
+     * @param arguments the constructor arguments, filled in by the {@link CallParamRule}s
+     */
+    DeferredInstance( final Class<?> type, final MethodHandle constructor, final Object[] arguments )
+    {
+        this.type = type;
+        this.constructor = constructor;
+        this.arguments = arguments;
+    }
+
+    Object[] getArguments()
+    {
+        return arguments;
+    }
+
+    /**
+     * Buffers a call to be made on the object once constructed. Rules test whether their target is a
+     * {@code DeferredInstance} before creating the call, so that no call object is allocated in the common case.
+     *
+     * @param invocation the call to make
+     */
+    void defer( final Invocation invocation )
+    {
+        invocations.add( invocation );
+    }
+
+    /**
+     * Constructs the object and makes the buffered calls on it, in order.
+     *
+     * @return the object constructed
+     * @throws Exception if the construction or any buffered call fails
+     */
+    Object construct()
+        throws Exception
+    {
+        Object instance;
+        try
+        {
+            instance = (Object) constructor.invokeExact( arguments );
+        }
+        catch ( final Throwable t )
+        {
+            // same failure as Constructor.newInstance()
+            throw new InvocationTargetException( t );
+        }
+
+        for ( final Invocation invocation : invocations )
+        {
+            invocation.invoke( instance );
+        }
+        invocations.clear();
+        return instance;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format( "DeferredInstance[type=%s, invocations=%s]", type.getName(), invocations.size() );
+    }
+
+}
@@ -21,6 +21,7 @@ package org.apache.commons.digester3;
 
 import static java.lang.String.format;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -30,7 +31,9 @@ import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EmptyStackException;
 import java.util.HashMap;
@@ -38,13 +41,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Stack;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.function.Predicate;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -96,6 +102,92 @@ public class Digester
     extends DefaultHandler
 {
 
+    /**
+     * The system property enabling the built-in tokenizer by default, in the Digester instances created without a
+     * parser and by the {@link org.apache.commons.digester3.binder.DigesterLoader}s, when set to {@code true}.
+     *
+     * @see #setUseBuiltInTokenizer(boolean)
+     * @since 3.3
+     */
+    public static final String BUILT_IN_TOKENIZER_PROPERTY = "org.apache.commons.digester3.builtInTokenizer";
+
+    /**
+     * Unsynchronized, array-backed, object stack used for the named stacks.
+     */
+    private static final class NamedStack
+    {
+
+        private Object[] elements = new Object[8];
+
+        private int size;
+
+        void clear()
+        {
+            Arrays.fill( elements, 0, size, null );
+            size = 0;
+        }
+
+        boolean isEmpty()
+        {
+            return size == 0;
+        }
+
+        Object peek( final int n )
+        {
+            final int index = size - 1 - n;
+            if ( index < 0 || n < 0 )
+            {
+                throw new EmptyStackException();
+            }
+            return elements[index];
+        }
+
+        Object pop()
+        {
+            if ( size == 0 )
+            {
+                throw new EmptyStackException();
+            }
+            final Object element = elements[--size];
+            elements[size] = null;
+            return element;
+        }
+
+        void push( final Object element )
+        {
+            if ( size == elements.length )
+            {
+                elements = Arrays.copyOf( elements, size << 1 );
+            }
+            elements[size++] = element;
+        }
+
+    }
+
+    /**
+     * Thrown from the SAX callbacks to end a parse stopped by {@link #stop()} or the stop condition, and caught by the
+     * parse methods.
+     */
+    private static final class ParseStoppedException
+        extends SAXException
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        ParseStoppedException()
+        {
+            super( "Parse stopped" );
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace()
+        {
+            // control flow only, the stack trace is never looked at
+            return this;
+        }
+
+    }
+
     /**
      * The schema language supported. By default, we use this one.
      */
@@ -259,8 +351,11 @@ public class Digester
      */
     private Substitutor substitutor;
 
-    /** Stacks used for interrule communication, indexed by name String */
-    private final HashMap<String, Stack<Object>> stacksByName = new HashMap<>();
+    /** Stacks used for interrule communication, indexed by {@link StackHandle} */
+    private NamedStack[] namedStacks = new NamedStack[0];
+
+    /** Handles of the stacks used for interrule communication, indexed by name String */
+    private final HashMap<String, StackHandle> stackHandles = new HashMap<>();
 
     /**
      * If not null, then calls by the parser to this object's characters, startElement, endElement and
@@ -276,6 +371,122 @@ public class Digester
      */
     private StackAction stackAction;
 
+    /**
+     * Collects the duration of every rule callback when set. This may be null and so a null check is always required
+     * before use.
+     */
+    private RuleProfiler ruleProfiler;
+
+    /**
+     * Notified at the end of every document parsed through the parse methods. This may be null and so a null check is
+     * always required before use.
+     */
+    private ParseListener parseListener;
+
+    /**
+     * Cache of the resolved entities, shared with other Digester instances. This may be null and so a null check is
+     * always required before use.
+     */
+    private ResourceCache resourceCache;
+
+    /**
+     * The number of elements received since the current parse started.
+     */
+    private long elementCount;
+
+    /**
+     * The number of rules matched since the current parse started.
+     */
+    private long ruleFiringCount;
+
+    /**
+     * Set by {@link #stop()} to end the current parse once the current element is processed.
+     */
+    private boolean stopRequested;
+
+    /**
+     * Ends the current parse when satisfied after an element ended. This may be null and so a null check is always
+     * required before use.
+     */
+    private Predicate<Digester> stopCondition;
+
+    /**
+     * Records the events received during the current parse when set.
+     */
+    private SaxRecorder recorder;
+
+    /**
+     * The number of events buffered between the tokenizer and the rules when parsing is pipelined, 0 when disabled.
+     */
+    private int pipelineCapacity;
+
+    /**
+     * The executor running the tokenizer when parsing is pipelined, null to start a thread per parse.
+     */
+    private Executor pipelineExecutor;
+
+    /**
+     * Whether the rules are compiled to a specialized content handler when possible.
+     */
+    private boolean compileRules;
+
+    /**
+     * The handler the rules have been compiled to, null if they cannot be compiled.
+     */
+    private CompiledRulesHandler compiledRules;
+
+    /**
+     * Whether the documents are parsed by the built-in tokenizer when no DTD, validation, XInclude or schema is
+     * involved.
+     */
+    private boolean useBuiltInTokenizer;
+
+    /**
+     * The tokenizer of the document being fed by chunks, null if none.
+     */
+    private XmlTokenizer feedTokenizer;
+
+    /**
+     * Whether the parse of the document being fed has been stopped, the remaining chunks are ignored.
+     */
+    private boolean feedStopped;
+
+    /**
+     * The number of bytes of the document being fed so far.
+     */
+    private long feedBytes;
+
+    /**
+     * When the first chunk of the document being fed arrived.
+     */
+    private long feedStart;
+
+    /**
+     * Whether {@link #compiledRules} reflects the current rules, reset when rules are added or replaced.
+     */
+    private boolean rulesCompiled;
+
+    /**
+     * The resource budgets enforced while parsing. This may be null and so a null check is always required before
+     * use.
+     */
+    private ParseLimits parseLimits;
+
+    /**
+     * The current element nesting depth.
+     */
+    private int depth;
+
+    /**
+     * The number of characters received since the current document started.
+     */
+    private long totalCharacters;
+
+    /**
+     * The {@link System#nanoTime()} value when the current document started.
+     */
+    private long documentStartNanos;
+
     /**
      * <p>
      * {@code List} of {@code InputSource} instances created by a {@code createInputSourceFromURL()}
@@ -290,6 +501,7 @@ public class Digester
      */
     public Digester()
     {
+        useBuiltInTokenizer = Boolean.getBoolean( BUILT_IN_TOKENIZER_PROPERTY );
     }
 
     /**
@@ -695,6 +907,7 @@ public class Digester
     {
         rule.setDigester( this );
         getRules().add( pattern, rule );
+        rulesCompiled = false;
     }
 
     /**
@@ -863,6 +1076,28 @@ public class Digester
         addRule( pattern, new SetRootRule( methodName, paramType ) );
     }
 
+    /**
+     * Add a rule stopping the parse once an element matching the specified pattern ended, the end rules of the element
+     * included.
+     *
+     * @param pattern Element matching pattern
+     * @see #stop()
+     * @since 3.3
+     */
+    public void addStop( final String pattern )
+    {
+        addRule( pattern, new Rule()
+        {
+
+            @Override
+            public void end( final String namespace, final String name )
+            {
+                getDigester().stop();
+            }
+
+        } );
+    }
+
     /**
      * Add a "set top" rule for the specified parameters.
      *
@@ -996,6 +1231,12 @@ public class Digester
     public void characters( final char[] buffer, final int start, final int length )
         throws SAXException
     {
+        final ParseLimits limits = parseLimits;
+        if ( limits != null )
+        {
+            checkCharacters( limits, length );
+        }
+
         if ( customContentHandler != null )
         {
             // forward calls instead of handling them here
@@ -1063,7 +1304,10 @@ public class Digester
         params.clear();
         publicId = null;
         stack.clear();
-        stacksByName.clear();
+        for ( final NamedStack namedStack : namedStacks )
+        {
+            namedStack.clear();
+        }
         customContentHandler = null;
     }
 
@@ -1236,11 +1480,17 @@ public class Digester
         }
 
         // Fire "finish" events for all defined rules
+        final RuleProfiler profiler = ruleProfiler;
         for ( final Rule rule : getRules().rules() )
         {
             try
             {
+                final long start = profiler != null ? System.nanoTime() : 0L;
                 rule.finish();
+                if ( profiler != null )
+                {
+                    profiler.record( null, rule, RuleProfiler.Phase.FINISH, System.nanoTime() - start );
+                }
             }
             catch ( final Exception e )
             {
@@ -1262,6 +1512,7 @@ public class Digester
     public void endElement( final String namespaceURI, final String localName, final String qName )
         throws SAXException
     {
+        depth--;
         if ( customContentHandler != null )
         {
             // forward calls instead of handling them here
@@ -1299,6 +1550,7 @@ public class Digester
             {
                 bodyText = substitutor.substitute( bodyText );
             }
+            final RuleProfiler profiler = ruleProfiler;
             for ( final Rule rule : rules )
             {
                 try
@@ -1307,7 +1559,12 @@ public class Digester
                     {
                         log.debug( "  Fire body() for " + rule );
                     }
+                    final long start = profiler != null ? System.nanoTime() : 0L;
                     rule.body( namespaceURI, name, bodyText );
+                    if ( profiler != null )
+                    {
+                        profiler.record( match, rule, RuleProfiler.Phase.BODY, System.nanoTime() - start );
+                    }
                 }
                 catch ( final Exception e )
                 {
@@ -1336,6 +1593,7 @@ public class Digester
         // Fire "end" events for all relevant rules in reverse order
         if ( rules != null )
         {
+            final RuleProfiler profiler = ruleProfiler;
             for ( int i = 0; i < rules.size(); i++ )
             {
                 final int j = rules.size() - i - 1;
@@ -1346,7 +1604,12 @@ public class Digester
                     {
                         log.debug( "  Fire end() for " + rule );
                     }
+                    final long start = profiler != null ? System.nanoTime() : 0L;
                     rule.end( namespaceURI, name );
+                    if ( profiler != null )
+                    {
+                        profiler.record( match, rule, RuleProfiler.Phase.END, System.nanoTime() - start );
+                    }
                 }
                 catch ( final Exception e )
                 {
@@ -1371,6 +1634,11 @@ public class Digester
         {
             match = "";
         }
+
+        if ( stopRequested || ( stopCondition != null && stopCondition.test( this ) ) )
+        {
+            throw new ParseStoppedException();
+        }
     }
 
     @Override
@@ -1659,6 +1927,18 @@ public class Digester
         return this.namespaceAware;
     }
 
+    /**
+     * Gets the listener notified at the end of every parsed document, if any.
+     *
+     * @return The listener notified at the end of every parsed document, null if none has been set
+     * @see #setParseListener(ParseListener)
+     * @since 3.3
+     */
+    public ParseListener getParseListener()
+    {
+        return parseListener;
+    }
+
     /**
      * Gets the SAXParser we will use to parse the input stream.
      *
@@ -1725,6 +2005,18 @@ public class Digester
         return Collections.unmodifiableMap( entityValidator );
     }
 
+    /**
+     * Gets the cache the resolved entities are read through, if any.
+     *
+     * @return The cache the resolved entities are read through, null if entities are read on every resolution
+     * @see #setResourceCache(ResourceCache)
+     * @since 3.3
+     */
+    public ResourceCache getResourceCache()
+    {
+        return resourceCache;
+    }
+
     /**
      * Returns the root element of the tree of objects created as a result of applying the rule objects to the input
      * XML.
@@ -1761,6 +2053,54 @@ public class Digester
         return getRules().getNamespaceURI();
     }
 
+    /**
+     * Gets the number of events buffered between the tokenizer and the rules when parsing is pipelined.
+     *
+     * @return The number of events buffered when parsing is pipelined, 0 if parsing is not pipelined
+     * @see #setPipelineCapacity(int)
+     * @since 3.3
+     */
+    public int getPipelineCapacity()
+    {
+        return pipelineCapacity;
+    }
+
+    /**
+     * Gets the executor running the tokenizer when parsing is pipelined.
+     *
+     * @return The executor running the tokenizer, null if a new thread is started for each parse
+     * @see #setPipelineExecutor(Executor)
+     * @since 3.3
+     */
+    public Executor getPipelineExecutor()
+    {
+        return pipelineExecutor;
+    }
+
+    /**
+     * Gets the resource budgets enforced while parsing, if any.
+     *
+     * @return The resource budgets enforced while parsing, null if none is enforced
+     * @see #setParseLimits(ParseLimits)
+     * @since 3.3
+     */
+    public ParseLimits getParseLimits()
+    {
+        return parseLimits;
+    }
+
+    /**
+     * Gets the profiler timing the rule callbacks, if any.
+     *
+     * @return The profiler timing the rule callbacks, null if profiling is disabled
+     * @see #setRuleProfiler(RuleProfiler)
+     * @since 3.3
+     */
+    public RuleProfiler getRuleProfiler()
+    {
+        return ruleProfiler;
+    }
+
     /**
      * Gets the {@code Rules} implementation object containing our rules collection and associated matching
      * policy. If none has been established, a default implementation will be created and returned.
@@ -1802,6 +2142,37 @@ public class Digester
         return stackAction;
     }
 
+    /**
+     * Resolves the stack with the given name, creating it if it doesn't exist yet, and returns a handle to access it
+     * without any further name lookup. Rules should resolve the handles they need once, in
+     * {@link Rule#setDigester(Digester)}.
+     *
+     * @param stackName The name of the stack
+     * @return The handle of the stack with the given name, the same instance for every call with the same name
+     * @since 3.3
+     */
+    public StackHandle getStackHandle( final String stackName )
+    {
+        StackHandle handle = stackHandles.get( stackName );
+        if ( handle == null )
+        {
+            handle = new StackHandle( this, stackName, namedStacks.length );
+            namedStacks = Arrays.copyOf( namedStacks, namedStacks.length + 1 );
+            namedStacks[handle.getIndex()] = new NamedStack();
+            stackHandles.put( stackName, handle );
+        }
+        return handle;
+    }
+
+    private NamedStack getNamedStack( final StackHandle handle )
+    {
+        if ( handle.getDigester() != this )
+        {
+            throw new IllegalArgumentException( handle + " has not been created by this Digester" );
+        }
+        return namedStacks[handle.getIndex()];
+    }
+
     /**
      * Gets the {@code Substitutor} used to convert attributes and body text.
      *
@@ -1886,6 +2257,26 @@ public class Digester
         return reader;
     }
 
+    /**
+     * Returns the reader parsing the documents: the built-in tokenizer when enabled and possible, the JAXP reader
+     * otherwise.
+     */
+    private XMLReader getParsingReader()
+        throws SAXException
+    {
+        if ( !useBuiltInTokenizer || validating || xincludeAware || schema != null )
+        {
+            return getXMLReader();
+        }
+
+        final XMLReader tokenizer = new XmlTokenizerReader( this, namespaceAware );
+        tokenizer.setDTDHandler( this );
+        tokenizer.setContentHandler( this );
+        tokenizer.setEntityResolver( entityResolver != null ? entityResolver : this );
+        tokenizer.setErrorHandler( errorHandler != null ? errorHandler : this );
+        return tokenizer;
+    }
+
     /**
      * Gets the XML Schema used when parsing.
      *
@@ -1906,6 +2297,12 @@ public class Digester
             saxLog.debug( "ignorableWhitespace(" + new String( buffer, start, len ) + ")" );
         }
 
+        final ParseLimits limits = parseLimits;
+        if ( limits != null )
+        {
+            checkTotalCharacters( limits, len );
+        }
+
         // No processing required
     }
 
@@ -1928,6 +2325,31 @@ public class Digester
         // Nothing required by default
     }
 
+    /**
+     * Returns true if the rules are compiled to a specialized content handler when possible.
+     *
+     * @return true if the rules are compiled to a specialized content handler when possible
+     * @see #setCompileRules(boolean)
+     * @since 3.3
+     */
+    public boolean isCompileRules()
+    {
+        return compileRules;
+    }
+
+    /**
+     * Returns true if the documents are parsed by the built-in tokenizer when no DTD, validation, XInclude or schema
+     * is involved.
+     *
+     * @return true if the documents are parsed by the built-in tokenizer when possible
+     * @see #setUseBuiltInTokenizer(boolean)
+     * @since 3.3
+     */
+    public boolean isUseBuiltInTokenizer()
+    {
+        return useBuiltInTokenizer;
+    }
+
     /**
      * Checks the Digester instance has been configured.
      *
@@ -1953,13 +2375,39 @@ public class Digester
      */
     public boolean isEmpty( final String stackName )
     {
-        boolean result = true;
-        final Stack<Object> namedStack = stacksByName.get( stackName );
-        if ( namedStack != null )
-        {
-            result = namedStack.isEmpty();
-        }
-        return result;
+        final StackHandle handle = stackHandles.get( stackName );
+        return handle == null || isEmpty( handle );
+    }
+
+    /**
+     * Is the stack referenced by the given handle empty?
+     *
+     * @param handle The handle of the stack whose emptiness should be evaluated
+     * @return true if the given stack if empty
+     * @since 3.3
+     */
+    public boolean isEmpty( final StackHandle handle )
+    {
+        return getNamedStack( handle ).isEmpty();
+    }
+
+    /**
+     * Resolves, ahead of the first parse, the classes, constructors, methods, bean properties and converters the
+     * registered rules reference, and compiles the rules if {@link #isCompileRules()}. The reflection caches filled
+     * on the way are shared by all the {@code Digester} instances.
+     * <p>
+     * The classes of the objects on the stack are inferred from the {@link ObjectCreateRule}s of the patterns
+     * registered in a {@link RulesBase}; the references to objects whose class is only known while parsing, e.g.
+     * pushed before parsing or by custom rules, are not checked.
+     *
+     * @return The descriptions of the references that cannot be resolved, empty if none
+     * @since 3.3
+     */
+    public List<String> link()
+    {
+        final List<String> problems = new RulesLinker( this ).link();
+        getCompiledRules();
+        return problems;
     }
 
     @Override
@@ -2042,20 +2490,370 @@ public class Digester
             systemId = "(already loaded from stream)";
         }
 
+        final ParseListener listener = parseListener;
+        final long start = listener != null ? System.nanoTime() : 0L;
+        final InputSource source;
+        CountingInputStream byteCounter = null;
+        CountingReader charCounter = null;
+        if ( listener != null )
+        {
+            // don't alter the caller's input source, the streams are wrapped in a copy
+            source = new InputSource();
+            source.setPublicId( input.getPublicId() );
+            source.setSystemId( input.getSystemId() );
+            source.setEncoding( input.getEncoding() );
+            if ( input.getCharacterStream() != null )
+            {
+                charCounter = new CountingReader( input.getCharacterStream() );
+                source.setCharacterStream( charCounter );
+            }
+            else if ( input.getByteStream() != null )
+            {
+                byteCounter = new CountingInputStream( input.getByteStream() );
+                source.setByteStream( byteCounter );
+            }
+        }
+        else
+        {
+            source = input;
+        }
+        elementCount = 0;
+        ruleFiringCount = 0;
+
         try
         {
-            getXMLReader().parse( input );
+            final XMLReader reader = getParsingReader();
+            try
+            {
+                if ( recorder != null )
+                {
+                    reader.setContentHandler( recorder );
+                    reader.parse( source );
+                }
+                else if ( pipelineCapacity > 0 && !hasLiveLocatorRule() )
+                {
+                    new PipelinedParser( this, pipelineCapacity ).parse( reader, source, pipelineExecutor );
+                }
+                else
+                {
+                    final CompiledRulesHandler handler = getCompiledRules();
+                    if ( handler != null )
+                    {
+                        reader.setContentHandler( handler );
+                    }
+                    reader.parse( source );
+                }
+            }
+            catch ( final ParseStoppedException e )
+            {
+                closeQuietly( source );
+                endDocument();
+            }
         }
         catch ( final IOException e )
         {
             log.error( format( "An error occurred while reading stream from '%s', see nested exceptions", systemId ),
                        e );
+            finishStreamingBodies();
+            if ( listener != null )
+            {
+                listener.parseFailed( this, newParseStatistics( input, byteCounter, charCounter, start ), e );
+            }
             throw e;
         }
+        catch ( final SAXException | RuntimeException e )
+        {
+            finishStreamingBodies();
+            if ( listener != null )
+            {
+                listener.parseFailed( this, newParseStatistics( input, byteCounter, charCounter, start ), e );
+            }
+            throw e;
+        }
+        cleanup();
+        if ( listener != null )
+        {
+            listener.parseCompleted( this, newParseStatistics( input, byteCounter, charCounter, start ) );
+        }
+        return this.getRoot();
+    }
+
+    /**
+     * Parse the content of the specified input source using this Digester, recording the events it receives with the
+     * given recorder, so that they can be replayed with {@link #parse(SaxRecording)}. Parsing is not pipelined while
+     * recording. Returns the root element from the object stack (if any).
+     *
+     * @param <T> The type used to auto-cast the returned object to the assigned variable type
+     * @param input Input source containing the XML data to be parsed
+     * @param recorder The recorder capturing the events, created without a delegate handler
+     * @return The root element from the object stack (if any)
+     * @throws IOException if an input/output error occurs
+     * @throws SAXException if a parsing exception occurs
+     * @since 3.3
+     */
+    public <T> T parse( final InputSource input, final SaxRecorder recorder )
+        throws IOException, SAXException
+    {
+        if ( recorder.getDelegate() != null )
+        {
+            throw new IllegalArgumentException( "The recorder already forwards the events to another handler" );
+        }
+        recorder.setDelegate( this );
+        this.recorder = recorder;
+        try
+        {
+            return parse( input );
+        }
+        finally
+        {
+            this.recorder = null;
+            recorder.setDelegate( null );
+        }
+    }
+
+    /**
+     * Replays a recording of the events of a document to this Digester, without running the XML parser. The rules
+     * fire exactly as they would parsing the recorded document. Returns the root element from the object stack (if
+     * any).
+     *
+     * @param <T> The type used to auto-cast the returned object to the assigned variable type
+     * @param recording The recorded events of a document
+     * @return The root element from the object stack (if any)
+     * @throws SAXException if a rule fails
+     * @since 3.3
+     */
+    public <T> T parse( final SaxRecording recording )
+        throws SAXException
+    {
+        if ( recording == null )
+        {
+            throw new IllegalArgumentException( "SaxRecording to replay is null" );
+        }
+
+        configure();
+
+        final ParseListener listener = parseListener;
+        final long start = listener != null ? System.nanoTime() : 0L;
+        elementCount = 0;
+        ruleFiringCount = 0;
+        try
+        {
+            try
+            {
+                recording.replay( this );
+            }
+            catch ( final ParseStoppedException e )
+            {
+                endDocument();
+            }
+        }
+        catch ( final SAXException | RuntimeException e )
+        {
+            finishStreamingBodies();
+            if ( listener != null )
+            {
+                listener.parseFailed( this, new ParseStatistics( recording.getSystemId(), 0, elementCount,
+                                                                 ruleFiringCount, System.nanoTime() - start ), e );
+            }
+            throw e;
+        }
+        cleanup();
+        if ( listener != null )
+        {
+            listener.parseCompleted( this, new ParseStatistics( recording.getSystemId(), 0, elementCount,
+                                                                ruleFiringCount, System.nanoTime() - start ) );
+        }
+        return this.getRoot();
+    }
+
+    /**
+     * Parses the next chunk of a document fed incrementally, for instance by a non-blocking channel or an event loop,
+     * without blocking on the input. The rules fire as soon as enough input has been fed, on the calling thread, and
+     * the bytes of an incomplete markup are kept until the next chunk; the document is complete once
+     * {@link #endOfInput()} is called.
+     * <p>
+     * The chunks are parsed by a built-in tokenizer rather than by the configured XML parser: the well-formedness is
+     * checked, the encoding is detected from the byte order mark or the XML declaration, UTF-8 by default, and the
+     * document type declaration is skipped, only the predefined entities and the character references are resolved.
+     * The document is neither validated nor XIncluded.
+     *
+     * @param bytes The next bytes of the document, all consumed
+     * @throws SAXException if the document is not well-formed, or a rule fails; the document is then discarded
+     * @since 3.3
+     */
+    public void feed( final ByteBuffer bytes )
+        throws SAXException
+    {
+        if ( bytes == null )
+        {
+            throw new IllegalArgumentException( "ByteBuffer to feed is null" );
+        }
+
+        if ( feedTokenizer == null )
+        {
+            configure();
+
+            final CompiledRulesHandler handler = getCompiledRules();
+            feedTokenizer = new XmlTokenizer( handler != null ? handler : this, namespaceAware, null, null, null );
+            feedStopped = false;
+            feedBytes = 0;
+            feedStart = System.nanoTime();
+            elementCount = 0;
+            ruleFiringCount = 0;
+        }
+
+        feedBytes += bytes.remaining();
+        if ( feedStopped )
+        {
+            bytes.position( bytes.limit() );
+            return;
+        }
+        try
+        {
+            feedTokenizer.feed( bytes );
+        }
+        catch ( final ParseStoppedException e )
+        {
+            bytes.position( bytes.limit() );
+            feedStopped = true;
+            endDocument();
+        }
+        catch ( final SAXException | RuntimeException e )
+        {
+            feedFailed( e );
+            throw e;
+        }
+    }
+
+    /**
+     * Ends the document fed by {@link #feed(ByteBuffer)}, checking it is complete. Returns the root element from the
+     * object stack (if any); the next chunk fed starts a new document.
+     *
+     * @param <T> The type used to auto-cast the returned object to the assigned variable type
+     * @return The root element from the object stack (if any)
+     * @throws SAXException if the document is not complete, or a rule fails
+     * @since 3.3
+     */
+    public <T> T endOfInput()
+        throws SAXException
+    {
+        if ( feedTokenizer == null )
+        {
+            throw new IllegalStateException( "No document is being fed" );
+        }
+
+        try
+        {
+            if ( !feedStopped )
+            {
+                feedTokenizer.end();
+            }
+        }
+        catch ( final ParseStoppedException e )
+        {
+            endDocument();
+        }
+        catch ( final SAXException | RuntimeException e )
+        {
+            feedFailed( e );
+            throw e;
+        }
+        feedTokenizer = null;
         cleanup();
+        if ( parseListener != null )
+        {
+            parseListener.parseCompleted( this, new ParseStatistics( null, feedBytes, elementCount, ruleFiringCount,
+                                                                     System.nanoTime() - feedStart ) );
+        }
         return this.getRoot();
     }
 
+    /**
+     * Discards the document being fed after a failure.
+     */
+    private void feedFailed( final Exception e )
+    {
+        feedTokenizer = null;
+        finishStreamingBodies();
+        if ( parseListener != null )
+        {
+            parseListener.parseFailed( this, new ParseStatistics( null, feedBytes, elementCount, ruleFiringCount,
+                                                                  System.nanoTime() - feedStart ), e );
+        }
+    }
+
+    /**
+     * Finishes the streaming body rules after a failed parse, the body of an element that did not end would stay open
+     * otherwise; the other rules are not finished, their pending work belongs to a document that failed.
+     */
+    private void finishStreamingBodies()
+    {
+        for ( final Rule rule : getRules().rules() )
+        {
+            if ( rule instanceof StreamingBodyRule )
+            {
+                try
+                {
+                    rule.finish();
+                }
+                catch ( final Exception e )
+                {
+                    log.error( "Finish event threw exception", e );
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the streams of an input source whose parse was stopped or aborted, the parser leaves them open.
+     */
+    void closeQuietly( final InputSource source )
+    {
+        try
+        {
+            if ( source.getCharacterStream() != null )
+            {
+                source.getCharacterStream().close();
+            }
+            else if ( source.getByteStream() != null )
+            {
+                source.getByteStream().close();
+            }
+        }
+        catch ( final IOException e )
+        {
+            log.warn( format( "An error occurred while closing the abandoned input %s", source.getSystemId() ), e );
+        }
+    }
+
+    private boolean hasLiveLocatorRule()
+    {
+        for ( final Rule rule : getRules().rules() )
+        {
+            if ( rule instanceof LiveLocatorRule )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ParseStatistics newParseStatistics( final InputSource input, final CountingInputStream byteCounter,
+                                                final CountingReader charCounter, final long start )
+    {
+        long inputLength = 0;
+        if ( byteCounter != null )
+        {
+            inputLength = byteCounter.getCount();
+        }
+        else if ( charCounter != null )
+        {
+            inputLength = charCounter.getCount();
+        }
+        return new ParseStatistics( input.getSystemId(), inputLength, elementCount, ruleFiringCount,
+                                    System.nanoTime() - start );
+    }
+
     /**
      * Parse the content of the specified input stream using this Digester. Returns the root element from the object
      * stack (if any).
@@ -2141,6 +2939,78 @@ public class Digester
         return this.parse( createInputSourceFromURL( url ) );
     }
 
+    /**
+     * Parse a single record of a large document using this Digester, without parsing the rest of the document. Returns
+     * the root element from the object stack (if any).
+     *
+     * @param <T> The type used to auto-cast the returned object to the assigned variable type
+     * @param document The indexed document
+     * @param index The index of the records of {@code document}
+     * @param ordinal The ordinal of the record to parse
+     * @return The root element from the object stack (if any)
+     * @throws IOException if an input/output error occurs
+     * @throws SAXException if a parsing exception occurs
+     * @see RecordIndex
+     * @since 3.3
+     */
+    public <T> T parseRecord( final File document, final RecordIndex index, final int ordinal )
+        throws IOException, SAXException
+    {
+        return parseRecords( document, index, ordinal, ordinal + 1 );
+    }
+
+    /**
+     * Parse the first record with the given key of a large document using this Digester, without parsing the rest of
+     * the document. Returns the root element from the object stack (if any).
+     *
+     * @param <T> The type used to auto-cast the returned object to the assigned variable type
+     * @param document The indexed document
+     * @param index The index of the records of {@code document}, built with a key attribute
+     * @param key The key of the record to parse
+     * @return The root element from the object stack (if any)
+     * @throws IOException if an input/output error occurs
+     * @throws SAXException if a parsing exception occurs
+     * @see RecordIndex
+     * @since 3.3
+     */
+    public <T> T parseRecord( final File document, final RecordIndex index, final String key )
+        throws IOException, SAXException
+    {
+        final int ordinal = index.getOrdinal( key );
+        if ( ordinal == -1 )
+        {
+            throw new IllegalArgumentException( format( "No record with %s '%s' in %s", index.getKeyAttribute(), key,
+                                                        document ) );
+        }
+        return parseRecord( document, index, ordinal );
+    }
+
+    /**
+     * Parse a range of records of a large document using this Digester, as a single document, without parsing the rest
+     * of the document. Returns the root element from the object stack (if any).
+     *
+     * @param <T> The type used to auto-cast the returned object to the assigned variable type
+     * @param document The indexed document
+     * @param index The index of the records of {@code document}
+     * @param from The ordinal of the first record to parse, inclusive
+     * @param to The ordinal of the last record to parse, exclusive
+     * @return The root element from the object stack (if any)
+     * @throws IOException if an input/output error occurs
+     * @throws SAXException if a parsing exception occurs
+     * @see RecordIndex#openRecords(File, int, int)
+     * @since 3.3
+     */
+    public <T> T parseRecords( final File document, final RecordIndex index, final int from, final int to )
+        throws IOException, SAXException
+    {
+        try ( InputStream records = index.openRecords( document, from, to ) )
+        {
+            final InputSource source = new InputSource( records );
+            source.setSystemId( document.toURI().toString() );
+            return parse( source );
+        }
+    }
+
     /**
      * Return the top object on the stack without removing it.
      *
@@ -2223,9 +3093,8 @@ public class Digester
      */
     public <T> T peek( final String stackName, final int n )
     {
-        T result;
-        final Stack<Object> namedStack = stacksByName.get( stackName );
-        if ( namedStack == null )
+        final StackHandle handle = stackHandles.get( stackName );
+        if ( handle == null )
         {
             if ( log.isDebugEnabled() )
             {
@@ -2233,15 +3102,38 @@ public class Digester
             }
             throw new EmptyStackException();
         }
+        return peek( handle, n );
+    }
 
-        final int index = namedStack.size() - 1 - n;
-        if ( index < 0 )
-        {
-            throw new EmptyStackException();
-        }
-        result = this.npeSafeCast( namedStack.get( index ) );
+    /**
+     * Gets the top object from the stack referenced by the given handle. This method does not remove the object from
+     * the stack.
+     *
+     * @param <T> The type used to auto-cast the returned object to the assigned variable type
+     * @param handle The handle of the stack to be peeked
+     * @return The top {@code Object} on the stack
+     * @throws EmptyStackException if the stack is empty
+     * @since 3.3
+     */
+    public <T> T peek( final StackHandle handle )
+    {
+        return peek( handle, 0 );
+    }
 
-        return result;
+    /**
+     * Gets the n'th object down the stack referenced by the given handle. This method does not remove the object from
+     * the stack.
+     *
+     * @param <T> The type used to auto-cast the returned object to the assigned variable type
+     * @param handle The handle of the stack to be peeked
+     * @param n Index of the desired element, where 0 is the top of the stack, 1 is the next element down, and so on.
+     * @return The specified {@code Object} on the stack.
+     * @throws EmptyStackException if the stack holds no more than {@code n} objects
+     * @since 3.3
+     */
+    public <T> T peek( final StackHandle handle, final int n )
+    {
+        return this.npeSafeCast( getNamedStack( handle ).peek( n ) );
     }
 
     /**
@@ -2340,8 +3232,8 @@ public class Digester
      */
     public <T> T pop( final String stackName )
     {
-        final Stack<Object> namedStack = stacksByName.get( stackName );
-        if ( namedStack == null )
+        final StackHandle handle = stackHandles.get( stackName );
+        if ( handle == null )
         {
             if ( log.isDebugEnabled() )
             {
@@ -2349,12 +3241,25 @@ public class Digester
             }
             throw new EmptyStackException();
         }
+        return pop( handle );
+    }
 
-        T result = this.npeSafeCast( namedStack.pop() );
+    /**
+     * Pops (gets and removes) the top object from the stack referenced by the given handle.
+     *
+     * @param <T> The type used to auto-cast the returned object to the assigned variable type
+     * @param handle The handle of the stack from which the top value is to be popped.
+     * @return The top {@code Object} on the stack
+     * @throws EmptyStackException if the stack is empty
+     * @since 3.3
+     */
+    public <T> T pop( final StackHandle handle )
+    {
+        T result = this.npeSafeCast( getNamedStack( handle ).pop() );
 
         if ( stackAction != null )
         {
-            result = stackAction.onPop( this, stackName, result );
+            result = stackAction.onPop( this, handle.getName(), result );
         }
 
         return result;
@@ -2416,14 +3321,27 @@ public class Digester
      * @param value The Object to be pushed onto the named stack.
      * @since 1.6
      */
-    public <T> void push( final String stackName, T value )
+    public <T> void push( final String stackName, final T value )
     {
+        push( getStackHandle( stackName ), value );
+    }
+
+    /**
+     * Pushes the given object onto the stack referenced by the given handle.
+     *
+     * @param <T> any type of the pushed object
+     * @param handle The handle of the stack onto which the object should be pushed
+     * @param value The Object to be pushed onto the stack.
+     * @since 3.3
+     */
+    public <T> void push( final StackHandle handle, T value )
+    {
+        final NamedStack namedStack = getNamedStack( handle );
         if ( stackAction != null )
         {
-            value = stackAction.onPush( this, stackName, value );
+            value = stackAction.onPush( this, handle.getName(), value );
         }
 
-        Stack<Object> namedStack = stacksByName.computeIfAbsent( stackName, k -> new Stack<>() );
         namedStack.push( value );
     }
 
@@ -2447,6 +3365,63 @@ public class Digester
         stack.push( object );
     }
 
+    /**
+     * Replaces the root object, if it is the given value holder, with the object constructed from it.
+     *
+     * @param holder the value holder pushed in place of the object
+     * @param object the object constructed
+     */
+    void replaceRoot( final DeferredInstance holder, final Object object )
+    {
+        if ( root == holder )
+        {
+            root = object;
+        }
+    }
+
+    /**
+     * Sets the current rule match path, maintained by a {@link CompiledRulesHandler}.
+     *
+     * @param match the current rule match path
+     */
+    void setMatch( final String match )
+    {
+        this.match = match;
+    }
+
+    /**
+     * Counts an element handled by a {@link CompiledRulesHandler}.
+     *
+     * @param firedRules the number of rules matching the element
+     */
+    void countElement( final int firedRules )
+    {
+        elementCount++;
+        ruleFiringCount += firedRules;
+    }
+
+    /**
+     * Returns the handler the rules are compiled to, compiling them if rules were added or replaced since the last
+     * compilation.
+     *
+     * @return the handler the rules are compiled to, null if the rules are not compiled
+     */
+    private CompiledRulesHandler getCompiledRules()
+    {
+        if ( !compileRules || substitutor != null || ruleProfiler != null || parseLimits != null
+            || stopCondition != null || customContentHandler != null )
+        {
+            return null;
+        }
+
+        if ( !rulesCompiled )
+        {
+            compiledRules = CompiledRulesHandler.compile( this );
+            rulesCompiled = true;
+        }
+        return compiledRules;
+    }
+
     /**
      * <p>
      * Push a new object onto the top of the parameters stack.
@@ -2608,6 +3583,13 @@ public class Digester
 
         try
         {
+            if ( resourceCache != null )
+            {
+                final InputSource source =
+                    new InputSource( new ByteArrayInputStream( resourceCache.getContent( entityURL ) ) );
+                source.setSystemId( entityURL.toExternalForm() );
+                return source;
+            }
             return createInputSourceFromURL( entityURL );
         }
         catch ( final Exception e )
@@ -2626,6 +3608,52 @@ public class Digester
         this.classLoader = classLoader;
     }
 
+    /**
+     * Sets whether the rules are compiled to a specialized content handler when possible, false by default.
+     * <p>
+     * The compiled handler walks a tree of the element names of the patterns instead of building and looking up the
+     * match path of every element, only collects the body text of the elements having rules reading it, and replaces
+     * {@link ObjectCreateRule}, {@link SetPropertiesRule} and {@link BeanPropertySetterRule} with equivalents calling
+     * the constructors and setters through method handles resolved once per class and property.
+     * <p>
+     * The rules are only compiled when the {@link RulesBase} rules are made only of {@link ObjectCreateRule},
+     * {@link SetPropertiesRule}, {@link BeanPropertySetterRule}, {@link CallMethodRule}, {@link CallParamRule} and
+     * {@link SetNextRule} instances, not subclasses, bound to patterns without wildcards and without namespace URI.
+     * They are not compiled either when a {@link Substitutor}, a {@link RuleProfiler}, {@link ParseLimits}, a stop
+     * condition, a custom content handler or pipelined parsing is set. Otherwise the documents are parsed by the
+     * generic dispatch, as when the compilation is disabled. The rules are compiled on the first parse, and again after
+     * rules are added through {@link #addRule(String, Rule)} and the methods built on it, or replaced through
+     * {@link #setRules(Rules)}; changes made directly to the {@link Rules} returned by {@link #getRules()} are not
+     * detected.
+     *
+     * @param compileRules true to compile the rules to a specialized content handler when possible
+     * @since 3.3
+     */
+    public void setCompileRules( final boolean compileRules )
+    {
+        this.compileRules = compileRules;
+        rulesCompiled = false;
+    }
+
+    /**
+     * Parses the documents with the built-in tokenizer, a minimal non-validating XML parser checking only the
+     * well-formedness, rather than with the JAXP parser, for trusted documents. The tokenizer resolves the predefined
+     * entities and the character references, and reports interned element names, the text as ranges of its buffer
+     * and a reused attributes view, which is cheaper than the JAXP parser.
+     * <p>
+     * The JAXP parser is still used when validation, XInclude or a schema is enabled, and for the documents with a
+     * document type declaration, the input read until the declaration is replayed to it. The features and properties
+     * set on the JAXP parser do not apply to the built-in tokenizer. Disabled by default, unless the
+     * {@link #BUILT_IN_TOKENIZER_PROPERTY} system property is set when this digester is created without a parser.
+     *
+     * @param useBuiltInTokenizer true to parse the documents with the built-in tokenizer when possible
+     * @since 3.3
+     */
+    public void setUseBuiltInTokenizer( final boolean useBuiltInTokenizer )
+    {
+        this.useBuiltInTokenizer = useBuiltInTokenizer;
+    }
+
     /**
      * Redirects (or cancels redirecting) of SAX ContentHandler events to an external object.
      * <p>
@@ -2744,6 +3772,19 @@ public class Digester
         this.namespaceAware = namespaceAware;
     }
 
+    /**
+     * Sets the listener notified, with the {@link ParseStatistics} of the document, whenever one of the
+     * {@code parse} methods completes or fails. Documents fed to the digester used directly as a SAX
+     * {@code ContentHandler} are not reported.
+     *
+     * @param parseListener The listener notified at the end of every parsed document, or {@code null} for none
+     * @since 3.3
+     */
+    public void setParseListener( final ParseListener parseListener )
+    {
+        this.parseListener = parseListener;
+    }
+
     /**
      * Sets the current value of the specified property for the underlying {@code XMLReader} implementation. See <a
      * href="https://www.saxproject.org">the saxproject website</a> for information about the standard SAX2 properties.
@@ -2759,6 +3800,20 @@ public class Digester
         getParser().setProperty( property, value );
     }
 
+    /**
+     * Sets the cache the entities resolved by {@link #resolveEntity(String, String)} are read through, including
+     * external DTDs and, when the parser delegates their resolution to this digester, XIncluded documents. A cache
+     * can be shared by many Digester instances.
+     *
+     * @param resourceCache The cache the resolved entities are read through, or {@code null} to read them on every
+     *            resolution
+     * @since 3.3
+     */
+    public void setResourceCache( final ResourceCache resourceCache )
+    {
+        this.resourceCache = resourceCache;
+    }
+
     /**
      * Sets the public id of the current file being parse.
      *
@@ -2780,6 +3835,110 @@ public class Digester
         getRules().setNamespaceURI( ruleNamespaceURI );
     }
 
+    /**
+     * Enables pipelined parsing: the {@code parse} methods tokenize the document on another thread and fire the
+     * rules on the calling thread, so that both overlap on large documents. Up to {@code pipelineCapacity} events are
+     * buffered between the two threads, beyond that the tokenizer waits for the rules to catch up. An exception
+     * thrown on either thread stops the other one and is rethrown by the {@code parse} method.
+     * <p>
+     * While pipelined, rules see a snapshot of the location of the element being processed through
+     * {@link #getDocumentLocator()}, and the entity resolver and error handler are invoked on the tokenizer thread.
+     * Parsing is not pipelined when a rule implementing {@link LiveLocatorRule} is registered, nor when this digester
+     * is used directly as a SAX {@link ContentHandler}.
+     *
+     * @param pipelineCapacity The number of events buffered between the tokenizer and the rules, 0 to disable
+     *            pipelining
+     * @since 3.3
+     */
+    public void setPipelineCapacity( final int pipelineCapacity )
+    {
+        if ( pipelineCapacity < 0 )
+        {
+            throw new IllegalArgumentException( "Pipeline capacity must not be negative, was " + pipelineCapacity );
+        }
+        this.pipelineCapacity = pipelineCapacity;
+    }
+
+    /**
+     * Sets the executor running the tokenizer when parsing is pipelined, so that threads are reused across parses.
+     * Each pipelined parse submits one task, which must be able to run concurrently with the calling thread: an
+     * executor whose only thread is the one parsing would never start it. By default a new daemon thread is started for
+     * each parse.
+     *
+     * @param pipelineExecutor The executor running the tokenizer, null to start a new thread for each parse
+     * @see #setPipelineCapacity(int)
+     * @since 3.3
+     */
+    public void setPipelineExecutor( final Executor pipelineExecutor )
+    {
+        this.pipelineExecutor = pipelineExecutor;
+    }
+
+    /**
+     * Sets a condition ending the current parse, evaluated after each element ended, e.g.
+     * {@code d -> d.getRoot() != null && d.<Channel>getRoot().getTitle() != null}. When satisfied the parse is stopped
+     * as by {@link #stop()}.
+     *
+     * @param stopCondition The condition ending the parse, or {@code null} to read the documents to the end
+     * @since 3.3
+     */
+    public void setStopCondition( final Predicate<Digester> stopCondition )
+    {
+        this.stopCondition = stopCondition;
+    }
+
+    /**
+     * Gets the condition ending the current parse, if any.
+     *
+     * @return The condition ending the current parse, null if documents are read to the end
+     * @see #setStopCondition(Predicate)
+     * @since 3.3
+     */
+    public Predicate<Digester> getStopCondition()
+    {
+        return stopCondition;
+    }
+
+    /**
+     * Stops the current parse once the element being processed started or ended, typically called from a rule when the
+     * objects needed are complete. The rest of the document is not read: the parse methods close the input, fire the
+     * {@code finish} events of the rules, clean up and return the root object as built so far, as if the document had
+     * ended normally. The elements left open do not receive their end events.
+     * <p>
+     * Stopping is only supported by the {@code parse} methods; when this digester is used directly as a SAX
+     * {@link ContentHandler} the element callbacks throw a {@link SAXException} once stopped.
+     *
+     * @since 3.3
+     */
+    public void stop()
+    {
+        stopRequested = true;
+    }
+
+    /**
+     * Sets the resource budgets enforced while parsing, a document exceeding any of them is rejected with a
+     * {@link ParseLimitExceededException}. No budget is enforced by default.
+     *
+     * @param parseLimits The resource budgets, or {@code null} to disable them
+     * @since 3.3
+     */
+    public void setParseLimits( final ParseLimits parseLimits )
+    {
+        this.parseLimits = parseLimits;
+    }
+
+    /**
+     * Sets the profiler timing every {@code begin}, {@code body}, {@code end} and {@code finish} rule callback.
+     * Profiling is disabled by default and costs a single null check per callback while disabled.
+     *
+     * @param ruleProfiler The profiler timing the rule callbacks, or {@code null} to disable profiling
+     * @since 3.3
+     */
+    public void setRuleProfiler( final RuleProfiler ruleProfiler )
+    {
+        this.ruleProfiler = ruleProfiler;
+    }
+
     /**
      * Sets the {@code Rules} implementation object containing our rules collection and associated matching policy.
      *
@@ -2789,6 +3948,7 @@ public class Digester
     {
         this.rules = rules;
         this.rules.setDigester( this );
+        rulesCompiled = false;
     }
 
     /**
@@ -2876,6 +4036,30 @@ public class Digester
         this.schema = schema;
     }
 
+    /**
+     * Sets the XML Schema to be used when parsing, compiled from the given location through the resource cache, if
+     * set, so that it is compiled only once for all the Digester instances sharing the cache.
+     *
+     * @param schemaUrl The location of the XML Schema
+     * @param schemaLanguage The schema language, e.g. {@link javax.xml.XMLConstants#W3C_XML_SCHEMA_NS_URI}
+     * @throws IOException if the schema cannot be read
+     * @throws SAXException if the schema cannot be compiled
+     * @see #setResourceCache(ResourceCache)
+     * @since 3.3
+     */
+    public void setXMLSchema( final URL schemaUrl, final String schemaLanguage )
+        throws IOException, SAXException
+    {
+        if ( resourceCache != null )
+        {
+            setXMLSchema( resourceCache.getSchema( schemaUrl, schemaLanguage ) );
+        }
+        else
+        {
+            setXMLSchema( SchemaFactory.newInstance( schemaLanguage ).newSchema( schemaUrl ) );
+        }
+    }
+
     @Override
     public void skippedEntity( final String name )
         throws SAXException
@@ -2901,6 +4085,12 @@ public class Digester
         // the digester could be used as a SAX ContentHandler
         // rather than via the parse() methods.
         configure();
+
+        elementCount = 0;
+        stopRequested = false;
+        depth = 0;
+        totalCharacters = 0;
+        documentStartNanos = parseLimits != null ? System.nanoTime() : 0L;
     }
 
     @Override
@@ -2909,6 +4099,14 @@ public class Digester
     {
         final boolean debug = log.isDebugEnabled();
 
+        elementCount++;
+        depth++;
+        final ParseLimits limits = parseLimits;
+        if ( limits != null )
+        {
+            checkElement( limits, list );
+        }
+
         if ( customContentHandler != null )
         {
             // forward calls instead of handling them here
@@ -2955,11 +4153,13 @@ public class Digester
         matches.push( rules );
         if ( rules != null && !rules.isEmpty() )
         {
+            ruleFiringCount += rules.size();
             final Substitutor substitutor = getSubstitutor();
             if ( substitutor != null )
             {
                 list = substitutor.substitute( list );
             }
+            final RuleProfiler profiler = ruleProfiler;
             for ( final Rule rule : rules )
             {
                 try
@@ -2968,7 +4168,12 @@ public class Digester
                     {
                         log.debug( "  Fire begin() for " + rule );
                     }
+                    final long start = profiler != null ? System.nanoTime() : 0L;
                     rule.begin( namespaceURI, name, list );
+                    if ( profiler != null )
+                    {
+                        profiler.record( match, rule, RuleProfiler.Phase.BEGIN, System.nanoTime() - start );
+                    }
                 }
                 catch ( final Exception e )
                 {
@@ -2986,6 +4191,83 @@ public class Digester
         {
             log.debug( "  No rules found matching '" + match + "'." );
         }
+
+        if ( limits != null && stack.size() > limits.getMaxStackSize() )
+        {
+            throw limits.exceeded( ParseLimits.Limit.STACK_SIZE, limits.getMaxStackSize(), locator );
+        }
+
+        if ( stopRequested )
+        {
+            throw new ParseStoppedException();
+        }
+    }
+
+    /**
+     * Enforces the element count, depth, attributes and duration budgets when an element starts.
+     *
+     * @param limits the budgets to enforce
+     * @param attributes the attributes of the element
+     * @throws ParseLimitExceededException if a budget is exceeded
+     */
+    private void checkElement( final ParseLimits limits, final Attributes attributes )
+        throws ParseLimitExceededException
+    {
+        if ( elementCount > limits.getMaxElements() )
+        {
+            throw limits.exceeded( ParseLimits.Limit.ELEMENTS, limits.getMaxElements(), locator );
+        }
+        if ( depth > limits.getMaxDepth() )
+        {
+            throw limits.exceeded( ParseLimits.Limit.DEPTH, limits.getMaxDepth(), locator );
+        }
+        if ( attributes.getLength() > limits.getMaxAttributes() )
+        {
+            throw limits.exceeded( ParseLimits.Limit.ATTRIBUTES, limits.getMaxAttributes(), locator );
+        }
+        // reading the clock on every element would dominate the cost of the checks
+        if ( ( elementCount & 63 ) == 0 )
+        {
+            checkDuration( limits );
+        }
+    }
+
+    /**
+     * Enforces the character and duration budgets when a chunk of character data is received.
+     *
+     * @param limits the budgets to enforce
+     * @param length the number of characters received
+     * @throws ParseLimitExceededException if a budget is exceeded
+     */
+    private void checkCharacters( final ParseLimits limits, final int length )
+        throws ParseLimitExceededException
+    {
+        checkTotalCharacters( limits, length );
+        if ( (long) bodyText.length() + length > limits.getMaxBodyCharacters() )
+        {
+            throw limits.exceeded( ParseLimits.Limit.BODY_CHARACTERS, limits.getMaxBodyCharacters(), locator );
+        }
+        checkDuration( limits );
+    }
+
+    private void checkTotalCharacters( final ParseLimits limits, final int length )
+        throws ParseLimitExceededException
+    {
+        totalCharacters += length;
+        if ( totalCharacters > limits.getMaxTotalCharacters() )
+        {
+            throw limits.exceeded( ParseLimits.Limit.TOTAL_CHARACTERS, limits.getMaxTotalCharacters(), locator );
+        }
+    }
+
+    private void checkDuration( final ParseLimits limits )
+        throws ParseLimitExceededException
+    {
+        final long maxDurationNanos = limits.getMaxDurationNanos();
+        if ( maxDurationNanos != Long.MAX_VALUE && System.nanoTime() - documentStartNanos > maxDurationNanos )
+        {
+            throw limits.exceeded( ParseLimits.Limit.DURATION, maxDurationNanos, locator );
+        }
     }
 
     @Override
@@ -0,0 +1,279 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * A thread-safe {@link ParseListener} aggregating the statistics of all the documents parsed by the digesters it is
+ * attached to, typically all the {@link Digester} instances created by one
+ * {@link org.apache.commons.digester3.binder.DigesterLoader}:
+ *
+ * <pre>
+ * DigesterMetrics metrics = new DigesterMetrics();
+ * metrics.registerMBean( "orders" );
+ * DigesterLoader loader = newLoader( new OrdersModule() ).setParseListener( metrics );
+ * </pre>
+ *
+ * Each document costs a handful of atomic additions once it has been parsed; nothing is recorded while parsing.
+ * Parse times are kept in a power of two histogram, so percentiles are accurate within a factor of two.
+ *
+ * @since 3.3
+ */
+public class DigesterMetrics
+    implements ParseListener, DigesterMetricsMBean
+{
+
+    /**
+     * The JMX domain under which {@link #registerMBean(String)} registers the metrics.
+     */
+    public static final String JMX_DOMAIN = "org.apache.commons.digester3";
+
+    private final LongAdder documents = new LongAdder();
+
+    private final LongAdder exceptions = new LongAdder();
+
+    private final LongAdder elements = new LongAdder();
+
+    private final LongAdder bytes = new LongAdder();
+
+    private final LongAdder ruleFirings = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final LongAccumulator maxNanos = new LongAccumulator( Math::max, 0L );
+
+    private final AtomicLongArray histogram = new AtomicLongArray( PowerOfTwoHistogram.BUCKETS );
+
+    private volatile ObjectName objectName;
+
+    private void add( final ParseStatistics statistics )
+    {
+        final long nanos = Math.max( 0L, statistics.getDurationNanos() );
+        documents.increment();
+        elements.add( statistics.getElementCount() );
+        bytes.add( statistics.getInputLength() );
+        ruleFirings.add( statistics.getRuleFiringCount() );
+        totalNanos.add( nanos );
+        maxNanos.accumulate( nanos );
+        histogram.incrementAndGet( PowerOfTwoHistogram.bucketOf( nanos ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getByteCount()
+    {
+        return bytes.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDocumentCount()
+    {
+        return documents.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getElementCount()
+    {
+        return elements.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getExceptionCount()
+    {
+        return exceptions.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getMaxParseTimeMillis()
+    {
+        return NANOSECONDS.toMillis( maxNanos.get() );
+    }
+
+    /**
+     * Returns the object name the metrics are registered under.
+     *
+     * @return the object name the metrics are registered under, null if they are not registered
+     */
+    public ObjectName getObjectName()
+    {
+        return objectName;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getParseTime50thPercentileMillis()
+    {
+        return NANOSECONDS.toMillis( getParseTimePercentileNanos( 50 ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getParseTime95thPercentileMillis()
+    {
+        return NANOSECONDS.toMillis( getParseTimePercentileNanos( 95 ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getParseTime99thPercentileMillis()
+    {
+        return NANOSECONDS.toMillis( getParseTimePercentileNanos( 99 ) );
+    }
+
+    /**
+     * Returns an upper bound of the given parse time percentile, in nanoseconds.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return an upper bound of the given parse time percentile, in nanoseconds
+     */
+    public long getParseTimePercentileNanos( final double percentile )
+    {
+        final long[] counts = new long[histogram.length()];
+        for ( int bucket = 0; bucket < counts.length; bucket++ )
+        {
+            counts[bucket] = histogram.get( bucket );
+        }
+        return PowerOfTwoHistogram.percentile( counts, percentile, maxNanos.get() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getRuleFiringCount()
+    {
+        return ruleFirings.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getTotalParseTimeMillis()
+    {
+        return NANOSECONDS.toMillis( totalNanos.sum() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void parseCompleted( final Digester digester, final ParseStatistics statistics )
+    {
+        add( statistics );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void parseFailed( final Digester digester, final ParseStatistics statistics, final Exception cause )
+    {
+        add( statistics );
+        exceptions.increment();
+    }
+
+    /**
+     * Registers these metrics in the platform MBean server, under the
+     * {@code org.apache.commons.digester3:type=DigesterMetrics,name=<name>} object name.
+     *
+     * @param name the value of the {@code name} key, typically identifying the loader the metrics are attached to
+     * @return the object name the metrics have been registered under
+     * @throws JMException if the metrics cannot be registered
+     */
+    public synchronized ObjectName registerMBean( final String name )
+        throws JMException
+    {
+        if ( objectName != null )
+        {
+            throw new IllegalStateException( "Metrics already registered as " + objectName );
+        }
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        objectName = server.registerMBean( this, new ObjectName( JMX_DOMAIN + ":type=DigesterMetrics,name="
+            + ObjectName.quote( name ) ) ).getObjectName();
+        return objectName;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset()
+    {
+        documents.reset();
+        exceptions.reset();
+        elements.reset();
+        bytes.reset();
+        ruleFirings.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+        for ( int bucket = 0; bucket < histogram.length(); bucket++ )
+        {
+            histogram.set( bucket, 0 );
+        }
+    }
+
+    /**
+     * Unregisters these metrics from the platform MBean server, if they have been registered.
+     *
+     * @throws JMException if the metrics cannot be unregistered
+     */
+    public synchronized void unregisterMBean()
+        throws JMException
+    {
+        if ( objectName != null )
+        {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean( objectName );
+            objectName = null;
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Management interface of {@link DigesterMetrics}.
+ *
+ * @since 3.3
+ */
+public interface DigesterMetricsMBean
+{
+
+    /**
+     * Returns the number of documents parsed, including the failed ones.
+     *
+     * @return the number of documents parsed
+     */
+    long getDocumentCount();
+
+    /**
+     * Returns the number of documents whose parsing threw an exception.
+     *
+     * @return the number of documents whose parsing threw an exception
+     */
+    long getExceptionCount();
+
+    /**
+     * Returns the number of elements received.
+     *
+     * @return the number of elements received
+     */
+    long getElementCount();
+
+    /**
+     * Returns the number of bytes (or characters, for character streams) read from the parsed documents.
+     *
+     * @return the number of bytes read from the parsed documents
+     */
+    long getByteCount();
+
+    /**
+     * Returns the number of rules that matched an element.
+     *
+     * @return the number of rules that matched an element
+     */
+    long getRuleFiringCount();
+
+    /**
+     * Returns the cumulative parse time, in milliseconds.
+     *
+     * @return the cumulative parse time, in milliseconds
+     */
+    long getTotalParseTimeMillis();
+
+    /**
+     * Returns the longest parse time, in milliseconds.
+     *
+     * @return the longest parse time, in milliseconds
+     */
+    long getMaxParseTimeMillis();
+
+    /**
+     * Returns an upper bound of the median parse time, in milliseconds.
+     *
+     * @return an upper bound of the median parse time, in milliseconds
+     */
+    long getParseTime50thPercentileMillis();
+
+    /**
+     * Returns an upper bound of the 95th percentile parse time, in milliseconds.
+     *
+     * @return an upper bound of the 95th percentile parse time, in milliseconds
+     */
+    long getParseTime95thPercentileMillis();
+
+    /**
+     * Returns an upper bound of the 99th percentile parse time, in milliseconds.
+     *
+     * @return an upper bound of the 99th percentile parse time, in milliseconds
+     */
+    long getParseTime99thPercentileMillis();
+
+    /**
+     * Discards all the collected metrics.
+     */
+    void reset();
+
+}
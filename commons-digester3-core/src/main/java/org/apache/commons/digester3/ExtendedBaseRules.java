@@ -170,10 +170,11 @@ public class ExtendedBaseRules
     /**
      * Finds an exact ancestor match for given pattern
      *
+     * @param namespaceURI The namespace URI the rules must apply to, or {@code null} for any
      * @param parentPattern The input pattern
      * @return A list of {@code Rule} related to the input pattern
      */
-    private List<Rule> findExactAncesterMatch( final String parentPattern )
+    private List<Rule> findExactAncesterMatch( final String namespaceURI, final String parentPattern )
     {
         int lastIndex = parentPattern.length();
         while ( lastIndex-- > 0 )
@@ -181,7 +182,7 @@ public class ExtendedBaseRules
             lastIndex = parentPattern.lastIndexOf( '/', lastIndex );
             if ( lastIndex > 0 )
             {
-                List<Rule> matchingRules = this.cache.get( parentPattern.substring( 0, lastIndex ) + "/*" );
+                List<Rule> matchingRules = lookupRules( namespaceURI, parentPattern.substring( 0, lastIndex ) + "/*" );
                 if ( matchingRules != null )
                 {
                     return matchingRules;
@@ -222,7 +223,7 @@ public class ExtendedBaseRules
         // look for pattern. Here, we search the whole parent. Not ideal, but does the thing....
         while ( parentLastIndex > -1 && recList == null )
         {
-            recList = this.cache.get( tempParentPattern + "/*/" + pattern.substring( lastIndex + 1 ) );
+            recList = lookupRules( namespaceURI, tempParentPattern + "/*/" + pattern.substring( lastIndex + 1 ) );
             if ( recList != null )
             {
                 // when /*/-pattern-string is found, add method list to universalList.
@@ -241,7 +242,7 @@ public class ExtendedBaseRules
 
         // Universal all wildcards ('!*')
         // These are always matched so always add them
-        List<Rule> tempList = this.cache.get( "!*" );
+        List<Rule> tempList = lookupRules( namespaceURI, "!*" );
         if ( tempList != null )
         {
             universalList.addAll( tempList );
@@ -249,7 +250,7 @@ public class ExtendedBaseRules
 
         // Universal exact parent match
         // need to get this now since only wildcards are considered later
-        tempList = this.cache.get( "!" + parentPattern + "/?" );
+        tempList = lookupRules( namespaceURI, "!" + parentPattern + "/?" );
         if ( tempList != null )
         {
             universalList.addAll( tempList );
@@ -260,7 +261,7 @@ public class ExtendedBaseRules
         boolean ignoreBasicMatches = false;
 
         // see if we have an exact basic pattern match
-        List<Rule> rulesList = this.cache.get( pattern );
+        List<Rule> rulesList = lookupRules( namespaceURI, pattern );
         if ( rulesList != null )
         {
             // we have a match! so ignore all basic matches from now on
@@ -269,7 +270,7 @@ public class ExtendedBaseRules
         else if ( hasParent ) // see if we have an exact child match
         {
             // matching children takes preference
-            rulesList = this.cache.get( parentPattern + "/?" );
+            rulesList = lookupRules( namespaceURI, parentPattern + "/?" );
             if ( rulesList != null )
             {
                 // we have a match! so ignore all basic matches from now on
@@ -278,7 +279,7 @@ public class ExtendedBaseRules
             else
             {
                 // we don't have a match yet - so try exact ancestor
-                rulesList = findExactAncesterMatch( pattern );
+                rulesList = findExactAncesterMatch( namespaceURI, pattern );
                 if ( rulesList != null )
                 {
                     // we have a match! so ignore all basic matches from now on
@@ -362,7 +363,7 @@ public class ExtendedBaseRules
                     if ( isUniversal )
                     {
                         // universal rules go straight in (no longest matching rule)
-                        tempList = this.cache.get( "!" + key );
+                        tempList = lookupRules( namespaceURI, "!" + key );
                         if ( tempList != null )
                         {
                             universalList.addAll( tempList );
@@ -386,7 +387,7 @@ public class ExtendedBaseRules
 
                         if ( keyLength > longKeyLength )
                         {
-                            rulesList = this.cache.get( key );
+                            rulesList = lookupRules( namespaceURI, key );
                             longKeyLength = keyLength;
                         }
                     }
@@ -397,7 +398,7 @@ public class ExtendedBaseRules
         // '*' works in practice as a default matching (this is because anything is a deeper match!)
         if ( rulesList == null )
         {
-            rulesList = this.cache.get( "*" );
+            rulesList = lookupRules( namespaceURI, "*" );
         }
 
         // if we've matched a basic pattern, then add to the universal list
@@ -406,19 +407,29 @@ public class ExtendedBaseRules
             universalList.addAll( rulesList );
         }
 
-        // don't filter if namespace is null
-        if ( namespaceURI != null )
-        {
-            // remove invalid namespaces
-            universalList.removeIf( rule -> rule.getNamespaceURI() != null && !rule.getNamespaceURI().equals( namespaceURI ) );
-        }
-
         // need to make sure that the collection is sorted in the order of addition. We use a custom comparator for this
         universalList.sort( Comparator.nullsFirst( Comparator.comparing( order::get ) ) );
 
         return universalList;
     }
 
+    /**
+     * Returns the rules registered for the given pattern that apply to the given namespace URI, all of them if the
+     * namespace URI is null.
+     *
+     * @param namespaceURI The namespace URI the rules must apply to, or {@code null} for any
+     * @param pattern The registered pattern
+     * @return The matching rules, {@code null} if no rule is registered for the pattern
+     */
+    private List<Rule> lookupRules( final String namespaceURI, final String pattern )
+    {
+        if ( namespaceURI == null )
+        {
+            return this.cache.get( pattern );
+        }
+        return lookupByNamespace( namespaceURI, pattern );
+    }
+
     /**
      * Checks the input parentPattern contains the input key at the end.
      *
@@ -341,7 +341,7 @@ public class FactoryCreateRule
                 getDigester().getLogger().debug( format( "[FactoryCreateRule]{%s} New factory %s",
                                                          getDigester().getMatch(), realClassName ) );
             }
-            final Class<?> clazz = getDigester().getClassLoader().loadClass( realClassName );
+            final Class<?> clazz = ClassResolutionCache.loadClass( getDigester().getClassLoader(), realClassName );
             creationFactory = (ObjectCreationFactory<?>) clazz.newInstance();
             creationFactory.setDigester( getDigester() );
         }
@@ -0,0 +1,35 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Marker interface for the {@link Rule}s that need the live {@link org.xml.sax.Locator} of the parser, e.g. to read
+ * it from another thread or to keep a reference to it.
+ * <p>
+ * A pipelined {@link Digester} replays the parser events on a different thread than the one tokenizing the document,
+ * and exposes a snapshot of the location of the event being processed instead of the live locator. A digester with
+ * any rule implementing this interface registered when a parse starts falls back to single threaded parsing.
+ *
+ * @see Digester#setPipelineCapacity(int)
+ * @since 3.3
+ */
+public interface LiveLocatorRule
+{
+}
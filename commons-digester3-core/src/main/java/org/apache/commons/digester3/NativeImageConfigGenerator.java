@@ -0,0 +1,393 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.apache.commons.digester3.binder.DigesterLoader.newLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.commons.digester3.binder.RulesModule;
+import org.apache.commons.digester3.xmlrules.FromXmlRulesModule;
+
+/**
+ * Generates the GraalVM {@code native-image} reflection and resource metadata needed by the rules of some
+ * {@link RulesModule}s, so that the digesters they configure work in closed-world native images.
+ * <p>
+ * The modules are loaded through a {@link org.apache.commons.digester3.binder.DigesterLoader}, then the rules bound
+ * are walked for the classes they instantiate or pass to the methods they call: all their public constructors and
+ * methods are registered for reflection, as {@code BeanUtils} introspects the beans, as well as the fields assigned by
+ * {@link SetFieldRule}s, whose classes are inferred like {@link Digester#link()} does. The XML rules files loaded by
+ * {@link FromXmlRulesModule}s are registered as resources, with the rules DTD.
+ * <p>
+ * The generator can be run as a build step, e.g. writing to {@code META-INF/native-image/<group>/<artifact>}:
+ *
+ * <pre>
+ * java org.apache.commons.digester3.NativeImageConfigGenerator &lt;output directory&gt; &lt;RulesModule class&gt;...
+ * </pre>
+ *
+ * Classes named by an attribute of the parsed documents, e.g. through {@link ObjectCreateRule}s overriding their class
+ * name, cannot be known in advance and still have to be registered by hand.
+ *
+ * @since 3.3
+ */
+public final class NativeImageConfigGenerator
+{
+
+    /**
+     * The name of the reflection metadata file.
+     */
+    public static final String REFLECT_CONFIG = "reflect-config.json";
+
+    /**
+     * The name of the resource metadata file.
+     */
+    public static final String RESOURCE_CONFIG = "resource-config.json";
+
+    private static final String XML_RULES_DTD = "org/apache/commons/digester3/xmlrules/digester-rules.dtd";
+
+    private final ClassLoader classLoader;
+
+    private final Set<String> classNames = new TreeSet<>();
+
+    private final Map<String, Set<String>> fieldNames = new TreeMap<>();
+
+    private final Set<String> resources = new TreeSet<>();
+
+    /**
+     * Creates a generator resolving the XML rules resources against the context class loader.
+     */
+    public NativeImageConfigGenerator()
+    {
+        this( Thread.currentThread().getContextClassLoader() );
+    }
+
+    /**
+     * Creates a generator resolving the XML rules resources against the given class loader.
+     *
+     * @param classLoader the class loader the XML rules resources are loaded from at runtime
+     */
+    public NativeImageConfigGenerator( final ClassLoader classLoader )
+    {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Loads the given modules, and collects the classes and resources their rules need.
+     *
+     * @param rulesModules the modules to load
+     * @return this generator instance
+     * @throws IOException if the class path cannot be read while resolving the XML rules resources
+     */
+    public NativeImageConfigGenerator addModules( final RulesModule... rulesModules )
+        throws IOException
+    {
+        final Digester digester = newLoader( rulesModules ).setClassLoader( classLoader ).newDigester();
+        final RulesLinker linker = new RulesLinker( digester );
+        for ( final Rule rule : digester.getRules().rules() )
+        {
+            addRule( rule, linker );
+        }
+
+        for ( final RulesModule rulesModule : rulesModules )
+        {
+            if ( rulesModule instanceof FromXmlRulesModule )
+            {
+                resources.add( XML_RULES_DTD );
+                for ( final String systemId : ( (FromXmlRulesModule) rulesModule ).getLoadedSystemIds() )
+                {
+                    final String resource = toResource( systemId );
+                    if ( resource != null )
+                    {
+                        resources.add( resource );
+                    }
+                }
+            }
+        }
+        return this;
+    }
+
+    private void addRule( final Rule rule, final RulesLinker linker )
+    {
+        if ( rule instanceof ObjectCreateRule )
+        {
+            final ObjectCreateRule objectCreateRule = (ObjectCreateRule) rule;
+            addClass( objectCreateRule.clazz, objectCreateRule.className );
+            final Class<?>[] argumentTypes = objectCreateRule.getConstructorArgumentTypes();
+            if ( argumentTypes != null )
+            {
+                for ( final Class<?> argumentType : argumentTypes )
+                {
+                    addClass( argumentType, null );
+                }
+            }
+        }
+        else if ( rule instanceof FactoryCreateRule )
+        {
+            final FactoryCreateRule factoryCreateRule = (FactoryCreateRule) rule;
+            addClass( factoryCreateRule.creationFactory != null ? factoryCreateRule.creationFactory.getClass() : null,
+                      factoryCreateRule.className );
+        }
+        else if ( rule instanceof AbstractMethodRule )
+        {
+            final AbstractMethodRule methodRule = (AbstractMethodRule) rule;
+            addClass( methodRule.paramType, methodRule.paramTypeName );
+        }
+        else if ( rule instanceof CallMethodRule )
+        {
+            final Class<?>[] paramTypes = ( (CallMethodRule) rule ).paramTypes;
+            if ( paramTypes != null )
+            {
+                for ( final Class<?> paramType : paramTypes )
+                {
+                    addClass( paramType, null );
+                }
+            }
+        }
+        else if ( rule instanceof SetFieldRule )
+        {
+            final Class<?> type = linker.getTopType( rule );
+            final String fieldName = ( (SetFieldRule) rule ).getFieldName();
+            final Field field = type != null ? SetFieldRule.findField( type, fieldName ) : null;
+            if ( field != null )
+            {
+                final String className = field.getDeclaringClass().getName();
+                classNames.add( className );
+                fieldNames.computeIfAbsent( className, name -> new TreeSet<>() ).add( field.getName() );
+            }
+        }
+    }
+
+    private void addClass( Class<?> type, final String className )
+    {
+        if ( type == null )
+        {
+            if ( className != null )
+            {
+                classNames.add( className );
+            }
+            return;
+        }
+        while ( type.isArray() )
+        {
+            type = type.getComponentType();
+        }
+        if ( !type.isPrimitive() )
+        {
+            classNames.add( type.getName() );
+        }
+    }
+
+    /**
+     * Returns the path of the class path resource the given system identifier refers to.
+     *
+     * @param systemId the system identifier of an XML rules file
+     * @return the path of the class path resource, null if the file is not in the class path
+     * @throws IOException if the class path cannot be read
+     */
+    private String toResource( final String systemId )
+        throws IOException
+    {
+        final int separator = systemId.indexOf( "!/" );
+        if ( separator >= 0 )
+        {
+            return systemId.substring( separator + 2 );
+        }
+
+        final Enumeration<URL> roots = classLoader.getResources( "" );
+        while ( roots.hasMoreElements() )
+        {
+            final String root = roots.nextElement().toString();
+            if ( systemId.startsWith( root ) )
+            {
+                return systemId.substring( root.length() );
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the names of the classes to register for reflection.
+     *
+     * @return the names of the classes to register for reflection, sorted
+     */
+    public Set<String> getClassNames()
+    {
+        return Collections.unmodifiableSet( classNames );
+    }
+
+    /**
+     * Returns the names of the fields of the given class to register for reflection, with write access.
+     *
+     * @param className the name of a class registered for reflection
+     * @return the names of the fields to register for reflection, sorted, empty if none
+     */
+    public Set<String> getFieldNames( final String className )
+    {
+        final Set<String> names = fieldNames.get( className );
+        return names != null ? Collections.unmodifiableSet( names ) : Collections.emptySet();
+    }
+
+    /**
+     * Returns the paths of the class path resources to include.
+     *
+     * @return the paths of the class path resources to include, sorted
+     */
+    public Set<String> getResources()
+    {
+        return Collections.unmodifiableSet( resources );
+    }
+
+    /**
+     * Writes the {@value #REFLECT_CONFIG} and {@value #RESOURCE_CONFIG} files to the given directory, created if
+     * needed.
+     *
+     * @param directory the directory the metadata files are written to
+     * @throws IOException if the files cannot be written
+     */
+    public void write( final File directory )
+        throws IOException
+    {
+        Files.createDirectories( directory.toPath() );
+
+        final File reflectConfig = new File( directory, REFLECT_CONFIG );
+        try ( PrintWriter writer = newWriter( reflectConfig ) )
+        {
+            writer.println( "[" );
+            for ( final Iterator<String> names = classNames.iterator(); names.hasNext(); )
+            {
+                final String className = names.next();
+                final Set<String> fields = getFieldNames( className );
+                writer.println( "  {" );
+                writer.println( "    \"name\" : " + quote( className ) + "," );
+                writer.println( "    \"allPublicConstructors\" : true," );
+                writer.println( "    \"allPublicMethods\" : true" + ( fields.isEmpty() ? "" : "," ) );
+                if ( !fields.isEmpty() )
+                {
+                    writer.println( "    \"fields\" : [" );
+                    for ( final Iterator<String> writable = fields.iterator(); writable.hasNext(); )
+                    {
+                        writer.println( "      { \"name\" : " + quote( writable.next() ) + ", \"allowWrite\" : true }"
+                            + ( writable.hasNext() ? "," : "" ) );
+                    }
+                    writer.println( "    ]" );
+                }
+                writer.println( names.hasNext() ? "  }," : "  }" );
+            }
+            writer.println( "]" );
+            checkWritten( writer, reflectConfig );
+        }
+
+        final File resourceConfig = new File( directory, RESOURCE_CONFIG );
+        try ( PrintWriter writer = newWriter( resourceConfig ) )
+        {
+            writer.println( "{" );
+            writer.println( "  \"resources\" : {" );
+            writer.println( "    \"includes\" : [" );
+            for ( final Iterator<String> paths = resources.iterator(); paths.hasNext(); )
+            {
+                final String pattern = quote( "\\Q" + paths.next() + "\\E" );
+                writer.println( "      { \"pattern\" : " + pattern + ( paths.hasNext() ? " }," : " }" ) );
+            }
+            writer.println( "    ]" );
+            writer.println( "  }" );
+            writer.println( "}" );
+            checkWritten( writer, resourceConfig );
+        }
+    }
+
+    private static PrintWriter newWriter( final File file )
+        throws IOException
+    {
+        return new PrintWriter( new OutputStreamWriter( Files.newOutputStream( file.toPath() ),
+                                                        StandardCharsets.UTF_8 ) );
+    }
+
+    /**
+     * Flushes the given writer and reports the failures it swallowed, the file would be truncated otherwise.
+     */
+    private static void checkWritten( final PrintWriter writer, final File file )
+        throws IOException
+    {
+        if ( writer.checkError() )
+        {
+            throw new IOException( "Cannot write " + file );
+        }
+    }
+
+    private static String quote( final String value )
+    {
+        final StringBuilder quoted = new StringBuilder( value.length() + 2 ).append( '"' );
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            final char c = value.charAt( i );
+            if ( c == '"' || c == '\\' )
+            {
+                quoted.append( '\\' );
+            }
+            quoted.append( c );
+        }
+        return quoted.append( '"' ).toString();
+    }
+
+    /**
+     * Generates the metadata of the given modules.
+     *
+     * @param args the output directory, followed by the class names of the {@link RulesModule}s, instantiated with
+     *            their no-arguments constructor
+     * @throws Exception if a module cannot be loaded or the files cannot be written
+     */
+    public static void main( final String[] args )
+        throws Exception
+    {
+        if ( args.length < 2 )
+        {
+            System.err.println( "Usage: java " + NativeImageConfigGenerator.class.getName()
+                + " <output directory> <RulesModule class>..." );
+            System.exit( 1 );
+        }
+
+        final NativeImageConfigGenerator generator = new NativeImageConfigGenerator();
+        final RulesModule[] rulesModules = new RulesModule[args.length - 1];
+        for ( int i = 1; i < args.length; i++ )
+        {
+            rulesModules[i - 1] = (RulesModule) Class.forName( args[i], true, generator.classLoader )
+                                                    .getDeclaredConstructor()
+                                                    .newInstance();
+        }
+        generator.addModules( rulesModules ).write( new File( args[0] ) );
+        System.out.println( "Registered " + generator.classNames.size() + " classes and " + generator.resources.size()
+            + " resources in " + args[0] );
+    }
+
+}
@@ -24,6 +24,9 @@ import static java.lang.String.format;
 import static org.apache.commons.beanutils.ConstructorUtils.getAccessibleConstructor;
 import static org.apache.commons.beanutils.ConvertUtils.convert;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -186,6 +189,62 @@ public class ObjectCreateRule
         }
     }
 
+    /**
+     * Creates the {@link DeferredInstance}s standing for the objects being built when proxies are not used.
+     */
+    private static final class DeferredInstanceFactory
+    {
+
+        private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType( Object.class, Object[].class );
+
+        private final Class<?> clazz;
+
+        private final Class<?>[] argTypes;
+
+        private final MethodHandle constructor;
+
+        private final Object[] templateConstructorArguments;
+
+        DeferredInstanceFactory( final Class<?> clazz, final Constructor<?> constructor,
+                                 final Object[] constructorArguments )
+            throws IllegalAccessException
+        {
+            this.clazz = clazz;
+            argTypes = constructor.getParameterTypes();
+            this.constructor = MethodHandles.publicLookup()
+                                            .unreflectConstructor( constructor )
+                                            .asSpreader( Object[].class, argTypes.length )
+                                            .asType( CONSTRUCTOR_TYPE );
+            templateConstructorArguments = new Object[argTypes.length];
+            if ( constructorArguments != null )
+            {
+                if ( constructorArguments.length != argTypes.length )
+                {
+                    throw new IllegalArgumentException(
+                        format( "wrong number of constructor arguments specified: %s instead of %s",
+                        constructorArguments.length, argTypes.length ) );
+                }
+                arraycopy( constructorArguments, 0, templateConstructorArguments, 0, constructorArguments.length );
+            }
+        }
+
+        DeferredInstance create( final Digester digester )
+        {
+            final Object[] constructorArguments = templateConstructorArguments.clone();
+            digester.pushParams( constructorArguments );
+            return new DeferredInstance( clazz, constructor, constructorArguments );
+        }
+
+        Object construct( final Digester digester, final DeferredInstance instance )
+            throws Exception
+        {
+            digester.popParams();
+            convertTo( argTypes, instance.getArguments() );
+            return instance.construct();
+        }
+
+    }
+
     private static void convertTo( final Class<?>[] types, final Object[] array )
     {
         if ( array.length != types.length )
@@ -240,6 +299,20 @@ public class ObjectCreateRule
      */
     private ProxyManager proxyManager;
 
+    /**
+     * Whether proxies are used to create objects with constructor arguments.
+     *
+     * @since 3.3
+     */
+    private boolean useProxy = true;
+
+    /**
+     * Helper object creating the value holders used instead of proxies.
+     *
+     * @since 3.3
+     */
+    private DeferredInstanceFactory deferredInstanceFactory;
+
     /**
      * Constructs an object create rule with the specified class.
      *
@@ -312,7 +385,7 @@ public class ObjectCreateRule
             }
 
             // Instantiate the new object and push it on the context stack
-            clazz = getDigester().getClassLoader().loadClass( realClassName );
+            clazz = ClassResolutionCache.loadClass( getDigester().getClassLoader(), realClassName );
         }
         Object instance;
         if ( constructorArgumentTypes == null || constructorArgumentTypes.length == 0 )
@@ -328,24 +401,24 @@ public class ObjectCreateRule
 
             instance = clazz.newInstance();
         }
-        else
+        else if ( useProxy )
         {
             if ( proxyManager == null )
             {
-                final Constructor<?> constructor = getAccessibleConstructor( clazz, constructorArgumentTypes );
-
-                if ( constructor == null )
-                {
-                    throw new SAXException(
-                                   format( "[ObjectCreateRule]{%s} Class '%s' does not have a constructor with types %s",
-                                           getDigester().getMatch(),
-                                           clazz.getName(),
-                                           Arrays.toString( constructorArgumentTypes ) ) );
-                }
-                proxyManager = new ProxyManager( clazz, constructor, defaultConstructorArguments, getDigester() );
+                proxyManager = new ProxyManager( clazz, getConstructor( clazz ), defaultConstructorArguments,
+                                                 getDigester() );
             }
             instance = proxyManager.createProxy();
         }
+        else
+        {
+            if ( deferredInstanceFactory == null || deferredInstanceFactory.clazz != clazz )
+            {
+                deferredInstanceFactory =
+                    new DeferredInstanceFactory( clazz, getConstructor( clazz ), defaultConstructorArguments );
+            }
+            instance = deferredInstanceFactory.create( getDigester() );
+        }
         getDigester().push( instance );
     }
 
@@ -353,9 +426,15 @@ public class ObjectCreateRule
     public void end( final String namespace, final String name )
         throws Exception
     {
-        final Object top = getDigester().pop();
+        Object top = getDigester().pop();
 
-        if ( proxyManager != null )
+        if ( top instanceof DeferredInstance && deferredInstanceFactory != null )
+        {
+            final DeferredInstance deferred = (DeferredInstance) top;
+            top = deferredInstanceFactory.construct( getDigester(), deferred );
+            getDigester().replaceRoot( deferred, top );
+        }
+        else if ( proxyManager != null )
         {
             proxyManager.finalize( top );
         }
@@ -368,6 +447,56 @@ public class ObjectCreateRule
         }
     }
 
+    private Constructor<?> getConstructor( final Class<?> clazz )
+        throws SAXException
+    {
+        final Constructor<?> constructor = getAccessibleConstructor( clazz, constructorArgumentTypes );
+        if ( constructor == null )
+        {
+            throw new SAXException( format( "[ObjectCreateRule]{%s} Class '%s' does not have a constructor with types %s",
+                                            getDigester().getMatch(),
+                                            clazz.getName(),
+                                            Arrays.toString( constructorArgumentTypes ) ) );
+        }
+        return constructor;
+    }
+
+    /**
+     * Returns true if objects created with constructor arguments are cglib proxies, true by default.
+     *
+     * @return true if objects created with constructor arguments are cglib proxies
+     * @since 3.3
+     */
+    public boolean isUseProxy()
+    {
+        return useProxy;
+    }
+
+    /**
+     * Sets whether objects created with constructor arguments are cglib proxies, true by default.
+     * <p>
+     * A proxy is a generated subclass of the object class recording the calls made on it until the constructor
+     * arguments are known, then delegating them to the real object. When proxies are not used, a plain value holder
+     * stands on the stack for the object instead: it buffers the constructor arguments and the calls made by the
+     * standard rules, and the real object is constructed once, through a cached constructor handle, when the element
+     * ends. No class is generated and cglib is not needed at runtime, but the object cannot be read before the element
+     * ends: custom rules peeking at the stack find the holder, the checks that the properties being set exist are
+     * delayed until the object is constructed, and the object cannot be passed to a {@link CallParamRule} reading from
+     * the stack.
+     *
+     * @param useProxy true if objects created with constructor arguments are cglib proxies
+     * @since 3.3
+     */
+    public void setUseProxy( final boolean useProxy )
+    {
+        this.useProxy = useProxy;
+    }
+
+    Class<?>[] getConstructorArgumentTypes()
+    {
+        return constructorArgumentTypes;
+    }
+
     /**
      * Allows users to specify constructor argument types.
      *
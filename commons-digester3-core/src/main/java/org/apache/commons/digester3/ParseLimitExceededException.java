@@ -0,0 +1,75 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.digester3.ParseLimits.Limit;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Thrown when a document exceeds one of the {@link ParseLimits} set on the {@link Digester} parsing it.
+ *
+ * @since 3.3
+ */
+public class ParseLimitExceededException
+    extends SAXParseException
+{
+
+    private static final long serialVersionUID = 1L;
+
+    private final Limit limit;
+
+    private final long max;
+
+    /**
+     * Creates a new exception.
+     *
+     * @param limit the exceeded budget
+     * @param max the budget value
+     * @param locator the document location where the budget has been exceeded, may be null
+     */
+    public ParseLimitExceededException( final Limit limit, final long max, final Locator locator )
+    {
+        super( String.format( "Document exceeds the %s limit of %s", limit, max ), locator );
+        this.limit = limit;
+        this.max = max;
+    }
+
+    /**
+     * Returns the exceeded budget.
+     *
+     * @return the exceeded budget
+     */
+    public Limit getLimit()
+    {
+        return limit;
+    }
+
+    /**
+     * Returns the budget value.
+     *
+     * @return the budget value
+     */
+    public long getMax()
+    {
+        return max;
+    }
+
+}
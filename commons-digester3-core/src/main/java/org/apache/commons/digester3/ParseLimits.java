@@ -0,0 +1,296 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.xml.sax.Locator;
+
+/**
+ * Resource budgets a {@link Digester} enforces while parsing, so that a single malformed or hostile document fails
+ * fast with a {@link ParseLimitExceededException} instead of exhausting the heap:
+ *
+ * <pre>
+ * ParseLimits limits = new ParseLimits()
+ *     .setMaxDepth( 64 )
+ *     .setMaxBodyCharacters( 1024 * 1024 )
+ *     .setMaxDuration( 30, TimeUnit.SECONDS );
+ * DigesterLoader loader = newLoader( new OrdersModule() ).setParseLimits( limits );
+ * </pre>
+ *
+ * Every budget is unlimited unless set. Budgets apply to each document separately and are checked from the SAX
+ * callbacks with a few comparisons per event. The number of times each budget has been exceeded is counted, so a
+ * single instance shared by all the digesters of a loader gives an overview of the rejected documents.
+ * <p>
+ * Budgets are meant to be configured before the instance is handed to a digester; counters are thread-safe.
+ *
+ * @since 3.3
+ */
+public class ParseLimits
+{
+
+    /**
+     * The budgets that can be enforced.
+     */
+    public enum Limit
+    {
+
+        /** Maximum element nesting depth. */
+        DEPTH,
+
+        /** Maximum number of elements in a document. */
+        ELEMENTS,
+
+        /** Maximum number of attributes of a single element. */
+        ATTRIBUTES,
+
+        /** Maximum number of characters in the body of a single element. */
+        BODY_CHARACTERS,
+
+        /** Maximum number of characters in a document, whitespace included. */
+        TOTAL_CHARACTERS,
+
+        /** Maximum number of objects on the main object stack. */
+        STACK_SIZE,
+
+        /** Maximum time spent parsing a document. */
+        DURATION
+
+    }
+
+    private int maxDepth = Integer.MAX_VALUE;
+
+    private long maxElements = Long.MAX_VALUE;
+
+    private int maxAttributes = Integer.MAX_VALUE;
+
+    private int maxBodyCharacters = Integer.MAX_VALUE;
+
+    private long maxTotalCharacters = Long.MAX_VALUE;
+
+    private int maxStackSize = Integer.MAX_VALUE;
+
+    private long maxDurationNanos = Long.MAX_VALUE;
+
+    private final AtomicLongArray exceeded = new AtomicLongArray( Limit.values().length );
+
+    private static long checkPositive( final long value, final Limit limit )
+    {
+        if ( value < 1 )
+        {
+            throw new IllegalArgumentException( limit + " limit must be positive, was " + value );
+        }
+        return value;
+    }
+
+    /**
+     * Returns the number of times the given budget has been exceeded.
+     *
+     * @param limit the budget
+     * @return the number of times the given budget has been exceeded
+     */
+    public long getExceededCount( final Limit limit )
+    {
+        return exceeded.get( limit.ordinal() );
+    }
+
+    /**
+     * Returns the maximum number of attributes of a single element.
+     *
+     * @return the maximum number of attributes of a single element
+     */
+    public int getMaxAttributes()
+    {
+        return maxAttributes;
+    }
+
+    /**
+     * Returns the maximum number of characters in the body of a single element.
+     *
+     * @return the maximum number of characters in the body of a single element
+     */
+    public int getMaxBodyCharacters()
+    {
+        return maxBodyCharacters;
+    }
+
+    /**
+     * Returns the maximum element nesting depth.
+     *
+     * @return the maximum element nesting depth
+     */
+    public int getMaxDepth()
+    {
+        return maxDepth;
+    }
+
+    /**
+     * Returns the maximum time spent parsing a document, in nanoseconds.
+     *
+     * @return the maximum time spent parsing a document, in nanoseconds
+     */
+    public long getMaxDurationNanos()
+    {
+        return maxDurationNanos;
+    }
+
+    /**
+     * Returns the maximum number of elements in a document.
+     *
+     * @return the maximum number of elements in a document
+     */
+    public long getMaxElements()
+    {
+        return maxElements;
+    }
+
+    /**
+     * Returns the maximum number of objects on the main object stack.
+     *
+     * @return the maximum number of objects on the main object stack
+     */
+    public int getMaxStackSize()
+    {
+        return maxStackSize;
+    }
+
+    /**
+     * Returns the maximum number of characters in a document.
+     *
+     * @return the maximum number of characters in a document
+     */
+    public long getMaxTotalCharacters()
+    {
+        return maxTotalCharacters;
+    }
+
+    /**
+     * Counts a budget overrun and creates the exception reporting it.
+     *
+     * @param limit the exceeded budget
+     * @param max the budget value
+     * @param locator the current document location, may be null
+     * @return the exception to be thrown
+     */
+    ParseLimitExceededException exceeded( final Limit limit, final long max, final Locator locator )
+    {
+        exceeded.incrementAndGet( limit.ordinal() );
+        return new ParseLimitExceededException( limit, max, locator );
+    }
+
+    /**
+     * Discards the counters of exceeded budgets.
+     */
+    public void resetCounters()
+    {
+        for ( final Limit limit : Limit.values() )
+        {
+            exceeded.set( limit.ordinal(), 0 );
+        }
+    }
+
+    /**
+     * Sets the maximum number of attributes of a single element.
+     *
+     * @param maxAttributes the maximum number of attributes of a single element
+     * @return this instance, useful to chain methods.
+     */
+    public ParseLimits setMaxAttributes( final int maxAttributes )
+    {
+        this.maxAttributes = (int) checkPositive( maxAttributes, Limit.ATTRIBUTES );
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of characters in the body of a single element.
+     *
+     * @param maxBodyCharacters the maximum number of characters in the body of a single element
+     * @return this instance, useful to chain methods.
+     */
+    public ParseLimits setMaxBodyCharacters( final int maxBodyCharacters )
+    {
+        this.maxBodyCharacters = (int) checkPositive( maxBodyCharacters, Limit.BODY_CHARACTERS );
+        return this;
+    }
+
+    /**
+     * Sets the maximum element nesting depth, the root element being at depth 1.
+     *
+     * @param maxDepth the maximum element nesting depth
+     * @return this instance, useful to chain methods.
+     */
+    public ParseLimits setMaxDepth( final int maxDepth )
+    {
+        this.maxDepth = (int) checkPositive( maxDepth, Limit.DEPTH );
+        return this;
+    }
+
+    /**
+     * Sets the maximum time spent parsing a document. The time is checked as elements and characters are received,
+     * so a parser blocked on its input is not interrupted.
+     *
+     * @param maxDuration the maximum time spent parsing a document
+     * @param unit the time unit of the {@code maxDuration} argument
+     * @return this instance, useful to chain methods.
+     */
+    public ParseLimits setMaxDuration( final long maxDuration, final TimeUnit unit )
+    {
+        this.maxDurationNanos = checkPositive( unit.toNanos( maxDuration ), Limit.DURATION );
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of elements in a document.
+     *
+     * @param maxElements the maximum number of elements in a document
+     * @return this instance, useful to chain methods.
+     */
+    public ParseLimits setMaxElements( final long maxElements )
+    {
+        this.maxElements = checkPositive( maxElements, Limit.ELEMENTS );
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of objects on the main object stack, checked after the rules of each element fired.
+     *
+     * @param maxStackSize the maximum number of objects on the main object stack
+     * @return this instance, useful to chain methods.
+     */
+    public ParseLimits setMaxStackSize( final int maxStackSize )
+    {
+        this.maxStackSize = (int) checkPositive( maxStackSize, Limit.STACK_SIZE );
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of characters in a document, including ignorable whitespace.
+     *
+     * @param maxTotalCharacters the maximum number of characters in a document
+     * @return this instance, useful to chain methods.
+     */
+    public ParseLimits setMaxTotalCharacters( final long maxTotalCharacters )
+    {
+        this.maxTotalCharacters = checkPositive( maxTotalCharacters, Limit.TOTAL_CHARACTERS );
+        return this;
+    }
+
+}
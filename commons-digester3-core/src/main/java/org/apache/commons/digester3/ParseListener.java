@@ -0,0 +1,54 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Receives a notification at the end of every document parsed by a {@link Digester}, together with the
+ * {@link ParseStatistics} collected while parsing it.
+ * <p>
+ * A single listener may be shared by all the {@code Digester} instances created by a
+ * {@link org.apache.commons.digester3.binder.DigesterLoader}, in which case implementations must be thread-safe.
+ * {@link DigesterMetrics} is an implementation that aggregates the notifications and exposes them through JMX.
+ * <p>
+ * See also Digester.setParseListener.
+ *
+ * @since 3.3
+ */
+public interface ParseListener
+{
+
+    /**
+     * Invoked after a document has been parsed successfully.
+     *
+     * @param digester is the digester instance.
+     * @param statistics the statistics collected while parsing the document.
+     */
+    void parseCompleted( Digester digester, ParseStatistics statistics );
+
+    /**
+     * Invoked after the parsing of a document failed, before the exception is thrown to the caller.
+     *
+     * @param digester is the digester instance.
+     * @param statistics the statistics collected until the failure.
+     * @param cause the exception that is about to be thrown.
+     */
+    void parseFailed( Digester digester, ParseStatistics statistics, Exception cause );
+
+}
@@ -0,0 +1,111 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Immutable summary of the work performed by a {@link Digester} to parse a single document.
+ *
+ * @see ParseListener
+ * @since 3.3
+ */
+public final class ParseStatistics
+{
+
+    private final String systemId;
+
+    private final long inputLength;
+
+    private final long elementCount;
+
+    private final long ruleFiringCount;
+
+    private final long durationNanos;
+
+    ParseStatistics( final String systemId, final long inputLength, final long elementCount,
+                     final long ruleFiringCount, final long durationNanos )
+    {
+        this.systemId = systemId;
+        this.inputLength = inputLength;
+        this.elementCount = elementCount;
+        this.ruleFiringCount = ruleFiringCount;
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * Returns the system identifier of the parsed document.
+     *
+     * @return the system identifier of the parsed document, null if it was loaded from a stream
+     */
+    public String getSystemId()
+    {
+        return systemId;
+    }
+
+    /**
+     * Returns the number of bytes read from the document byte stream, or the number of characters when the document
+     * was supplied as a character stream. External entities resolved by the parser are not included, and nothing is
+     * read when a {@link SaxRecording} is replayed.
+     *
+     * @return the size of the document input read by the parser
+     */
+    public long getInputLength()
+    {
+        return inputLength;
+    }
+
+    /**
+     * Returns the number of elements the digester received.
+     *
+     * @return the number of elements the digester received
+     */
+    public long getElementCount()
+    {
+        return elementCount;
+    }
+
+    /**
+     * Returns the number of rules that matched an element, counting each rule once per matched element.
+     *
+     * @return the number of rules that matched an element
+     */
+    public long getRuleFiringCount()
+    {
+        return ruleFiringCount;
+    }
+
+    /**
+     * Returns the time spent parsing the document, in nanoseconds.
+     *
+     * @return the time spent parsing the document, in nanoseconds
+     */
+    public long getDurationNanos()
+    {
+        return durationNanos;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format( "ParseStatistics[systemId=%s, inputLength=%s, elements=%s, ruleFirings=%s, "
+                                  + "duration=%sns]",
+                              systemId, inputLength, elementCount, ruleFiringCount, durationNanos );
+    }
+
+}
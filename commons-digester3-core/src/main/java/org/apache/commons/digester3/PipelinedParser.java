@@ -0,0 +1,567 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.LocatorImpl;
+
+/**
+ * Runs the XML tokenizer on another thread and replays its content events to a {@link Digester} on the calling
+ * thread, so that tokenizing and rule execution overlap.
+ * <p>
+ * Events are copied into a preallocated ring buffer of reusable slots. The tokenizer blocks when the buffer is full
+ * and the calling thread when it is empty; a failure on either side stops the other one and is rethrown to the
+ * caller. When the rules fail or stop the parse, the input streams are closed so that a tokenizer blocked reading a
+ * stalled source returns. While an event is replayed the digester sees a {@link Locator} snapshot of the position
+ * the event was reported at.
+ */
+final class PipelinedParser
+    implements ContentHandler
+{
+
+    private static final char[] NO_TEXT = {};
+
+    private static final int START_DOCUMENT = 0;
+
+    private static final int END_DOCUMENT = 1;
+
+    private static final int START_ELEMENT = 2;
+
+    private static final int END_ELEMENT = 3;
+
+    private static final int CHARACTERS = 4;
+
+    private static final int IGNORABLE_WHITESPACE = 5;
+
+    private static final int START_PREFIX_MAPPING = 6;
+
+    private static final int END_PREFIX_MAPPING = 7;
+
+    private static final int PROCESSING_INSTRUCTION = 8;
+
+    private static final int SKIPPED_ENTITY = 9;
+
+    /**
+     * A reusable copy of a single content event.
+     */
+    private static final class Event
+    {
+
+        int type;
+
+        String uri;
+
+        String localName;
+
+        String qName;
+
+        final AttributesImpl attributes = new AttributesImpl();
+
+        char[] text = new char[64];
+
+        int length;
+
+        String publicId;
+
+        String systemId;
+
+        int lineNumber;
+
+        int columnNumber;
+
+    }
+
+    private final Digester digester;
+
+    private final Event[] ring;
+
+    private final int mask;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    private final Condition tokenizerExited = lock.newCondition();
+
+    private final LocatorImpl locatorSnapshot = new LocatorImpl();
+
+    /**
+     * The live tokenizer locator, only read on the tokenizer thread.
+     */
+    private Locator locator;
+
+    /**
+     * The sequence number of the next event to replay, guarded by {@link #lock}.
+     */
+    private long head;
+
+    /**
+     * The sequence number of the next event to record, guarded by {@link #lock}.
+     */
+    private long tail;
+
+    /**
+     * Set when the tokenizer returned, guarded by {@link #lock}.
+     */
+    private boolean tokenizerDone;
+
+    /**
+     * The exception the tokenizer failed with, guarded by {@link #lock}.
+     */
+    private Throwable tokenizerFailure;
+
+    /**
+     * Set when replaying failed and the tokenizer must stop, guarded by {@link #lock}.
+     */
+    private boolean aborted;
+
+    /**
+     * Creates a pipeline feeding the given digester.
+     *
+     * @param digester the digester the events are replayed to
+     * @param capacity the minimum number of events buffered between the two threads
+     */
+    PipelinedParser( final Digester digester, final int capacity )
+    {
+        this.digester = digester;
+        final int size = Integer.highestOneBit( Math.max( 2, capacity - 1 ) ) << 1;
+        ring = new Event[size];
+        for ( int i = 0; i < size; i++ )
+        {
+            ring[i] = new Event();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Parses the given input on a tokenizer task and replays the events on the calling thread.
+     *
+     * @param reader the reader to tokenize the input with, its content handler is replaced
+     * @param input the input to parse
+     * @param executor the executor running the tokenizer task, null to start a new daemon thread
+     * @throws IOException if the tokenizer failed reading the input
+     * @throws SAXException if the input is not well-formed or a rule failed
+     */
+    void parse( final XMLReader reader, final InputSource input, final Executor executor )
+        throws IOException, SAXException
+    {
+        reader.setContentHandler( this );
+        try
+        {
+            final Runnable tokenizer = () -> tokenize( reader, input );
+            if ( executor != null )
+            {
+                executor.execute( tokenizer );
+            }
+            else
+            {
+                final Thread thread = new Thread( tokenizer, "Digester tokenizer" );
+                thread.setDaemon( true );
+                thread.start();
+            }
+
+            try
+            {
+                replay();
+            }
+            catch ( final SAXException | RuntimeException | Error e )
+            {
+                abort( input );
+                throw e;
+            }
+        }
+        finally
+        {
+            reader.setContentHandler( digester );
+            clearEvents();
+        }
+
+        final Throwable failure = tokenizerFailure;
+        if ( failure instanceof IOException )
+        {
+            throw (IOException) failure;
+        }
+        if ( failure instanceof SAXException )
+        {
+            throw (SAXException) failure;
+        }
+        if ( failure instanceof RuntimeException )
+        {
+            throw (RuntimeException) failure;
+        }
+        if ( failure instanceof Error )
+        {
+            throw (Error) failure;
+        }
+        if ( failure != null )
+        {
+            throw new SAXException( "The tokenizer failed", (Exception) failure );
+        }
+    }
+
+    private void tokenize( final XMLReader reader, final InputSource input )
+    {
+        Throwable failure = null;
+        try
+        {
+            reader.parse( input );
+        }
+        catch ( final Throwable t )
+        {
+            failure = t;
+        }
+
+        lock.lock();
+        try
+        {
+            tokenizerFailure = failure;
+            tokenizerDone = true;
+            notEmpty.signal();
+            tokenizerExited.signal();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the tokenizer after replaying failed, and waits for it so that the reader is no longer in use. The input
+     * is closed first, in case the tokenizer is blocked reading it.
+     */
+    private void abort( final InputSource input )
+    {
+        lock.lock();
+        try
+        {
+            aborted = true;
+            notFull.signal();
+            if ( tokenizerDone )
+            {
+                return;
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        digester.closeQuietly( input );
+
+        lock.lock();
+        try
+        {
+            while ( !tokenizerDone )
+            {
+                tokenizerExited.awaitUninterruptibly();
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the names, attributes and text of the events once the parse is over.
+     */
+    private void clearEvents()
+    {
+        for ( final Event event : ring )
+        {
+            event.uri = null;
+            event.localName = null;
+            event.qName = null;
+            event.attributes.clear();
+            event.text = NO_TEXT;
+            event.length = 0;
+            event.publicId = null;
+            event.systemId = null;
+        }
+    }
+
+    private void replay()
+        throws SAXException
+    {
+        digester.setDocumentLocator( locatorSnapshot );
+        while ( true )
+        {
+            final long first;
+            final long last;
+            lock.lock();
+            try
+            {
+                while ( head == tail && !tokenizerDone )
+                {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if ( head == tail )
+                {
+                    return;
+                }
+                first = head;
+                last = tail;
+            }
+            finally
+            {
+                lock.unlock();
+            }
+
+            // replay every event available without holding the lock
+            for ( long sequence = first; sequence < last; sequence++ )
+            {
+                dispatch( ring[(int) sequence & mask] );
+            }
+
+            lock.lock();
+            try
+            {
+                head = last;
+                notFull.signal();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void dispatch( final Event event )
+        throws SAXException
+    {
+        locatorSnapshot.setPublicId( event.publicId );
+        locatorSnapshot.setSystemId( event.systemId );
+        locatorSnapshot.setLineNumber( event.lineNumber );
+        locatorSnapshot.setColumnNumber( event.columnNumber );
+
+        switch ( event.type )
+        {
+            case START_DOCUMENT:
+                digester.startDocument();
+                break;
+            case END_DOCUMENT:
+                digester.endDocument();
+                break;
+            case START_ELEMENT:
+                digester.startElement( event.uri, event.localName, event.qName, event.attributes );
+                break;
+            case END_ELEMENT:
+                digester.endElement( event.uri, event.localName, event.qName );
+                break;
+            case CHARACTERS:
+                digester.characters( event.text, 0, event.length );
+                break;
+            case IGNORABLE_WHITESPACE:
+                digester.ignorableWhitespace( event.text, 0, event.length );
+                break;
+            case START_PREFIX_MAPPING:
+                digester.startPrefixMapping( event.localName, event.uri );
+                break;
+            case END_PREFIX_MAPPING:
+                digester.endPrefixMapping( event.localName );
+                break;
+            case PROCESSING_INSTRUCTION:
+                digester.processingInstruction( event.qName, event.localName );
+                break;
+            case SKIPPED_ENTITY:
+                digester.skippedEntity( event.localName );
+                break;
+            default:
+                throw new IllegalStateException( "Unknown event type " + event.type );
+        }
+    }
+
+    /**
+     * Waits for a free slot, on the tokenizer thread.
+     */
+    private Event claim( final int type )
+        throws SAXException
+    {
+        final Event event;
+        lock.lock();
+        try
+        {
+            while ( tail - head == ring.length && !aborted )
+            {
+                notFull.awaitUninterruptibly();
+            }
+            if ( aborted )
+            {
+                throw new SAXException( "Parse aborted, a rule failed" );
+            }
+            event = ring[(int) tail & mask];
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        event.type = type;
+        if ( locator != null )
+        {
+            event.publicId = locator.getPublicId();
+            event.systemId = locator.getSystemId();
+            event.lineNumber = locator.getLineNumber();
+            event.columnNumber = locator.getColumnNumber();
+        }
+        return event;
+    }
+
+    /**
+     * Makes a filled slot visible to the replaying thread, on the tokenizer thread.
+     */
+    private void publish()
+    {
+        lock.lock();
+        try
+        {
+            tail++;
+            notEmpty.signal();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private void publishText( final int type, final char[] ch, final int start, final int length )
+        throws SAXException
+    {
+        final Event event = claim( type );
+        if ( event.text.length < length )
+        {
+            event.text = new char[Math.max( length, event.text.length * 2 )];
+        }
+        System.arraycopy( ch, start, event.text, 0, length );
+        event.length = length;
+        publish();
+    }
+
+    @Override
+    public void setDocumentLocator( final Locator locator )
+    {
+        this.locator = locator;
+    }
+
+    @Override
+    public void startDocument()
+        throws SAXException
+    {
+        claim( START_DOCUMENT );
+        publish();
+    }
+
+    @Override
+    public void endDocument()
+        throws SAXException
+    {
+        claim( END_DOCUMENT );
+        publish();
+    }
+
+    @Override
+    public void startPrefixMapping( final String prefix, final String uri )
+        throws SAXException
+    {
+        final Event event = claim( START_PREFIX_MAPPING );
+        event.localName = prefix;
+        event.uri = uri;
+        publish();
+    }
+
+    @Override
+    public void endPrefixMapping( final String prefix )
+        throws SAXException
+    {
+        final Event event = claim( END_PREFIX_MAPPING );
+        event.localName = prefix;
+        publish();
+    }
+
+    @Override
+    public void startElement( final String uri, final String localName, final String qName, final Attributes atts )
+        throws SAXException
+    {
+        final Event event = claim( START_ELEMENT );
+        event.uri = uri;
+        event.localName = localName;
+        event.qName = qName;
+        event.attributes.setAttributes( atts );
+        publish();
+    }
+
+    @Override
+    public void endElement( final String uri, final String localName, final String qName )
+        throws SAXException
+    {
+        final Event event = claim( END_ELEMENT );
+        event.uri = uri;
+        event.localName = localName;
+        event.qName = qName;
+        publish();
+    }
+
+    @Override
+    public void characters( final char[] ch, final int start, final int length )
+        throws SAXException
+    {
+        publishText( CHARACTERS, ch, start, length );
+    }
+
+    @Override
+    public void ignorableWhitespace( final char[] ch, final int start, final int length )
+        throws SAXException
+    {
+        publishText( IGNORABLE_WHITESPACE, ch, start, length );
+    }
+
+    @Override
+    public void processingInstruction( final String target, final String data )
+        throws SAXException
+    {
+        final Event event = claim( PROCESSING_INSTRUCTION );
+        event.qName = target;
+        event.localName = data;
+        publish();
+    }
+
+    @Override
+    public void skippedEntity( final String name )
+        throws SAXException
+    {
+        final Event event = claim( SKIPPED_ENTITY );
+        event.localName = name;
+        publish();
+    }
+
+}
@@ -0,0 +1,91 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Buckets and percentiles of the duration histograms of {@link RuleProfiler} and {@link DigesterMetrics}: one bucket
+ * per power of two nanoseconds, bucket 0 holding the zero duration samples, so percentiles are accurate within a
+ * factor of two. The owners keep the bucket counts, in plain or atomic arrays depending on their threading.
+ *
+ * @since 3.3
+ */
+final class PowerOfTwoHistogram
+{
+
+    /**
+     * The number of buckets, enough for any non-negative {@code long} duration.
+     */
+    static final int BUCKETS = Long.SIZE;
+
+    private PowerOfTwoHistogram()
+    {
+        // static helpers only
+    }
+
+    /**
+     * Returns the bucket of the given duration.
+     *
+     * @param nanos the duration, in nanoseconds, not negative
+     * @return the bucket of the given duration
+     */
+    static int bucketOf( final long nanos )
+    {
+        return Long.SIZE - Long.numberOfLeadingZeros( nanos );
+    }
+
+    /**
+     * Returns an upper bound of the given percentile of the durations counted in the given buckets.
+     *
+     * @param counts the number of durations in each bucket
+     * @param percentile the percentile, between 0 and 100
+     * @param maxNanos the longest duration counted, in nanoseconds
+     * @return an upper bound of the given percentile, in nanoseconds, 0 if no duration is counted
+     */
+    static long percentile( final long[] counts, final double percentile, final long maxNanos )
+    {
+        if ( percentile < 0 || percentile > 100 )
+        {
+            throw new IllegalArgumentException( "Percentile must be between 0 and 100, was " + percentile );
+        }
+
+        long count = 0;
+        for ( final long bucketCount : counts )
+        {
+            count += bucketCount;
+        }
+        if ( count == 0 )
+        {
+            return 0;
+        }
+
+        final long rank = Math.max( 1L, (long) Math.ceil( count * percentile / 100 ) );
+        long seen = 0;
+        for ( int bucket = 0; bucket < counts.length; bucket++ )
+        {
+            seen += counts[bucket];
+            if ( seen >= rank )
+            {
+                return Math.min( ( 1L << bucket ) - 1, maxNanos );
+            }
+        }
+        return maxNanos;
+    }
+
+}
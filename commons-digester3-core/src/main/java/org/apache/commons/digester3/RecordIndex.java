@@ -0,0 +1,459 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Byte offsets of the records of a large XML document, the elements found at a given path, so that single records can
+ * be digested without parsing the document from the start:
+ *
+ * <pre>
+ * RecordIndex index = RecordIndex.build( archive, "catalog/item", "id" );
+ * Catalog catalog = digester.parseRecord( archive, index, "item-42" );
+ * </pre>
+ *
+ * A record is parsed from a slice of the document, wrapped in a copy of the XML declaration and of the start tags of
+ * its ancestors, so that the same {@link Rules} apply and the namespace declarations of the ancestors stay in scope.
+ * Consequently the rules see a document with a single record, or a single range of records.
+ * <p>
+ * Indexing scans the raw bytes of the document without parsing it, so it is restricted to well-formed documents
+ * encoded with a charset where the markup characters are single ASCII bytes, such as UTF-8 or ISO-8859-1. The pattern
+ * is an absolute path of element names as they are written in the document, prefixes included; wildcards are not
+ * supported. Records relying on entities declared in a DTD cannot be parsed on their own.
+ * <p>
+ * Indexes are immutable and can be stored with {@link #write(OutputStream)} and loaded with
+ * {@link #read(InputStream)}.
+ *
+ * @since 3.3
+ */
+public final class RecordIndex
+{
+
+    private static final int MAGIC = 0x44475249;
+
+    private static final int VERSION = 1;
+
+    private final String pattern;
+
+    private final String keyAttribute;
+
+    private final long documentLength;
+
+    private final byte[] prolog;
+
+    private final byte[][] contextOpenings;
+
+    private final byte[][] contextClosings;
+
+    private final long[] offsets;
+
+    private final long[] lengths;
+
+    private final int[] contexts;
+
+    private final String[] keys;
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+
+    private RecordIndex( final String pattern, final String keyAttribute, final long documentLength,
+                         final byte[] prolog, final byte[][] contextOpenings, final byte[][] contextClosings,
+                         final long[] offsets, final long[] lengths, final int[] contexts, final String[] keys )
+    {
+        this.pattern = pattern;
+        this.keyAttribute = keyAttribute;
+        this.documentLength = documentLength;
+        this.prolog = prolog;
+        this.contextOpenings = contextOpenings;
+        this.contextClosings = contextClosings;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.contexts = contexts;
+        this.keys = keys;
+        for ( int ordinal = 0; ordinal < keys.length; ordinal++ )
+        {
+            if ( keys[ordinal] != null )
+            {
+                ordinals.putIfAbsent( keys[ordinal], ordinal );
+            }
+        }
+    }
+
+    /**
+     * Scans a document and indexes the elements found at the given path.
+     *
+     * @param document the XML document to index
+     * @param pattern the absolute path of the records, e.g. {@code catalog/item}
+     * @param keyAttribute the name of the attribute identifying the records, null to address records by ordinal only
+     * @return the index of the records of the document
+     * @throws IOException if the document cannot be read or is not supported
+     */
+    public static RecordIndex build( final File document, final String pattern, final String keyAttribute )
+        throws IOException
+    {
+        if ( pattern == null || pattern.isEmpty() || pattern.contains( "*" ) )
+        {
+            throw new IllegalArgumentException( "Pattern must be an absolute element path, was " + pattern );
+        }
+        final String path = pattern.startsWith( "/" ) ? pattern.substring( 1 ) : pattern;
+
+        final RecordScanner scanner;
+        try ( InputStream input = new FileInputStream( document ) )
+        {
+            scanner = new RecordScanner( input, path.split( "/" ), keyAttribute );
+            scanner.scan();
+        }
+        return new RecordIndex( path, keyAttribute, document.length(), scanner.getProlog(),
+                                scanner.getContextOpenings().toArray( new byte[0][] ),
+                                scanner.getContextClosings().toArray( new byte[0][] ), scanner.getOffsets(),
+                                scanner.getLengths(), scanner.getContexts(), scanner.getKeys() );
+    }
+
+    /**
+     * Loads an index stored with {@link #write(OutputStream)}.
+     *
+     * @param input the stream the index is read from, left open
+     * @return the index read
+     * @throws IOException if the index cannot be read
+     */
+    public static RecordIndex read( final InputStream input )
+        throws IOException
+    {
+        final DataInputStream data = new DataInputStream( new BufferedInputStream( input ) );
+        if ( data.readInt() != MAGIC || data.readInt() != VERSION )
+        {
+            throw new IOException( "Not a record index, or an unsupported version" );
+        }
+        final String pattern = data.readUTF();
+        final String keyAttribute = data.readBoolean() ? data.readUTF() : null;
+        final long documentLength = data.readLong();
+        final byte[] prolog = readBytes( data );
+
+        final int contextCount = data.readInt();
+        final byte[][] contextOpenings = new byte[contextCount][];
+        final byte[][] contextClosings = new byte[contextCount][];
+        for ( int i = 0; i < contextCount; i++ )
+        {
+            contextOpenings[i] = readBytes( data );
+            contextClosings[i] = readBytes( data );
+        }
+
+        final int size = data.readInt();
+        final long[] offsets = new long[size];
+        final long[] lengths = new long[size];
+        final int[] contexts = new int[size];
+        final String[] keys = new String[size];
+        long previous = 0;
+        for ( int i = 0; i < size; i++ )
+        {
+            // offsets are stored as the gap from the end of the previous record
+            offsets[i] = previous + readVarLong( data );
+            lengths[i] = readVarLong( data );
+            contexts[i] = (int) readVarLong( data );
+            if ( keyAttribute != null && data.readBoolean() )
+            {
+                keys[i] = data.readUTF();
+            }
+            previous = offsets[i] + lengths[i];
+        }
+        return new RecordIndex( pattern, keyAttribute, documentLength, prolog, contextOpenings, contextClosings,
+                                offsets, lengths, contexts, keys );
+    }
+
+    private static byte[] readBytes( final DataInputStream data )
+        throws IOException
+    {
+        final byte[] bytes = new byte[data.readInt()];
+        data.readFully( bytes );
+        return bytes;
+    }
+
+    private static long readVarLong( final DataInputStream data )
+        throws IOException
+    {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do
+        {
+            b = data.readUnsignedByte();
+            value |= (long) ( b & 0x7F ) << shift;
+            shift += 7;
+        }
+        while ( ( b & 0x80 ) != 0 );
+        return value;
+    }
+
+    private static void writeBytes( final DataOutputStream data, final byte[] bytes )
+        throws IOException
+    {
+        data.writeInt( bytes.length );
+        data.write( bytes );
+    }
+
+    private static void writeVarLong( final DataOutputStream data, final long value )
+        throws IOException
+    {
+        long remaining = value;
+        while ( ( remaining & ~0x7FL ) != 0 )
+        {
+            data.writeByte( (int) ( remaining & 0x7F ) | 0x80 );
+            remaining >>>= 7;
+        }
+        data.writeByte( (int) remaining );
+    }
+
+    /**
+     * Stores this index, to be loaded with {@link #read(InputStream)}.
+     *
+     * @param output the stream the index is written to, flushed but left open
+     * @throws IOException if the index cannot be written
+     */
+    public void write( final OutputStream output )
+        throws IOException
+    {
+        final DataOutputStream data = new DataOutputStream( new BufferedOutputStream( output ) );
+        data.writeInt( MAGIC );
+        data.writeInt( VERSION );
+        data.writeUTF( pattern );
+        data.writeBoolean( keyAttribute != null );
+        if ( keyAttribute != null )
+        {
+            data.writeUTF( keyAttribute );
+        }
+        data.writeLong( documentLength );
+        writeBytes( data, prolog );
+
+        data.writeInt( contextOpenings.length );
+        for ( int i = 0; i < contextOpenings.length; i++ )
+        {
+            writeBytes( data, contextOpenings[i] );
+            writeBytes( data, contextClosings[i] );
+        }
+
+        data.writeInt( offsets.length );
+        long previous = 0;
+        for ( int i = 0; i < offsets.length; i++ )
+        {
+            writeVarLong( data, offsets[i] - previous );
+            writeVarLong( data, lengths[i] );
+            writeVarLong( data, contexts[i] );
+            if ( keyAttribute != null )
+            {
+                data.writeBoolean( keys[i] != null );
+                if ( keys[i] != null )
+                {
+                    data.writeUTF( keys[i] );
+                }
+            }
+            previous = offsets[i] + lengths[i];
+        }
+        data.flush();
+    }
+
+    /**
+     * Returns the path of the indexed records.
+     *
+     * @return the path of the indexed records
+     */
+    public String getPattern()
+    {
+        return pattern;
+    }
+
+    /**
+     * Returns the name of the attribute identifying the records.
+     *
+     * @return the name of the attribute identifying the records, null if records are addressed by ordinal only
+     */
+    public String getKeyAttribute()
+    {
+        return keyAttribute;
+    }
+
+    /**
+     * Returns the number of indexed records.
+     *
+     * @return the number of indexed records
+     */
+    public int size()
+    {
+        return offsets.length;
+    }
+
+    /**
+     * Returns the ordinal of the first record with the given key.
+     *
+     * @param key the value of the key attribute
+     * @return the ordinal of the first record with the given key, -1 if none has it
+     */
+    public int getOrdinal( final String key )
+    {
+        final Integer ordinal = ordinals.get( key );
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * Returns the key of a record.
+     *
+     * @param ordinal the record ordinal
+     * @return the key of the record, null if it has no key attribute
+     */
+    public String getKey( final int ordinal )
+    {
+        return keys[ordinal];
+    }
+
+    /**
+     * Returns the offset of the first byte of a record in the document.
+     *
+     * @param ordinal the record ordinal
+     * @return the offset of the first byte of the record
+     */
+    public long getOffset( final int ordinal )
+    {
+        return offsets[ordinal];
+    }
+
+    /**
+     * Returns the number of bytes of a record in the document.
+     *
+     * @param ordinal the record ordinal
+     * @return the number of bytes of the record
+     */
+    public long getLength( final int ordinal )
+    {
+        return lengths[ordinal];
+    }
+
+    /**
+     * Opens a standalone document made of a range of records, wrapped in the start and end tags of their ancestors. The
+     * records are read through a memory mapped slice of the document, so the records in range and whatever lies
+     * between them must be smaller than 2GB and share the same ancestors.
+     *
+     * @param document the indexed document
+     * @param from the ordinal of the first record, inclusive
+     * @param to the ordinal of the last record, exclusive
+     * @return the standalone document
+     * @throws IOException if the document cannot be read or has changed since it was indexed
+     */
+    public InputStream openRecords( final File document, final int from, final int to )
+        throws IOException
+    {
+        if ( from < 0 || to > offsets.length || from >= to )
+        {
+            throw new IndexOutOfBoundsException( "Invalid record range [" + from + ", " + to + ") of "
+                + offsets.length + " records" );
+        }
+        final int context = contexts[from];
+        for ( int i = from + 1; i < to; i++ )
+        {
+            if ( contexts[i] != context )
+            {
+                throw new IllegalArgumentException( "Records " + from + " and " + i + " have different ancestors" );
+            }
+        }
+        if ( document.length() != documentLength )
+        {
+            throw new IOException( document + " has changed since it was indexed" );
+        }
+
+        final long start = offsets[from];
+        final long length = offsets[to - 1] + lengths[to - 1] - start;
+        if ( length > Integer.MAX_VALUE )
+        {
+            throw new IllegalArgumentException( "Records " + from + " to " + to + " span more than 2GB" );
+        }
+        final ByteBuffer slice;
+        try ( FileChannel channel = FileChannel.open( document.toPath(), StandardOpenOption.READ ) )
+        {
+            slice = channel.map( FileChannel.MapMode.READ_ONLY, start, length );
+        }
+
+        return new SequenceInputStream( new SequenceInputStream( new ByteArrayInputStream( prolog ),
+                                                                 new ByteArrayInputStream( contextOpenings[context] ) ),
+                                        new SequenceInputStream( new ByteBufferInputStream( slice ),
+                                                                 new ByteArrayInputStream( contextClosings[context] ) ) );
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format( "RecordIndex[pattern=%s, key=%s, records=%s, contexts=%s]", pattern, keyAttribute,
+                              offsets.length, contextOpenings.length );
+    }
+
+    private static final class ByteBufferInputStream
+        extends InputStream
+    {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream( final ByteBuffer buffer )
+        {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int available()
+        {
+            return buffer.remaining();
+        }
+
+        @Override
+        public int read()
+        {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read( final byte[] bytes, final int offset, final int length )
+        {
+            if ( length == 0 )
+            {
+                return 0;
+            }
+            if ( !buffer.hasRemaining() )
+            {
+                return -1;
+            }
+            final int count = Math.min( length, buffer.remaining() );
+            buffer.get( bytes, offset, count );
+            return count;
+        }
+
+    }
+
+}
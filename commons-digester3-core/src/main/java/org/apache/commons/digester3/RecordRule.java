@@ -0,0 +1,385 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static java.lang.String.format;
+import static org.apache.commons.beanutils.ConvertUtils.convert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+
+/**
+ * <p>
+ * Rule implementation that pushes a schemaless record, filled from the matching element and its children without
+ * any bean class: an {@code Object[]} or a {@code String[]} indexed by column, or a {@link LinkedHashMap} keyed by
+ * column name, in the order the fields are met. The record is popped when the element ends, so the rules following
+ * this one, e.g. a {@link BatchingRule}, see it as the top object.
+ * </p>
+ * <p>
+ * The attributes of the matching element are mapped to columns with {@link #mapAttribute(String, int)}; the body
+ * text and the attributes of its children are mapped by {@link FieldRule}s, added on the child patterns. Values are
+ * strings, unless a column type is set for an {@code Object[]} or a map record, in which case they are converted by
+ * {@code org.apache.commons.beanutils.ConvertUtils}.
+ * </p>
+ * <p>
+ * When {@link #isReuseRecord()}, the same record is cleared and refilled for each element, the consumers of the
+ * records must then copy what they keep before the next element starts.
+ * </p>
+ *
+ * @since 3.3
+ */
+public class RecordRule
+    extends Rule
+{
+
+    /**
+     * The kinds of records.
+     */
+    public enum Format
+    {
+
+        /**
+         * An {@code Object[]} indexed by column.
+         */
+        OBJECT_ARRAY,
+
+        /**
+         * A {@code String[]} indexed by column, column types are ignored.
+         */
+        STRING_ARRAY,
+
+        /**
+         * A {@link LinkedHashMap} keyed by column name.
+         */
+        MAP
+
+    }
+
+    /**
+     * Rule implementation that sets a column of the record at the top of the stack from the body text, or from an
+     * attribute, of the matching element.
+     */
+    public static class FieldRule
+        extends Rule
+    {
+
+        private final int column;
+
+        private final String columnName;
+
+        private final Class<?> columnType;
+
+        private final String attributeName;
+
+        private String bodyText;
+
+        /**
+         * Constructs a rule that sets the given column of the record at the top of the stack.
+         *
+         * @param column the index of the column, in arrays
+         * @param columnName the name of the column, in maps
+         * @param columnType the type of the value, null or {@code String.class} for the text itself
+         * @param attributeName the attribute holding the value, null for the body text
+         */
+        public FieldRule( final int column, final String columnName, final Class<?> columnType,
+                          final String attributeName )
+        {
+            this.column = column;
+            this.columnName = columnName;
+            this.columnType = columnType;
+            this.attributeName = attributeName;
+        }
+
+        @Override
+        public void begin( final String namespace, final String name, final Attributes attributes )
+            throws Exception
+        {
+            if ( attributeName != null )
+            {
+                final String value = attributes.getValue( attributeName );
+                if ( value != null )
+                {
+                    setField( getDigester(), getDigester().peek(), column, columnName, columnType, value );
+                }
+            }
+        }
+
+        @Override
+        public void body( final String namespace, final String name, final String text )
+            throws Exception
+        {
+            if ( attributeName == null )
+            {
+                bodyText = text.trim();
+            }
+        }
+
+        @Override
+        public void end( final String namespace, final String name )
+            throws Exception
+        {
+            if ( attributeName == null )
+            {
+                setField( getDigester(), getDigester().peek(), column, columnName, columnType, bodyText );
+            }
+        }
+
+        @Override
+        public void finish()
+            throws Exception
+        {
+            bodyText = null;
+        }
+
+        @Override
+        public String toString()
+        {
+            return format( "RecordRule.FieldRule[column=%s, columnName=%s, columnType=%s, attributeName=%s]",
+                           column, columnName, columnType, attributeName );
+        }
+
+    }
+
+    private final Format format;
+
+    private final String[] columnNames;
+
+    private final Class<?>[] columnTypes;
+
+    private final List<String> attributeNames = new ArrayList<>();
+
+    private final List<Integer> attributeColumns = new ArrayList<>();
+
+    private boolean reuseRecord;
+
+    private Object record;
+
+    /**
+     * Constructs a rule pushing records of the given format.
+     *
+     * @param format the kind of records
+     * @param columnNames the names of the columns, the map keys; their number is the length of the arrays
+     */
+    public RecordRule( final Format format, final String... columnNames )
+    {
+        if ( format == null )
+        {
+            throw new IllegalArgumentException( "Record format must not be null" );
+        }
+        if ( columnNames == null || columnNames.length == 0 )
+        {
+            throw new IllegalArgumentException( "Record columns must not be empty" );
+        }
+        this.format = format;
+        this.columnNames = columnNames.clone();
+        this.columnTypes = new Class<?>[columnNames.length];
+    }
+
+    /**
+     * Returns the kind of records.
+     *
+     * @return the kind of records
+     */
+    public Format getFormat()
+    {
+        return format;
+    }
+
+    /**
+     * Returns the names of the columns.
+     *
+     * @return the names of the columns
+     */
+    public String[] getColumnNames()
+    {
+        return columnNames.clone();
+    }
+
+    /**
+     * Sets the type the values of the given column are converted to, ignored by {@link Format#STRING_ARRAY} records.
+     *
+     * @param column the index of the column
+     * @param columnType the type of the values, null for strings
+     */
+    public void setColumnType( final int column, final Class<?> columnType )
+    {
+        columnTypes[checkColumn( column )] = columnType;
+    }
+
+    /**
+     * Maps an attribute of the matching element to a column.
+     *
+     * @param attributeName the name of the attribute
+     * @param column the index of the column
+     */
+    public void mapAttribute( final String attributeName, final int column )
+    {
+        if ( attributeName == null )
+        {
+            throw new IllegalArgumentException( "Attribute name must not be null" );
+        }
+        attributeNames.add( attributeName );
+        attributeColumns.add( checkColumn( column ) );
+    }
+
+    /**
+     * Returns a rule setting the given column from the body text, or from an attribute, of the elements matching
+     * the pattern it is added on, usually a child pattern of this rule one.
+     *
+     * @param column the index of the column
+     * @param attributeName the attribute holding the value, null for the body text
+     * @return the rule setting the given column
+     */
+    public FieldRule newFieldRule( final int column, /* @Nullable */final String attributeName )
+    {
+        checkColumn( column );
+        return new FieldRule( column, columnNames[column], format == Format.STRING_ARRAY ? null : columnTypes[column],
+                              attributeName );
+    }
+
+    /**
+     * Returns true if the same record is refilled for each matching element, false by default.
+     *
+     * @return true if the same record is refilled for each matching element
+     */
+    public boolean isReuseRecord()
+    {
+        return reuseRecord;
+    }
+
+    /**
+     * Sets whether the same record is refilled for each matching element, instead of a new one being pushed.
+     *
+     * @param reuseRecord true to refill the same record for each matching element
+     */
+    public void setReuseRecord( final boolean reuseRecord )
+    {
+        this.reuseRecord = reuseRecord;
+    }
+
+    @Override
+    public void begin( final String namespace, final String name, final Attributes attributes )
+        throws Exception
+    {
+        final Object current = reuseRecord && record != null ? clear( record ) : newRecord();
+        record = current;
+        getDigester().push( current );
+
+        for ( int i = 0; i < attributeNames.size(); i++ )
+        {
+            final String value = attributes.getValue( attributeNames.get( i ) );
+            if ( value != null )
+            {
+                final int column = attributeColumns.get( i );
+                setField( getDigester(), current, column, columnNames[column],
+                          format == Format.STRING_ARRAY ? null : columnTypes[column], value );
+            }
+        }
+    }
+
+    @Override
+    public void end( final String namespace, final String name )
+        throws Exception
+    {
+        getDigester().pop();
+    }
+
+    @Override
+    public void finish()
+        throws Exception
+    {
+        record = null;
+    }
+
+    private Object newRecord()
+    {
+        switch ( format )
+        {
+            case STRING_ARRAY:
+                return new String[columnNames.length];
+            case MAP:
+                // sized to never rehash
+                return new LinkedHashMap<String, Object>( columnNames.length * 4 / 3 + 1 );
+            default:
+                return new Object[columnNames.length];
+        }
+    }
+
+    private static Object clear( final Object record )
+    {
+        if ( record instanceof Map )
+        {
+            ( (Map<?, ?>) record ).clear();
+        }
+        else
+        {
+            Arrays.fill( (Object[]) record, null );
+        }
+        return record;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    static void setField( final Digester digester, final Object record, final int column, final String columnName,
+                          final Class<?> columnType, final String text )
+        throws SAXException
+    {
+        final Object value = columnType == null || columnType == String.class ? text : convert( text, columnType );
+        if ( record instanceof Object[] )
+        {
+            final Object[] fields = (Object[]) record;
+            if ( column < fields.length )
+            {
+                fields[column] = value;
+                return;
+            }
+        }
+        else if ( record instanceof Map )
+        {
+            ( (Map<String, Object>) record ).put( columnName, value );
+            return;
+        }
+        throw new SAXException( format( "[RecordRule]{%s} Top object is not a record with column %s: %s",
+                                        digester.getMatch(), column, record ) );
+    }
+
+    private int checkColumn( final int column )
+    {
+        if ( column < 0 || column >= columnNames.length )
+        {
+            throw new IllegalArgumentException( format( "Column %s out of range [0, %s)", column,
+                                                        columnNames.length ) );
+        }
+        return column;
+    }
+
+    @Override
+    public String toString()
+    {
+        return format( "RecordRule[format=%s, columnNames=%s, reuseRecord=%s]", format, Arrays.toString( columnNames ),
+                       reuseRecord );
+    }
+
+}
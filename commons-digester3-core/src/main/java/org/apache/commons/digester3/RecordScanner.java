@@ -0,0 +1,647 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single pass byte level scanner locating the elements at a given path of an XML document, used to build a
+ * {@link RecordIndex}. Only the markup needed to track the element nesting is recognized; the document is assumed
+ * well-formed and encoded with a charset where markup characters are single ASCII bytes, such as UTF-8 or ISO-8859-1.
+ */
+final class RecordScanner
+{
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream input;
+
+    private final String[] segments;
+
+    private final String keyAttribute;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private int index;
+
+    private int limit;
+
+    /**
+     * The offset of the next byte read.
+     */
+    private long position;
+
+    /**
+     * Receives the raw bytes read while not null.
+     */
+    private ByteArrayOutputStream capture;
+
+    private Charset charset = StandardCharsets.UTF_8;
+
+    private byte[] prolog = new byte[0];
+
+    /**
+     * The raw start tags and names of the open elements matching the leading pattern segments.
+     */
+    private final byte[][] ancestorTags;
+
+    private final String[] ancestorNames;
+
+    private int depth;
+
+    /**
+     * The number of open elements matching the leading pattern segments.
+     */
+    private int matching;
+
+    private int context = -1;
+
+    private final Map<String, Integer> contextIds = new HashMap<>();
+
+    private final List<byte[]> contextOpenings = new ArrayList<>();
+
+    private final List<byte[]> contextClosings = new ArrayList<>();
+
+    private long[] offsets = new long[1024];
+
+    private long[] lengths = new long[1024];
+
+    private int[] contexts = new int[1024];
+
+    private String[] keys = new String[1024];
+
+    private int size;
+
+    RecordScanner( final InputStream input, final String[] segments, final String keyAttribute )
+    {
+        this.input = input;
+        this.segments = segments;
+        this.keyAttribute = keyAttribute;
+        ancestorTags = new byte[segments.length][];
+        ancestorNames = new String[segments.length];
+    }
+
+    byte[] getProlog()
+    {
+        return prolog;
+    }
+
+    List<byte[]> getContextOpenings()
+    {
+        return contextOpenings;
+    }
+
+    List<byte[]> getContextClosings()
+    {
+        return contextClosings;
+    }
+
+    int getSize()
+    {
+        return size;
+    }
+
+    long[] getOffsets()
+    {
+        return Arrays.copyOf( offsets, size );
+    }
+
+    long[] getLengths()
+    {
+        return Arrays.copyOf( lengths, size );
+    }
+
+    int[] getContexts()
+    {
+        return Arrays.copyOf( contexts, size );
+    }
+
+    String[] getKeys()
+    {
+        return Arrays.copyOf( keys, size );
+    }
+
+    private int read()
+        throws IOException
+    {
+        if ( index == limit )
+        {
+            limit = input.read( buffer, 0, BUFFER_SIZE );
+            index = 0;
+            if ( limit <= 0 )
+            {
+                limit = 0;
+                return -1;
+            }
+        }
+        position++;
+        final int c = buffer[index++] & 0xFF;
+        if ( capture != null )
+        {
+            capture.write( c );
+        }
+        return c;
+    }
+
+    private int readRequired()
+        throws IOException
+    {
+        final int c = read();
+        if ( c == -1 )
+        {
+            throw new IOException( "Unexpected end of document at offset " + position );
+        }
+        return c;
+    }
+
+    private static boolean isWhitespace( final int c )
+    {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    /**
+     * Skips the bytes up to and including the given terminator, at most 4 bytes long.
+     */
+    private void skipPast( final String terminator )
+        throws IOException
+    {
+        final int length = terminator.length();
+        final int mask = length == 4 ? -1 : ( 1 << ( 8 * length ) ) - 1;
+        int target = 0;
+        for ( int i = 0; i < length; i++ )
+        {
+            target = ( target << 8 ) | terminator.charAt( i );
+        }
+        int last = 0;
+        int count = 0;
+        while ( true )
+        {
+            last = ( ( last << 8 ) | readRequired() ) & mask;
+            if ( ++count >= length && last == target )
+            {
+                return;
+            }
+        }
+    }
+
+    void scan()
+        throws IOException
+    {
+        readProlog();
+
+        int c;
+        while ( ( c = read() ) != -1 )
+        {
+            if ( c != '<' )
+            {
+                continue;
+            }
+            final long tagOffset = position - 1;
+            c = readRequired();
+            if ( c == '?' )
+            {
+                skipPast( "?>" );
+            }
+            else if ( c == '!' )
+            {
+                skipDeclaration();
+            }
+            else if ( c == '/' )
+            {
+                endTag();
+            }
+            else
+            {
+                startTag( c, tagOffset );
+            }
+        }
+        if ( depth != 0 )
+        {
+            throw new IOException( "Unexpected end of document, " + depth + " elements left open" );
+        }
+    }
+
+    private void readProlog()
+        throws IOException
+    {
+        limit = Math.max( 0, input.read( buffer, 0, BUFFER_SIZE ) );
+        int start = 0;
+        if ( limit >= 2 && ( ( buffer[0] == (byte) 0xFE && buffer[1] == (byte) 0xFF )
+            || ( buffer[0] == (byte) 0xFF && buffer[1] == (byte) 0xFE ) || buffer[0] == 0 || buffer[1] == 0 ) )
+        {
+            throw new IOException( "UTF-16 and UTF-32 encoded documents cannot be indexed" );
+        }
+        if ( limit >= 3 && buffer[0] == (byte) 0xEF && buffer[1] == (byte) 0xBB && buffer[2] == (byte) 0xBF )
+        {
+            start = 3;
+        }
+        final String head = new String( buffer, start, Math.min( limit - start, 5 ), StandardCharsets.ISO_8859_1 );
+        if ( !"<?xml".equals( head ) )
+        {
+            return;
+        }
+        for ( int i = start + 5; i < limit - 1; i++ )
+        {
+            if ( buffer[i] == '?' && buffer[i + 1] == '>' )
+            {
+                prolog = Arrays.copyOf( buffer, i + 2 );
+                index = i + 2;
+                position = index;
+                charset = declaredCharset( new String( buffer, start, i - start, StandardCharsets.ISO_8859_1 ) );
+                return;
+            }
+        }
+        throw new IOException( "Unterminated XML declaration" );
+    }
+
+    private static Charset declaredCharset( final String declaration )
+    {
+        final int encoding = declaration.indexOf( "encoding" );
+        if ( encoding != -1 )
+        {
+            final int equals = declaration.indexOf( '=', encoding );
+            if ( equals != -1 && equals + 1 < declaration.length() )
+            {
+                int valueStart = equals + 1;
+                while ( valueStart < declaration.length() - 1 && isWhitespace( declaration.charAt( valueStart ) ) )
+                {
+                    valueStart++;
+                }
+                final char quote = declaration.charAt( valueStart );
+                final int valueEnd = declaration.indexOf( quote, valueStart + 1 );
+                if ( valueEnd != -1 )
+                {
+                    return Charset.forName( declaration.substring( valueStart + 1, valueEnd ) );
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    private void skipDeclaration()
+        throws IOException
+    {
+        int c = readRequired();
+        if ( c == '-' )
+        {
+            readRequired();
+            skipPast( "-->" );
+            return;
+        }
+        if ( c == '[' )
+        {
+            skipPast( "]]>" );
+            return;
+        }
+
+        // DOCTYPE, possibly with an internal subset
+        int brackets = 0;
+        while ( true )
+        {
+            c = readRequired();
+            if ( c == '"' || c == '\'' )
+            {
+                skipPast( String.valueOf( (char) c ) );
+            }
+            else if ( c == '[' )
+            {
+                brackets++;
+            }
+            else if ( c == ']' )
+            {
+                brackets--;
+            }
+            else if ( c == '>' && brackets == 0 )
+            {
+                return;
+            }
+        }
+    }
+
+    private void endTag()
+        throws IOException
+    {
+        skipPast( ">" );
+        depth--;
+        if ( matching > depth )
+        {
+            matching = depth;
+            context = -1;
+        }
+    }
+
+    private void startTag( final int first, final long tagOffset )
+        throws IOException
+    {
+        final boolean prefix = matching == depth && depth < segments.length;
+        if ( !prefix )
+        {
+            // not a record nor one of its ancestors
+            if ( !skipAttributes() )
+            {
+                depth++;
+            }
+            return;
+        }
+
+        final ByteArrayOutputStream name = new ByteArrayOutputStream();
+        int c = first;
+        while ( !isWhitespace( c ) && c != '/' && c != '>' )
+        {
+            name.write( c );
+            c = readRequired();
+        }
+        final String elementName = new String( name.toByteArray(), charset );
+        if ( !elementName.equals( segments[depth] ) )
+        {
+            if ( !attributesEnd( c ) )
+            {
+                depth++;
+            }
+            return;
+        }
+
+        if ( depth == segments.length - 1 )
+        {
+            record( c, tagOffset );
+            return;
+        }
+
+        capture = new ByteArrayOutputStream();
+        capture.write( '<' );
+        capture.write( name.toByteArray(), 0, name.size() );
+        capture.write( c );
+        final boolean empty = attributesEnd( c );
+        final byte[] tag = capture.toByteArray();
+        capture = null;
+        if ( !empty )
+        {
+            ancestorTags[depth] = tag;
+            ancestorNames[depth] = elementName;
+            depth++;
+            matching = depth;
+            context = -1;
+        }
+    }
+
+    private void record( final int afterName, final long tagOffset )
+        throws IOException
+    {
+        if ( context == -1 )
+        {
+            context = currentContext();
+        }
+
+        String key = null;
+        boolean empty;
+        if ( keyAttribute == null )
+        {
+            empty = attributesEnd( afterName );
+        }
+        else
+        {
+            final String[] value = new String[1];
+            empty = readAttributes( afterName, value );
+            key = value[0];
+        }
+
+        if ( !empty )
+        {
+            // skip the record content, tracking its nesting only
+            int nested = 1;
+            while ( nested > 0 )
+            {
+                if ( readRequired() != '<' )
+                {
+                    continue;
+                }
+                final int c = readRequired();
+                if ( c == '?' )
+                {
+                    skipPast( "?>" );
+                }
+                else if ( c == '!' )
+                {
+                    skipDeclaration();
+                }
+                else if ( c == '/' )
+                {
+                    skipPast( ">" );
+                    nested--;
+                }
+                else if ( !skipAttributes() )
+                {
+                    nested++;
+                }
+            }
+        }
+
+        if ( size == offsets.length )
+        {
+            final int capacity = size * 2;
+            offsets = Arrays.copyOf( offsets, capacity );
+            lengths = Arrays.copyOf( lengths, capacity );
+            contexts = Arrays.copyOf( contexts, capacity );
+            keys = Arrays.copyOf( keys, capacity );
+        }
+        offsets[size] = tagOffset;
+        lengths[size] = position - tagOffset;
+        contexts[size] = context;
+        keys[size] = key;
+        size++;
+    }
+
+    private int currentContext()
+    {
+        final ByteArrayOutputStream opening = new ByteArrayOutputStream();
+        final StringBuilder closing = new StringBuilder();
+        for ( int i = 0; i < depth; i++ )
+        {
+            opening.write( ancestorTags[i], 0, ancestorTags[i].length );
+            closing.insert( 0, "</" + ancestorNames[i] + ">" );
+        }
+        final byte[] openingBytes = opening.toByteArray();
+        final String id = new String( openingBytes, StandardCharsets.ISO_8859_1 );
+        Integer existing = contextIds.get( id );
+        if ( existing == null )
+        {
+            existing = contextOpenings.size();
+            contextIds.put( id, existing );
+            contextOpenings.add( openingBytes );
+            contextClosings.add( closing.toString().getBytes( charset ) );
+        }
+        return existing;
+    }
+
+    /**
+     * Skips the rest of a start tag after its first byte.
+     *
+     * @return true if the element is empty
+     */
+    private boolean skipAttributes()
+        throws IOException
+    {
+        return attributesEnd( readRequired() );
+    }
+
+    /**
+     * Skips the rest of a start tag, the given byte being already read.
+     *
+     * @return true if the element is empty
+     */
+    private boolean attributesEnd( final int current )
+        throws IOException
+    {
+        int c = current;
+        boolean slash = false;
+        while ( c != '>' )
+        {
+            if ( c == '"' || c == '\'' )
+            {
+                skipPast( String.valueOf( (char) c ) );
+                slash = false;
+            }
+            else
+            {
+                slash = c == '/';
+            }
+            c = readRequired();
+        }
+        return slash;
+    }
+
+    /**
+     * Reads the rest of a start tag, the given byte being already read, extracting the key attribute value.
+     *
+     * @return true if the element is empty
+     */
+    private boolean readAttributes( final int current, final String[] keyValue )
+        throws IOException
+    {
+        final ByteArrayOutputStream attributeName = new ByteArrayOutputStream();
+        int c = current;
+        boolean slash = false;
+        while ( c != '>' )
+        {
+            if ( c == '"' || c == '\'' )
+            {
+                final String name = new String( attributeName.toByteArray(), charset );
+                if ( keyValue[0] == null && keyAttribute.equals( name ) )
+                {
+                    keyValue[0] = readValue( c );
+                }
+                else
+                {
+                    skipPast( String.valueOf( (char) c ) );
+                }
+                attributeName.reset();
+                slash = false;
+            }
+            else
+            {
+                slash = c == '/';
+                if ( !isWhitespace( c ) && c != '=' && c != '/' )
+                {
+                    attributeName.write( c );
+                }
+            }
+            c = readRequired();
+        }
+        return slash;
+    }
+
+    private String readValue( final int quote )
+        throws IOException
+    {
+        final ByteArrayOutputStream value = new ByteArrayOutputStream();
+        int c;
+        while ( ( c = readRequired() ) != quote )
+        {
+            value.write( c );
+        }
+        return unescape( new String( value.toByteArray(), charset ) );
+    }
+
+    private static String unescape( final String value )
+    {
+        if ( value.indexOf( '&' ) == -1 )
+        {
+            return value;
+        }
+        final StringBuilder unescaped = new StringBuilder( value.length() );
+        int i = 0;
+        while ( i < value.length() )
+        {
+            final char c = value.charAt( i );
+            final int end = c == '&' ? value.indexOf( ';', i ) : -1;
+            if ( end == -1 )
+            {
+                unescaped.append( c );
+                i++;
+                continue;
+            }
+            final String entity = value.substring( i + 1, end );
+            if ( entity.startsWith( "#x" ) )
+            {
+                unescaped.appendCodePoint( Integer.parseInt( entity.substring( 2 ), 16 ) );
+            }
+            else if ( entity.startsWith( "#" ) )
+            {
+                unescaped.appendCodePoint( Integer.parseInt( entity.substring( 1 ) ) );
+            }
+            else if ( "amp".equals( entity ) )
+            {
+                unescaped.append( '&' );
+            }
+            else if ( "lt".equals( entity ) )
+            {
+                unescaped.append( '<' );
+            }
+            else if ( "gt".equals( entity ) )
+            {
+                unescaped.append( '>' );
+            }
+            else if ( "quot".equals( entity ) )
+            {
+                unescaped.append( '"' );
+            }
+            else if ( "apos".equals( entity ) )
+            {
+                unescaped.append( '\'' );
+            }
+            else
+            {
+                unescaped.append( value, i, end + 1 );
+            }
+            i = end + 1;
+        }
+        return unescaped.toString();
+    }
+
+}
@@ -0,0 +1,68 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.net.URL;
+
+import javax.xml.validation.Schema;
+
+import org.xml.sax.SAXException;
+
+/**
+ * A cache of the external resources read while parsing, such as DTDs, external entities, XIncluded documents and
+ * compiled XML Schemas, meant to be shared across {@link Digester} instances.
+ * <p>
+ * When a cache is set, {@link Digester#resolveEntity(String, String)} reads the resolved entities through
+ * {@link #getContent(URL)} instead of opening a new connection for every parse. Implementations must be thread-safe.
+ * <p>
+ * The schemas set by location, with {@link Digester#setXMLSchema(URL, String)} or
+ * {@code DigesterLoader.setSchema(URL, String)}, are compiled through {@link #getSchema(URL, String)}.
+ * <p>
+ * See also Digester.setResourceCache and {@link DefaultResourceCache}.
+ *
+ * @since 3.3
+ */
+public interface ResourceCache
+{
+
+    /**
+     * Returns the content of the given resource, reading it only when it is not cached or no longer up to date.
+     *
+     * @param url the resource location
+     * @return the resource content, the returned array must not be modified
+     * @throws IOException if the resource cannot be read
+     */
+    byte[] getContent( URL url )
+        throws IOException;
+
+    /**
+     * Returns the schema located at the given URL, compiling it only when it is not cached or no longer up to date.
+     *
+     * @param url the schema location
+     * @param schemaLanguage the schema language, e.g. {@link javax.xml.XMLConstants#W3C_XML_SCHEMA_NS_URI}
+     * @return the compiled schema
+     * @throws IOException if the schema cannot be read
+     * @throws SAXException if the schema cannot be compiled
+     */
+    Schema getSchema( URL url, String schemaLanguage )
+        throws IOException, SAXException;
+
+}
@@ -0,0 +1,276 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects timing statistics about the {@link Rule} callbacks fired by a {@link Digester}, grouped both by element
+ * match path and by {@code Rule} instance.
+ * <p>
+ * Profiling is disabled unless a profiler is registered through {@link Digester#setRuleProfiler(RuleProfiler)}; when
+ * no profiler is set the digester skips every timing call. Statistics accumulate across parses until {@link #reset()}
+ * is invoked.
+ * <p>
+ * Like {@code Digester} itself, instances are not thread-safe and must be used by one digester at a time.
+ * Subclasses may override {@link #record(String, Rule, Phase, long)} to forward each sample to another monitoring
+ * system, for example to emit JDK Flight Recorder events on runtimes that provide them.
+ *
+ * @since 3.3
+ */
+public class RuleProfiler
+{
+
+    /**
+     * The {@link Rule} callback a sample was taken from.
+     */
+    public enum Phase
+    {
+
+        /** {@link Rule#begin(String, String, org.xml.sax.Attributes)} */
+        BEGIN,
+
+        /** {@link Rule#body(String, String, String)} */
+        BODY,
+
+        /** {@link Rule#end(String, String)} */
+        END,
+
+        /** {@link Rule#finish()} */
+        FINISH
+
+    }
+
+    /**
+     * Invocation counters and a latency histogram for a single pattern or rule.
+     *
+     * @param <K> the key type, either the element match path or the {@link Rule}
+     */
+    public static final class Statistics<K>
+    {
+
+        private final K key;
+
+        private final long[] phaseCounts = new long[Phase.values().length];
+
+        private final long[] histogram = new long[PowerOfTwoHistogram.BUCKETS];
+
+        private long count;
+
+        private long totalNanos;
+
+        private long maxNanos;
+
+        Statistics( final K key )
+        {
+            this.key = key;
+        }
+
+        void add( final Phase phase, final long elapsedNanos )
+        {
+            final long nanos = Math.max( 0L, elapsedNanos );
+            phaseCounts[phase.ordinal()]++;
+            histogram[PowerOfTwoHistogram.bucketOf( nanos )]++;
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max( maxNanos, nanos );
+        }
+
+        /**
+         * Returns the element match path or the {@link Rule} these statistics refer to.
+         *
+         * @return the element match path or the {@link Rule} these statistics refer to
+         */
+        public K getKey()
+        {
+            return key;
+        }
+
+        /**
+         * Returns the number of callbacks timed.
+         *
+         * @return the number of callbacks timed
+         */
+        public long getCount()
+        {
+            return count;
+        }
+
+        /**
+         * Returns the number of callbacks timed for the given phase.
+         *
+         * @param phase the rule callback
+         * @return the number of callbacks timed for the given phase
+         */
+        public long getCount( final Phase phase )
+        {
+            return phaseCounts[phase.ordinal()];
+        }
+
+        /**
+         * Returns the time spent in the callbacks, in nanoseconds.
+         *
+         * @return the time spent in the callbacks, in nanoseconds
+         */
+        public long getTotalNanos()
+        {
+            return totalNanos;
+        }
+
+        /**
+         * Returns the slowest callback duration, in nanoseconds.
+         *
+         * @return the slowest callback duration, in nanoseconds
+         */
+        public long getMaxNanos()
+        {
+            return maxNanos;
+        }
+
+        /**
+         * Returns the mean callback duration, in nanoseconds.
+         *
+         * @return the mean callback duration, in nanoseconds
+         */
+        public long getMeanNanos()
+        {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+
+        /**
+         * Returns an upper bound of the given latency percentile, in nanoseconds. Samples are kept in power of two
+         * buckets, so the value returned is accurate within a factor of two.
+         *
+         * @param percentile the percentile, between 0 and 100
+         * @return an upper bound of the given latency percentile, in nanoseconds
+         */
+        public long getPercentileNanos( final double percentile )
+        {
+            return PowerOfTwoHistogram.percentile( histogram, percentile, maxNanos );
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format( "%s: count=%s, total=%sns, mean=%sns, p99<=%sns, max=%sns",
+                                  key, count, totalNanos, getMeanNanos(), getPercentileNanos( 99 ), maxNanos );
+        }
+
+    }
+
+    private static final Comparator<Statistics<?>> BY_TOTAL_TIME =
+        ( first, second ) -> Long.compare( second.getTotalNanos(), first.getTotalNanos() );
+
+    private final Map<String, Statistics<String>> patterns = new HashMap<>();
+
+    private final Map<Rule, Statistics<Rule>> rules = new IdentityHashMap<>();
+
+    private static <K> List<Statistics<K>> top( final Collection<Statistics<K>> statistics, final int n )
+    {
+        if ( n < 0 )
+        {
+            throw new IllegalArgumentException( "The number of entries must not be negative, was " + n );
+        }
+        final List<Statistics<K>> sorted = new ArrayList<>( statistics );
+        sorted.sort( BY_TOTAL_TIME );
+        return Collections.unmodifiableList( sorted.subList( 0, Math.min( n, sorted.size() ) ) );
+    }
+
+    /**
+     * Returns the statistics of the given element match path, if any callback has been timed for it.
+     *
+     * @param pattern the element match path, e.g. {@code rss/channel/item}
+     * @return the statistics of the given element match path, null if nothing has been recorded
+     */
+    public Statistics<String> getPatternStatistics( final String pattern )
+    {
+        return patterns.get( pattern );
+    }
+
+    /**
+     * Returns the statistics of the given rule, if any callback has been timed for it.
+     *
+     * @param rule the rule instance
+     * @return the statistics of the given rule, null if nothing has been recorded
+     */
+    public Statistics<Rule> getRuleStatistics( final Rule rule )
+    {
+        return rules.get( rule );
+    }
+
+    /**
+     * Returns the {@code n} element match paths that spent the most time in rule callbacks, slowest first.
+     * <p>
+     * The {@link Rule#finish()} callbacks are not bound to an element and are only accounted per rule.
+     *
+     * @param n the maximum number of entries to return
+     * @return the most expensive element match paths
+     */
+    public List<Statistics<String>> getTopPatterns( final int n )
+    {
+        return top( patterns.values(), n );
+    }
+
+    /**
+     * Returns the {@code n} rules that spent the most time in their callbacks, slowest first.
+     *
+     * @param n the maximum number of entries to return
+     * @return the most expensive rules
+     */
+    public List<Statistics<Rule>> getTopRules( final int n )
+    {
+        return top( rules.values(), n );
+    }
+
+    /**
+     * Records the duration of a single rule callback. Invoked by the {@link Digester} after each callback returns
+     * normally.
+     *
+     * @param pattern the element match path being processed, null for {@link Phase#FINISH}
+     * @param rule the rule that was fired
+     * @param phase the callback that was fired
+     * @param elapsedNanos the callback duration, in nanoseconds
+     */
+    protected void record( final String pattern, final Rule rule, final Phase phase, final long elapsedNanos )
+    {
+        if ( pattern != null )
+        {
+            patterns.computeIfAbsent( pattern, Statistics::new ).add( phase, elapsedNanos );
+        }
+        rules.computeIfAbsent( rule, Statistics::new ).add( phase, elapsedNanos );
+    }
+
+    /**
+     * Discards all the statistics recorded so far.
+     */
+    public void reset()
+    {
+        patterns.clear();
+        rules.clear();
+    }
+
+}
@@ -53,6 +53,51 @@ public class RulesBase
     extends AbstractRulesImpl
 {
 
+    /**
+     * The rules of a single pattern, partitioned by the namespace URI they apply to.
+     */
+    private static final class NamespaceRules
+    {
+
+        /**
+         * The rules with no namespace URI, which apply to any namespace.
+         */
+        private final List<Rule> unqualified = new ArrayList<>();
+
+        /**
+         * For each namespace URI some rules are bound to, the rules bound to it merged with the unqualified ones, in
+         * registration order.
+         */
+        private final HashMap<String, List<Rule>> qualified = new HashMap<>();
+
+        private int size;
+
+        void add( final Rule rule )
+        {
+            final String namespaceURI = rule.getNamespaceURI();
+            if ( namespaceURI == null )
+            {
+                unqualified.add( rule );
+                for ( final List<Rule> list : qualified.values() )
+                {
+                    list.add( rule );
+                }
+            }
+            else
+            {
+                qualified.computeIfAbsent( namespaceURI, k -> new ArrayList<>( unqualified ) ).add( rule );
+            }
+            size++;
+        }
+
+        List<Rule> get( final String namespaceURI )
+        {
+            final List<Rule> list = qualified.get( namespaceURI );
+            return list != null ? list : unqualified;
+        }
+
+    }
+
     /**
      * The set of registered Rule instances, keyed by the matching pattern. Each value is a List containing the Rules
      * for that pattern, in the order that they were originally registered.
@@ -69,11 +114,18 @@ public class RulesBase
      */
     protected ArrayList<Rule> rules = new ArrayList<>();
 
+    /**
+     * The registered Rule instances partitioned by namespace URI, keyed by the matching pattern. Built at registration
+     * time, so namespaced lookups neither filter nor allocate.
+     */
+    private final HashMap<String, NamespaceRules> namespaceCache = new HashMap<>();
+
     @Override
     public void clear()
     {
         wildcardCache.clear();
         cache.clear();
+        namespaceCache.clear();
         rules.clear();
     }
 
@@ -98,8 +150,37 @@ public class RulesBase
         {
             return list;
         }
+        return lookupByNamespace( namespaceURI, pattern );
+    }
+
+    /**
+     * Return the List of Rule instances for the specified pattern whose namespace URI is either the specified one or
+     * {@code null}, in registration order. If no rule is registered for the pattern, return {@code null}; if rules are
+     * registered but none applies to the namespace URI, return an empty list.
+     * <p>
+     * The returned lists are precomputed when the rules are registered, and are shared: callers must not modify them.
+     * The namespace URI of a rule is the one it had when it was registered.
+     *
+     * @param namespaceURI Namespace URI to match, not null
+     * @param pattern Pattern to be matched
+     * @return A List of Rule instances for the specified pattern that also match the specified namespace URI
+     * @since 3.3
+     */
+    protected List<Rule> lookupByNamespace( final String namespaceURI, final String pattern )
+    {
+        final List<Rule> list = this.cache.get( pattern );
+        if ( list == null )
+        {
+            return null;
+        }
+
+        final NamespaceRules namespaceRules = namespaceCache.get( pattern );
+        if ( namespaceRules != null && namespaceRules.size == list.size() )
+        {
+            return namespaceRules.get( namespaceURI );
+        }
 
-        // Select only Rules that match on the specified namespace URI
+        // the list has been changed without going through registerRule(), select the matching rules now
         final List<Rule> results = new ArrayList<>();
         for ( final Rule item : list )
         {
@@ -161,6 +242,7 @@ public class RulesBase
             cache.put( pattern, list );
         }
         list.add( rule );
+        namespaceCache.computeIfAbsent( pattern, k -> new NamespaceRules() ).add( rule );
         rules.add( rule );
     }
 
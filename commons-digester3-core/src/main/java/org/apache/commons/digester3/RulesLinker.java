@@ -0,0 +1,406 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static java.lang.String.format;
+import static org.apache.commons.beanutils.ConstructorUtils.getAccessibleConstructor;
+import static org.apache.commons.beanutils.ConvertUtils.lookup;
+import static org.apache.commons.beanutils.MethodUtils.getAccessibleMethod;
+import static org.apache.commons.beanutils.MethodUtils.getMatchingAccessibleMethod;
+import static org.apache.commons.beanutils.PropertyUtils.getPropertyDescriptors;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.beanutils.DynaBean;
+
+/**
+ * Resolves, ahead of the first parse, the classes, constructors, methods, bean properties and converters the rules
+ * of a {@link Digester} reference, filling the reflection caches shared by all the digesters on the way.
+ * <p>
+ * The classes of the objects on the stack are inferred, for each pattern registered in a {@link RulesBase}, from the
+ * {@link ObjectCreateRule}s matching the pattern and its ancestors; the references depending on an object whose class
+ * cannot be known in advance, e.g. pushed by a custom rule or named by an attribute, are not checked.
+ */
+final class RulesLinker
+{
+
+    private final Digester digester;
+
+    private final List<String> problems = new ArrayList<>();
+
+    /**
+     * The patterns the rules are registered for, by rule, built on first use.
+     */
+    private Map<Rule, String> patterns;
+
+    RulesLinker( final Digester digester )
+    {
+        this.digester = digester;
+    }
+
+    /**
+     * Links all the rules of the digester.
+     *
+     * @return the references that cannot be resolved, empty if none
+     */
+    List<String> link()
+    {
+        for ( final Rule rule : digester.getRules().rules() )
+        {
+            link( getPattern( rule ), rule, getStack( rule ) );
+        }
+        return problems;
+    }
+
+    /**
+     * Infers the class of the object on top of the stack when the given rule fires.
+     *
+     * @param rule a rule of the digester
+     * @return the class of the object on top of the stack, null if it cannot be inferred
+     */
+    Class<?> getTopType( final Rule rule )
+    {
+        final List<Class<?>> stack = getStack( rule );
+        return stack != null && !stack.isEmpty() ? stack.get( stack.size() - 1 ) : null;
+    }
+
+    private String getPattern( final Rule rule )
+    {
+        if ( patterns == null )
+        {
+            patterns = new IdentityHashMap<>();
+            final Rules rules = digester.getRules();
+            if ( rules instanceof RulesBase )
+            {
+                for ( final Map.Entry<String, List<Rule>> entry : ( (RulesBase) rules ).cache.entrySet() )
+                {
+                    for ( final Rule patternRule : entry.getValue() )
+                    {
+                        patterns.put( patternRule, entry.getKey() );
+                    }
+                }
+            }
+        }
+        return patterns.get( rule );
+    }
+
+    private List<Class<?>> getStack( final Rule rule )
+    {
+        final String pattern = getPattern( rule );
+        return pattern != null && pattern.indexOf( '*' ) < 0 ? getStack( pattern, rule ) : null;
+    }
+
+    /**
+     * Infers the classes of the objects on the stack when the given rule fires on the given pattern.
+     *
+     * @param pattern the pattern the rule is registered for
+     * @param rule the rule
+     * @return the classes of the objects pushed by the rules, from the bottom, with null entries for unknown classes,
+     *         or null if the stack layout cannot be inferred
+     */
+    private List<Class<?>> getStack( final String pattern, final Rule rule )
+    {
+        final List<Class<?>> stack = new ArrayList<>();
+        int index = pattern.indexOf( '/' );
+        while ( true )
+        {
+            final String prefix = index < 0 ? pattern : pattern.substring( 0, index );
+            final List<Rule> matches = digester.getRules().match( null, prefix, null, null );
+            if ( matches != null )
+            {
+                for ( final Rule match : matches )
+                {
+                    // begin and end rules of the same element only see the objects pushed before them
+                    if ( match == rule && !( rule instanceof BeanPropertySetterRule ) )
+                    {
+                        return stack;
+                    }
+                    if ( !push( match, stack ) )
+                    {
+                        return null;
+                    }
+                }
+            }
+            if ( index < 0 )
+            {
+                return stack;
+            }
+            index = pattern.indexOf( '/', index + 1 );
+        }
+    }
+
+    private boolean push( final Rule rule, final List<Class<?>> stack )
+    {
+        if ( rule instanceof ObjectCreateRule )
+        {
+            final ObjectCreateRule objectCreateRule = (ObjectCreateRule) rule;
+            stack.add( objectCreateRule.attributeName == null ? getType( null, objectCreateRule, false ) : null );
+            return true;
+        }
+        if ( rule instanceof FactoryCreateRule || rule instanceof NodeCreateRule || rule instanceof RecordRule )
+        {
+            stack.add( null );
+            return true;
+        }
+        // the rules known not to push objects on the stack
+        return rule instanceof AbstractMethodRule || rule instanceof CallMethodRule || rule instanceof CallParamRule
+            || rule instanceof PathCallParamRule || rule instanceof ObjectParamRule
+            || rule instanceof SetPropertiesRule || rule instanceof SetPropertyRule
+            || rule instanceof BeanPropertySetterRule || rule instanceof SetNestedPropertiesRule
+            || rule instanceof SetNextCollectionRule.ParentRule || rule instanceof BatchingRule
+            || rule instanceof SetFieldRule || rule instanceof RecordRule.FieldRule
+            || rule instanceof StreamingBodyRule;
+    }
+
+    private void link( final String pattern, final Rule rule, final List<Class<?>> stack )
+    {
+        if ( rule instanceof ObjectCreateRule )
+        {
+            linkObjectCreate( pattern, (ObjectCreateRule) rule );
+        }
+        else if ( rule instanceof FactoryCreateRule )
+        {
+            final FactoryCreateRule factoryCreateRule = (FactoryCreateRule) rule;
+            if ( factoryCreateRule.creationFactory == null && factoryCreateRule.className != null )
+            {
+                loadClass( pattern, factoryCreateRule.className, true );
+            }
+        }
+        else if ( rule instanceof AbstractMethodRule )
+        {
+            linkMethod( pattern, (AbstractMethodRule) rule, stack );
+        }
+        else if ( rule instanceof CallMethodRule )
+        {
+            linkCallMethod( pattern, (CallMethodRule) rule, stack );
+        }
+        else if ( rule instanceof BeanPropertySetterRule && stack != null && !stack.isEmpty() )
+        {
+            String property = ( (BeanPropertySetterRule) rule ).getPropertyName();
+            if ( property == null )
+            {
+                property = pattern.substring( pattern.lastIndexOf( '/' ) + 1 );
+            }
+            linkProperty( pattern, stack.get( stack.size() - 1 ), property );
+        }
+        else if ( rule instanceof SetFieldRule && stack != null && !stack.isEmpty() )
+        {
+            linkField( pattern, stack.get( stack.size() - 1 ), ( (SetFieldRule) rule ).getFieldName() );
+        }
+        else if ( rule instanceof SetPropertiesRule && stack != null && !stack.isEmpty() )
+        {
+            final Class<?> type = stack.get( stack.size() - 1 );
+            if ( type != null )
+            {
+                getPropertyDescriptors( type );
+            }
+        }
+    }
+
+    private void linkObjectCreate( final String pattern, final ObjectCreateRule rule )
+    {
+        final Class<?> type = getType( pattern, rule, true );
+        if ( type == null )
+        {
+            return;
+        }
+
+        final Class<?>[] argumentTypes = rule.getConstructorArgumentTypes();
+        if ( argumentTypes == null || argumentTypes.length == 0 )
+        {
+            if ( getAccessibleConstructor( type, new Class<?>[0] ) == null )
+            {
+                addProblem( pattern, "Class '%s' does not have a public no-arguments constructor", type.getName() );
+            }
+        }
+        else if ( getAccessibleConstructor( type, argumentTypes ) == null )
+        {
+            addProblem( pattern, "Class '%s' does not have a constructor with types %s",
+                        type.getName(), Arrays.toString( argumentTypes ) );
+        }
+        getPropertyDescriptors( type );
+    }
+
+    private void linkMethod( final String pattern, final AbstractMethodRule rule, final List<Class<?>> stack )
+    {
+        Class<?> paramType = rule.paramType;
+        if ( paramType == null && rule.paramTypeName != null )
+        {
+            paramType = loadClass( pattern, rule.paramTypeName, true );
+            if ( paramType == null )
+            {
+                return;
+            }
+        }
+
+        // the collection rules call their method with a list, the root is not known before parsing
+        if ( stack == null || stack.size() < 2 || rule instanceof SetNextCollectionRule || rule instanceof SetRootRule )
+        {
+            return;
+        }
+        final Class<?> top = stack.get( stack.size() - 1 );
+        final Class<?> next = stack.get( stack.size() - 2 );
+        final Class<?> target = rule instanceof SetTopRule ? top : next;
+        final Class<?> argument = paramType != null ? paramType : rule instanceof SetTopRule ? next : top;
+        if ( target != null && argument != null )
+        {
+            linkMethod( pattern, target, rule.methodName, rule.useExactMatch, argument );
+        }
+    }
+
+    private void linkCallMethod( final String pattern, final CallMethodRule rule, final List<Class<?>> stack )
+    {
+        final Class<?>[] paramTypes = rule.paramTypes != null ? rule.paramTypes : new Class<?>[0];
+        // the body of the element is the only argument, always converted from text
+        if ( rule.paramCount == 0 && paramTypes.length == 1 )
+        {
+            linkConverter( pattern, paramTypes[0] );
+        }
+        else
+        {
+            for ( final Class<?> paramType : paramTypes )
+            {
+                lookup( paramType );
+            }
+        }
+
+        if ( stack == null || rule.targetOffset < 0 || rule.targetOffset >= stack.size() )
+        {
+            return;
+        }
+        final Class<?> target = stack.get( stack.size() - 1 - rule.targetOffset );
+        if ( target != null )
+        {
+            linkMethod( pattern, target, rule.methodName, rule.getUseExactMatch(), paramTypes );
+        }
+    }
+
+    private void linkMethod( final String pattern, final Class<?> target, final String methodName,
+                             final boolean exactMatch, final Class<?>... paramTypes )
+    {
+        final boolean found = exactMatch ? getAccessibleMethod( target, methodName, paramTypes ) != null
+                        : getMatchingAccessibleMethod( target, methodName, paramTypes ) != null;
+        if ( !found )
+        {
+            final StringBuilder types = new StringBuilder();
+            for ( final Class<?> paramType : paramTypes )
+            {
+                types.append( types.length() > 0 ? ", " : "" ).append( paramType.getName() );
+            }
+            addProblem( pattern, "Class '%s' does not have a public method %s(%s)",
+                        target.getName(), methodName, types );
+        }
+    }
+
+    private void linkProperty( final String pattern, final Class<?> type, final String property )
+    {
+        // nested, indexed and mapped properties depend on the values of the bean
+        if ( type == null || DynaBean.class.isAssignableFrom( type ) || property.indexOf( '.' ) >= 0
+            || property.indexOf( '[' ) >= 0 || property.indexOf( '(' ) >= 0 )
+        {
+            return;
+        }
+
+        for ( final PropertyDescriptor descriptor : getPropertyDescriptors( type ) )
+        {
+            if ( property.equals( descriptor.getName() ) )
+            {
+                if ( descriptor.getPropertyType() != null )
+                {
+                    linkConverter( pattern, descriptor.getPropertyType() );
+                }
+                return;
+            }
+        }
+        addProblem( pattern, "Class '%s' does not have a property named '%s'", type.getName(), property );
+    }
+
+    private void linkField( final String pattern, final Class<?> type, final String fieldName )
+    {
+        if ( type == null )
+        {
+            return;
+        }
+
+        final Field field = SetFieldRule.findField( type, fieldName );
+        if ( field == null )
+        {
+            addProblem( pattern, "Class '%s' does not have a field named '%s'", type.getName(), fieldName );
+        }
+        else if ( !field.getType().isPrimitive() )
+        {
+            linkConverter( pattern, field.getType() );
+        }
+    }
+
+    private void linkConverter( final String pattern, final Class<?> type )
+    {
+        if ( lookup( type ) == null && !type.isAssignableFrom( String.class ) )
+        {
+            addProblem( pattern, "No converter is registered for '%s'", type.getName() );
+        }
+    }
+
+    /**
+     * Returns the class instantiated by the given rule, unless named by an attribute.
+     *
+     * @param pattern the pattern the rule is registered for
+     * @param rule the rule
+     * @param report true if a class that cannot be loaded has to be reported
+     * @return the class instantiated by the given rule, null if it cannot be loaded
+     */
+    private Class<?> getType( final String pattern, final ObjectCreateRule rule, final boolean report )
+    {
+        if ( rule.clazz != null || rule.className == null )
+        {
+            return rule.clazz;
+        }
+        return loadClass( pattern, rule.className, report );
+    }
+
+    private void addProblem( final String pattern, final String messagePattern, final Object... arguments )
+    {
+        final String message = format( messagePattern, arguments );
+        problems.add( pattern != null ? format( "{%s} %s", pattern, message ) : message );
+    }
+
+    private Class<?> loadClass( final String pattern, final String className, final boolean report )
+    {
+        try
+        {
+            return ClassResolutionCache.loadClass( digester.getClassLoader(), className );
+        }
+        catch ( final ClassNotFoundException e )
+        {
+            if ( pattern != null )
+            {
+                addProblem( pattern, "Class '%s' cannot be loaded", className );
+            }
+            return null;
+        }
+    }
+
+}
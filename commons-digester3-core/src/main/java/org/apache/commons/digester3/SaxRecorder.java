@@ -0,0 +1,291 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+
+/**
+ * Records the content events of a document into a {@link SaxRecording}, optionally forwarding them to another
+ * handler. A recorder captures a single document; {@link Digester#parse(org.xml.sax.InputSource, SaxRecorder)}
+ * records the events the digester receives while it parses.
+ *
+ * @since 3.3
+ */
+public class SaxRecorder
+    implements ContentHandler
+{
+
+    private ContentHandler delegate;
+
+    private final ByteArrayOutputStream events = new ByteArrayOutputStream();
+
+    private final Map<String, Integer> nameIndexes = new HashMap<>();
+
+    private final List<String> names = new ArrayList<>();
+
+    private Locator locator;
+
+    private String systemId;
+
+    private boolean complete;
+
+    /**
+     * Creates a recorder that does not forward the events.
+     */
+    public SaxRecorder()
+    {
+        this( null );
+    }
+
+    /**
+     * Creates a recorder forwarding the events to the given handler once recorded.
+     *
+     * @param delegate the handler the events are forwarded to, may be null
+     */
+    public SaxRecorder( final ContentHandler delegate )
+    {
+        this.delegate = delegate;
+    }
+
+    ContentHandler getDelegate()
+    {
+        return delegate;
+    }
+
+    void setDelegate( final ContentHandler delegate )
+    {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Returns the recording of the events received so far.
+     *
+     * @return the recording of the events received so far
+     */
+    public SaxRecording getRecording()
+    {
+        return new SaxRecording( systemId, null, names.toArray( new String[0] ), events.toByteArray() );
+    }
+
+    /**
+     * Tells whether the end of the document was received, false when the parse failed or was stopped before it.
+     *
+     * @return true if the whole document was recorded
+     */
+    public boolean isComplete()
+    {
+        return complete;
+    }
+
+    private void writeVarInt( final int value )
+    {
+        int remaining = value;
+        while ( ( remaining & ~0x7F ) != 0 )
+        {
+            events.write( ( remaining & 0x7F ) | 0x80 );
+            remaining >>>= 7;
+        }
+        events.write( remaining );
+    }
+
+    private void writeName( final String name )
+    {
+        if ( name == null )
+        {
+            writeVarInt( 0 );
+            return;
+        }
+        Integer index = nameIndexes.get( name );
+        if ( index == null )
+        {
+            names.add( name );
+            index = names.size();
+            nameIndexes.put( name, index );
+        }
+        writeVarInt( index );
+    }
+
+    private void writeText( final String text )
+    {
+        final byte[] bytes = text.getBytes( StandardCharsets.UTF_8 );
+        writeVarInt( bytes.length );
+        events.write( bytes, 0, bytes.length );
+    }
+
+    private void writeElement( final int type, final String uri, final String localName, final String qName )
+    {
+        events.write( type );
+        writeName( uri );
+        writeName( localName );
+        writeName( qName );
+        writeVarInt( locator != null ? Math.max( 0, locator.getLineNumber() ) : 0 );
+        writeVarInt( locator != null ? Math.max( 0, locator.getColumnNumber() ) : 0 );
+    }
+
+    @Override
+    public void setDocumentLocator( final Locator locator )
+    {
+        this.locator = locator;
+        if ( delegate != null )
+        {
+            delegate.setDocumentLocator( locator );
+        }
+    }
+
+    @Override
+    public void startDocument()
+        throws SAXException
+    {
+        if ( locator != null )
+        {
+            systemId = locator.getSystemId();
+        }
+        if ( delegate != null )
+        {
+            delegate.startDocument();
+        }
+    }
+
+    @Override
+    public void endDocument()
+        throws SAXException
+    {
+        if ( delegate != null )
+        {
+            delegate.endDocument();
+        }
+        complete = true;
+    }
+
+    @Override
+    public void startPrefixMapping( final String prefix, final String uri )
+        throws SAXException
+    {
+        events.write( SaxRecording.START_PREFIX_MAPPING );
+        writeName( prefix );
+        writeName( uri );
+        if ( delegate != null )
+        {
+            delegate.startPrefixMapping( prefix, uri );
+        }
+    }
+
+    @Override
+    public void endPrefixMapping( final String prefix )
+        throws SAXException
+    {
+        events.write( SaxRecording.END_PREFIX_MAPPING );
+        writeName( prefix );
+        if ( delegate != null )
+        {
+            delegate.endPrefixMapping( prefix );
+        }
+    }
+
+    @Override
+    public void startElement( final String uri, final String localName, final String qName, final Attributes atts )
+        throws SAXException
+    {
+        writeElement( SaxRecording.START_ELEMENT, uri, localName, qName );
+        writeVarInt( atts.getLength() );
+        for ( int i = 0; i < atts.getLength(); i++ )
+        {
+            writeName( atts.getURI( i ) );
+            writeName( atts.getLocalName( i ) );
+            writeName( atts.getQName( i ) );
+            writeName( atts.getType( i ) );
+            writeText( atts.getValue( i ) );
+        }
+        if ( delegate != null )
+        {
+            delegate.startElement( uri, localName, qName, atts );
+        }
+    }
+
+    @Override
+    public void endElement( final String uri, final String localName, final String qName )
+        throws SAXException
+    {
+        writeElement( SaxRecording.END_ELEMENT, uri, localName, qName );
+        if ( delegate != null )
+        {
+            delegate.endElement( uri, localName, qName );
+        }
+    }
+
+    @Override
+    public void characters( final char[] ch, final int start, final int length )
+        throws SAXException
+    {
+        events.write( SaxRecording.CHARACTERS );
+        writeText( new String( ch, start, length ) );
+        if ( delegate != null )
+        {
+            delegate.characters( ch, start, length );
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace( final char[] ch, final int start, final int length )
+        throws SAXException
+    {
+        events.write( SaxRecording.IGNORABLE_WHITESPACE );
+        writeText( new String( ch, start, length ) );
+        if ( delegate != null )
+        {
+            delegate.ignorableWhitespace( ch, start, length );
+        }
+    }
+
+    @Override
+    public void processingInstruction( final String target, final String data )
+        throws SAXException
+    {
+        events.write( SaxRecording.PROCESSING_INSTRUCTION );
+        writeName( target );
+        writeText( data != null ? data : "" );
+        if ( delegate != null )
+        {
+            delegate.processingInstruction( target, data );
+        }
+    }
+
+    @Override
+    public void skippedEntity( final String name )
+        throws SAXException
+    {
+        // nothing to replay, the entity was not expanded
+        if ( delegate != null )
+        {
+            delegate.skippedEntity( name );
+        }
+    }
+
+}
@@ -0,0 +1,304 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.LocatorImpl;
+
+/**
+ * An immutable, compact recording of the content events of a parsed document, captured by a {@link SaxRecorder}.
+ * Element and attribute names and namespace URIs are stored once in a name table and referenced by index, the rest
+ * of the events is encoded in a byte array.
+ * <p>
+ * Replaying a recording, for example with {@link Digester#parse(SaxRecording)}, sends the recorded events without
+ * running the XML parser: neither tokenizing, nor entity resolution, nor validation are performed again. A recording
+ * can be stored with {@link #write(OutputStream)} and loaded with {@link #read(InputStream)}.
+ *
+ * @see SaxRecordingCache
+ * @since 3.3
+ */
+public final class SaxRecording
+{
+
+    static final int START_ELEMENT = 1;
+
+    static final int END_ELEMENT = 2;
+
+    static final int CHARACTERS = 3;
+
+    static final int IGNORABLE_WHITESPACE = 4;
+
+    static final int START_PREFIX_MAPPING = 5;
+
+    static final int END_PREFIX_MAPPING = 6;
+
+    static final int PROCESSING_INSTRUCTION = 7;
+
+    private static final int MAGIC = 0x44475352;
+
+    private static final int VERSION = 1;
+
+    private final String systemId;
+
+    private final String contentHash;
+
+    /**
+     * The name table, index 0 of the events stands for null and index i for {@code names[i - 1]}.
+     */
+    private final String[] names;
+
+    private final byte[] events;
+
+    SaxRecording( final String systemId, final String contentHash, final String[] names, final byte[] events )
+    {
+        this.systemId = systemId;
+        this.contentHash = contentHash;
+        this.names = names;
+        this.events = events;
+    }
+
+    /**
+     * Loads a recording stored with {@link #write(OutputStream)}.
+     *
+     * @param input the stream the recording is read from, left open
+     * @return the recording read
+     * @throws IOException if the recording cannot be read
+     */
+    public static SaxRecording read( final InputStream input )
+        throws IOException
+    {
+        final DataInputStream data = new DataInputStream( new BufferedInputStream( input ) );
+        if ( data.readInt() != MAGIC || data.readInt() != VERSION )
+        {
+            throw new IOException( "Not a SAX recording, or an unsupported version" );
+        }
+        final String systemId = data.readBoolean() ? data.readUTF() : null;
+        final String contentHash = data.readBoolean() ? data.readUTF() : null;
+        final String[] names = new String[data.readInt()];
+        for ( int i = 0; i < names.length; i++ )
+        {
+            names[i] = data.readUTF();
+        }
+        final byte[] events = new byte[data.readInt()];
+        data.readFully( events );
+        return new SaxRecording( systemId, contentHash, names, events );
+    }
+
+    /**
+     * Stores this recording, to be loaded with {@link #read(InputStream)}.
+     *
+     * @param output the stream the recording is written to, flushed but left open
+     * @throws IOException if the recording cannot be written
+     */
+    public void write( final OutputStream output )
+        throws IOException
+    {
+        final DataOutputStream data = new DataOutputStream( new BufferedOutputStream( output ) );
+        data.writeInt( MAGIC );
+        data.writeInt( VERSION );
+        data.writeBoolean( systemId != null );
+        if ( systemId != null )
+        {
+            data.writeUTF( systemId );
+        }
+        data.writeBoolean( contentHash != null );
+        if ( contentHash != null )
+        {
+            data.writeUTF( contentHash );
+        }
+        data.writeInt( names.length );
+        for ( final String name : names )
+        {
+            data.writeUTF( name );
+        }
+        data.writeInt( events.length );
+        data.write( events );
+        data.flush();
+    }
+
+    /**
+     * Returns the system identifier of the recorded document.
+     *
+     * @return the system identifier of the recorded document, null if unknown
+     */
+    public String getSystemId()
+    {
+        return systemId;
+    }
+
+    /**
+     * Returns the hash of the recorded document content, used to detect stale recordings.
+     *
+     * @return the hash of the recorded document content, null if unknown
+     */
+    public String getContentHash()
+    {
+        return contentHash;
+    }
+
+    /**
+     * Returns the size of the encoded events, in bytes, the name table excluded.
+     *
+     * @return the size of the encoded events, in bytes
+     */
+    public int getEventsLength()
+    {
+        return events.length;
+    }
+
+    SaxRecording withContentHash( final String hash )
+    {
+        return new SaxRecording( systemId, hash, names, events );
+    }
+
+    /**
+     * Sends the recorded events to the given handler, between {@code startDocument} and {@code endDocument}. The
+     * handler receives a {@link org.xml.sax.Locator} reporting the recorded position of each element event.
+     *
+     * @param handler the handler receiving the recorded events
+     * @throws SAXException if the handler fails
+     */
+    public void replay( final ContentHandler handler )
+        throws SAXException
+    {
+        final LocatorImpl locator = new LocatorImpl();
+        locator.setSystemId( systemId );
+        handler.setDocumentLocator( locator );
+        handler.startDocument();
+
+        final AttributesImpl attributes = new AttributesImpl();
+        final int[] position = { 0 };
+        char[] text = new char[256];
+        while ( position[0] < events.length )
+        {
+            final int type = events[position[0]++];
+            switch ( type )
+            {
+                case START_ELEMENT:
+                {
+                    final String uri = name( position );
+                    final String localName = name( position );
+                    final String qName = name( position );
+                    locator.setLineNumber( readVarInt( position ) );
+                    locator.setColumnNumber( readVarInt( position ) );
+                    attributes.clear();
+                    final int count = readVarInt( position );
+                    for ( int i = 0; i < count; i++ )
+                    {
+                        attributes.addAttribute( name( position ), name( position ), name( position ),
+                                                 name( position ), text( position ) );
+                    }
+                    handler.startElement( uri, localName, qName, attributes );
+                    break;
+                }
+                case END_ELEMENT:
+                {
+                    final String uri = name( position );
+                    final String localName = name( position );
+                    final String qName = name( position );
+                    locator.setLineNumber( readVarInt( position ) );
+                    locator.setColumnNumber( readVarInt( position ) );
+                    handler.endElement( uri, localName, qName );
+                    break;
+                }
+                case CHARACTERS:
+                case IGNORABLE_WHITESPACE:
+                {
+                    final String chunk = text( position );
+                    if ( chunk.length() > text.length )
+                    {
+                        text = new char[chunk.length()];
+                    }
+                    chunk.getChars( 0, chunk.length(), text, 0 );
+                    if ( type == CHARACTERS )
+                    {
+                        handler.characters( text, 0, chunk.length() );
+                    }
+                    else
+                    {
+                        handler.ignorableWhitespace( text, 0, chunk.length() );
+                    }
+                    break;
+                }
+                case START_PREFIX_MAPPING:
+                    handler.startPrefixMapping( name( position ), name( position ) );
+                    break;
+                case END_PREFIX_MAPPING:
+                    handler.endPrefixMapping( name( position ) );
+                    break;
+                case PROCESSING_INSTRUCTION:
+                    handler.processingInstruction( name( position ), text( position ) );
+                    break;
+                default:
+                    throw new SAXException( "Corrupted SAX recording, unknown event " + type );
+            }
+        }
+
+        handler.endDocument();
+    }
+
+    private int readVarInt( final int[] position )
+    {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do
+        {
+            b = events[position[0]++];
+            value |= ( b & 0x7F ) << shift;
+            shift += 7;
+        }
+        while ( ( b & 0x80 ) != 0 );
+        return value;
+    }
+
+    private String name( final int[] position )
+    {
+        final int index = readVarInt( position );
+        return index == 0 ? null : names[index - 1];
+    }
+
+    private String text( final int[] position )
+    {
+        final int length = readVarInt( position );
+        final String text = new String( events, position[0], length, StandardCharsets.UTF_8 );
+        position[0] += length;
+        return text;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format( "SaxRecording[systemId=%s, names=%s, events=%s bytes]", systemId, names.length,
+                              events.length );
+    }
+
+}
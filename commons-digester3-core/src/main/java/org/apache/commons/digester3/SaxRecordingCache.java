@@ -0,0 +1,227 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Thread-safe cache of the {@link SaxRecording}s of frequently parsed documents, shared by short-lived
+ * {@link Digester} instances:
+ *
+ * <pre>
+ * private static final SaxRecordingCache RECORDINGS = new SaxRecordingCache();
+ * ...
+ * Configuration configuration = RECORDINGS.parse( loader.newDigester(), configurationUrl );
+ * </pre>
+ *
+ * The first parse of a document records the events the digester receives; the following parses replay them
+ * instead of running the XML parser, as long as the document content is unchanged. The content is still read and
+ * hashed at each parse to detect changes, which costs a fraction of parsing it.
+ * <p>
+ * A recording is only replayed to digesters configured like the one it was recorded with: namespace awareness,
+ * validation, XInclude awareness, XML Schema, entity resolver and registered DTDs must match, otherwise the document is
+ * parsed and recorded again. Other parser features are not compared. External entities and DTDs the document refers
+ * to are not tracked either: changing them without changing the document does not invalidate its recording.
+ * The parses stopped before the end of the document, see {@link Digester#stop()}, are not recorded.
+ *
+ * @since 3.3
+ */
+public class SaxRecordingCache
+{
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * A cached recording along with the configuration of the digester that recorded it, null when unknown.
+     */
+    private static final class Entry
+    {
+
+        final SaxRecording recording;
+
+        final List<Object> configuration;
+
+        Entry( final SaxRecording recording, final List<Object> configuration )
+        {
+            this.recording = recording;
+            this.configuration = configuration;
+        }
+
+    }
+
+    private final ConcurrentMap<String, Entry> recordings = new ConcurrentHashMap<>();
+
+    /**
+     * Parses a document with the given digester, replaying the cached recording of the document when its content
+     * did not change since it was recorded and the digester parses it the same way.
+     *
+     * @param <T> The type used to auto-cast the returned object to the assigned variable type
+     * @param digester the digester processing the document
+     * @param url the document location
+     * @return The root element from the digester object stack (if any)
+     * @throws IOException if the document cannot be read
+     * @throws SAXException if a parsing exception occurs
+     */
+    public <T> T parse( final Digester digester, final URL url )
+        throws IOException, SAXException
+    {
+        final String systemId = url.toExternalForm();
+        final byte[] content = readContent( url );
+        final String hash = hash( content );
+
+        final List<Object> configuration = configurationOf( digester );
+
+        final Entry entry = recordings.get( systemId );
+        if ( entry != null && hash.equals( entry.recording.getContentHash() )
+            && ( entry.configuration == null || entry.configuration.equals( configuration ) ) )
+        {
+            return digester.parse( entry.recording );
+        }
+
+        final InputSource source = new InputSource( new ByteArrayInputStream( content ) );
+        source.setSystemId( systemId );
+        final SaxRecorder recorder = new SaxRecorder();
+        final T root = digester.parse( source, recorder );
+        // a stopped parse recorded part of the document only
+        if ( recorder.isComplete() )
+        {
+            recordings.put( systemId, new Entry( recorder.getRecording().withContentHash( hash ), configuration ) );
+        }
+        return root;
+    }
+
+    /**
+     * Returns the recording of the given document, if cached.
+     *
+     * @param systemId the document system identifier
+     * @return the recording of the given document, null if not cached
+     */
+    public SaxRecording get( final String systemId )
+    {
+        final Entry entry = recordings.get( systemId );
+        return entry != null ? entry.recording : null;
+    }
+
+    /**
+     * Adds a recording to this cache, e.g. one stored by a previous run with {@link SaxRecording#write}. Recordings
+     * without a system identifier or content hash cannot be validated and are rejected. The configuration of the
+     * digester that recorded it is unknown, so the recording is replayed to any digester.
+     *
+     * @param recording the recording to cache
+     */
+    public void put( final SaxRecording recording )
+    {
+        if ( recording.getSystemId() == null || recording.getContentHash() == null )
+        {
+            throw new IllegalArgumentException( "Recordings must have a system identifier and a content hash" );
+        }
+        recordings.put( recording.getSystemId(), new Entry( recording, null ) );
+    }
+
+    /**
+     * Removes the recording of the given document.
+     *
+     * @param systemId the document system identifier
+     */
+    public void remove( final String systemId )
+    {
+        recordings.remove( systemId );
+    }
+
+    /**
+     * Removes all the recordings.
+     */
+    public void clear()
+    {
+        recordings.clear();
+    }
+
+    /**
+     * Returns the number of cached recordings.
+     *
+     * @return the number of cached recordings
+     */
+    public int size()
+    {
+        return recordings.size();
+    }
+
+    /**
+     * Reads the content of a document. Connection caches are bypassed so that changes are seen.
+     *
+     * @param url the document location
+     * @return the document content
+     * @throws IOException if the document cannot be read
+     */
+    protected byte[] readContent( final URL url )
+        throws IOException
+    {
+        return DefaultResourceCache.read( url );
+    }
+
+    /**
+     * Computes the hash identifying a document content, SHA-256 by default.
+     *
+     * @param content the document content
+     * @return the hash of the content
+     */
+    protected String hash( final byte[] content )
+    {
+        final byte[] digest;
+        try
+        {
+            digest = MessageDigest.getInstance( "SHA-256" ).digest( content );
+        }
+        catch ( final NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( "SHA-256 is required on every Java platform", e );
+        }
+        final char[] hex = new char[digest.length * 2];
+        for ( int i = 0; i < digest.length; i++ )
+        {
+            hex[2 * i] = HEX_DIGITS[( digest[i] >> 4 ) & 0x0F];
+            hex[2 * i + 1] = HEX_DIGITS[digest[i] & 0x0F];
+        }
+        return new String( hex );
+    }
+
+    /**
+     * Returns the settings of the given digester that change the events it receives for a document.
+     */
+    private static List<Object> configurationOf( final Digester digester )
+    {
+        return Arrays.asList( digester.getNamespaceAware(), digester.getValidating(), digester.getXIncludeAware(),
+                              digester.getXMLSchema(), digester.getEntityResolver(),
+                              new HashMap<>( digester.getRegistrations() ) );
+    }
+
+}
@@ -0,0 +1,302 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static java.lang.String.format;
+import static org.apache.commons.beanutils.ConvertUtils.convert;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.xml.sax.Attributes;
+
+/**
+ * Rule implementation that assigns a field of the object at the top of the stack, from the body text or from an
+ * attribute of the matching element, without going through JavaBeans setters: beans exposing no setters, including
+ * the ones with {@code final} fields, can be populated too.
+ * <p>
+ * The field, declared by the class of the top object or any of its superclasses, is resolved once for each class and
+ * assigned through a cached {@code MethodHandle}. The values are converted by the converters registered with
+ * {@code org.apache.commons.beanutils.ConvertUtils}, as {@link BeanPropertySetterRule} does: for primitive and wrapper
+ * fields alike, an empty or invalid number is assigned the default value of the converter, zero unless changed.
+ *
+ * @since 3.3
+ */
+public class SetFieldRule
+    extends Rule
+{
+
+    /**
+     * The type the field setters are adapted to, {@code (bean, value) -> void}.
+     */
+    private static final MethodType SETTER_TYPE = MethodType.methodType( void.class, Object.class, Object.class );
+
+    /**
+     * A resolved field and the class it was resolved for.
+     */
+    private static final class FieldSetter
+    {
+
+        final Class<?> beanType;
+
+        final Class<?> fieldType;
+
+        final MethodHandle setter;
+
+        FieldSetter( final Class<?> beanType, final Class<?> fieldType, final MethodHandle setter )
+        {
+            this.beanType = beanType;
+            this.fieldType = fieldType;
+            this.setter = setter;
+        }
+
+    }
+
+    /**
+     * The name of the field to assign.
+     */
+    private final String fieldName;
+
+    /**
+     * The attribute holding the value, null to assign the body text.
+     */
+    private final String attributeName;
+
+    /**
+     * The body text used to assign the field.
+     */
+    private String bodyText;
+
+    /**
+     * The fields resolved so far, by bean class.
+     */
+    private final Map<Class<?>, FieldSetter> resolvedFields = new ConcurrentHashMap<>();
+
+    /**
+     * The last field resolved, as most rules always assign objects of the same class.
+     */
+    private FieldSetter lastResolved;
+
+    /**
+     * Constructs a rule that assigns the given field from the body text.
+     *
+     * @param fieldName The name of the field to assign
+     */
+    public SetFieldRule( final String fieldName )
+    {
+        this( fieldName, null );
+    }
+
+    /**
+     * Constructs a rule that assigns the given field from the given attribute, or from the body text if the attribute
+     * name is null. A missing attribute leaves the field unchanged.
+     *
+     * @param fieldName The name of the field to assign
+     * @param attributeName The attribute holding the value, null to assign the body text
+     */
+    public SetFieldRule( final String fieldName, final String attributeName )
+    {
+        this.fieldName = fieldName;
+        this.attributeName = attributeName;
+    }
+
+    @Override
+    public void begin( final String namespace, final String name, final Attributes attributes )
+        throws Exception
+    {
+        if ( attributeName == null )
+        {
+            return;
+        }
+
+        final String value = attributes.getValue( attributeName );
+        if ( value != null )
+        {
+            // Set the field of the top object, once constructed
+            final Object top = getDigester().peek();
+            if ( top instanceof DeferredInstance )
+            {
+                ( (DeferredInstance) top ).defer( object -> setField( object, value.trim() ) );
+            }
+            else
+            {
+                setField( top, value.trim() );
+            }
+        }
+    }
+
+    @Override
+    public void body( final String namespace, final String name, final String text )
+        throws Exception
+    {
+        if ( attributeName == null )
+        {
+            bodyText = text.trim();
+        }
+    }
+
+    @Override
+    public void end( final String namespace, final String name )
+        throws Exception
+    {
+        if ( attributeName == null )
+        {
+            final Object top = getDigester().peek();
+            if ( top instanceof DeferredInstance )
+            {
+                final String text = bodyText;
+                ( (DeferredInstance) top ).defer( object -> setField( object, text ) );
+            }
+            else
+            {
+                setField( top, bodyText );
+            }
+        }
+    }
+
+    @Override
+    public void finish()
+        throws Exception
+    {
+        bodyText = null;
+    }
+
+    /**
+     * Returns the name of the field to assign.
+     *
+     * @return The name of the field to assign
+     */
+    public String getFieldName()
+    {
+        return fieldName;
+    }
+
+    /**
+     * Returns the attribute holding the value, null if the body text is assigned.
+     *
+     * @return The attribute holding the value, null if the body text is assigned
+     */
+    public String getAttributeName()
+    {
+        return attributeName;
+    }
+
+    private void setField( final Object top, final String text )
+        throws Exception
+    {
+        if ( getDigester().getLogger().isDebugEnabled() )
+        {
+            getDigester().getLogger().debug( format( "[SetFieldRule]{%s} Set %s field %s with text %s",
+                                                     getDigester().getMatch(),
+                                                     top.getClass().getName(),
+                                                     fieldName,
+                                                     text ) );
+        }
+
+        final FieldSetter resolved = resolve( top.getClass() );
+        final Class<?> type = resolved.fieldType;
+        // converted like BeanPropertySetterRule does, primitive values are unboxed by the setter
+        final Object value = type.isAssignableFrom( String.class ) ? text : convert( text, type );
+        try
+        {
+            resolved.setter.invokeExact( top, value );
+        }
+        catch ( final Exception | Error e )
+        {
+            throw e;
+        }
+        catch ( final Throwable t )
+        {
+            throw new InvocationTargetException( t );
+        }
+    }
+
+    /**
+     * Returns the setter of the field of the given class, resolving it the first time the class is met.
+     *
+     * @param beanType The class of the top object
+     * @return The setter of the field
+     * @throws NoSuchFieldException if the class does not declare or inherit a non-static field with the given name
+     * @throws IllegalAccessException if the field cannot be assigned
+     */
+    private FieldSetter resolve( final Class<?> beanType )
+        throws NoSuchFieldException, IllegalAccessException
+    {
+        final FieldSetter last = lastResolved;
+        if ( last != null && last.beanType == beanType )
+        {
+            return last;
+        }
+
+        FieldSetter resolved = resolvedFields.get( beanType );
+        if ( resolved == null )
+        {
+            final Field field = findField( beanType, fieldName );
+            if ( field == null )
+            {
+                throw new NoSuchFieldException( format( "[SetFieldRule]{%s} Class '%s' does not have a field '%s'",
+                                                        getDigester().getMatch(), beanType.getName(),
+                                                        fieldName ) );
+            }
+            field.setAccessible( true );
+            final Class<?> fieldType = field.getType();
+            resolved = new FieldSetter( beanType, fieldType,
+                                        MethodHandles.lookup().unreflectSetter( field ).asType( SETTER_TYPE ) );
+            resolvedFields.put( beanType, resolved );
+        }
+        lastResolved = resolved;
+        return resolved;
+    }
+
+    /**
+     * Finds the non-static field with the given name declared by the given class or any of its superclasses.
+     *
+     * @param type The class declaring or inheriting the field
+     * @param fieldName The name of the field
+     * @return The field, null if not found
+     */
+    static Field findField( final Class<?> type, final String fieldName )
+    {
+        for ( Class<?> current = type; current != null; current = current.getSuperclass() )
+        {
+            for ( final Field field : current.getDeclaredFields() )
+            {
+                if ( field.getName().equals( fieldName ) && !Modifier.isStatic( field.getModifiers() ) )
+                {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString()
+    {
+        return format( "SetFieldRule[fieldName=%s, attributeName=%s]", fieldName, attributeName );
+    }
+
+}
@@ -131,17 +131,35 @@ public class SetNestedPropertiesRule
                 }
             }
 
-            final boolean debug = log.isDebugEnabled();
-
-            if ( debug )
+            if ( log.isDebugEnabled() )
             {
                 log.debug( "[SetNestedPropertiesRule]{" + getDigester().getMatch() + "} Setting property '" + propName
                     + "' to '" + text + "'" );
             }
 
-            // Populate the corresponding properties of the top object
+            if ( trimData )
+            {
+                text = text.trim();
+            }
+
+            // Populate the corresponding properties of the top object, once constructed
             final Object top = getDigester().peek();
-            if ( debug )
+            if ( top instanceof DeferredInstance )
+            {
+                final String property = propName;
+                final String value = text;
+                ( (DeferredInstance) top ).defer( object -> setNestedProperty( object, property, value ) );
+            }
+            else
+            {
+                setNestedProperty( top, propName, text );
+            }
+        }
+
+        private void setNestedProperty( final Object top, final String propName, final String text )
+            throws Exception
+        {
+            if ( log.isDebugEnabled() )
             {
                 if ( top != null )
                 {
@@ -154,11 +172,6 @@ public class SetNestedPropertiesRule
                 }
             }
 
-            if ( trimData )
-            {
-                text = text.trim();
-            }
-
             if ( !allowUnknownChildElements )
             {
                 // Force an exception if the property does not exist
@@ -0,0 +1,311 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static java.lang.String.format;
+import static org.apache.commons.beanutils.MethodUtils.invokeExactMethod;
+import static org.apache.commons.beanutils.MethodUtils.invokeMethod;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xml.sax.Attributes;
+
+/**
+ * <p>
+ * Variant of {@link SetNextRule} that gathers the children of each parent object into a list, and passes the list to
+ * the parent method in a single call when the parent element ends, e.g. {@code catalog.setItems( List<Item> )}
+ * instead of one {@code catalog.addItem( Item )} call per child.
+ * </p>
+ * <p>
+ * This rule is registered on the child pattern and works with a {@link ParentRule} registered on the parent pattern,
+ * both sharing the name of the Digester named stack holding the lists being gathered. Both rules resolve the
+ * {@link StackHandle} of that stack when they are bound to their digester, so gathering a child costs no name lookup.
+ * The parent method is not invoked for parents without children.
+ * </p>
+ *
+ * @since 3.3
+ */
+public class SetNextCollectionRule
+    extends SetNextRule
+{
+
+    /**
+     * The children gathered for a parent element.
+     */
+    private static final class Children
+    {
+
+        private final List<Object> children;
+
+        private Object parent;
+
+        Children( final int expectedSize )
+        {
+            children = new ArrayList<>( expectedSize );
+        }
+
+    }
+
+    /**
+     * <p>
+     * Rule registered on the parent pattern of a {@link SetNextCollectionRule}: starts a list when a parent element
+     * begins, and passes it to the parent method when the element ends.
+     * </p>
+     */
+    public static class ParentRule
+        extends Rule
+    {
+
+        private static final int DEFAULT_EXPECTED_SIZE = 10;
+
+        /**
+         * The largest list allocated up front, the size attribute comes from the document and is not trusted: longer
+         * lists grow as the children are added.
+         */
+        private static final int MAX_EXPECTED_SIZE = 1024;
+
+        private final String methodName;
+
+        private final String stackName;
+
+        private StackHandle stack;
+
+        private String sizeAttribute;
+
+        private boolean useExactMatch;
+
+        /**
+         * Constructs a rule passing the gathered children to the given parent method.
+         *
+         * @param methodName Method name of the parent method to call, taking a {@link List} argument
+         * @param stackName Name of the stack holding the lists being gathered, shared with the
+         *            {@link SetNextCollectionRule}
+         */
+        public ParentRule( final String methodName, final String stackName )
+        {
+            this.methodName = methodName;
+            this.stackName = stackName;
+        }
+
+        /**
+         * Returns the name of the attribute of the parent element giving the expected number of children.
+         *
+         * @return the name of the attribute giving the expected number of children, null if none
+         */
+        public String getSizeAttribute()
+        {
+            return sizeAttribute;
+        }
+
+        /**
+         * Sets the name of the attribute of the parent element giving the expected number of children, used to size
+         * the list once. The hint is capped to 1024 children, the list grows beyond as usual.
+         *
+         * @param sizeAttribute the name of the attribute giving the expected number of children, null if none
+         */
+        public void setSizeAttribute( final String sizeAttribute )
+        {
+            this.sizeAttribute = sizeAttribute;
+        }
+
+        /**
+         * Returns true if the parent method must take exactly a {@link List} argument.
+         *
+         * @return true if the parent method must take exactly a {@link List} argument
+         */
+        public boolean isExactMatch()
+        {
+            return useExactMatch;
+        }
+
+        /**
+         * Sets whether the parent method must take exactly a {@link List} argument, otherwise any compatible type is
+         * accepted, such as {@link java.util.Collection}.
+         *
+         * @param useExactMatch true if the parent method must take exactly a {@link List} argument
+         */
+        public void setExactMatch( final boolean useExactMatch )
+        {
+            this.useExactMatch = useExactMatch;
+        }
+
+        @Override
+        public void setDigester( final Digester digester )
+        {
+            super.setDigester( digester );
+            stack = digester.getStackHandle( stackName );
+        }
+
+        @Override
+        public void begin( final String namespace, final String name, final Attributes attributes )
+            throws Exception
+        {
+            int expectedSize = DEFAULT_EXPECTED_SIZE;
+            if ( sizeAttribute != null )
+            {
+                final String value = attributes.getValue( sizeAttribute );
+                if ( value != null )
+                {
+                    try
+                    {
+                        expectedSize = Math.min( MAX_EXPECTED_SIZE,
+                                                 Math.max( 0, Integer.parseInt( value.trim() ) ) );
+                    }
+                    catch ( final NumberFormatException e )
+                    {
+                        getDigester().getLogger().warn( format( "[SetNextCollectionRule]{%s} Ignoring %s='%s'",
+                                                                getDigester().getMatch(), sizeAttribute, value ) );
+                    }
+                }
+            }
+            getDigester().push( stack, new Children( expectedSize ) );
+        }
+
+        @Override
+        public void end( final String namespace, final String name )
+            throws Exception
+        {
+            final Children collection = getDigester().pop( stack );
+            if ( collection.parent == null )
+            {
+                return;
+            }
+            if ( collection.parent instanceof DeferredInstance )
+            {
+                ( (DeferredInstance) collection.parent ).defer( parent -> setChildren( parent, collection.children ) );
+            }
+            else
+            {
+                setChildren( collection.parent, collection.children );
+            }
+        }
+
+        private void setChildren( final Object parent, final List<Object> children )
+            throws Exception
+        {
+
+            if ( getDigester().getLogger().isDebugEnabled() )
+            {
+                getDigester().getLogger().debug( format( "[SetNextCollectionRule]{%s} Call %s.%s(%s children)",
+                                                         getDigester().getMatch(),
+                                                         parent.getClass().getName(),
+                                                         methodName,
+                                                         children.size() ) );
+            }
+            final Object[] arguments = { children };
+            final Class<?>[] paramTypes = { List.class };
+            if ( useExactMatch )
+            {
+                invokeExactMethod( parent, methodName, arguments, paramTypes );
+            }
+            else
+            {
+                invokeMethod( parent, methodName, arguments, paramTypes );
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return format( "SetNextCollectionRule.ParentRule[methodName=%s, stackName=%s, sizeAttribute=%s]",
+                           methodName, stackName, sizeAttribute );
+        }
+
+    }
+
+    private final String stackName;
+
+    private StackHandle stack;
+
+    /**
+     * Constructs a rule gathering the children for the given parent method.
+     *
+     * @param methodName Method name of the parent method to call, taking a {@link List} argument
+     * @param stackName Name of the stack holding the lists being gathered, shared with the {@link ParentRule}
+     */
+    public SetNextCollectionRule( final String methodName, final String stackName )
+    {
+        super( methodName );
+        this.stackName = stackName;
+    }
+
+    /**
+     * Returns the name of the stack holding the lists being gathered.
+     *
+     * @return the name of the stack holding the lists being gathered
+     */
+    public String getStackName()
+    {
+        return stackName;
+    }
+
+    @Override
+    public void setDigester( final Digester digester )
+    {
+        super.setDigester( digester );
+        stack = digester.getStackHandle( stackName );
+    }
+
+    @Override
+    public void begin( final String namespace, final String name, final Attributes attributes )
+        throws Exception
+    {
+        if ( fireOnBegin )
+        {
+            gather();
+        }
+    }
+
+    @Override
+    public void end( final String namespace, final String name )
+        throws Exception
+    {
+        if ( !fireOnBegin )
+        {
+            gather();
+        }
+    }
+
+    private void gather()
+        throws Exception
+    {
+        if ( getDigester().isEmpty( stack ) )
+        {
+            throw new IllegalStateException( format( "No parent element gathering the children of %s, the %s must be"
+                + " registered on the parent pattern", getDigester().getMatch(), ParentRule.class.getName() ) );
+        }
+        final Children collection = getDigester().peek( stack );
+        if ( collection.parent == null )
+        {
+            collection.parent = getParent();
+        }
+        final Object child = getChild();
+        if ( child instanceof DeferredInstance )
+        {
+            ( (DeferredInstance) child ).defer( collection.children::add );
+        }
+        else
+        {
+            collection.children.add( child );
+        }
+    }
+
+}
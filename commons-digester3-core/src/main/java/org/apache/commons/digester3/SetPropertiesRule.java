@@ -183,43 +183,58 @@ public class SetPropertiesRule
                                                          attributeName ) );
             }
 
-            if ( !ignoreMissingProperty && attributeName != null )
+            if ( attributeName != null )
             {
-                // The BeanUtils.populate method silently ignores items in
-                // the map (ie XML entities) which have no corresponding
-                // setter method, so here we check whether each XML attribute
-                // does have a corresponding property before calling the
-                // BeanUtils.populate method.
-                //
-                // Yes having the test and set as separate steps is ugly and
-                // inefficient. But BeanUtils.populate doesn't provide the
-                // functionality we need here, and changing the algorithm which
-                // determines the appropriate setter method to invoke is
-                // considered too risky.
-                //
-                // Using two different classes (PropertyUtils vs BeanUtils) to
-                // do the test and the set is also ugly; the code paths
-                // are different which could potentially lead to trouble.
-                // However the BeanUtils/PropertyUtils code has been carefully
-                // compared and the PropertyUtils functionality does appear
-                // compatible so we'll accept the risk here.
+                values.put( attributeName, value );
+            }
+        }
 
-                final Object top = getDigester().peek();
+        // Populate the corresponding properties of the top object, once constructed
+        final Object top = getDigester().peek();
+        if ( top instanceof DeferredInstance )
+        {
+            ( (DeferredInstance) top ).defer( object -> populateProperties( object, values ) );
+        }
+        else
+        {
+            populateProperties( top, values );
+        }
+    }
+
+    private void populateProperties( final Object top, final Map<String, String> values )
+        throws Exception
+    {
+        if ( !ignoreMissingProperty )
+        {
+            // The BeanUtils.populate method silently ignores items in
+            // the map (ie XML entities) which have no corresponding
+            // setter method, so here we check whether each XML attribute
+            // does have a corresponding property before calling the
+            // BeanUtils.populate method.
+            //
+            // Yes having the test and set as separate steps is ugly and
+            // inefficient. But BeanUtils.populate doesn't provide the
+            // functionality we need here, and changing the algorithm which
+            // determines the appropriate setter method to invoke is
+            // considered too risky.
+            //
+            // Using two different classes (PropertyUtils vs BeanUtils) to
+            // do the test and the set is also ugly; the code paths
+            // are different which could potentially lead to trouble.
+            // However the BeanUtils/PropertyUtils code has been carefully
+            // compared and the PropertyUtils functionality does appear
+            // compatible so we'll accept the risk here.
+
+            for ( final String attributeName : values.keySet() )
+            {
                 final boolean test = isWriteable( top, attributeName );
                 if ( !test )
                 {
                     throw new NoSuchMethodException( "Property " + attributeName + " can't be set" );
                 }
             }
-
-            if ( attributeName != null )
-            {
-                values.put( attributeName, value );
-            }
         }
 
-        // Populate the corresponding properties of the top object
-        final Object top = getDigester().peek();
         if ( getDigester().getLogger().isDebugEnabled() )
         {
             if ( top != null )
@@ -265,6 +280,11 @@ public class SetPropertiesRule
         this.ignoreMissingProperty = ignoreMissingProperty;
     }
 
+    Map<String, String> getAliases()
+    {
+        return aliases;
+    }
+
     @Override
     public String toString()
     {
@@ -89,9 +89,23 @@ public class SetPropertyRule
             }
         }
 
-        // Get a reference to the top object
+        // Set the property of the top object, once constructed
         final Object top = getDigester().peek();
+        if ( top instanceof DeferredInstance )
+        {
+            final String propertyName = actualName;
+            final String propertyValue = actualValue;
+            ( (DeferredInstance) top ).defer( object -> setBeanProperty( object, propertyName, propertyValue ) );
+        }
+        else
+        {
+            setBeanProperty( top, actualName, actualValue );
+        }
+    }
 
+    private void setBeanProperty( final Object top, final String actualName, final String actualValue )
+        throws Exception
+    {
         // Log some debugging information
         if ( getDigester().getLogger().isDebugEnabled() )
         {
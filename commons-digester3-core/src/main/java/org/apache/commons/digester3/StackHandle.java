@@ -0,0 +1,91 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * A pre-resolved reference to a named object stack of a {@link Digester}.
+ * <p>
+ * Resolving a stack name costs a hash lookup, while pushing onto, peeking at or popping from a stack through its
+ * handle is a plain array access. Rules that use a named stack for every element should therefore resolve it once,
+ * when they are bound to their digester:
+ *
+ * <pre>
+ * public void setDigester( Digester digester )
+ * {
+ *     super.setDigester( digester );
+ *     accountsStack = digester.getStackHandle( "accounts" );
+ * }
+ *
+ * public void begin( String namespace, String name, Attributes attributes )
+ * {
+ *     Account account = getDigester().peek( accountsStack );
+ *     ...
+ * }
+ * </pre>
+ *
+ * A handle is only valid for the digester that created it, and remains valid for the whole life of that digester,
+ * across {@link Digester#clear()} calls. The String based stack methods of {@code Digester} operate on the same stacks.
+ *
+ * @see Digester#getStackHandle(String)
+ * @since 3.3
+ */
+public final class StackHandle
+{
+
+    private final Digester digester;
+
+    private final String name;
+
+    private final int index;
+
+    StackHandle( final Digester digester, final String name, final int index )
+    {
+        this.digester = digester;
+        this.name = name;
+        this.index = index;
+    }
+
+    Digester getDigester()
+    {
+        return digester;
+    }
+
+    int getIndex()
+    {
+        return index;
+    }
+
+    /**
+     * Returns the name of the stack.
+     *
+     * @return the name of the stack
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "StackHandle[" + name + "]";
+    }
+
+}
@@ -0,0 +1,191 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * <p>
+ * Rule implementation receiving the body text of the matching elements chunk by chunk, as the parser reports it, for
+ * the elements carrying large payloads: the body is never buffered by the {@link Digester}, nor handed to
+ * {@link #body(String, String, String)}.
+ * </p>
+ * <p>
+ * From the beginning of a matching element to its end, the digester forwards the SAX events to this rule, as for
+ * {@link NodeCreateRule}: the text of the nested elements is part of the body, and no rule fires for them.
+ * </p>
+ *
+ * @since 3.3
+ */
+public abstract class StreamingBodyRule
+    extends Rule
+{
+
+    /**
+     * Opens the destination of the body of each matching element, closed when the element ends.
+     *
+     * @param <T> the type of the destination
+     */
+    @FunctionalInterface
+    public interface Destination<T>
+    {
+
+        /**
+         * Opens the destination of the body of a matching element.
+         *
+         * @param namespace the namespace URI of the matching element, or an empty string if the parser is not
+         *            namespace aware or the element has no namespace
+         * @param name the local name if the parser is namespace aware, or just the element name otherwise
+         * @param attributes The attribute list of the matching element
+         * @return the destination of the body of the element
+         * @throws IOException if the destination cannot be opened
+         */
+        T open( String namespace, String name, Attributes attributes )
+            throws IOException;
+
+        /**
+         * Returns a destination writing the bodies to the given file, replaced by each matching element.
+         *
+         * @param path the file the bodies are written to
+         * @return a destination writing the bodies to the given file
+         */
+        static Destination<OutputStream> toPath( final Path path )
+        {
+            return ( namespace, name, attributes ) -> Files.newOutputStream( path );
+        }
+
+    }
+
+    /**
+     * The SAX content handler forwarding the body text to this rule, until the matching element ends.
+     */
+    private final class BodyForwarder
+        extends DefaultHandler
+    {
+
+        /**
+         * The content handler used by Digester before it was set to this content handler.
+         */
+        private final ContentHandler oldContentHandler = getDigester().getCustomContentHandler();
+
+        /**
+         * Depth of the current element, relative to the matching element.
+         */
+        private int depth;
+
+        @Override
+        public void characters( final char[] ch, final int start, final int length )
+            throws SAXException
+        {
+            try
+            {
+                bodyChunk( ch, start, length );
+            }
+            catch ( final SAXException e )
+            {
+                throw e;
+            }
+            catch ( final Exception e )
+            {
+                throw getDigester().createSAXException( e );
+            }
+        }
+
+        @Override
+        public void ignorableWhitespace( final char[] ch, final int start, final int length )
+            throws SAXException
+        {
+            characters( ch, start, length );
+        }
+
+        @Override
+        public void startElement( final String namespaceURI, final String localName, final String qName,
+                                  final Attributes attributes )
+        {
+            depth++;
+        }
+
+        @Override
+        public void endElement( final String namespaceURI, final String localName, final String qName )
+            throws SAXException
+        {
+            if ( depth == 0 )
+            {
+                forwarder = null;
+                getDigester().setCustomContentHandler( oldContentHandler );
+                getDigester().endElement( namespaceURI, localName, qName );
+            }
+            depth--;
+        }
+
+    }
+
+    /**
+     * The content handler forwarding the body of the current matching element, null between the matching elements.
+     */
+    private BodyForwarder forwarder;
+
+    /**
+     * Forwards the SAX events to this rule until the matching element ends.
+     */
+    @Override
+    public void begin( final String namespace, final String name, final Attributes attributes )
+        throws Exception
+    {
+        forwarder = new BodyForwarder();
+        getDigester().setCustomContentHandler( forwarder );
+    }
+
+    /**
+     * Stops forwarding the SAX events to this rule if the parse ended before the matching element did. The subclasses
+     * close the destination of that body here.
+     */
+    @Override
+    public void finish()
+        throws Exception
+    {
+        if ( forwarder != null )
+        {
+            getDigester().setCustomContentHandler( forwarder.oldContentHandler );
+            forwarder = null;
+        }
+    }
+
+    /**
+     * Receives the next chunk of the body text of the matching element. The characters are only valid during the
+     * call, the parser reuses its buffer.
+     *
+     * @param buffer the characters of the parsed document
+     * @param start the index of the first character of the chunk
+     * @param length the number of characters of the chunk
+     * @throws Exception if any error occurs
+     */
+    protected abstract void bodyChunk( char[] buffer, int start, int length )
+        throws Exception;
+
+}
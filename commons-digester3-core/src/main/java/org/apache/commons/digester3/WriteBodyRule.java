@@ -0,0 +1,102 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static java.lang.String.format;
+
+import java.io.Writer;
+
+import org.xml.sax.Attributes;
+
+/**
+ * Rule implementation writing the body text of each matching element to a {@link Writer} as it is parsed, the writer
+ * being opened when the element begins and closed when it ends.
+ *
+ * @since 3.3
+ */
+public class WriteBodyRule
+    extends StreamingBodyRule
+{
+
+    private final Destination<? extends Writer> destination;
+
+    private Writer writer;
+
+    /**
+     * Constructs a rule writing the bodies to the writers opened by the given destination.
+     *
+     * @param destination opens the writer of the body of each matching element
+     */
+    public WriteBodyRule( final Destination<? extends Writer> destination )
+    {
+        if ( destination == null )
+        {
+            throw new IllegalArgumentException( "Body destination must not be null" );
+        }
+        this.destination = destination;
+    }
+
+    @Override
+    public void begin( final String namespace, final String name, final Attributes attributes )
+        throws Exception
+    {
+        writer = destination.open( namespace, name, attributes );
+        super.begin( namespace, name, attributes );
+    }
+
+    @Override
+    protected void bodyChunk( final char[] buffer, final int start, final int length )
+        throws Exception
+    {
+        writer.write( buffer, start, length );
+    }
+
+    @Override
+    public void end( final String namespace, final String name )
+        throws Exception
+    {
+        final Writer current = writer;
+        writer = null;
+        current.close();
+    }
+
+    /**
+     * Closes the writer of a body whose element did not end, the parse having failed or been stopped.
+     */
+    @Override
+    public void finish()
+        throws Exception
+    {
+        super.finish();
+        final Writer current = writer;
+        if ( current != null )
+        {
+            writer = null;
+            current.close();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return format( "WriteBodyRule[destination=%s]", destination );
+    }
+
+}
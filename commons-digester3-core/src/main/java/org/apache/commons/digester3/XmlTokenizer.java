@@ -0,0 +1,1546 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static java.lang.String.format;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Minimal incremental XML tokenizer, fed with chunks of bytes as they arrive and reporting the SAX events of a
+ * non-validating parser as soon as enough input is available; its state is kept between chunks.
+ * <p>
+ * The well-formedness of the markup is checked, the predefined entities and the character references are resolved,
+ * line ends and attribute values are normalized, and namespaces are processed if enabled. Document type declarations
+ * are skipped, unless they are rejected to parse the document with a DTD aware parser instead: no DTD is read and no
+ * other entity can be referenced. The encoding is detected from the byte order mark or the XML declaration, UTF-8 by
+ * default. No event is reported before the root element starts, so that a rejected document can be parsed again.
+ * <p>
+ * Element names are interned, text is reported as ranges of the input buffer, without waiting for the end of the
+ * element, and the attributes view is reused for all the elements.
+ */
+final class XmlTokenizer
+    implements Locator
+{
+
+    private static final String XML_NAMESPACE = "http://www.w3.org/XML/1998/namespace";
+
+    private static final String XMLNS_NAMESPACE = "http://www.w3.org/2000/xmlns/";
+
+    private static final int PROLOG = 0;
+
+    private static final int CONTENT = 1;
+
+    private static final int EPILOG = 2;
+
+    /**
+     * The longest XML declaration read while detecting the encoding.
+     */
+    private static final int MAX_DECLARATION_LENGTH = 4096;
+
+    /**
+     * The longest character reference, e.g. {@code &#x0010FFFF;}.
+     */
+    private static final int MAX_REFERENCE_LENGTH = 32;
+
+    /**
+     * Thrown when a document type declaration is met while they are rejected.
+     */
+    static final class DoctypeRejectedException
+        extends SAXException
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        DoctypeRejectedException()
+        {
+            super( "Document type declarations are not supported" );
+        }
+
+    }
+
+    /**
+     * Attributes view reused for all the elements.
+     */
+    private static final class TokenizerAttributes
+        implements Attributes
+    {
+
+        private String[] uris = new String[8];
+
+        private String[] localNames = new String[8];
+
+        private String[] qNames = new String[8];
+
+        private String[] values = new String[8];
+
+        private int length;
+
+        void clear()
+        {
+            length = 0;
+        }
+
+        void add( final String qName, final String value )
+        {
+            if ( length == qNames.length )
+            {
+                final int capacity = length * 2;
+                uris = Arrays.copyOf( uris, capacity );
+                localNames = Arrays.copyOf( localNames, capacity );
+                qNames = Arrays.copyOf( qNames, capacity );
+                values = Arrays.copyOf( values, capacity );
+            }
+            uris[length] = "";
+            localNames[length] = qName;
+            qNames[length] = qName;
+            values[length] = value;
+            length++;
+        }
+
+        void remove( final int index )
+        {
+            length--;
+            System.arraycopy( uris, index + 1, uris, index, length - index );
+            System.arraycopy( localNames, index + 1, localNames, index, length - index );
+            System.arraycopy( qNames, index + 1, qNames, index, length - index );
+            System.arraycopy( values, index + 1, values, index, length - index );
+        }
+
+        void setName( final int index, final String uri, final String localName )
+        {
+            uris[index] = uri;
+            localNames[index] = localName;
+        }
+
+        @Override
+        public int getLength()
+        {
+            return length;
+        }
+
+        @Override
+        public String getURI( final int index )
+        {
+            return index >= 0 && index < length ? uris[index] : null;
+        }
+
+        @Override
+        public String getLocalName( final int index )
+        {
+            return index >= 0 && index < length ? localNames[index] : null;
+        }
+
+        @Override
+        public String getQName( final int index )
+        {
+            return index >= 0 && index < length ? qNames[index] : null;
+        }
+
+        @Override
+        public String getType( final int index )
+        {
+            return index >= 0 && index < length ? "CDATA" : null;
+        }
+
+        @Override
+        public String getValue( final int index )
+        {
+            return index >= 0 && index < length ? values[index] : null;
+        }
+
+        @Override
+        public int getIndex( final String uri, final String localName )
+        {
+            for ( int i = 0; i < length; i++ )
+            {
+                if ( uris[i].equals( uri ) && localNames[i].equals( localName ) )
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public int getIndex( final String qName )
+        {
+            for ( int i = 0; i < length; i++ )
+            {
+                if ( qNames[i].equals( qName ) )
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public String getType( final String uri, final String localName )
+        {
+            return getType( getIndex( uri, localName ) );
+        }
+
+        @Override
+        public String getType( final String qName )
+        {
+            return getType( getIndex( qName ) );
+        }
+
+        @Override
+        public String getValue( final String uri, final String localName )
+        {
+            return getValue( getIndex( uri, localName ) );
+        }
+
+        @Override
+        public String getValue( final String qName )
+        {
+            return getValue( getIndex( qName ) );
+        }
+
+    }
+
+    /**
+     * Table of the interned names met so far, looked up by character range.
+     */
+    private static final class NameTable
+    {
+
+        private String[] names = new String[256];
+
+        private int size;
+
+        String get( final char[] chars, final int start, final int end )
+        {
+            int hash = 0;
+            for ( int i = start; i < end; i++ )
+            {
+                hash = 31 * hash + chars[i];
+            }
+
+            final int length = end - start;
+            int index = hash & names.length - 1;
+            String name;
+            while ( ( name = names[index] ) != null )
+            {
+                if ( name.length() == length && name.hashCode() == hash && matches( name, chars, start ) )
+                {
+                    return name;
+                }
+                index = index + 1 & names.length - 1;
+            }
+
+            name = new String( chars, start, length ).intern();
+            names[index] = name;
+            if ( ++size * 2 > names.length )
+            {
+                rehash();
+            }
+            return name;
+        }
+
+        private static boolean matches( final String name, final char[] chars, final int start )
+        {
+            for ( int i = 0; i < name.length(); i++ )
+            {
+                if ( name.charAt( i ) != chars[start + i] )
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void rehash()
+        {
+            final String[] old = names;
+            names = new String[old.length * 2];
+            for ( final String name : old )
+            {
+                if ( name != null )
+                {
+                    int index = name.hashCode() & names.length - 1;
+                    while ( names[index] != null )
+                    {
+                        index = index + 1 & names.length - 1;
+                    }
+                    names[index] = name;
+                }
+            }
+        }
+
+    }
+
+    private final ContentHandler handler;
+
+    private final boolean namespaceAware;
+
+    private final String publicId;
+
+    private final String systemId;
+
+    private final NameTable nameTable = new NameTable();
+
+    private final TokenizerAttributes attributes = new TokenizerAttributes();
+
+    private ErrorHandler errorHandler;
+
+    private boolean rejectDoctype;
+
+    /**
+     * The targets and data of the processing instructions met before the root element, not reported yet.
+     */
+    private final List<String> prologInstructions = new ArrayList<>();
+
+    /**
+     * The charset the bytes are decoded with, detected from the first bytes unless given.
+     */
+    private Charset charset;
+
+    private CharsetDecoder decoder;
+
+    /**
+     * The bytes not decoded yet, in read mode.
+     */
+    private ByteBuffer pendingBytes = ByteBuffer.allocate( 0 );
+
+    private final char[] decoded = new char[8192];
+
+    /**
+     * The characters not tokenized yet are {@code buffer[position, limit)}.
+     */
+    private char[] buffer = new char[8192];
+
+    private int position;
+
+    private int limit;
+
+    /**
+     * The offset, in the whole document, of {@code buffer[0]}.
+     */
+    private long base;
+
+    /**
+     * True if a carriage return ended the last characters, so that a following line feed is dropped.
+     */
+    private boolean skipLineFeed;
+
+    private int line = 1;
+
+    /**
+     * The offset, in the whole document, of the first character of the current line.
+     */
+    private long lineStart;
+
+    private int state = PROLOG;
+
+    private boolean started;
+
+    private boolean doctypeSeen;
+
+    private boolean inComment;
+
+    private boolean inCdata;
+
+    /**
+     * Where the search for the end of the current start tag resumes, relative to its start.
+     */
+    private int tagScanned;
+
+    private String[] elements = new String[16];
+
+    private int depth;
+
+    private String[] namespacePrefixes = new String[8];
+
+    private String[] namespaceUris = new String[8];
+
+    private int namespaceCount;
+
+    /**
+     * The number of namespace declarations in scope before each open element.
+     */
+    private int[] namespaceMarks = new int[16];
+
+    private final char[] reference = new char[2];
+
+    private final StringBuilder value = new StringBuilder();
+
+    private boolean ended;
+
+    XmlTokenizer( final ContentHandler handler, final boolean namespaceAware, final String publicId,
+                  final String systemId, final Charset charset )
+    {
+        this.handler = handler;
+        this.namespaceAware = namespaceAware;
+        this.publicId = publicId;
+        this.systemId = systemId;
+        this.charset = charset;
+    }
+
+    /**
+     * Sets the handler notified of the well-formedness errors before they are thrown.
+     *
+     * @param errorHandler the error handler, null for none
+     */
+    void setErrorHandler( final ErrorHandler errorHandler )
+    {
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Sets whether a document type declaration is rejected with a {@link DoctypeRejectedException}, rather than
+     * skipped.
+     *
+     * @param rejectDoctype true to reject the document type declarations
+     */
+    void setRejectDoctype( final boolean rejectDoctype )
+    {
+        this.rejectDoctype = rejectDoctype;
+    }
+
+    /**
+     * Returns true until the root element starts, no event is reported before.
+     *
+     * @return true until the root element starts
+     */
+    boolean isInProlog()
+    {
+        return state == PROLOG;
+    }
+
+    /**
+     * Tokenizes the given bytes, following the bytes already fed.
+     *
+     * @param bytes the next bytes of the document, all consumed
+     * @throws SAXException if the document is not well-formed, or the content handler fails
+     */
+    void feed( final ByteBuffer bytes )
+        throws SAXException
+    {
+        checkNotEnded();
+        ByteBuffer input = bytes;
+        if ( pendingBytes.hasRemaining() || decoder == null )
+        {
+            final ByteBuffer joined = ByteBuffer.allocate( pendingBytes.remaining() + bytes.remaining() );
+            joined.put( pendingBytes ).put( bytes ).flip();
+            input = joined;
+            if ( decoder == null && !detectEncoding( input, false ) )
+            {
+                pendingBytes = input;
+                return;
+            }
+        }
+        decode( input, false );
+        if ( input.hasRemaining() )
+        {
+            // an incomplete sequence, completed by the next bytes
+            pendingBytes = ByteBuffer.allocate( input.remaining() ).put( input );
+            pendingBytes.flip();
+        }
+        else
+        {
+            pendingBytes = ByteBuffer.allocate( 0 );
+        }
+    }
+
+    /**
+     * Tokenizes the given characters, following the characters already fed; the characters of a document can not be
+     * mixed with its bytes.
+     *
+     * @param chars the next characters of the document
+     * @param start the index of the first character
+     * @param length the number of characters
+     * @throws SAXException if the document is not well-formed, or the content handler fails
+     */
+    void feed( final char[] chars, final int start, final int length )
+        throws SAXException
+    {
+        checkNotEnded();
+        append( chars, start, length );
+        tokenize( false );
+    }
+
+    /**
+     * Signals the end of the document, checking it is complete.
+     *
+     * @throws SAXException if the document is not well-formed, or the content handler fails
+     */
+    void end()
+        throws SAXException
+    {
+        checkNotEnded();
+        if ( decoder == null && pendingBytes.hasRemaining() )
+        {
+            detectEncoding( pendingBytes, true );
+        }
+        if ( decoder != null )
+        {
+            decode( pendingBytes, true );
+            if ( pendingBytes.hasRemaining() )
+            {
+                throw fatal( format( "Incomplete byte sequence at the end of the document for encoding %s",
+                                     charset.name() ) );
+            }
+        }
+        tokenize( true );
+        ended = true;
+
+        if ( inComment || inCdata || position < limit || state == CONTENT )
+        {
+            throw fatal( "XML document structures must start and end within the same entity" );
+        }
+        if ( state == PROLOG )
+        {
+            throw fatal( "Premature end of file" );
+        }
+        handler.endDocument();
+    }
+
+    @Override
+    public String getPublicId()
+    {
+        return publicId;
+    }
+
+    @Override
+    public String getSystemId()
+    {
+        return systemId;
+    }
+
+    @Override
+    public int getLineNumber()
+    {
+        return line;
+    }
+
+    @Override
+    public int getColumnNumber()
+    {
+        return (int) ( base + position - lineStart ) + 1;
+    }
+
+    private void checkNotEnded()
+    {
+        if ( ended )
+        {
+            throw new IllegalStateException( "The end of the document has already been reached" );
+        }
+    }
+
+    /**
+     * Detects the encoding from the first bytes of the document, skipping the byte order mark.
+     *
+     * @param bytes the first bytes of the document
+     * @param last true if no more bytes follow
+     * @return true if the encoding is known, false if more bytes are needed
+     * @throws SAXException if the encoding is not supported
+     */
+    private boolean detectEncoding( final ByteBuffer bytes, final boolean last )
+        throws SAXException
+    {
+        final int available = bytes.remaining();
+        if ( available < 4 && !last )
+        {
+            return false;
+        }
+
+        final int start = bytes.position();
+        final int b0 = available > 0 ? bytes.get( start ) & 0xFF : -1;
+        final int b1 = available > 1 ? bytes.get( start + 1 ) & 0xFF : -1;
+        final int b2 = available > 2 ? bytes.get( start + 2 ) & 0xFF : -1;
+        final int b3 = available > 3 ? bytes.get( start + 3 ) & 0xFF : -1;
+        Charset detected = StandardCharsets.UTF_8;
+        if ( b0 == 0xEF && b1 == 0xBB && b2 == 0xBF )
+        {
+            bytes.position( start + 3 );
+        }
+        else if ( b0 == 0xFE && b1 == 0xFF )
+        {
+            bytes.position( start + 2 );
+            detected = StandardCharsets.UTF_16BE;
+        }
+        else if ( b0 == 0xFF && b1 == 0xFE )
+        {
+            bytes.position( start + 2 );
+            detected = StandardCharsets.UTF_16LE;
+        }
+        else if ( b0 == 0x00 && b1 == 0x3C && b2 == 0x00 && b3 == 0x3F )
+        {
+            detected = StandardCharsets.UTF_16BE;
+        }
+        else if ( b0 == 0x3C && b1 == 0x00 && b2 == 0x3F && b3 == 0x00 )
+        {
+            detected = StandardCharsets.UTF_16LE;
+        }
+        else if ( b0 == '<' && b1 == '?' && b2 == 'x' && b3 == 'm' )
+        {
+            // the declaration is ASCII in all the encodings it can declare here
+            int end = -1;
+            for ( int i = start + 4; i + 1 < bytes.limit(); i++ )
+            {
+                if ( bytes.get( i ) == '?' && bytes.get( i + 1 ) == '>' )
+                {
+                    end = i;
+                    break;
+                }
+            }
+            if ( end < 0 )
+            {
+                if ( !last && available < MAX_DECLARATION_LENGTH )
+                {
+                    return false;
+                }
+                throw fatal( "The XML declaration must end with \"?>\"" );
+            }
+            final byte[] declaration = new byte[end - start];
+            for ( int i = 0; i < declaration.length; i++ )
+            {
+                declaration[i] = bytes.get( start + i );
+            }
+            final String encoding = getPseudoAttribute( new String( declaration, StandardCharsets.ISO_8859_1 ),
+                                                        "encoding" );
+            if ( encoding != null )
+            {
+                try
+                {
+                    detected = Charset.forName( encoding );
+                }
+                catch ( final IllegalArgumentException e )
+                {
+                    throw fatal( format( "Invalid encoding name \"%s\"", encoding ) );
+                }
+            }
+        }
+
+        if ( charset == null )
+        {
+            charset = detected;
+        }
+        decoder = charset.newDecoder()
+                         .onMalformedInput( CodingErrorAction.REPORT )
+                         .onUnmappableCharacter( CodingErrorAction.REPORT );
+        return true;
+    }
+
+    private static String getPseudoAttribute( final String declaration, final String name )
+    {
+        final int index = declaration.indexOf( name );
+        if ( index < 0 )
+        {
+            return null;
+        }
+        int i = index + name.length();
+        while ( i < declaration.length()
+            && ( declaration.charAt( i ) == '=' || isWhitespace( declaration.charAt( i ) ) ) )
+        {
+            i++;
+        }
+        if ( i == declaration.length() || declaration.charAt( i ) != '"' && declaration.charAt( i ) != '\'' )
+        {
+            return null;
+        }
+        final int end = declaration.indexOf( declaration.charAt( i ), i + 1 );
+        return end < 0 ? null : declaration.substring( i + 1, end );
+    }
+
+    private void decode( final ByteBuffer bytes, final boolean last )
+        throws SAXException
+    {
+        final CharBuffer out = CharBuffer.wrap( decoded );
+        CoderResult result;
+        do
+        {
+            out.clear();
+            result = decoder.decode( bytes, out, last );
+            if ( last && result.isUnderflow() )
+            {
+                result = decoder.flush( out );
+            }
+            if ( result.isError() )
+            {
+                try
+                {
+                    result.throwException();
+                }
+                catch ( final CharacterCodingException e )
+                {
+                    throw fatal( format( "Invalid byte sequence for encoding %s", charset.name() ) );
+                }
+            }
+            append( decoded, 0, out.position() );
+            tokenize( false );
+        }
+        while ( result.isOverflow() );
+    }
+
+    /**
+     * Appends the given characters to the buffer, normalizing the line ends and checking they are XML characters.
+     */
+    private void append( final char[] chars, final int start, final int length )
+        throws SAXException
+    {
+        if ( position > 0 && ( limit + length > buffer.length || position == limit ) )
+        {
+            System.arraycopy( buffer, position, buffer, 0, limit - position );
+            base += position;
+            limit -= position;
+            position = 0;
+        }
+        if ( limit + length > buffer.length )
+        {
+            buffer = Arrays.copyOf( buffer, Math.max( buffer.length * 2, limit + length ) );
+        }
+
+        for ( int i = start; i < start + length; i++ )
+        {
+            final char c = chars[i];
+            if ( c == '\n' && skipLineFeed )
+            {
+                skipLineFeed = false;
+                continue;
+            }
+            skipLineFeed = c == '\r';
+            buffer[limit++] = c == '\r' ? '\n' : c;
+            if ( c < 0x20 && !isWhitespace( c ) || c > 0xFFFD )
+            {
+                advance( limit - 1 );
+                throw fatal( format( "An invalid XML character (Unicode: 0x%x) was found", (int) c ) );
+            }
+        }
+    }
+
+    /**
+     * Moves the position forward, counting the lines passed.
+     */
+    private void advance( final int newPosition )
+    {
+        for ( int i = position; i < newPosition; i++ )
+        {
+            if ( buffer[i] == '\n' )
+            {
+                line++;
+                lineStart = base + i + 1;
+            }
+        }
+        position = newPosition;
+    }
+
+    private void tokenize( final boolean last )
+        throws SAXException
+    {
+        while ( position < limit )
+        {
+            final boolean done;
+            if ( inCdata )
+            {
+                done = cdata( last );
+            }
+            else if ( inComment )
+            {
+                done = comment( last );
+            }
+            else if ( buffer[position] == '<' )
+            {
+                done = markup( last );
+            }
+            else
+            {
+                done = text( last );
+            }
+            if ( !done )
+            {
+                return;
+            }
+        }
+    }
+
+    private void ensureStarted()
+        throws SAXException
+    {
+        if ( !started )
+        {
+            started = true;
+            handler.setDocumentLocator( this );
+            handler.startDocument();
+            for ( int i = 0; i < prologInstructions.size(); i += 2 )
+            {
+                handler.processingInstruction( prologInstructions.get( i ), prologInstructions.get( i + 1 ) );
+            }
+            prologInstructions.clear();
+        }
+    }
+
+    private boolean text( final boolean last )
+        throws SAXException
+    {
+        if ( state != CONTENT )
+        {
+            int i = position;
+            while ( i < limit && buffer[i] != '<' )
+            {
+                if ( !isWhitespace( buffer[i] ) && !( buffer[i] == '\uFEFF' && base + i == 0 ) )
+                {
+                    advance( i );
+                    throw fatal( state == PROLOG ? "Content is not allowed in prolog"
+                                    : "Content is not allowed in trailing section" );
+                }
+                i++;
+            }
+            advance( i );
+            return true;
+        }
+
+        int i = position;
+        boolean pending = false;
+        while ( i < limit && buffer[i] != '<' && buffer[i] != '&' )
+        {
+            if ( buffer[i] == ']' )
+            {
+                if ( limit - i >= 3 && buffer[i + 1] == ']' && buffer[i + 2] == '>' )
+                {
+                    advance( i );
+                    throw fatal( "The character sequence \"]]>\" must not appear in content unless used to mark the "
+                        + "end of a CDATA section" );
+                }
+                if ( !last && limit - i < 3 && ( limit - i == 1 || buffer[i + 1] == ']' ) )
+                {
+                    // wait for the characters that could complete "]]>"
+                    pending = true;
+                    break;
+                }
+            }
+            i++;
+        }
+        if ( i > position )
+        {
+            handler.characters( buffer, position, i - position );
+            advance( i );
+        }
+        if ( pending )
+        {
+            return false;
+        }
+        if ( i == limit || buffer[i] == '<' )
+        {
+            return true;
+        }
+
+        final int semicolon = indexOf( ';', i + 1, Math.min( limit, i + MAX_REFERENCE_LENGTH ) );
+        if ( semicolon < 0 )
+        {
+            if ( !last && limit - i < MAX_REFERENCE_LENGTH )
+            {
+                return false;
+            }
+            throw fatal( "The entity reference must end with the ';' delimiter" );
+        }
+        final int length = resolveReference( i + 1, semicolon );
+        handler.characters( reference, 0, length );
+        advance( semicolon + 1 );
+        return true;
+    }
+
+    /**
+     * Resolves the reference {@code &name;} between the given indexes into {@link #reference}.
+     *
+     * @return the number of characters of the reference
+     */
+    private int resolveReference( final int start, final int end )
+        throws SAXException
+    {
+        final int length = end - start;
+        if ( length > 1 && buffer[start] == '#' )
+        {
+            int codePoint = 0;
+            final boolean hex = buffer[start + 1] == 'x';
+            final int radix = hex ? 16 : 10;
+            final int first = hex ? start + 2 : start + 1;
+            for ( int i = first; i < end; i++ )
+            {
+                final int digit = Character.digit( buffer[i], radix );
+                if ( digit < 0 || codePoint > Character.MAX_CODE_POINT )
+                {
+                    codePoint = -1;
+                    break;
+                }
+                codePoint = codePoint * radix + digit;
+            }
+            if ( first == end || codePoint < 0 || codePoint > Character.MAX_CODE_POINT || codePoint == 0
+                || codePoint >= 0xD800 && codePoint <= 0xDFFF )
+            {
+                throw fatal( format( "Invalid character reference \"&%s;\"",
+                                     new String( buffer, start, length ) ) );
+            }
+            return Character.toChars( codePoint, reference, 0 );
+        }
+
+        if ( regionEquals( start, end, "lt" ) )
+        {
+            reference[0] = '<';
+        }
+        else if ( regionEquals( start, end, "gt" ) )
+        {
+            reference[0] = '>';
+        }
+        else if ( regionEquals( start, end, "amp" ) )
+        {
+            reference[0] = '&';
+        }
+        else if ( regionEquals( start, end, "quot" ) )
+        {
+            reference[0] = '"';
+        }
+        else if ( regionEquals( start, end, "apos" ) )
+        {
+            reference[0] = '\'';
+        }
+        else
+        {
+            throw fatal( format( "The entity \"%s\" was referenced, but not declared",
+                                 new String( buffer, start, length ) ) );
+        }
+        return 1;
+    }
+
+    private boolean markup( final boolean last )
+        throws SAXException
+    {
+        if ( limit - position < 2 )
+        {
+            return needMore( last );
+        }
+
+        final char next = buffer[position + 1];
+        if ( next == '/' )
+        {
+            return endTag( last );
+        }
+        if ( next == '?' )
+        {
+            return processingInstruction( last );
+        }
+        if ( next == '!' )
+        {
+            if ( startsWith( "<!--" ) )
+            {
+                inComment = true;
+                advance( position + 4 );
+                return true;
+            }
+            if ( state == CONTENT && startsWith( "<![CDATA[" ) )
+            {
+                inCdata = true;
+                advance( position + 9 );
+                return true;
+            }
+            if ( state == PROLOG && !doctypeSeen && startsWith( "<!DOCTYPE" ) )
+            {
+                return doctype( last );
+            }
+            if ( limit - position < 9
+                && ( isPrefix( "<!--" ) || isPrefix( "<![CDATA[" ) || isPrefix( "<!DOCTYPE" ) ) )
+            {
+                return needMore( last );
+            }
+            throw fatal( "The markup in the document must be well-formed" );
+        }
+        return startTag( last );
+    }
+
+    private boolean needMore( final boolean last )
+        throws SAXException
+    {
+        if ( last )
+        {
+            throw fatal( "XML document structures must start and end within the same entity" );
+        }
+        return false;
+    }
+
+    private boolean comment( final boolean last )
+        throws SAXException
+    {
+        final int end = indexOf( "-->", position );
+        final int dashes = indexOf( "--", position );
+        if ( dashes >= 0 && ( end >= 0 ? dashes < end : dashes + 2 < limit ) )
+        {
+            advance( dashes );
+            throw fatal( "The string \"--\" is not permitted within comments" );
+        }
+        if ( end < 0 )
+        {
+            if ( last )
+            {
+                throw fatal( "The comment must end with \"-->\"" );
+            }
+            // keep what could start the end of the comment
+            advance( Math.max( position, limit - 2 ) );
+            return false;
+        }
+        advance( end + 3 );
+        inComment = false;
+        return true;
+    }
+
+    private boolean cdata( final boolean last )
+        throws SAXException
+    {
+        final int end = indexOf( "]]>", position );
+        if ( end < 0 )
+        {
+            if ( last )
+            {
+                throw fatal( "The CDATA section must end with \"]]>\"" );
+            }
+            // report the text so far, keeping what could start the end of the section
+            final int available = limit - 2;
+            if ( available > position )
+            {
+                handler.characters( buffer, position, available - position );
+                advance( available );
+            }
+            return false;
+        }
+        if ( end > position )
+        {
+            handler.characters( buffer, position, end - position );
+        }
+        advance( end + 3 );
+        inCdata = false;
+        return true;
+    }
+
+    private boolean doctype( final boolean last )
+        throws SAXException
+    {
+        char quote = 0;
+        int brackets = 0;
+        for ( int i = position + 9; i < limit; i++ )
+        {
+            final char c = buffer[i];
+            if ( quote != 0 )
+            {
+                if ( c == quote )
+                {
+                    quote = 0;
+                }
+            }
+            else if ( c == '"' || c == '\'' )
+            {
+                quote = c;
+            }
+            else if ( c == '[' )
+            {
+                brackets++;
+            }
+            else if ( c == ']' )
+            {
+                brackets--;
+            }
+            else if ( c == '>' && brackets == 0 )
+            {
+                if ( rejectDoctype )
+                {
+                    throw new DoctypeRejectedException();
+                }
+                doctypeSeen = true;
+                advance( i + 1 );
+                return true;
+            }
+        }
+        return needMore( last );
+    }
+
+    private boolean processingInstruction( final boolean last )
+        throws SAXException
+    {
+        final int end = indexOf( "?>", position + 2 );
+        if ( end < 0 )
+        {
+            return needMore( last );
+        }
+
+        final int nameEnd = scanName( position + 2, end );
+        final String target = nameTable.get( buffer, position + 2, nameEnd );
+        if ( "xml".equalsIgnoreCase( target ) )
+        {
+            if ( base + position != 0 && !( base + position == 1 && buffer[0] == '\uFEFF' && base == 0 ) )
+            {
+                throw fatal( "The processing instruction target matching \"[xX][mM][lL]\" is not allowed" );
+            }
+            // the XML declaration
+            advance( end + 2 );
+            return true;
+        }
+        if ( nameEnd < end && !isWhitespace( buffer[nameEnd] ) )
+        {
+            throw fatal( "White space is required between the processing instruction target and data" );
+        }
+
+        int dataStart = nameEnd;
+        while ( dataStart < end && isWhitespace( buffer[dataStart] ) )
+        {
+            dataStart++;
+        }
+        final String data = new String( buffer, dataStart, end - dataStart );
+        advance( end + 2 );
+        if ( state == PROLOG )
+        {
+            prologInstructions.add( target );
+            prologInstructions.add( data );
+        }
+        else
+        {
+            handler.processingInstruction( target, data );
+        }
+        return true;
+    }
+
+    private boolean startTag( final boolean last )
+        throws SAXException
+    {
+        if ( state == EPILOG )
+        {
+            throw fatal( "The markup in the document following the root element must be well-formed" );
+        }
+
+        // find the end of the tag, outside the attribute values
+        char quote = 0;
+        int end = -1;
+        for ( int i = position + Math.max( 1, tagScanned ); i < limit; i++ )
+        {
+            final char c = buffer[i];
+            if ( quote != 0 )
+            {
+                if ( c == quote )
+                {
+                    quote = 0;
+                }
+            }
+            else if ( c == '"' || c == '\'' )
+            {
+                quote = c;
+            }
+            else if ( c == '>' )
+            {
+                end = i;
+                break;
+            }
+        }
+        if ( end < 0 )
+        {
+            if ( quote == 0 )
+            {
+                // resume after the scanned characters, unless inside a value
+                tagScanned = limit - position;
+            }
+            return needMore( last );
+        }
+        tagScanned = 0;
+
+        final boolean empty = buffer[end - 1] == '/';
+        final int contentEnd = empty ? end - 1 : end;
+        final int nameEnd = scanName( position + 1, contentEnd );
+        final String qName = nameTable.get( buffer, position + 1, nameEnd );
+
+        attributes.clear();
+        int i = nameEnd;
+        while ( i < contentEnd )
+        {
+            final int attributeStart = skipWhitespace( i, contentEnd );
+            if ( attributeStart == contentEnd )
+            {
+                break;
+            }
+            if ( attributeStart == i )
+            {
+                throw fatal( format( "Element type \"%s\" must be followed by either attribute specifications, "
+                    + "\">\" or \"/>\"", qName ) );
+            }
+            final int attributeNameEnd = scanName( attributeStart, contentEnd );
+            final String attributeName = nameTable.get( buffer, attributeStart, attributeNameEnd );
+            int j = skipWhitespace( attributeNameEnd, contentEnd );
+            if ( j == contentEnd || buffer[j] != '=' )
+            {
+                throw fatal( format( "Attribute name \"%s\" associated with an element type \"%s\" must be followed "
+                    + "by the ' = ' character", attributeName, qName ) );
+            }
+            j = skipWhitespace( j + 1, contentEnd );
+            if ( j == contentEnd || buffer[j] != '"' && buffer[j] != '\'' )
+            {
+                throw fatal( format( "Open quote is expected for attribute \"%s\" associated with an element type "
+                    + "\"%s\"", attributeName, qName ) );
+            }
+            final int valueEnd = indexOf( buffer[j], j + 1, contentEnd );
+            if ( attributes.getIndex( attributeName ) >= 0 )
+            {
+                throw fatal( format( "Attribute \"%s\" was already specified for element \"%s\"", attributeName,
+                                     qName ) );
+            }
+            attributes.add( attributeName, attributeValue( j + 1, valueEnd ) );
+            i = valueEnd + 1;
+        }
+
+        ensureStarted();
+        if ( depth == elements.length )
+        {
+            elements = Arrays.copyOf( elements, depth * 2 );
+            namespaceMarks = Arrays.copyOf( namespaceMarks, depth * 2 );
+        }
+        elements[depth] = qName;
+        namespaceMarks[depth] = namespaceCount;
+        depth++;
+        state = CONTENT;
+
+        // the events are located after the tag
+        advance( end + 1 );
+        if ( namespaceAware )
+        {
+            startNamespacedElement( qName );
+        }
+        else
+        {
+            handler.startElement( "", "", qName, attributes );
+        }
+        if ( empty )
+        {
+            endElement( qName );
+        }
+        return true;
+    }
+
+    private String attributeValue( final int start, final int end )
+        throws SAXException
+    {
+        value.setLength( 0 );
+        for ( int i = start; i < end; i++ )
+        {
+            final char c = buffer[i];
+            if ( c == '<' )
+            {
+                throw fatal( "The value of an attribute must not contain the '<' character" );
+            }
+            if ( c == '&' )
+            {
+                final int semicolon = indexOf( ';', i + 1, end );
+                if ( semicolon < 0 )
+                {
+                    throw fatal( "The entity reference must end with the ';' delimiter" );
+                }
+                value.append( reference, 0, resolveReference( i + 1, semicolon ) );
+                i = semicolon;
+            }
+            else
+            {
+                value.append( isWhitespace( c ) ? ' ' : c );
+            }
+        }
+        return value.toString();
+    }
+
+    private void startNamespacedElement( final String qName )
+        throws SAXException
+    {
+        // the declarations first, they apply to the names of the element and of its attributes
+        for ( int i = 0; i < attributes.getLength(); i++ )
+        {
+            final String name = attributes.getQName( i );
+            if ( name.startsWith( "xmlns" ) && ( name.length() == 5 || name.charAt( 5 ) == ':' ) )
+            {
+                final String prefix = name.length() == 5 ? "" : name.substring( 6 );
+                final String uri = attributes.getValue( i );
+                if ( !prefix.isEmpty() && uri.isEmpty() )
+                {
+                    throw fatal( format( "The value of the attribute \"prefix=\"xmlns\",localpart=\"%s\","
+                        + "rawname=\"%s\"\" is invalid", prefix, name ) );
+                }
+                attributes.remove( i-- );
+                if ( declarePrefix( prefix, uri ) )
+                {
+                    handler.startPrefixMapping( prefix, uri );
+                }
+            }
+        }
+
+        for ( int i = 0; i < attributes.getLength(); i++ )
+        {
+            final String name = attributes.getQName( i );
+            final int colon = name.indexOf( ':' );
+            if ( colon > 0 )
+            {
+                final String uri = resolvePrefix( name.substring( 0, colon ), name );
+                final String localName = name.substring( colon + 1 ).intern();
+                // distinct prefixes may be bound to the same namespace
+                for ( int j = 0; j < i; j++ )
+                {
+                    if ( uri.equals( attributes.getURI( j ) ) && localName.equals( attributes.getLocalName( j ) ) )
+                    {
+                        throw fatal( format( "Attribute \"%s\" bound to namespace \"%s\" was already specified for "
+                            + "element \"%s\"", localName, uri, qName ) );
+                    }
+                }
+                attributes.setName( i, uri, localName );
+            }
+        }
+
+        final int colon = qName.indexOf( ':' );
+        final String uri = resolvePrefix( colon > 0 ? qName.substring( 0, colon ) : "", qName );
+        final String localName = colon > 0 ? qName.substring( colon + 1 ).intern() : qName;
+        handler.startElement( uri, localName, qName, attributes );
+    }
+
+    /**
+     * Binds the given prefix in the scope of the element being started.
+     *
+     * @return false if the declaration is the implicit binding of the {@code xml} prefix, not reported as a mapping
+     */
+    private boolean declarePrefix( final String prefix, final String uri )
+        throws SAXException
+    {
+        if ( "xml".equals( prefix ) || XML_NAMESPACE.equals( uri ) )
+        {
+            if ( !"xml".equals( prefix ) || !XML_NAMESPACE.equals( uri ) )
+            {
+                throw fatal( format( "The prefix \"xml\" can only be bound to the namespace \"%s\", and no other "
+                    + "prefix can be bound to it", XML_NAMESPACE ) );
+            }
+            return false;
+        }
+        if ( "xmlns".equals( prefix ) || XMLNS_NAMESPACE.equals( uri ) )
+        {
+            throw fatal( format( "The prefix \"xmlns\" cannot be declared, and no prefix can be bound to the "
+                + "namespace \"%s\"", XMLNS_NAMESPACE ) );
+        }
+        if ( namespaceCount == namespacePrefixes.length )
+        {
+            namespacePrefixes = Arrays.copyOf( namespacePrefixes, namespaceCount * 2 );
+            namespaceUris = Arrays.copyOf( namespaceUris, namespaceCount * 2 );
+        }
+        namespacePrefixes[namespaceCount] = prefix.intern();
+        namespaceUris[namespaceCount] = uri.intern();
+        namespaceCount++;
+        return true;
+    }
+
+    private String resolvePrefix( final String prefix, final String qName )
+        throws SAXException
+    {
+        for ( int i = namespaceCount - 1; i >= 0; i-- )
+        {
+            if ( namespacePrefixes[i].equals( prefix ) )
+            {
+                return namespaceUris[i];
+            }
+        }
+        if ( prefix.isEmpty() )
+        {
+            return "";
+        }
+        if ( "xml".equals( prefix ) )
+        {
+            return XML_NAMESPACE;
+        }
+        throw fatal( format( "The prefix \"%s\" for element or attribute \"%s\" is not bound", prefix, qName ) );
+    }
+
+    private boolean endTag( final boolean last )
+        throws SAXException
+    {
+        final int end = indexOf( '>', position + 2, limit );
+        if ( end < 0 )
+        {
+            return needMore( last );
+        }
+
+        final int nameEnd = scanName( position + 2, end );
+        if ( skipWhitespace( nameEnd, end ) != end )
+        {
+            throw fatal( "The end-tag must end with a '>' delimiter" );
+        }
+        final String qName = nameTable.get( buffer, position + 2, nameEnd );
+        if ( state != CONTENT || elements[depth - 1] != qName )
+        {
+            throw fatal( state != CONTENT ? "The markup in the document must be well-formed"
+                            : format( "The element type \"%s\" must be terminated by the matching end-tag \"</%s>\"",
+                                      elements[depth - 1], elements[depth - 1] ) );
+        }
+        advance( end + 1 );
+        endElement( qName );
+        return true;
+    }
+
+    private void endElement( final String qName )
+        throws SAXException
+    {
+        depth--;
+        if ( namespaceAware )
+        {
+            final int colon = qName.indexOf( ':' );
+            final String uri = resolvePrefix( colon > 0 ? qName.substring( 0, colon ) : "", qName );
+            handler.endElement( uri, colon > 0 ? qName.substring( colon + 1 ).intern() : qName, qName );
+            // in declaration order, as JAXP does
+            final int mark = namespaceMarks[depth];
+            for ( int i = mark; i < namespaceCount; i++ )
+            {
+                handler.endPrefixMapping( namespacePrefixes[i] );
+            }
+            namespaceCount = mark;
+        }
+        else
+        {
+            handler.endElement( "", "", qName );
+        }
+        elements[depth] = null;
+        if ( depth == 0 )
+        {
+            state = EPILOG;
+        }
+    }
+
+    /**
+     * Returns the end of the name starting at the given index, checking it is a valid name.
+     */
+    private int scanName( final int start, final int end )
+        throws SAXException
+    {
+        if ( start == end || !isNameStart( buffer[start] ) )
+        {
+            advance( start );
+            throw fatal( "The markup in the document must be well-formed: a name is expected" );
+        }
+        int i = start + 1;
+        while ( i < end && isNameChar( buffer[i] ) )
+        {
+            i++;
+        }
+        return i;
+    }
+
+    private int skipWhitespace( final int start, final int end )
+    {
+        int i = start;
+        while ( i < end && isWhitespace( buffer[i] ) )
+        {
+            i++;
+        }
+        return i;
+    }
+
+    private int indexOf( final char c, final int start, final int end )
+    {
+        for ( int i = start; i < end; i++ )
+        {
+            if ( buffer[i] == c )
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOf( final String s, final int start )
+    {
+        final char first = s.charAt( 0 );
+        for ( int i = start; i <= limit - s.length(); i++ )
+        {
+            if ( buffer[i] == first && regionEquals( i, i + s.length(), s ) )
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean startsWith( final String s )
+    {
+        return limit - position >= s.length() && regionEquals( position, position + s.length(), s );
+    }
+
+    private boolean isPrefix( final String s )
+    {
+        final int length = Math.min( s.length(), limit - position );
+        return regionEquals( position, position + length, s.substring( 0, length ) );
+    }
+
+    private boolean regionEquals( final int start, final int end, final String s )
+    {
+        if ( end - start != s.length() )
+        {
+            return false;
+        }
+        for ( int i = start; i < end; i++ )
+        {
+            if ( buffer[i] != s.charAt( i - start ) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace( final char c )
+    {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r';
+    }
+
+    private static boolean isNameStart( final char c )
+    {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '_' || c == ':' || c >= 0xC0 && c != 0xD7
+            && c != 0xF7;
+    }
+
+    private static boolean isNameChar( final char c )
+    {
+        return isNameStart( c ) || c >= '0' && c <= '9' || c == '-' || c == '.' || c == 0xB7;
+    }
+
+    private SAXParseException fatal( final String message )
+        throws SAXException
+    {
+        final SAXParseException e =
+            new SAXParseException( message, publicId, systemId, getLineNumber(), getColumnNumber() );
+        if ( errorHandler != null )
+        {
+            errorHandler.fatalError( e );
+        }
+        return e;
+    }
+
+}
@@ -0,0 +1,307 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.XMLReader;
+
+/**
+ * {@link XMLReader} running the built-in {@link XmlTokenizer} on the documents, used by a {@link Digester} in place
+ * of the JAXP parser when allowed.
+ * <p>
+ * A document with a document type declaration is parsed by the JAXP reader of the digester instead: the input read
+ * until the declaration is met, before any event is reported, is replayed to it followed by the rest of the input.
+ */
+final class XmlTokenizerReader
+    implements XMLReader
+{
+
+    private static final String NAMESPACES = "http://xml.org/sax/features/namespaces";
+
+    private static final String NAMESPACE_PREFIXES = "http://xml.org/sax/features/namespace-prefixes";
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final Digester digester;
+
+    private boolean namespaceAware;
+
+    private ContentHandler contentHandler;
+
+    private DTDHandler dtdHandler;
+
+    private EntityResolver entityResolver;
+
+    private ErrorHandler errorHandler;
+
+    XmlTokenizerReader( final Digester digester, final boolean namespaceAware )
+    {
+        this.digester = digester;
+        this.namespaceAware = namespaceAware;
+    }
+
+    @Override
+    public boolean getFeature( final String name )
+        throws SAXNotRecognizedException, SAXNotSupportedException
+    {
+        if ( NAMESPACES.equals( name ) )
+        {
+            return namespaceAware;
+        }
+        if ( NAMESPACE_PREFIXES.equals( name ) )
+        {
+            return false;
+        }
+        throw new SAXNotRecognizedException( name );
+    }
+
+    @Override
+    public void setFeature( final String name, final boolean value )
+        throws SAXNotRecognizedException, SAXNotSupportedException
+    {
+        if ( NAMESPACES.equals( name ) )
+        {
+            namespaceAware = value;
+        }
+        else if ( !NAMESPACE_PREFIXES.equals( name ) )
+        {
+            throw new SAXNotRecognizedException( name );
+        }
+        else if ( value )
+        {
+            throw new SAXNotSupportedException( name );
+        }
+    }
+
+    @Override
+    public Object getProperty( final String name )
+        throws SAXNotRecognizedException, SAXNotSupportedException
+    {
+        throw new SAXNotRecognizedException( name );
+    }
+
+    @Override
+    public void setProperty( final String name, final Object value )
+        throws SAXNotRecognizedException, SAXNotSupportedException
+    {
+        throw new SAXNotRecognizedException( name );
+    }
+
+    @Override
+    public void setEntityResolver( final EntityResolver resolver )
+    {
+        this.entityResolver = resolver;
+    }
+
+    @Override
+    public EntityResolver getEntityResolver()
+    {
+        return entityResolver;
+    }
+
+    @Override
+    public void setDTDHandler( final DTDHandler handler )
+    {
+        this.dtdHandler = handler;
+    }
+
+    @Override
+    public DTDHandler getDTDHandler()
+    {
+        return dtdHandler;
+    }
+
+    @Override
+    public void setContentHandler( final ContentHandler handler )
+    {
+        this.contentHandler = handler;
+    }
+
+    @Override
+    public ContentHandler getContentHandler()
+    {
+        return contentHandler;
+    }
+
+    @Override
+    public void setErrorHandler( final ErrorHandler handler )
+    {
+        this.errorHandler = handler;
+    }
+
+    @Override
+    public ErrorHandler getErrorHandler()
+    {
+        return errorHandler;
+    }
+
+    @Override
+    public void parse( final String systemId )
+        throws IOException, SAXException
+    {
+        parse( new InputSource( systemId ) );
+    }
+
+    @Override
+    public void parse( final InputSource input )
+        throws IOException, SAXException
+    {
+        final XmlTokenizer tokenizer = new XmlTokenizer( contentHandler, namespaceAware, input.getPublicId(),
+                                                         input.getSystemId(), getCharset( input ) );
+        tokenizer.setErrorHandler( errorHandler );
+        tokenizer.setRejectDoctype( true );
+
+        if ( input.getCharacterStream() != null )
+        {
+            parse( input, input.getCharacterStream(), tokenizer );
+            return;
+        }
+
+        final InputStream stream = input.getByteStream() != null ? input.getByteStream()
+                        : new URL( input.getSystemId() ).openStream();
+        try
+        {
+            // the prolog is kept to be replayed, until the root element starts
+            final ByteArrayOutputStream prolog = new ByteArrayOutputStream();
+            final byte[] chunk = new byte[CHUNK_SIZE];
+            int read;
+            while ( ( read = stream.read( chunk ) ) >= 0 )
+            {
+                if ( tokenizer.isInProlog() )
+                {
+                    prolog.write( chunk, 0, read );
+                }
+                try
+                {
+                    tokenizer.feed( ByteBuffer.wrap( chunk, 0, read ) );
+                }
+                catch ( final XmlTokenizer.DoctypeRejectedException e )
+                {
+                    final PushbackInputStream replay = new PushbackInputStream( stream, prolog.size() );
+                    replay.unread( prolog.toByteArray() );
+                    final InputSource source = copy( input );
+                    source.setByteStream( replay );
+                    getFallbackReader().parse( source );
+                    return;
+                }
+            }
+            tokenizer.end();
+        }
+        finally
+        {
+            stream.close();
+        }
+    }
+
+    private void parse( final InputSource input, final Reader reader, final XmlTokenizer tokenizer )
+        throws IOException, SAXException
+    {
+        try
+        {
+            final CharArrayWriter prolog = new CharArrayWriter();
+            final char[] chunk = new char[CHUNK_SIZE];
+            int read;
+            while ( ( read = reader.read( chunk ) ) >= 0 )
+            {
+                if ( tokenizer.isInProlog() )
+                {
+                    prolog.write( chunk, 0, read );
+                }
+                try
+                {
+                    tokenizer.feed( chunk, 0, read );
+                }
+                catch ( final XmlTokenizer.DoctypeRejectedException e )
+                {
+                    final PushbackReader replay = new PushbackReader( reader, prolog.size() );
+                    replay.unread( prolog.toCharArray() );
+                    final InputSource source = copy( input );
+                    source.setCharacterStream( replay );
+                    getFallbackReader().parse( source );
+                    return;
+                }
+            }
+            tokenizer.end();
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    private static Charset getCharset( final InputSource input )
+        throws SAXException
+    {
+        if ( input.getEncoding() == null || input.getCharacterStream() != null )
+        {
+            return null;
+        }
+        try
+        {
+            return Charset.forName( input.getEncoding() );
+        }
+        catch ( final IllegalArgumentException e )
+        {
+            throw new SAXException( "Invalid encoding name \"" + input.getEncoding() + "\"", e );
+        }
+    }
+
+    private static InputSource copy( final InputSource input )
+    {
+        final InputSource source = new InputSource();
+        source.setPublicId( input.getPublicId() );
+        source.setSystemId( input.getSystemId() );
+        source.setEncoding( input.getEncoding() );
+        return source;
+    }
+
+    /**
+     * Returns the JAXP reader of the digester, with the handlers of this reader.
+     */
+    private XMLReader getFallbackReader()
+        throws SAXException
+    {
+        final XMLReader reader = digester.getXMLReader();
+        reader.setContentHandler( contentHandler );
+        reader.setDTDHandler( dtdHandler );
+        reader.setEntityResolver( entityResolver );
+        reader.setErrorHandler( errorHandler );
+        return reader;
+    }
+
+}
@@ -23,6 +23,7 @@ import java.lang.reflect.Field;
 
 import org.apache.commons.digester3.annotations.AnnotationHandler;
 import org.apache.commons.digester3.annotations.rules.BeanPropertySetter;
+import org.apache.commons.digester3.binder.LinkedRuleBuilder;
 import org.apache.commons.digester3.binder.RulesBinder;
 
 /**
@@ -37,10 +38,17 @@ public final class BeanPropertySetterHandler
     @Override
     public void handle( final BeanPropertySetter annotation, final Field element, final RulesBinder rulesBinder )
     {
-        rulesBinder.forPattern( annotation.pattern() )
-            .withNamespaceURI( annotation.namespaceURI() )
-            .setBeanProperty()
-            .withName( element.getName() );
+        final LinkedRuleBuilder builder = rulesBinder.forPattern( annotation.pattern() )
+            .withNamespaceURI( annotation.namespaceURI() );
+
+        if ( annotation.injectField() )
+        {
+            builder.setField( element.getName() );
+        }
+        else
+        {
+            builder.setBeanProperty().withName( element.getName() );
+        }
     }
 
 }
@@ -38,6 +38,17 @@ public final class SetPropertiesHandler
     @Override
     public void handle( final SetProperty annotation, final Field element, final RulesBinder rulesBinder )
     {
+        if ( annotation.injectField() )
+        {
+            final String attributeName = annotation.attributeName() != null && !annotation.attributeName().isEmpty()
+                            ? annotation.attributeName() : element.getName();
+            rulesBinder.forPattern( annotation.pattern() )
+                .withNamespaceURI( annotation.namespaceURI() )
+                .setField( element.getName() )
+                .fromAttribute( attributeName );
+            return;
+        }
+
         final SetPropertiesBuilder builder = rulesBinder
             .forPattern( annotation.pattern() )
             .withNamespaceURI( annotation.namespaceURI() )
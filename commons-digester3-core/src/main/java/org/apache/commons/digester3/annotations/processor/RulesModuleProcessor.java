@@ -0,0 +1,924 @@
+package org.apache.commons.digester3.annotations.processor;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+/**
+ * Annotation processor that translates, at compile time, the Digester annotation rules declared in
+ * {@code org.apache.commons.digester3.annotations.rules} into plain
+ * {@link org.apache.commons.digester3.binder.AbstractRulesModule} implementations.
+ * <p>
+ * For every type annotated with a creation rule ({@code @ObjectCreate} or {@code @FactoryCreate}, either on the
+ * type or on one of its constructors) a {@code <TypeName>RulesModule} class is generated in the same package; it
+ * binds exactly the same rules {@link org.apache.commons.digester3.annotations.FromAnnotationsRuleModule} would bind
+ * invoking {@code bindRulesFrom( TypeName.class )}, including the types reached via {@code @SetNext} and
+ * {@code @SetRoot}, without any reflection at startup.
+ * <p>
+ * Only the built-in annotation rules are supported: types carrying custom {@code @DigesterRule} annotations, whose
+ * handlers can only run at runtime, are reported as errors and have to be bound via
+ * {@link org.apache.commons.digester3.annotations.FromAnnotationsRuleModule}.
+ * <p>
+ * The processor is not registered as a service, it has to be enabled explicitly, i.e. via
+ * {@code javac -processor org.apache.commons.digester3.annotations.processor.RulesModuleProcessor}.
+ *
+ * @since 3.3
+ */
+@SupportedAnnotationTypes( "org.apache.commons.digester3.annotations.rules.*" )
+public class RulesModuleProcessor
+    extends AbstractProcessor
+{
+
+    /**
+     * The suffix appended to the annotated type name to obtain the generated module name.
+     */
+    public static final String MODULE_SUFFIX = "RulesModule";
+
+    private static final String ANNOTATIONS_PACKAGE = "org.apache.commons.digester3.annotations.";
+
+    private static final String RULES_PACKAGE = ANNOTATIONS_PACKAGE + "rules.";
+
+    private static final String DIGESTER_RULE = ANNOTATIONS_PACKAGE + "DigesterRule";
+
+    private static final String DIGESTER_RULE_LIST = ANNOTATIONS_PACKAGE + "DigesterRuleList";
+
+    private static final String CREATION_RULE = RULES_PACKAGE + "CreationRule";
+
+    private static final String BEAN_PROPERTY_SETTER = RULES_PACKAGE + "BeanPropertySetter";
+
+    private static final String CALL_METHOD = RULES_PACKAGE + "CallMethod";
+
+    private static final String CALL_PARAM = RULES_PACKAGE + "CallParam";
+
+    private static final String FACTORY_CREATE = RULES_PACKAGE + "FactoryCreate";
+
+    private static final String DEFAULT_OBJECT_CREATION_FACTORY = FACTORY_CREATE + ".DefaultObjectCreationFactory";
+
+    private static final String OBJECT_CREATE = RULES_PACKAGE + "ObjectCreate";
+
+    private static final String PATH_CALL_PARAM = RULES_PACKAGE + "PathCallParam";
+
+    private static final String SET_NEXT = RULES_PACKAGE + "SetNext";
+
+    private static final String SET_PROPERTY = RULES_PACKAGE + "SetProperty";
+
+    private static final String SET_ROOT = RULES_PACKAGE + "SetRoot";
+
+    private static final String SET_TOP = RULES_PACKAGE + "SetTop";
+
+    private static final String JAVA_PACKAGE = "java";
+
+    private static final String INDENT = "        ";
+
+    private static final String CHAIN_INDENT = INDENT + "    ";
+
+    /**
+     * Collects the rules bindings of a single generated module.
+     */
+    private final class ModuleWriter
+    {
+
+        private final PackageElement modulePackage;
+
+        private final Set<String> boundTypes = new HashSet<>();
+
+        private final List<Element> originatingElements = new ArrayList<>();
+
+        private final StringBuilder body = new StringBuilder();
+
+        private boolean failed;
+
+        ModuleWriter( final PackageElement modulePackage )
+        {
+            this.modulePackage = modulePackage;
+        }
+
+        private void addError( final Element element, final String messagePattern, final Object... arguments )
+        {
+            failed = true;
+            processingEnv.getMessager().printMessage( Kind.ERROR, format( messagePattern, arguments ), element );
+        }
+
+        /**
+         * Mirrors {@code FromAnnotationsRuleModule#bindRulesFrom(Class)}.
+         */
+        void bindRulesFrom( final TypeElement type )
+        {
+            if ( type == null
+                || getPackageName( type ).startsWith( JAVA_PACKAGE )
+                || !boundTypes.add( type.getQualifiedName().toString() ) )
+            {
+                return;
+            }
+            originatingElements.add( type );
+
+            // TYPE
+            visitElement( type, -1 );
+
+            if ( type.getKind() != ElementKind.INTERFACE )
+            {
+                // CONSTRUCTOR
+                for ( final ExecutableElement constructor : ElementFilter.constructorsIn( type.getEnclosedElements() ) )
+                {
+                    visitExecutable( constructor );
+                }
+
+                // FIELD
+                for ( final VariableElement field : ElementFilter.fieldsIn( type.getEnclosedElements() ) )
+                {
+                    visitElement( field, -1 );
+                }
+            }
+
+            // METHOD
+            for ( final ExecutableElement method : ElementFilter.methodsIn( type.getEnclosedElements() ) )
+            {
+                visitExecutable( method );
+            }
+
+            final TypeMirror superclass = type.getSuperclass();
+            if ( superclass.getKind() == TypeKind.DECLARED )
+            {
+                bindRulesFrom( (TypeElement) ( (DeclaredType) superclass ).asElement() );
+            }
+        }
+
+        private void visitExecutable( final ExecutableElement executable )
+        {
+            visitElement( executable, -1 );
+
+            final List<? extends VariableElement> parameters = executable.getParameters();
+            for ( int i = 0; i < parameters.size(); i++ )
+            {
+                visitElement( parameters.get( i ), i );
+            }
+        }
+
+        private void visitElement( final Element element, final int parameterIndex )
+        {
+            for ( final AnnotationMirror annotation : element.getAnnotationMirrors() )
+            {
+                handle( annotation, element, parameterIndex );
+            }
+        }
+
+        private void handle( final AnnotationMirror annotation, final Element element, final int parameterIndex )
+        {
+            final TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+
+            // check if it is one of the @*.List annotation
+            if ( isAnnotationPresent( annotationType, DIGESTER_RULE_LIST ) )
+            {
+                for ( final AnnotationMirror ptr : getAnnotationsArrayValue( annotation ) )
+                {
+                    handle( ptr, element, parameterIndex );
+                }
+                return;
+            }
+
+            if ( !isAnnotationPresent( annotationType, DIGESTER_RULE ) )
+            {
+                return;
+            }
+
+            final String annotationName = annotationType.getQualifiedName().toString();
+            switch ( annotationName )
+            {
+                case OBJECT_CREATE:
+                    objectCreate( annotation, element );
+                    break;
+
+                case FACTORY_CREATE:
+                    factoryCreate( annotation, element );
+                    break;
+
+                case SET_PROPERTY:
+                    setProperty( annotation, element );
+                    break;
+
+                case BEAN_PROPERTY_SETTER:
+                    beanPropertySetter( annotation, element );
+                    break;
+
+                case CALL_METHOD:
+                    callMethod( annotation, (ExecutableElement) element );
+                    break;
+
+                case CALL_PARAM:
+                    callParam( annotation, parameterIndex );
+                    break;
+
+                case PATH_CALL_PARAM:
+                    pathCallParam( annotation, parameterIndex );
+                    break;
+
+                case SET_NEXT:
+                    parentMethod( annotation, (ExecutableElement) element, "setNext" );
+                    break;
+
+                case SET_ROOT:
+                    parentMethod( annotation, (ExecutableElement) element, "setRoot" );
+                    break;
+
+                case SET_TOP:
+                    setTop( annotation, (ExecutableElement) element );
+                    break;
+
+                default:
+                    addError( element, "Custom rule annotation @%s is not supported at build time, bind '%s' via"
+                        + " FromAnnotationsRuleModule instead", annotationName, getEnclosingType( element ) );
+                    break;
+            }
+        }
+
+        private void objectCreate( final AnnotationMirror annotation, final Element element )
+        {
+            final TypeElement type = getEnclosingType( element );
+
+            forPattern( annotation );
+            chain( "createObject()" );
+            chain( "ofType( %s )", typeReference( type.asType() ) );
+
+            final String attributeName = getString( annotation, "attributeName" );
+            if ( !attributeName.isEmpty() )
+            {
+                chain( "ofTypeSpecifiedByAttribute( %s )", literal( attributeName ) );
+            }
+
+            if ( element.getKind() == ElementKind.CONSTRUCTOR )
+            {
+                chain( "usingConstructor( %s )", typeReferences( parameterTypes( (ExecutableElement) element ) ) );
+            }
+            endRule();
+        }
+
+        private void factoryCreate( final AnnotationMirror annotation, final Element element )
+        {
+            forPattern( annotation );
+            chain( "factoryCreate()" );
+
+            final String attributeName = getString( annotation, "attributeName" );
+            if ( !attributeName.isEmpty() )
+            {
+                chain( "overriddenByAttribute( %s )", literal( attributeName ) );
+            }
+
+            if ( getBoolean( annotation, "ignoreCreateExceptions" ) )
+            {
+                chain( "ignoreCreateExceptions( true )" );
+            }
+
+            final TypeMirror factoryClass = getType( annotation, "factoryClass" );
+            if ( !DEFAULT_OBJECT_CREATION_FACTORY.equals( getQualifiedName( factoryClass ) ) )
+            {
+                chain( "ofType( %s )", typeReference( factoryClass ) );
+            }
+            endRule();
+        }
+
+        private void setProperty( final AnnotationMirror annotation, final Element element )
+        {
+            final String propertyName = element.getSimpleName().toString();
+            final String attributeName = getString( annotation, "attributeName" );
+
+            forPattern( annotation );
+            if ( getBoolean( annotation, "injectField" ) )
+            {
+                chain( "setField( %s )", literal( propertyName ) );
+                chain( "fromAttribute( %s )", literal( attributeName.isEmpty() ? propertyName : attributeName ) );
+                endRule();
+                return;
+            }
+
+            chain( "setProperties()" );
+            if ( !attributeName.isEmpty() && !propertyName.equals( attributeName ) )
+            {
+                chain( "addAlias( %s )", literal( attributeName ) );
+                chain( "forProperty( %s )", literal( propertyName ) );
+            }
+            endRule();
+        }
+
+        private void beanPropertySetter( final AnnotationMirror annotation, final Element element )
+        {
+            forPattern( annotation );
+            if ( getBoolean( annotation, "injectField" ) )
+            {
+                chain( "setField( %s )", literal( element.getSimpleName().toString() ) );
+            }
+            else
+            {
+                chain( "setBeanProperty()" );
+                chain( "withName( %s )", literal( element.getSimpleName().toString() ) );
+            }
+            endRule();
+        }
+
+        private void callMethod( final AnnotationMirror annotation, final ExecutableElement method )
+        {
+            forPattern( annotation );
+            chain( "callMethod( %s )", literal( method.getSimpleName().toString() ) );
+            chain( "withParamTypes( %s )", typeReferences( parameterTypes( method ) ) );
+            if ( getBoolean( annotation, "usingElementBodyAsArgument" ) )
+            {
+                chain( "usingElementBodyAsArgument()" );
+            }
+            endRule();
+        }
+
+        private void callParam( final AnnotationMirror annotation, final int parameterIndex )
+        {
+            forPattern( annotation );
+            chain( "callParam()" );
+            chain( "ofIndex( %s )", parameterIndex );
+
+            final String attributeName = getString( annotation, "attributeName" );
+            if ( !attributeName.isEmpty() )
+            {
+                chain( "fromAttribute( %s )", literal( attributeName ) );
+            }
+
+            if ( getBoolean( annotation, "fromStack" ) )
+            {
+                chain( "withStackIndex( %s )", getInt( annotation, "stackIndex" ) );
+            }
+            endRule();
+        }
+
+        private void pathCallParam( final AnnotationMirror annotation, final int parameterIndex )
+        {
+            forPattern( annotation );
+            chain( "callParamPath()" );
+            chain( "ofIndex( %s )", parameterIndex );
+            endRule();
+        }
+
+        /**
+         * Mirrors {@code AbstractMethodHandler}, shared by {@code @SetNext} and {@code @SetRoot}.
+         */
+        private void parentMethod( final AnnotationMirror annotation, final ExecutableElement method,
+                                   final String builderMethod )
+        {
+            if ( method.getParameters().size() != 1 )
+            {
+                addError( method, "Methods annotated with digester annotation rule @%s must have just one argument",
+                          annotation.getAnnotationType() );
+                return;
+            }
+
+            final TypeMirror paramType = erasure( method.getParameters().get( 0 ).asType() );
+            final boolean fireOnBegin = getBoolean( annotation, "fireOnBegin" );
+            final List<TypeMirror> explicitTypes = getTypes( annotation, "value" );
+
+            if ( explicitTypes.isEmpty() )
+            {
+                bindParentMethod( method, paramType, fireOnBegin, builderMethod );
+                return;
+            }
+
+            for ( final TypeMirror explicitType : explicitTypes )
+            {
+                if ( !processingEnv.getTypeUtils().isAssignable( erasure( explicitType ), paramType ) )
+                {
+                    addError( method, "Impossible to handle annotation %s on method, %s has to be a %s", annotation,
+                              explicitType, paramType );
+                    return;
+                }
+
+                bindParentMethod( method, erasure( explicitType ), fireOnBegin, builderMethod );
+            }
+        }
+
+        private void bindParentMethod( final ExecutableElement method, final TypeMirror type,
+                                       final boolean fireOnBegin, final String builderMethod )
+        {
+            if ( type.getKind() != TypeKind.DECLARED )
+            {
+                return;
+            }
+
+            final TypeElement typeElement = (TypeElement) ( (DeclaredType) type ).asElement();
+            if ( typeElement.getKind() == ElementKind.INTERFACE )
+            {
+                addError( method, "Impossible to proceed analyzing %s, specified type '%s' is an interface/abstract",
+                          method, typeElement.getQualifiedName() );
+                return;
+            }
+
+            final List<AnnotationMirror> creationRules = new ArrayList<>();
+            collectCreationRules( typeElement.getAnnotationMirrors(), creationRules );
+            final List<ExecutableElement> constructors =
+                ElementFilter.constructorsIn( typeElement.getEnclosedElements() );
+            for ( final ExecutableElement constructor : constructors )
+            {
+                if ( constructor.getModifiers().contains( Modifier.PUBLIC ) )
+                {
+                    collectCreationRules( constructor.getAnnotationMirrors(), creationRules );
+                }
+            }
+
+            for ( final AnnotationMirror creationRule : creationRules )
+            {
+                bindRulesFrom( typeElement );
+
+                forPattern( creationRule );
+                chain( "%s( %s )", builderMethod, literal( method.getSimpleName().toString() ) );
+                chain( "withParameterType( %s )", typeReference( type ) );
+                if ( fireOnBegin )
+                {
+                    chain( "fireOnBegin( true )" );
+                }
+                endRule();
+            }
+        }
+
+        private void setTop( final AnnotationMirror annotation, final ExecutableElement method )
+        {
+            if ( method.getParameters().size() != 1 )
+            {
+                addError( method, "Methods annotated with digester annotation rule @%s must have just one argument",
+                          SET_TOP );
+                return;
+            }
+
+            forPattern( annotation );
+            chain( "setTop( %s )", literal( method.getSimpleName().toString() ) );
+            chain( "withParameterType( %s )", typeReference( erasure( method.getParameters().get( 0 ).asType() ) ) );
+            if ( getBoolean( annotation, "fireOnBegin" ) )
+            {
+                chain( "fireOnBegin( true )" );
+            }
+            endRule();
+        }
+
+        private void forPattern( final AnnotationMirror annotation )
+        {
+            body.append( INDENT ).append( "forPattern( " ).append( literal( getString( annotation, "pattern" ) ) )
+                .append( " )" );
+
+            final String namespaceURI = getString( annotation, "namespaceURI" );
+            if ( namespaceURI != null && !namespaceURI.isEmpty() )
+            {
+                chain( "withNamespaceURI( %s )", literal( namespaceURI ) );
+            }
+        }
+
+        private void chain( final String callPattern, final Object... arguments )
+        {
+            body.append( format( "%n" ) )
+                .append( CHAIN_INDENT )
+                .append( '.' )
+                .append( format( callPattern, arguments ) );
+        }
+
+        private void endRule()
+        {
+            body.append( format( ";%n" ) );
+        }
+
+        /**
+         * Renders a type as a class literal if the generated module can access it, as a class name to be resolved
+         * by the {@code RulesBinder} class loader otherwise.
+         */
+        private String typeReference( final TypeMirror type )
+        {
+            if ( isAccessible( type ) )
+            {
+                return classLiteral( type ) + ".class";
+            }
+            return literal( getBinaryName( type ) );
+        }
+
+        private String typeReferences( final List<TypeMirror> types )
+        {
+            boolean accessible = true;
+            for ( final TypeMirror type : types )
+            {
+                accessible &= isAccessible( type );
+            }
+
+            // avoids the Class<?>... / String... varargs ambiguity
+            if ( types.isEmpty() )
+            {
+                return "new Class<?>[0]";
+            }
+            if ( !accessible && types.size() == 1 )
+            {
+                return "new String[] { " + literal( getBinaryName( types.get( 0 ) ) ) + " }";
+            }
+
+            final StringBuilder references = new StringBuilder();
+            for ( final TypeMirror type : types )
+            {
+                if ( references.length() > 0 )
+                {
+                    references.append( ", " );
+                }
+                references.append( accessible ? classLiteral( type ) + ".class" : literal( getBinaryName( type ) ) );
+            }
+            return references.toString();
+        }
+
+        private boolean isAccessible( final TypeMirror type )
+        {
+            switch ( type.getKind() )
+            {
+                case ARRAY:
+                    return isAccessible( ( (ArrayType) type ).getComponentType() );
+
+                case DECLARED:
+                    Element element = ( (DeclaredType) type ).asElement();
+                    while ( element instanceof TypeElement )
+                    {
+                        final Set<Modifier> modifiers = element.getModifiers();
+                        if ( modifiers.contains( Modifier.PRIVATE )
+                            || !modifiers.contains( Modifier.PUBLIC )
+                                && !modulePackage.equals( processingEnv.getElementUtils().getPackageOf( element ) ) )
+                        {
+                            return false;
+                        }
+                        element = element.getEnclosingElement();
+                    }
+                    return true;
+
+                default:
+                    return type.getKind().isPrimitive();
+            }
+        }
+
+        private List<TypeMirror> parameterTypes( final ExecutableElement executable )
+        {
+            final List<TypeMirror> parameterTypes = new ArrayList<>();
+            for ( final VariableElement parameter : executable.getParameters() )
+            {
+                parameterTypes.add( erasure( parameter.asType() ) );
+            }
+            return parameterTypes;
+        }
+
+        void write( final TypeElement type )
+        {
+            if ( failed )
+            {
+                return;
+            }
+
+            final String packageName = modulePackage.isUnnamed() ? "" : modulePackage.getQualifiedName().toString();
+            final String moduleName = getModuleSimpleName( type );
+
+            try
+            {
+                final String qualifiedName = packageName.isEmpty() ? moduleName : packageName + '.' + moduleName;
+                try ( Writer writer = processingEnv.getFiler()
+                    .createSourceFile( qualifiedName, originatingElements.toArray( new Element[0] ) ).openWriter() )
+                {
+                    if ( !packageName.isEmpty() )
+                    {
+                        writer.write( format( "package %s;%n%n", packageName ) );
+                    }
+                    writer.write( format( "/**%n"
+                        + " * Digester rules bound from the annotations of {@code %s}.%n"
+                        + " * <p>%n"
+                        + " * Generated by {@code %s}, do not edit.%n"
+                        + " */%n"
+                        + "public final class %s%n"
+                        + "    extends org.apache.commons.digester3.binder.AbstractRulesModule%n"
+                        + "{%n%n"
+                        + "    @Override%n"
+                        + "    protected void configure()%n"
+                        + "    {%n", type.getQualifiedName(), RulesModuleProcessor.class.getName(), moduleName ) );
+                    writer.write( body.toString() );
+                    writer.write( format( "    }%n%n}%n" ) );
+                }
+            }
+            catch ( final IOException e )
+            {
+                addError( type, "Impossible to generate %s: %s", moduleName, e.getMessage() );
+            }
+        }
+
+    }
+
+    /**
+     * The qualified names of the types a module has already been generated for.
+     */
+    private final Set<String> processedTypes = new HashSet<>();
+
+    private static void collectAnnotations( final AnnotationMirror annotation, final List<AnnotationMirror> target )
+    {
+        final TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+        if ( isAnnotationPresent( annotationType, DIGESTER_RULE_LIST ) )
+        {
+            for ( final AnnotationMirror ptr : getAnnotationsArrayValue( annotation ) )
+            {
+                collectAnnotations( ptr, target );
+            }
+        }
+        else if ( isAnnotationPresent( annotationType, DIGESTER_RULE ) )
+        {
+            target.add( annotation );
+        }
+    }
+
+    private static void collectCreationRules( final List<? extends AnnotationMirror> annotations,
+                                              final List<AnnotationMirror> target )
+    {
+        final List<AnnotationMirror> rules = new ArrayList<>();
+        for ( final AnnotationMirror annotation : annotations )
+        {
+            collectAnnotations( annotation, rules );
+        }
+
+        for ( final AnnotationMirror rule : rules )
+        {
+            if ( isAnnotationPresent( rule.getAnnotationType().asElement(), CREATION_RULE ) )
+            {
+                target.add( rule );
+            }
+        }
+    }
+
+    private static List<AnnotationMirror> getAnnotationsArrayValue( final AnnotationMirror annotation )
+    {
+        final List<AnnotationMirror> annotations = new ArrayList<>();
+        final Object value = getValue( annotation, "value" );
+        if ( value instanceof List<?> )
+        {
+            for ( final Object item : (List<?>) value )
+            {
+                final Object itemValue = ( (AnnotationValue) item ).getValue();
+                if ( itemValue instanceof AnnotationMirror )
+                {
+                    annotations.add( (AnnotationMirror) itemValue );
+                }
+            }
+        }
+        return annotations;
+    }
+
+    private static boolean getBoolean( final AnnotationMirror annotation, final String name )
+    {
+        return Boolean.TRUE.equals( getValue( annotation, name ) );
+    }
+
+    private static TypeElement getEnclosingType( Element element )
+    {
+        while ( !( element instanceof TypeElement ) )
+        {
+            element = element.getEnclosingElement();
+        }
+        return (TypeElement) element;
+    }
+
+    private static int getInt( final AnnotationMirror annotation, final String name )
+    {
+        return ( (Number) getValue( annotation, name ) ).intValue();
+    }
+
+    /**
+     * Returns the name of the module generated for the given type, nested types names are joined by {@code _}.
+     *
+     * @param type The annotated type
+     * @return The name of the module generated for the given type
+     */
+    static String getModuleSimpleName( final TypeElement type )
+    {
+        final StringBuilder name = new StringBuilder( type.getSimpleName() );
+        Element enclosing = type.getEnclosingElement();
+        while ( enclosing instanceof TypeElement )
+        {
+            name.insert( 0, '_' ).insert( 0, enclosing.getSimpleName() );
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return name.append( MODULE_SUFFIX ).toString();
+    }
+
+    private static String getQualifiedName( final TypeMirror type )
+    {
+        if ( type.getKind() == TypeKind.DECLARED )
+        {
+            return ( (TypeElement) ( (DeclaredType) type ).asElement() ).getQualifiedName().toString();
+        }
+        return type.toString();
+    }
+
+    private static String getString( final AnnotationMirror annotation, final String name )
+    {
+        final Object value = getValue( annotation, name );
+        return value != null ? value.toString() : "";
+    }
+
+    private static TypeMirror getType( final AnnotationMirror annotation, final String name )
+    {
+        return (TypeMirror) getValue( annotation, name );
+    }
+
+    private static List<TypeMirror> getTypes( final AnnotationMirror annotation, final String name )
+    {
+        final List<TypeMirror> types = new ArrayList<>();
+        final Object value = getValue( annotation, name );
+        if ( value instanceof List<?> )
+        {
+            for ( final Object item : (List<?>) value )
+            {
+                types.add( (TypeMirror) ( (AnnotationValue) item ).getValue() );
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Extracts the value of an annotation attribute, falling back to the declared default value.
+     */
+    private static Object getValue( final AnnotationMirror annotation, final String name )
+    {
+        for ( final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+            : annotation.getElementValues().entrySet() )
+        {
+            if ( entry.getKey().getSimpleName().contentEquals( name ) )
+            {
+                return entry.getValue().getValue();
+            }
+        }
+
+        final Element annotationType = annotation.getAnnotationType().asElement();
+        for ( final ExecutableElement method : ElementFilter.methodsIn( annotationType.getEnclosedElements() ) )
+        {
+            if ( method.getSimpleName().contentEquals( name ) )
+            {
+                return method.getDefaultValue() != null ? method.getDefaultValue().getValue() : null;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isAnnotationPresent( final Element element, final String annotationName )
+    {
+        for ( final AnnotationMirror annotation : element.getAnnotationMirrors() )
+        {
+            if ( ( (TypeElement) annotation.getAnnotationType().asElement() ).getQualifiedName()
+                .contentEquals( annotationName ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Renders the given value as a Java string literal.
+     */
+    private static String literal( final String value )
+    {
+        final StringBuilder literal = new StringBuilder( "\"" );
+        for ( final char c : value.toCharArray() )
+        {
+            switch ( c )
+            {
+                case '"':
+                    literal.append( "\\\"" );
+                    break;
+
+                case '\\':
+                    literal.append( "\\\\" );
+                    break;
+
+                default:
+                    if ( c < ' ' || c > '~' )
+                    {
+                        literal.append( format( "\\u%04x", (int) c ) );
+                    }
+                    else
+                    {
+                        literal.append( c );
+                    }
+                    break;
+            }
+        }
+        return literal.append( '"' ).toString();
+    }
+
+    private String classLiteral( final TypeMirror type )
+    {
+        if ( type.getKind() == TypeKind.ARRAY )
+        {
+            return classLiteral( ( (ArrayType) type ).getComponentType() ) + "[]";
+        }
+        return getQualifiedName( type );
+    }
+
+    private TypeMirror erasure( final TypeMirror type )
+    {
+        return processingEnv.getTypeUtils().erasure( type );
+    }
+
+    private String getBinaryName( final TypeMirror type )
+    {
+        if ( type.getKind() == TypeKind.DECLARED )
+        {
+            return processingEnv.getElementUtils()
+                .getBinaryName( (TypeElement) ( (DeclaredType) type ).asElement() ).toString();
+        }
+        return type.toString();
+    }
+
+    private String getPackageName( final TypeElement type )
+    {
+        return processingEnv.getElementUtils().getPackageOf( type ).getQualifiedName().toString();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion()
+    {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * Checks if the given type can be created by a Digester rule, either via type or constructor annotations.
+     */
+    private boolean hasCreationRule( final TypeElement type )
+    {
+        final List<AnnotationMirror> creationRules = new ArrayList<>();
+        collectCreationRules( type.getAnnotationMirrors(), creationRules );
+        for ( final ExecutableElement constructor : ElementFilter.constructorsIn( type.getEnclosedElements() ) )
+        {
+            collectCreationRules( constructor.getAnnotationMirrors(), creationRules );
+        }
+        return !creationRules.isEmpty();
+    }
+
+    @Override
+    public boolean process( final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv )
+    {
+        final Set<TypeElement> types = new LinkedHashSet<>();
+        for ( final TypeElement annotation : annotations )
+        {
+            for ( final Element element : roundEnv.getElementsAnnotatedWith( annotation ) )
+            {
+                final TypeElement type = getEnclosingType( element );
+                if ( hasCreationRule( type ) && processedTypes.add( type.getQualifiedName().toString() ) )
+                {
+                    types.add( type );
+                }
+            }
+        }
+
+        for ( final TypeElement type : types )
+        {
+            final ModuleWriter moduleWriter =
+                new ModuleWriter( processingEnv.getElementUtils().getPackageOf( type ) );
+            moduleWriter.bindRulesFrom( type );
+            moduleWriter.write( type );
+        }
+
+        // the annotations are still available to FromAnnotationsRuleModule and other processors
+        return false;
+    }
+
+}
@@ -57,6 +57,15 @@ public @interface BeanPropertySetter
         BeanPropertySetter[] value();
     }
 
+    /**
+     * Whether the field is assigned directly from the body text, instead of through its JavaBeans setter, so that
+     * beans without setters can be populated.
+     *
+     * @see org.apache.commons.digester3.SetFieldRule
+     * @since 3.3
+     */
+    boolean injectField() default false;
+
     /**
      * The namespace URI for which this Rule is relevant, if any.
      *
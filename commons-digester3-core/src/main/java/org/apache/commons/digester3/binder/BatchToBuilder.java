@@ -0,0 +1,93 @@
+package org.apache.commons.digester3.binder;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import org.apache.commons.digester3.BatchingRule;
+
+/**
+ * Builder chained when invoking {@link LinkedRuleBuilder#batchTo(Consumer, int)}.
+ *
+ * @param <T> the type of the collected objects
+ * @since 3.3
+ */
+public final class BatchToBuilder<T>
+    extends AbstractBackToLinkedRuleBuilder<BatchingRule<T>>
+{
+
+    private final Consumer<? super List<T>> consumer;
+
+    private final int batchSize;
+
+    private Executor executor;
+
+    private int maxPendingBatches = 4;
+
+    BatchToBuilder( final String keyPattern, final String namespaceURI, final RulesBinder mainBinder,
+                    final LinkedRuleBuilder mainBuilder, final Consumer<? super List<T>> consumer,
+                    final int batchSize )
+    {
+        super( keyPattern, namespaceURI, mainBinder, mainBuilder );
+        this.consumer = consumer;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Consumes the batches on the given executor, one at a time and in order, instead of the parsing thread.
+     *
+     * @param executor the executor consuming the batches
+     * @return this builder instance
+     */
+    public BatchToBuilder<T> usingExecutor( final Executor executor )
+    {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of batches waiting to be consumed by the executor, beyond that the parse waits.
+     *
+     * @param maxPendingBatches the maximum number of batches waiting to be consumed by the executor
+     * @return this builder instance
+     */
+    public BatchToBuilder<T> withMaxPendingBatches( final int maxPendingBatches )
+    {
+        if ( maxPendingBatches < 1 )
+        {
+            reportError( "batchTo( Consumer, int ).withMaxPendingBatches( int )",
+                         "'maxPendingBatches' must be positive" );
+        }
+        this.maxPendingBatches = maxPendingBatches;
+        return this;
+    }
+
+    @Override
+    protected BatchingRule<T> createRule()
+    {
+        final BatchingRule<T> rule = new BatchingRule<>( consumer, batchSize );
+        rule.setExecutor( executor );
+        rule.setMaxPendingBatches( maxPendingBatches );
+        return rule;
+    }
+
+}
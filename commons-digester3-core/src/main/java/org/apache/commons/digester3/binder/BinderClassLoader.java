@@ -24,29 +24,13 @@ import static java.security.AccessController.doPrivileged;
 
 import java.net.URL;
 import java.security.PrivilegedAction;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+
+import org.apache.commons.digester3.ClassResolutionCache;
 
 final class BinderClassLoader
     extends ClassLoader
 {
 
-    private static final Map<String, Class<?>> PRIMITIVE_TYPES;
-    static
-    {
-        final HashMap<String, Class<?>> primitiveTypes = new HashMap<>();
-        primitiveTypes.put( "boolean", boolean.class );
-        primitiveTypes.put( "byte", byte.class );
-        primitiveTypes.put( "short", short.class );
-        primitiveTypes.put( "int", int.class );
-        primitiveTypes.put( "char", char.class );
-        primitiveTypes.put( "long", long.class );
-        primitiveTypes.put( "float", float.class );
-        primitiveTypes.put( "double", double.class );
-        PRIMITIVE_TYPES = Collections.unmodifiableMap( primitiveTypes );
-    }
-
     public static BinderClassLoader createBinderClassLoader( final ClassLoader adaptedClassLoader )
     {
         final PrivilegedAction<BinderClassLoader> action = () -> new BinderClassLoader( adaptedClassLoader );
@@ -75,14 +59,11 @@ final class BinderClassLoader
     }
 
     @Override
-    protected synchronized Class<?> loadClass( final String name, final boolean resolve )
+    protected Class<?> loadClass( final String name, final boolean resolve )
         throws ClassNotFoundException
     {
-        if ( PRIMITIVE_TYPES.containsKey( name ) )
-        {
-            return PRIMITIVE_TYPES.get( name );
-        }
-        return getParent().loadClass( name );
+        // no class is defined here, lookups are delegated to the shared cache without locking
+        return ClassResolutionCache.loadClass( getParent(), name );
     }
 
 }
@@ -156,7 +156,7 @@ final class DefaultRulesBinder
      *
      * @return
      */
-    Iterable<ErrorMessage> getErrors()
+    List<ErrorMessage> getErrors()
     {
         return errors;
     }
@@ -21,23 +21,32 @@ package org.apache.commons.digester3.binder;
 
 import static org.apache.commons.digester3.binder.BinderClassLoader.createBinderClassLoader;
 
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Formatter;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
 
 import org.apache.commons.digester3.Digester;
+import org.apache.commons.digester3.ParseLimits;
+import org.apache.commons.digester3.ParseListener;
+import org.apache.commons.digester3.ResourceCache;
 import org.apache.commons.digester3.RuleSet;
 import org.apache.commons.digester3.Rules;
 import org.apache.commons.digester3.RulesBase;
@@ -135,6 +144,60 @@ public final class DigesterLoader
      */
     private StackAction stackAction;
 
+    /**
+     * The listener notified at the end of every document parsed by the created Digester instances.
+     * @since 3.3
+     */
+    private ParseListener parseListener;
+
+    /**
+     * The cache the created Digester instances read the resolved entities through.
+     * @since 3.3
+     */
+    private ResourceCache resourceCache;
+
+    /**
+     * The location of the XML Schema compiled for the created Digester instances, null if none.
+     * @since 3.3
+     */
+    private URL schemaUrl;
+
+    /**
+     * The language of the XML Schema compiled for the created Digester instances.
+     * @since 3.3
+     */
+    private String schemaLanguage;
+
+    /**
+     * The resource budgets the created Digester instances enforce while parsing.
+     * @since 3.3
+     */
+    private ParseLimits parseLimits;
+
+    /**
+     * The number of events the created Digester instances buffer when parsing is pipelined, 0 when disabled.
+     * @since 3.3
+     */
+    private int pipelineCapacity;
+
+    /**
+     * The executor running the tokenizer of the created Digester instances when parsing is pipelined.
+     * @since 3.3
+     */
+    private Executor pipelineExecutor;
+
+    /**
+     * Whether the created Digester instances compile their rules when possible.
+     * @since 3.3
+     */
+    private boolean compileRules;
+
+    /**
+     * Whether the created Digester instances parse the documents with the built-in tokenizer when possible.
+     * @since 3.3
+     */
+    private boolean useBuiltInTokenizer = Boolean.getBoolean( Digester.BUILT_IN_TOKENIZER_PROPERTY );
+
     /**
      * The executor service to run asynchronous parse method.
      * @since 3.1
@@ -184,37 +247,48 @@ public final class DigesterLoader
     {
         if ( rulesBinder.hasError() )
         {
-            final Formatter fmt = new Formatter().format( HEADING );
-            int index = 1;
+            throw newLoadingException( rulesBinder.getErrors() );
+        }
 
-            for ( final ErrorMessage errorMessage : rulesBinder.getErrors() )
-            {
-                fmt.format( "%s) %s%n", index++, errorMessage.getMessage() );
+        return rulesBinder.getFromBinderRuleSet();
+    }
 
-                final Throwable cause = errorMessage.getCause();
-                if ( cause != null )
-                {
-                    final StringWriter writer = new StringWriter();
-                    cause.printStackTrace( new PrintWriter( writer ) );
-                    fmt.format( "Caused by: %s", writer.getBuffer() );
-                }
+    /**
+     * Formats the given errors in a single exception.
+     *
+     * @param errors the errors to report
+     * @return the exception reporting the given errors
+     */
+    private static DigesterLoadingException newLoadingException( final Collection<ErrorMessage> errors )
+    {
+        final Formatter fmt = new Formatter().format( HEADING );
+        int index = 1;
 
-                fmt.format( "%n" );
-            }
+        for ( final ErrorMessage errorMessage : errors )
+        {
+            fmt.format( "%s) %s%n", index++, errorMessage.getMessage() );
 
-            if ( rulesBinder.errorsSize() == 1 )
+            final Throwable cause = errorMessage.getCause();
+            if ( cause != null )
             {
-                fmt.format( "1 error" );
-            }
-            else
-            {
-                fmt.format( "%s errors", rulesBinder.errorsSize() );
+                final StringWriter writer = new StringWriter();
+                cause.printStackTrace( new PrintWriter( writer ) );
+                fmt.format( "Caused by: %s", writer.getBuffer() );
             }
 
-            throw new DigesterLoadingException( fmt.toString() );
+            fmt.format( "%n" );
         }
 
-        return rulesBinder.getFromBinderRuleSet();
+        if ( errors.size() == 1 )
+        {
+            fmt.format( "1 error" );
+        }
+        else
+        {
+            fmt.format( "%s errors", errors.size() );
+        }
+
+        return new DigesterLoadingException( fmt.toString() );
     }
 
     /**
@@ -309,6 +383,11 @@ public final class DigesterLoader
      */
     public Digester newDigester( final Rules rules )
     {
+        if ( schemaUrl != null )
+        {
+            factory.setSchema( loadSchema() );
+        }
+
         try
         {
             return this.newDigester( this.factory.newSAXParser(), rules );
@@ -323,6 +402,27 @@ public final class DigesterLoader
         }
     }
 
+    /**
+     * Compiles the XML Schema set by location, through the resource cache when set so that it is compiled only once.
+     *
+     * @return the compiled XML Schema
+     */
+    private Schema loadSchema()
+    {
+        try
+        {
+            if ( resourceCache != null )
+            {
+                return resourceCache.getSchema( schemaUrl, schemaLanguage );
+            }
+            return SchemaFactory.newInstance( schemaLanguage ).newSchema( schemaUrl );
+        }
+        catch ( final IOException | SAXException e )
+        {
+            throw new DigesterLoadingException( "Impossible to compile the XML Schema " + schemaUrl, e );
+        }
+    }
+
     /**
      * Creates a new {@link Digester} instance that relies on the given {@code SAXParser}
      * and the default {@link Rules} implementation.
@@ -409,6 +509,14 @@ public final class DigesterLoader
         digester.setExecutorService( executorService );
         digester.setErrorHandler( errorHandler );
         digester.setDocumentLocator( locator );
+        digester.setParseListener( parseListener );
+        digester.setResourceCache( resourceCache );
+        digester.setParseLimits( parseLimits );
+        digester.setPipelineCapacity( pipelineCapacity );
+        digester.setPipelineExecutor( pipelineExecutor );
+        digester.setCompileRules( compileRules );
+        digester.setUseBuiltInTokenizer( useBuiltInTokenizer && !isValidating() && !isXIncludeAware()
+            && factory.getSchema() == null && schemaUrl == null );
 
         addRules( digester );
 
@@ -571,6 +679,114 @@ public final class DigesterLoader
         return this;
     }
 
+    /**
+     * Sets the listener notified at the end of every document parsed by the created Digester instances. The listener
+     * is shared by all the digesters, so it must be thread-safe, as
+     * {@link org.apache.commons.digester3.DigesterMetrics} is.
+     *
+     * @param parseListener The listener notified at the end of every parsed document
+     * @return This loader instance, useful to chain methods.
+     * @since 3.3
+     */
+    public DigesterLoader setParseListener( final ParseListener parseListener )
+    {
+        this.parseListener = parseListener;
+        return this;
+    }
+
+    /**
+     * Enables pipelined parsing in the created Digester instances, tokenizing the documents on another thread
+     * while the rules fire on the calling thread.
+     *
+     * @param pipelineCapacity The number of events buffered between the tokenizer and the rules, 0 to disable
+     *            pipelining
+     * @return This loader instance, useful to chain methods.
+     * @see Digester#setPipelineCapacity(int)
+     * @since 3.3
+     */
+    public DigesterLoader setPipelineCapacity( final int pipelineCapacity )
+    {
+        if ( pipelineCapacity < 0 )
+        {
+            throw new IllegalArgumentException( "Pipeline capacity must not be negative, was " + pipelineCapacity );
+        }
+        this.pipelineCapacity = pipelineCapacity;
+        return this;
+    }
+
+    /**
+     * Sets the executor running the tokenizer of the created Digester instances when parsing is pipelined, instead of
+     * starting a new thread for each parse.
+     *
+     * @param pipelineExecutor The executor running the tokenizer, null to start a new thread for each parse
+     * @return This loader instance, useful to chain methods.
+     * @see Digester#setPipelineExecutor(Executor)
+     * @since 3.3
+     */
+    public DigesterLoader setPipelineExecutor( final Executor pipelineExecutor )
+    {
+        this.pipelineExecutor = pipelineExecutor;
+        return this;
+    }
+
+    /**
+     * Enables the compilation of the rules of the created Digester instances to a specialized content handler, when
+     * they are made only of built-in rule types.
+     *
+     * @param compileRules true to compile the rules when possible
+     * @return This loader instance, useful to chain methods.
+     * @see Digester#setCompileRules(boolean)
+     * @since 3.3
+     */
+    public DigesterLoader setCompileRules( final boolean compileRules )
+    {
+        this.compileRules = compileRules;
+        return this;
+    }
+
+    /**
+     * Parses the documents with the built-in tokenizer in the created Digester instances, rather than with the JAXP
+     * parser of this loader, unless validation, XInclude or a schema is configured.
+     *
+     * @param useBuiltInTokenizer true to parse the documents with the built-in tokenizer when possible
+     * @return This loader instance, useful to chain methods.
+     * @see Digester#setUseBuiltInTokenizer(boolean)
+     * @since 3.3
+     */
+    public DigesterLoader setUseBuiltInTokenizer( final boolean useBuiltInTokenizer )
+    {
+        this.useBuiltInTokenizer = useBuiltInTokenizer;
+        return this;
+    }
+
+    /**
+     * Sets the resource budgets the created Digester instances enforce while parsing. The budgets are shared by all
+     * the digesters, so their exceeded counters report the documents rejected by any of them.
+     *
+     * @param parseLimits The resource budgets enforced while parsing
+     * @return This loader instance, useful to chain methods.
+     * @since 3.3
+     */
+    public DigesterLoader setParseLimits( final ParseLimits parseLimits )
+    {
+        this.parseLimits = parseLimits;
+        return this;
+    }
+
+    /**
+     * Sets the cache the created Digester instances read the resolved entities through, e.g. a
+     * {@link org.apache.commons.digester3.DefaultResourceCache}.
+     *
+     * @param resourceCache The cache the resolved entities are read through
+     * @return This loader instance, useful to chain methods.
+     * @since 3.3
+     */
+    public DigesterLoader setResourceCache( final ResourceCache resourceCache )
+    {
+        this.resourceCache = resourceCache;
+        return this;
+    }
+
     /**
      * Sets the XML Schema to be used when parsing.
      *
@@ -580,6 +796,32 @@ public final class DigesterLoader
     public DigesterLoader setSchema( final Schema schema )
     {
         factory.setSchema( schema );
+        schemaUrl = null;
+        return this;
+    }
+
+    /**
+     * Sets the location of the XML Schema to be used when parsing, compiled when a Digester instance is created:
+     * through the resource cache, if set, so that the compiled schema is shared by the loaders using the same cache.
+     *
+     * @param schemaUrl The location of the XML Schema
+     * @param schemaLanguage The schema language, e.g. {@link javax.xml.XMLConstants#W3C_XML_SCHEMA_NS_URI}
+     * @return This loader instance, useful to chain methods.
+     * @see #setResourceCache(ResourceCache)
+     * @since 3.3
+     */
+    public DigesterLoader setSchema( final URL schemaUrl, final String schemaLanguage )
+    {
+        if ( schemaUrl == null )
+        {
+            throw new IllegalArgumentException( "Schema URL must be not null" );
+        }
+        if ( schemaLanguage == null )
+        {
+            throw new IllegalArgumentException( "Schema language must be not null" );
+        }
+        this.schemaUrl = schemaUrl;
+        this.schemaLanguage = schemaLanguage;
         return this;
     }
 
@@ -659,4 +901,27 @@ public final class DigesterLoader
         return this;
     }
 
+    /**
+     * Links the rules ahead of the first parse: creates a {@link Digester} and resolves the classes, constructors,
+     * methods, bean properties and converters its rules reference, see {@link Digester#link()}. The reflection caches
+     * filled are shared by all the digesters, so the first documents parsed do not pay for the introspection.
+     *
+     * @return This loader instance, useful to chain methods.
+     * @throws DigesterLoadingException if the rules cannot be bound, or reference anything that cannot be resolved
+     * @since 3.3
+     */
+    public DigesterLoader warmUp()
+    {
+        final List<ErrorMessage> errors = new ArrayList<>();
+        for ( final String problem : newDigester().link() )
+        {
+            errors.add( new ErrorMessage( problem, (Throwable) null ) );
+        }
+        if ( !errors.isEmpty() )
+        {
+            throw newLoadingException( errors );
+        }
+        return this;
+    }
+
 }
@@ -19,7 +19,16 @@ package org.apache.commons.digester3.binder;
  * under the License.
  */
 
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.commons.digester3.Base64BodyRule;
+import org.apache.commons.digester3.RecordRule;
 import org.apache.commons.digester3.Rule;
+import org.apache.commons.digester3.StreamingBodyRule;
+import org.apache.commons.digester3.WriteBodyRule;
 
 /**
  * Builder invoked to bind one or more rules to a pattern.
@@ -102,6 +111,32 @@ public final class LinkedRuleBuilder
         return addProvider( new ByRuleProviderBuilder<>( keyPattern, namespaceURI, mainBinder, this, provider ) );
     }
 
+    /**
+     * Collects the top object of the stack when a matching element ends, and hands the objects to the given consumer
+     * in batches of {@code batchSize} objects; the last batch is flushed when the document ends.
+     *
+     * @param <T> The type of the collected objects
+     * @param consumer The consumer of the batches of objects
+     * @param batchSize The number of objects in each batch
+     * @return A new {@link BatchToBuilder} instance.
+     * @since 3.3
+     */
+    public <T> BatchToBuilder<T> batchTo( final Consumer<? super List<T>> consumer, final int batchSize )
+    {
+        if ( consumer == null )
+        {
+            mainBinder.addError( "{ forPattern( \"%s\" ).batchTo( Consumer, int ) } null 'consumer' not allowed",
+                                 keyPattern );
+        }
+        if ( batchSize < 1 )
+        {
+            mainBinder.addError( "{ forPattern( \"%s\" ).batchTo( Consumer, int ) } 'batchSize' must be positive",
+                                 keyPattern );
+        }
+        return addProvider( new BatchToBuilder<T>( keyPattern, namespaceURI, mainBinder, this, consumer,
+                                                   batchSize ) );
+    }
+
     /**
      * Calls a method on an object on the stack (normally the top/parent object), passing arguments collected from
      * subsequent {@link #callParam()} rule or from the body of this element.
@@ -174,6 +209,50 @@ public final class LinkedRuleBuilder
         return addProvider( new PluginCreateRuleBuilder( keyPattern, namespaceURI, mainBinder, this ) );
     }
 
+    /**
+     * Pushes a schemaless record, an array or a map filled from the matching element and its children without any
+     * bean class, popped when the element ends.
+     *
+     * @param format The kind of records
+     * @param columnNames The names of the columns, the map keys; their number is the length of the arrays
+     * @return A new {@link RecordCreateBuilder} instance.
+     * @since 3.3
+     */
+    public RecordCreateBuilder createRecord( final RecordRule.Format format, final String... columnNames )
+    {
+        if ( format == null )
+        {
+            mainBinder.addError( "{ forPattern( \"%s\" ).createRecord( Format, String... ) } null 'format' not allowed",
+                                 keyPattern );
+        }
+        if ( columnNames == null || columnNames.length == 0 )
+        {
+            mainBinder.addError( "{ forPattern( \"%s\" ).createRecord( Format, String... ) } empty 'columnNames'"
+                                     + " not allowed", keyPattern );
+        }
+        return addProvider( new RecordCreateBuilder( keyPattern, namespaceURI, mainBinder, this, format,
+                                                     columnNames ) );
+    }
+
+    /**
+     * Decodes the Base64 body text of the matching elements as it is parsed, without buffering it, to the streams
+     * opened by the given destination; the text of the nested elements is part of the body.
+     *
+     * @param destination Opens the stream of the body of each matching element, closed when the element ends
+     * @return A new {@link StreamBodyBuilder} instance.
+     * @since 3.3
+     */
+    public StreamBodyBuilder decodeBase64Body( final StreamingBodyRule.Destination<? extends OutputStream> destination )
+    {
+        if ( destination == null )
+        {
+            mainBinder.addError( "{ forPattern( \"%s\" ).decodeBase64Body( Destination ) } null 'destination' not"
+                                     + " allowed", keyPattern );
+        }
+        return addProvider( new StreamBodyBuilder( keyPattern, namespaceURI, mainBinder, this,
+                                                   () -> new Base64BodyRule( destination ) ) );
+    }
+
     /**
      * A Digester rule which allows the user to pre-declare a class which is to
      * be referenced later at a plugin point by a PluginCreateRule.
@@ -243,6 +322,23 @@ public final class LinkedRuleBuilder
         return addProvider( new NestedPropertiesBuilder( keyPattern, namespaceURI, mainBinder, this ) );
     }
 
+    /**
+     * Assigns a field of the object at the top of the stack from the body text, without going through setters.
+     *
+     * @param fieldName Name of the field to assign
+     * @return A new {@link SetFieldBuilder} instance.
+     * @since 3.3
+     */
+    public SetFieldBuilder setField( final String fieldName )
+    {
+        if ( fieldName == null || fieldName.isEmpty() )
+        {
+            mainBinder.addError( "{ forPattern( \"%s\" ).setField( String ) } empty 'fieldName' not allowed",
+                                 keyPattern );
+        }
+        return addProvider( new SetFieldBuilder( keyPattern, namespaceURI, mainBinder, this, fieldName ) );
+    }
+
     /**
      * Calls a method on the (top-1) (parent) object, passing the top object (child) as an argument,
      * commonly used to establish parent-child relationships.
@@ -335,6 +431,25 @@ public final class LinkedRuleBuilder
         return addProvider( new SetTopBuilder( keyPattern, namespaceURI, mainBinder, this, methodName, classLoader ) );
     }
 
+    /**
+     * Writes the body text of the matching elements as it is parsed, without buffering it, to the writers opened by
+     * the given destination; the text of the nested elements is part of the body.
+     *
+     * @param destination Opens the writer of the body of each matching element, closed when the element ends
+     * @return A new {@link StreamBodyBuilder} instance.
+     * @since 3.3
+     */
+    public StreamBodyBuilder writeBody( final StreamingBodyRule.Destination<? extends Writer> destination )
+    {
+        if ( destination == null )
+        {
+            mainBinder.addError( "{ forPattern( \"%s\" ).writeBody( Destination ) } null 'destination' not allowed",
+                                 keyPattern );
+        }
+        return addProvider( new StreamBodyBuilder( keyPattern, namespaceURI, mainBinder, this,
+                                                   () -> new WriteBodyRule( destination ) ) );
+    }
+
     /**
      * Sets the namespace URI for the current rule pattern.
      *
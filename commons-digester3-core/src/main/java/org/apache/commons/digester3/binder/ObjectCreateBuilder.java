@@ -54,6 +54,13 @@ public final class ObjectCreateBuilder
      */
     private Object[] defaultConstructorArguments;
 
+    /**
+     * Whether objects created with constructor arguments are proxies.
+     *
+     * @since 3.3
+     */
+    private boolean useProxy = true;
+
     ObjectCreateBuilder( final String keyPattern, final String namespaceURI, final RulesBinder mainBinder, final LinkedRuleBuilder mainBuilder,
                          final ClassLoader classLoader )
     {
@@ -74,6 +81,7 @@ public final class ObjectCreateBuilder
         {
             objectCreateRule.setDefaultConstructorArguments( defaultConstructorArguments );
         }
+        objectCreateRule.setUseProxy( useProxy );
 
         return objectCreateRule;
     }
@@ -211,4 +219,20 @@ public final class ObjectCreateBuilder
 
     }
 
+    /**
+     * Allows users to specify whether objects created with constructor arguments are cglib proxies, true by default.
+     * When false, the constructor arguments and the property calls are buffered in a value holder and the object is
+     * constructed once when the element ends.
+     *
+     * @param useProxy true if objects created with constructor arguments are cglib proxies
+     * @return this builder instance
+     * @see ObjectCreateRule#setUseProxy(boolean)
+     * @since 3.3
+     */
+    public ObjectCreateBuilder usingProxy( final boolean useProxy )
+    {
+        this.useProxy = useProxy;
+        return this;
+    }
+
 }
@@ -0,0 +1,186 @@
+package org.apache.commons.digester3.binder;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static java.lang.String.format;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.digester3.RecordRule;
+
+/**
+ * Builder chained when invoking {@link LinkedRuleBuilder#createRecord(RecordRule.Format, String...)}.
+ *
+ * @since 3.3
+ */
+public final class RecordCreateBuilder
+    extends AbstractBackToLinkedRuleBuilder<RecordRule>
+{
+
+    private final RulesBinder mainBinder;
+
+    private final RecordRule.Format format;
+
+    private final String[] columnNames;
+
+    private final Class<?>[] columnTypes;
+
+    private final Map<String, Integer> attributeColumns = new LinkedHashMap<>();
+
+    private boolean reuseRecord;
+
+    RecordCreateBuilder( final String keyPattern, final String namespaceURI, final RulesBinder mainBinder,
+                         final LinkedRuleBuilder mainBuilder, final RecordRule.Format format,
+                         final String[] columnNames )
+    {
+        super( keyPattern, namespaceURI, mainBinder, mainBuilder );
+        this.mainBinder = mainBinder;
+        this.format = format;
+        this.columnNames = columnNames != null ? columnNames.clone() : new String[0];
+        this.columnTypes = new Class<?>[this.columnNames.length];
+    }
+
+    /**
+     * Maps an attribute of the matching element to a column.
+     *
+     * @param attributeName the name of the attribute
+     * @param column the index of the column
+     * @return this builder instance
+     */
+    public RecordCreateBuilder mapAttribute( final String attributeName, final int column )
+    {
+        final String methodChain = format( "createRecord().mapAttribute( \"%s\", %s )", attributeName, column );
+        if ( attributeName == null || attributeName.isEmpty() )
+        {
+            reportError( methodChain, "empty 'attributeName' not allowed" );
+        }
+        else if ( checkColumn( methodChain, column ) )
+        {
+            attributeColumns.put( attributeName, column );
+        }
+        return this;
+    }
+
+    /**
+     * Maps the body text of the children at the given path, relative to the matching element, to a column.
+     *
+     * @param childPath the path of the children, e.g. {@code name} or {@code address/city}
+     * @param column the index of the column
+     * @return this builder instance
+     */
+    public RecordCreateBuilder mapChild( final String childPath, final int column )
+    {
+        return mapChild( childPath, null, column );
+    }
+
+    /**
+     * Maps an attribute of the children at the given path, relative to the matching element, to a column.
+     *
+     * @param childPath the path of the children, e.g. {@code name} or {@code address/city}
+     * @param attributeName the name of the attribute of the children, null for their body text
+     * @param column the index of the column
+     * @return this builder instance
+     */
+    public RecordCreateBuilder mapChild( final String childPath, /* @Nullable */final String attributeName,
+                                        final int column )
+    {
+        final String methodChain = format( "createRecord().mapChild( \"%s\", \"%s\", %s )", childPath,
+                                           attributeName, column );
+        if ( childPath == null || childPath.isEmpty() )
+        {
+            reportError( methodChain, "empty 'childPath' not allowed" );
+            return this;
+        }
+        if ( !checkColumn( methodChain, column ) )
+        {
+            return this;
+        }
+
+        // the column types can still be set, they are read when the rules are created
+        mainBinder.forPattern( getPattern() + "/" + childPath )
+                  .withNamespaceURI( getNamespaceURI() )
+                  .addRuleCreatedBy( () -> new RecordRule.FieldRule( column, columnNames[column],
+                                                                     getColumnType( column ), attributeName ) );
+        return this;
+    }
+
+    /**
+     * Converts the values of the given column to the given type, ignored by
+     * {@link RecordRule.Format#STRING_ARRAY} records.
+     *
+     * @param column the index of the column
+     * @param columnType the type of the values
+     * @return this builder instance
+     */
+    public RecordCreateBuilder withColumnType( final int column, final Class<?> columnType )
+    {
+        if ( checkColumn( format( "createRecord().withColumnType( %s, %s )", column, columnType ), column ) )
+        {
+            columnTypes[column] = columnType;
+        }
+        return this;
+    }
+
+    /**
+     * Refills the same record for each matching element, instead of pushing a new one; the consumers of the records
+     * must then copy what they keep before the next element starts.
+     *
+     * @param reuseRecord true to refill the same record for each matching element
+     * @return this builder instance
+     */
+    public RecordCreateBuilder reuseRecord( final boolean reuseRecord )
+    {
+        this.reuseRecord = reuseRecord;
+        return this;
+    }
+
+    @Override
+    protected RecordRule createRule()
+    {
+        final RecordRule rule = new RecordRule( format, columnNames );
+        for ( int i = 0; i < columnTypes.length; i++ )
+        {
+            rule.setColumnType( i, columnTypes[i] );
+        }
+        for ( final Map.Entry<String, Integer> attributeColumn : attributeColumns.entrySet() )
+        {
+            rule.mapAttribute( attributeColumn.getKey(), attributeColumn.getValue() );
+        }
+        rule.setReuseRecord( reuseRecord );
+        return rule;
+    }
+
+    private Class<?> getColumnType( final int column )
+    {
+        return format == RecordRule.Format.STRING_ARRAY ? null : columnTypes[column];
+    }
+
+    private boolean checkColumn( final String methodChain, final int column )
+    {
+        if ( column < 0 || column >= columnNames.length )
+        {
+            reportError( methodChain, format( "column %s out of range [0, %s)", column, columnNames.length ) );
+            return false;
+        }
+        return true;
+    }
+
+}
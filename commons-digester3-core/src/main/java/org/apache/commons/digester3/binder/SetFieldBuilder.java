@@ -0,0 +1,70 @@
+package org.apache.commons.digester3.binder;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static java.lang.String.format;
+
+import org.apache.commons.digester3.SetFieldRule;
+
+/**
+ * Builder chained when invoking {@link LinkedRuleBuilder#setField(String)}.
+ *
+ * @since 3.3
+ */
+public final class SetFieldBuilder
+    extends AbstractBackToLinkedRuleBuilder<SetFieldRule>
+{
+
+    private final String fieldName;
+
+    private String attributeName;
+
+    SetFieldBuilder( final String keyPattern, final String namespaceURI, final RulesBinder mainBinder,
+                     final LinkedRuleBuilder mainBuilder, final String fieldName )
+    {
+        super( keyPattern, namespaceURI, mainBinder, mainBuilder );
+        this.fieldName = fieldName;
+    }
+
+    @Override
+    protected SetFieldRule createRule()
+    {
+        return new SetFieldRule( fieldName, attributeName );
+    }
+
+    /**
+     * Assigns the field from the given attribute of the matching element, instead of the body text.
+     *
+     * @param attributeName Name of the attribute holding the value
+     * @return this builder instance
+     */
+    public SetFieldBuilder fromAttribute( final String attributeName )
+    {
+        if ( attributeName == null || attributeName.isEmpty() )
+        {
+            reportError( format( "setField(\"%s\").fromAttribute(String)", fieldName ),
+                         "empty 'attributeName' not allowed" );
+        }
+
+        this.attributeName = attributeName;
+        return this;
+    }
+
+}
@@ -19,6 +19,9 @@ package org.apache.commons.digester3.binder;
  * under the License.
  */
 
+import static java.lang.String.format;
+
+import org.apache.commons.digester3.SetNextCollectionRule;
 import org.apache.commons.digester3.SetNextRule;
 
 /**
@@ -30,10 +33,113 @@ public final class SetNextBuilder
     extends AbstractParamTypeBuilder<SetNextRule>
 {
 
+    /**
+     * The characters of the patterns matching elements at more than one path.
+     */
+    private static final String WILDCARDS = "*?!";
+
+    private final RulesBinder mainBinder;
+
+    /**
+     * The name of the stack shared by the rules gathering the children, null unless bound as collection.
+     */
+    private String collectionStackName;
+
     SetNextBuilder( final String keyPattern, final String namespaceURI, final RulesBinder mainBinder,
                            final LinkedRuleBuilder mainBuilder, final String methodName, final ClassLoader classLoader )
     {
         super( keyPattern, namespaceURI, mainBinder, mainBuilder, methodName, classLoader );
+        this.mainBinder = mainBinder;
+    }
+
+    /**
+     * Gathers the children of each parent object into a list, passed to the parent method, taking a
+     * {@link java.util.List} argument, in a single call when the parent element ends. The parent pattern is the child
+     * pattern without its last element, patterns with wildcards must use {@link #asCollectionUnder(String, String)}.
+     *
+     * @return this builder instance
+     * @see SetNextCollectionRule
+     * @since 3.3
+     */
+    public SetNextBuilder asCollection()
+    {
+        return asCollection( null );
+    }
+
+    /**
+     * Gathers the children of each parent object into a list, passed to the parent method, taking a
+     * {@link java.util.List} argument, in a single call when the parent element ends. The parent pattern is the child
+     * pattern without its last element, patterns with wildcards must use {@link #asCollectionUnder(String, String)}.
+     *
+     * @param sizeAttribute the name of the attribute of the parent element giving the expected number of children,
+     *            used to size the list once; null if none
+     * @return this builder instance
+     * @see SetNextCollectionRule
+     * @since 3.3
+     */
+    public SetNextBuilder asCollection( /* @Nullable */final String sizeAttribute )
+    {
+        final String pattern = getPattern();
+        final int separator = pattern.lastIndexOf( '/' );
+        if ( separator <= 0 )
+        {
+            reportError( format( "setNext( \"%s\" ).asCollection()", getMethodName() ),
+                         "pattern '" + pattern + "' has no parent element" );
+            return this;
+        }
+        for ( int i = 0; i < pattern.length(); i++ )
+        {
+            if ( WILDCARDS.indexOf( pattern.charAt( i ) ) >= 0 )
+            {
+                reportError( format( "setNext( \"%s\" ).asCollection()", getMethodName() ),
+                             "the parent of pattern '" + pattern
+                                 + "' cannot be guessed, use asCollectionUnder( parentPattern, sizeAttribute )" );
+                return this;
+            }
+        }
+        return asCollectionUnder( pattern.substring( 0, separator ), sizeAttribute );
+    }
+
+    /**
+     * Gathers the children of each parent object matching the given pattern into a list, passed to the parent method,
+     * taking a {@link java.util.List} argument, in a single call when the parent element ends.
+     *
+     * @param parentPattern the pattern matching the parent elements of the elements matching this rule pattern
+     * @param sizeAttribute the name of the attribute of the parent element giving the expected number of children,
+     *            used to size the list once; null if none
+     * @return this builder instance
+     * @see SetNextCollectionRule
+     * @since 3.3
+     */
+    public SetNextBuilder asCollectionUnder( final String parentPattern, /* @Nullable */final String sizeAttribute )
+    {
+        if ( collectionStackName != null )
+        {
+            reportError( format( "setNext( \"%s\" ).asCollection()", getMethodName() ), "already bound as collection" );
+            return this;
+        }
+        if ( parentPattern == null || parentPattern.isEmpty() )
+        {
+            reportError( format( "setNext( \"%s\" ).asCollectionUnder( \"%s\" )", getMethodName(), parentPattern ),
+                         "empty parent pattern" );
+            return this;
+        }
+
+        final String methodName = getMethodName();
+        final String stackName =
+            format( "%s:%s#%s", SetNextCollectionRule.class.getName(), getPattern(), getMethodName() );
+        collectionStackName = stackName;
+        mainBinder.forPattern( parentPattern )
+                  .withNamespaceURI( getNamespaceURI() )
+                  .addRuleCreatedBy( () ->
+                  {
+                      final SetNextCollectionRule.ParentRule rule =
+                          new SetNextCollectionRule.ParentRule( methodName, stackName );
+                      rule.setSizeAttribute( sizeAttribute );
+                      rule.setExactMatch( isUseExactMatch() );
+                      return rule;
+                  } );
+        return this;
     }
 
     @Override
@@ -41,7 +147,11 @@ public final class SetNextBuilder
     {
         SetNextRule rule;
 
-        if ( getParamType() != null )
+        if ( collectionStackName != null )
+        {
+            rule = new SetNextCollectionRule( getMethodName(), collectionStackName );
+        }
+        else if ( getParamType() != null )
         {
             rule = new SetNextRule( getMethodName(), getParamType() );
         }
@@ -0,0 +1,51 @@
+package org.apache.commons.digester3.binder;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.function.Supplier;
+
+import org.apache.commons.digester3.StreamingBodyRule;
+
+/**
+ * Builder chained when invoking {@link LinkedRuleBuilder#writeBody(StreamingBodyRule.Destination)} or
+ * {@link LinkedRuleBuilder#decodeBase64Body(StreamingBodyRule.Destination)}.
+ *
+ * @since 3.3
+ */
+public final class StreamBodyBuilder
+    extends AbstractBackToLinkedRuleBuilder<StreamingBodyRule>
+{
+
+    private final Supplier<StreamingBodyRule> ruleFactory;
+
+    StreamBodyBuilder( final String keyPattern, final String namespaceURI, final RulesBinder mainBinder,
+                       final LinkedRuleBuilder mainBuilder, final Supplier<StreamingBodyRule> ruleFactory )
+    {
+        super( keyPattern, namespaceURI, mainBinder, mainBuilder );
+        this.ruleFactory = ruleFactory;
+    }
+
+    @Override
+    protected StreamingBodyRule createRule()
+    {
+        return ruleFactory.get();
+    }
+
+}
@@ -21,6 +21,7 @@ package org.apache.commons.digester3.plugins;
 
 import java.util.Properties;
 
+import org.apache.commons.digester3.ClassResolutionCache;
 import org.apache.commons.logging.Log;
 import org.apache.commons.digester3.Digester;
 
@@ -170,7 +171,7 @@ public class Declaration
             try
             {
                 // load the plugin class object
-                pluginClass = digester.getClassLoader().loadClass( pluginClassName );
+                pluginClass = ClassResolutionCache.loadClass( digester.getClassLoader(), pluginClassName );
             }
             catch ( final ClassNotFoundException cnfe )
             {
@@ -21,6 +21,7 @@ package org.apache.commons.digester3.plugins.strategies;
 
 import java.util.Properties;
 
+import org.apache.commons.digester3.ClassResolutionCache;
 import org.apache.commons.digester3.Digester;
 import org.apache.commons.digester3.plugins.PluginException;
 import org.apache.commons.digester3.plugins.RuleFinder;
@@ -128,7 +129,7 @@ public class FinderFromClass
         try
         {
             // load the plugin class object
-            ruleClass = digester.getClassLoader().loadClass( ruleClassName );
+            ruleClass = ClassResolutionCache.loadClass( digester.getClassLoader(), ruleClassName );
         }
         catch ( final ClassNotFoundException cnfe )
         {
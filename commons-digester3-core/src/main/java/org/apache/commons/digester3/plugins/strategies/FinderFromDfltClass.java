@@ -21,6 +21,7 @@ package org.apache.commons.digester3.plugins.strategies;
 
 import java.util.Properties;
 
+import org.apache.commons.digester3.ClassResolutionCache;
 import org.apache.commons.digester3.Digester;
 import org.apache.commons.digester3.plugins.PluginException;
 import org.apache.commons.digester3.plugins.RuleFinder;
@@ -90,7 +91,7 @@ public class FinderFromDfltClass
         Class<?> rulesClass;
         try
         {
-            rulesClass = digester.getClassLoader().loadClass( rulesClassName );
+            rulesClass = ClassResolutionCache.loadClass( digester.getClassLoader(), rulesClassName );
         }
         catch ( final ClassNotFoundException cnfe )
         {
@@ -0,0 +1,210 @@
+package org.apache.commons.digester3.substitution;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.digester3.Substitutor;
+import org.xml.sax.Attributes;
+
+/**
+ * Substitutor implementation that replaces attribute values and body text by canonical instances taken from a
+ * {@link StringPool}, before any rule sees them. Documents repeating a small set of values then produce object graphs
+ * sharing a single {@code String} instance per value.
+ * <p>
+ * Attribute values are only deduplicated when something actually asks for them. To combine deduplication with
+ * variable expansion, chain both substitutors, expanding first:
+ *
+ * <pre>
+ * digester.setSubstitutor( new CompoundSubstitutor( new VariableSubstitutor( expander ),
+ *                                                   new InterningSubstitutor( pool ) ) );
+ * </pre>
+ *
+ * Instances hold no per-document state, so they may be shared as the pool is.
+ *
+ * @since 3.3
+ */
+public class InterningSubstitutor
+    extends Substitutor
+{
+
+    /**
+     * Attributes wrapper returning the canonical instance of every value.
+     */
+    private static final class InterningAttributes
+        implements Attributes
+    {
+
+        private final Attributes attributes;
+
+        private final StringPool pool;
+
+        InterningAttributes( final Attributes attributes, final StringPool pool )
+        {
+            this.attributes = attributes;
+            this.pool = pool;
+        }
+
+        @Override
+        public int getIndex( final String qName )
+        {
+            return attributes.getIndex( qName );
+        }
+
+        @Override
+        public int getIndex( final String uri, final String localName )
+        {
+            return attributes.getIndex( uri, localName );
+        }
+
+        @Override
+        public int getLength()
+        {
+            return attributes.getLength();
+        }
+
+        @Override
+        public String getLocalName( final int index )
+        {
+            return attributes.getLocalName( index );
+        }
+
+        @Override
+        public String getQName( final int index )
+        {
+            return attributes.getQName( index );
+        }
+
+        @Override
+        public String getType( final int index )
+        {
+            return attributes.getType( index );
+        }
+
+        @Override
+        public String getType( final String qName )
+        {
+            return attributes.getType( qName );
+        }
+
+        @Override
+        public String getType( final String uri, final String localName )
+        {
+            return attributes.getType( uri, localName );
+        }
+
+        @Override
+        public String getURI( final int index )
+        {
+            return attributes.getURI( index );
+        }
+
+        @Override
+        public String getValue( final int index )
+        {
+            return pool.intern( attributes.getValue( index ) );
+        }
+
+        @Override
+        public String getValue( final String qName )
+        {
+            return pool.intern( attributes.getValue( qName ) );
+        }
+
+        @Override
+        public String getValue( final String uri, final String localName )
+        {
+            return pool.intern( attributes.getValue( uri, localName ) );
+        }
+
+    }
+
+    private final StringPool pool;
+
+    private final boolean internAttributes;
+
+    private final boolean internBodyText;
+
+    /**
+     * Constructs a Substitutor deduplicating both attribute values and body text through a new pool with the default
+     * bounds.
+     */
+    public InterningSubstitutor()
+    {
+        this( new StringPool() );
+    }
+
+    /**
+     * Constructs a Substitutor deduplicating both attribute values and body text through the given pool.
+     *
+     * @param pool the pool holding the canonical instances
+     */
+    public InterningSubstitutor( final StringPool pool )
+    {
+        this( pool, true, true );
+    }
+
+    /**
+     * Constructs a Substitutor.
+     *
+     * @param pool the pool holding the canonical instances
+     * @param internAttributes true if attribute values have to be deduplicated
+     * @param internBodyText true if body text has to be deduplicated
+     */
+    public InterningSubstitutor( final StringPool pool, final boolean internAttributes, final boolean internBodyText )
+    {
+        if ( pool == null )
+        {
+            throw new IllegalArgumentException( "StringPool must be not null" );
+        }
+        this.pool = pool;
+        this.internAttributes = internAttributes;
+        this.internBodyText = internBodyText;
+    }
+
+    /**
+     * Returns the pool holding the canonical instances, e.g. to observe its hit rate.
+     *
+     * @return the pool holding the canonical instances
+     */
+    public StringPool getPool()
+    {
+        return pool;
+    }
+
+    @Override
+    public Attributes substitute( final Attributes attributes )
+    {
+        if ( !internAttributes || attributes.getLength() == 0 )
+        {
+            return attributes;
+        }
+        return new InterningAttributes( attributes, pool );
+    }
+
+    @Override
+    public String substitute( final String bodyText )
+    {
+        if ( !internBodyText )
+        {
+            return bodyText;
+        }
+        return pool.intern( bodyText );
+    }
+
+}
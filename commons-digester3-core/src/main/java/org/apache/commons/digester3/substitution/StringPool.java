@@ -0,0 +1,173 @@
+package org.apache.commons.digester3.substitution;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded pool of canonical {@code String} instances: equal strings passed to {@link #intern(String)} are replaced
+ * by the first instance seen, so that repeated values share a single instance in the parsed object graphs.
+ * <p>
+ * Only strings not longer than a threshold are pooled. When the pool is full, the least recently used string is
+ * evicted. The hit rate is available through {@link #getHitRate()} to tune the pool size.
+ * <p>
+ * Instances are thread-safe, so a pool may be shared by several digesters to deduplicate values across documents.
+ *
+ * @see InterningSubstitutor
+ * @since 3.3
+ */
+public class StringPool
+{
+
+    /**
+     * The default maximum number of pooled strings.
+     */
+    public static final int DEFAULT_MAX_SIZE = 4096;
+
+    /**
+     * The default maximum length of the pooled strings.
+     */
+    public static final int DEFAULT_MAX_LENGTH = 64;
+
+    private final int maxLength;
+
+    private final Map<String, String> pool;
+
+    private long hits;
+
+    private long misses;
+
+    /**
+     * Creates a new pool with the default bounds.
+     */
+    public StringPool()
+    {
+        this( DEFAULT_MAX_SIZE, DEFAULT_MAX_LENGTH );
+    }
+
+    /**
+     * Creates a new pool with the given bounds.
+     *
+     * @param maxSize the maximum number of pooled strings
+     * @param maxLength the maximum length of the pooled strings, longer strings are returned as they are
+     */
+    public StringPool( final int maxSize, final int maxLength )
+    {
+        if ( maxSize < 1 )
+        {
+            throw new IllegalArgumentException( "Pool size must be positive, was " + maxSize );
+        }
+        if ( maxLength < 0 )
+        {
+            throw new IllegalArgumentException( "Maximum length must not be negative, was " + maxLength );
+        }
+        this.maxLength = maxLength;
+        this.pool = new LinkedHashMap<String, String>( 16, 0.75f, true )
+        {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry( final Map.Entry<String, String> eldest )
+            {
+                return size() > maxSize;
+            }
+
+        };
+    }
+
+    /**
+     * Discards the pooled strings and resets the statistics.
+     */
+    public synchronized void clear()
+    {
+        pool.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Returns the number of lookups that returned a pooled instance.
+     *
+     * @return the number of lookups that returned a pooled instance
+     */
+    public synchronized long getHitCount()
+    {
+        return hits;
+    }
+
+    /**
+     * Returns the ratio of lookups that returned a pooled instance, strings too long to be pooled excluded.
+     *
+     * @return the ratio of lookups that returned a pooled instance, between 0 and 1
+     */
+    public synchronized double getHitRate()
+    {
+        final long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Returns the number of lookups that added a new instance to the pool.
+     *
+     * @return the number of lookups that added a new instance to the pool
+     */
+    public synchronized long getMissCount()
+    {
+        return misses;
+    }
+
+    /**
+     * Returns the canonical instance of the given string.
+     *
+     * @param value the string to deduplicate, may be null
+     * @return the pooled instance equal to the given string, or the given string itself if it is not pooled yet or
+     *         is too long to be pooled
+     */
+    public synchronized String intern( final String value )
+    {
+        if ( value == null || value.length() > maxLength )
+        {
+            return value;
+        }
+
+        final String canonical = pool.get( value );
+        if ( canonical != null )
+        {
+            hits++;
+            return canonical;
+        }
+        misses++;
+        pool.put( value, value );
+        return value;
+    }
+
+    /**
+     * Returns the number of pooled strings.
+     *
+     * @return the number of pooled strings
+     */
+    public synchronized int size()
+    {
+        return pool.size();
+    }
+
+}
@@ -30,9 +30,12 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
+import org.apache.commons.digester3.DefaultResourceCache;
 import org.apache.commons.digester3.Digester;
+import org.apache.commons.digester3.ResourceCache;
 import org.apache.commons.digester3.binder.AbstractRulesModule;
 import org.xml.sax.InputSource;
 
@@ -50,10 +53,17 @@ public abstract class FromXmlRulesModule
 
     private static final String DIGESTER_DTD_PATH = "digester-rules.dtd";
 
+    /**
+     * Keeps the DTD and the XIncluded rules across module loads, file based entries are reloaded when they change.
+     */
+    private static final ResourceCache XML_RULES_CACHE = new DefaultResourceCache( 1024 * 1024, 0 );
+
     private final URL xmlRulesDtdUrl = FromXmlRulesModule.class.getResource( DIGESTER_DTD_PATH );
 
     private final Set<String> systemIds = new HashSet<>();
 
+    private final Set<String> loadedSystemIds = new LinkedHashSet<>();
+
     private String rootPath;
 
     @Override
@@ -63,6 +73,7 @@ public abstract class FromXmlRulesModule
         {
             throw new IllegalStateException( "Re-entry is not allowed." );
         }
+        loadedSystemIds.clear();
 
         try
         {
@@ -84,6 +95,18 @@ public abstract class FromXmlRulesModule
         return unmodifiableSet( systemIds );
     }
 
+    /**
+     * Returns the XML source SystemIds loaded by the last configuration of this module, still available once the
+     * module is configured.
+     *
+     * @return The XML source SystemIds loaded by the last configuration of this module
+     * @since 3.3
+     */
+    public final Set<String> getLoadedSystemIds()
+    {
+        return unmodifiableSet( loadedSystemIds );
+    }
+
     /**
      */
     protected abstract void loadRules();
@@ -127,11 +150,16 @@ public abstract class FromXmlRulesModule
         {
             addError( "XML rules file '%s' already bound", systemId );
         }
+        if ( systemId != null )
+        {
+            loadedSystemIds.add( systemId );
+        }
 
         final XmlRulesModule xmlRulesModule = new XmlRulesModule( new NameSpaceURIRulesBinder( rulesBinder() ),
                                                             getSystemIds(), rootPath );
         final Digester digester = newLoader( xmlRulesModule )
                 .register( DIGESTER_PUBLIC_ID, xmlRulesDtdUrl.toString() )
+                .setResourceCache( XML_RULES_CACHE )
                 .setXIncludeAware( true )
                 .setValidating( true )
                 .newDigester();
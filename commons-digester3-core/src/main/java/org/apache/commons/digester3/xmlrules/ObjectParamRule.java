@@ -22,6 +22,7 @@ package org.apache.commons.digester3.xmlrules;
 import static java.lang.Integer.parseInt;
 import static org.apache.commons.beanutils.ConvertUtils.convert;
 
+import org.apache.commons.digester3.ClassResolutionCache;
 import org.apache.commons.digester3.binder.LinkedRuleBuilder;
 import org.apache.commons.digester3.binder.ObjectParamBuilder;
 import org.apache.commons.digester3.binder.RulesBinder;
@@ -56,7 +57,7 @@ final class ObjectParamRule
         final int paramIndex = parseInt( paramNumber );
 
         // create object instance
-        final Class<?> clazz = getDigester().getClassLoader().loadClass( type );
+        final Class<?> clazz = ClassResolutionCache.loadClass( getDigester().getClassLoader(), type );
         Object param;
         if ( value != null )
         {
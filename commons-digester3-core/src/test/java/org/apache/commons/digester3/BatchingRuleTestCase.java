@@ -0,0 +1,194 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.apache.commons.digester3.BeanDocuments.newDocument;
+import static org.apache.commons.digester3.binder.DigesterLoader.newLoader;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import org.apache.commons.digester3.binder.AbstractRulesModule;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.SAXException;
+
+/**
+ * Test case for {@link BatchingRule} and {@code forPattern( ... ).batchTo( ... )}.
+ */
+public class BatchingRuleTestCase
+{
+
+    private static Digester newDigester( final Consumer<List<SimpleTestBean>> consumer,
+                                         final ExecutorService executor )
+    {
+        return newLoader( new AbstractRulesModule()
+        {
+
+            @Override
+            protected void configure()
+            {
+                forPattern( "beans/bean" ).createObject().ofType( SimpleTestBean.class )
+                    .then().setProperties()
+                    .then().batchTo( consumer, 3 ).usingExecutor( executor ).withMaxPendingBatches( 1 );
+            }
+
+        } ).newDigester();
+    }
+
+    @Test
+    void testSynchronousBatches()
+        throws Exception
+    {
+        final List<List<SimpleTestBean>> batches = new ArrayList<>();
+        final Digester digester = newDigester( batches::add, null );
+
+        digester.parse( new StringReader( newDocument( 7 ) ) );
+        assertEquals( 3, batches.size() );
+        assertEquals( 3, batches.get( 0 ).size() );
+        assertEquals( 1, batches.get( 2 ).size() );
+        assertEquals( "a6", batches.get( 2 ).get( 0 ).getAlpha() );
+
+        // the rule is reusable
+        digester.parse( new StringReader( newDocument( 2 ) ) );
+        assertEquals( 4, batches.size() );
+        assertEquals( 2, batches.get( 3 ).size() );
+    }
+
+    @Test
+    void testAsynchronousBatches()
+        throws Exception
+    {
+        final ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        try
+        {
+            final List<String> consumed = new ArrayList<>();
+            final Digester digester = newDigester( batch ->
+            {
+                for ( final SimpleTestBean bean : batch )
+                {
+                    consumed.add( bean.getAlpha() );
+                }
+            }, executor );
+
+            digester.parse( new StringReader( newDocument( 100 ) ) );
+            assertEquals( 100, consumed.size() );
+            for ( int i = 0; i < 100; i++ )
+            {
+                assertEquals( "a" + i, consumed.get( i ) );
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testConsumerFailure()
+    {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            final IllegalStateException failure = new IllegalStateException( "Database down" );
+            final Digester digester = newDigester( batch ->
+            {
+                throw failure;
+            }, executor );
+
+            final SAXException e =
+                assertThrows( SAXException.class, () -> digester.parse( new StringReader( newDocument( 20 ) ) ) );
+            assertSame( failure, e.getException() );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testConsumerFailureReportedOnce()
+        throws Exception
+    {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            final BatchingRule<SimpleTestBean> rule = new BatchingRule<>( batch ->
+            {
+                throw new IllegalStateException( batch.get( 0 ).getAlpha() );
+            }, 1 );
+            rule.setExecutor( executor );
+            rule.setMaxPendingBatches( 2 );
+            final Digester digester = new Digester();
+            rule.setDigester( digester );
+
+            // the batches chained after a failed one fail in turn, their failures are not reported again
+            final Set<Throwable> reported = Collections.newSetFromMap( new IdentityHashMap<>() );
+            for ( int i = 0; i < 1000; i++ )
+            {
+                final SimpleTestBean bean = new SimpleTestBean();
+                bean.setAlpha( "a" + i );
+                digester.push( bean );
+                try
+                {
+                    rule.end( null, "bean" );
+                }
+                catch ( final IllegalStateException e )
+                {
+                    assertTrue( reported.add( e ), e.getMessage() + " reported twice" );
+                }
+                digester.pop();
+            }
+            try
+            {
+                rule.finish();
+            }
+            catch ( final IllegalStateException e )
+            {
+                assertTrue( reported.add( e ), e.getMessage() + " reported twice" );
+            }
+            assertFalse( reported.isEmpty() );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testInvalidBatchSize()
+    {
+        assertThrows( IllegalArgumentException.class, () -> new BatchingRule<>( batch ->
+        {
+        }, 0 ) );
+    }
+
+}
@@ -0,0 +1,62 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+
+/**
+ * Builds the {@code <beans>} documents parsed into lists of {@link SimpleTestBean} by the tests exercising large
+ * inputs.
+ */
+final class BeanDocuments
+{
+
+    /**
+     * Returns a document made of the given number of {@code <bean alpha='aN'/>} elements, one per line: the element
+     * of index N is on line N + 2.
+     */
+    static String newDocument( final int beans )
+    {
+        final StringBuilder document = new StringBuilder( "<beans>\n" );
+        for ( int i = 0; i < beans; i++ )
+        {
+            document.append( "<bean alpha='a" ).append( i ).append( "'/>\n" );
+        }
+        return document.append( "</beans>" ).toString();
+    }
+
+    /**
+     * Returns a digester parsing the documents built by {@link #newDocument(int)} into an {@link ArrayList}.
+     */
+    static Digester newDigester()
+    {
+        final Digester digester = new Digester();
+        digester.addObjectCreate( "beans", ArrayList.class );
+        digester.addObjectCreate( "beans/bean", SimpleTestBean.class );
+        digester.addSetProperties( "beans/bean" );
+        digester.addSetNext( "beans/bean", "add" );
+        return digester;
+    }
+
+    private BeanDocuments()
+    {
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link ClassResolutionCache}.
+ */
+public class ClassResolutionCacheTestCase
+{
+
+    private static final class CountingClassLoader
+        extends ClassLoader
+    {
+
+        private int lookups;
+
+        CountingClassLoader()
+        {
+            super( ClassResolutionCacheTestCase.class.getClassLoader() );
+        }
+
+        @Override
+        protected Class<?> loadClass( final String name, final boolean resolve )
+            throws ClassNotFoundException
+        {
+            lookups++;
+            return super.loadClass( name, resolve );
+        }
+
+    }
+
+    @Test
+    void testPrimitiveTypes()
+        throws Exception
+    {
+        final CountingClassLoader classLoader = new CountingClassLoader();
+        assertSame( int.class, ClassResolutionCache.loadClass( classLoader, "int" ) );
+        assertSame( boolean.class, ClassResolutionCache.loadClass( null, "boolean" ) );
+        assertEquals( 0, classLoader.lookups );
+    }
+
+    @Test
+    void testCachedClasses()
+        throws Exception
+    {
+        final String name = SimpleTestBean.class.getName();
+        final CountingClassLoader classLoader = new CountingClassLoader();
+        assertSame( SimpleTestBean.class, ClassResolutionCache.loadClass( classLoader, name ) );
+        assertSame( SimpleTestBean.class, ClassResolutionCache.loadClass( classLoader, name ) );
+        assertEquals( 1, classLoader.lookups );
+
+        // each class loader has its own entries
+        final CountingClassLoader other = new CountingClassLoader();
+        assertSame( SimpleTestBean.class, ClassResolutionCache.loadClass( other, name ) );
+        assertEquals( 1, other.lookups );
+
+        assertSame( String.class, ClassResolutionCache.loadClass( null, "java.lang.String" ) );
+    }
+
+    @Test
+    void testCachedFailures()
+    {
+        final CountingClassLoader classLoader = new CountingClassLoader();
+        assertThrows( ClassNotFoundException.class,
+                      () -> ClassResolutionCache.loadClass( classLoader, "org.example.DoesNotExist" ) );
+        assertThrows( ClassNotFoundException.class,
+                      () -> ClassResolutionCache.loadClass( classLoader, "org.example.DoesNotExist" ) );
+        assertEquals( 1, classLoader.lookups );
+    }
+
+}
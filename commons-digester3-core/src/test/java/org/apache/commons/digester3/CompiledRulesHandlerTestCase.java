@@ -0,0 +1,234 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.xml.sax.SAXException;
+
+/**
+ * Test case for {@link CompiledRulesHandler} and {@link Digester#setCompileRules(boolean)}.
+ */
+public class CompiledRulesHandlerTestCase
+{
+
+    private static final String DOCUMENT = "<employees>"
+        + "<employee firstName='Roger' lastName='Rabbit' age='42'>"
+        + "<salary> 1000.5 </salary><active>true</active>"
+        + "<address type='home' street='1 Main St' city='Toontown'/>"
+        + "<address type='office'><city>Hollywood</city><street>2 Studio Rd</street></address>"
+        + "</employee>"
+        + "<employee firstName='Jessica' unknown='ignored'><!-- no salary --></employee>"
+        + "</employees>";
+
+    private static Digester newDigester( final boolean compileRules )
+    {
+        final Digester digester = new Digester();
+        digester.setCompileRules( compileRules );
+        digester.addObjectCreate( "employees", ArrayList.class );
+        digester.addObjectCreate( "employees/employee", Employee.class );
+        digester.addSetProperties( "employees/employee" );
+        digester.addSetNext( "employees/employee", "add" );
+        digester.addBeanPropertySetter( "employees/employee/salary" );
+        digester.addCallMethod( "employees/employee/active", "setActive", 1, new Class<?>[] { boolean.class } );
+        digester.addCallParam( "employees/employee/active", 0 );
+        digester.addObjectCreate( "employees/employee/address", Address.class );
+        digester.addSetProperties( "employees/employee/address" );
+        digester.addBeanPropertySetter( "employees/employee/address/city" );
+        digester.addBeanPropertySetter( "employees/employee/address/street" );
+        digester.addSetNext( "employees/employee/address", "addAddress" );
+        return digester;
+    }
+
+    @Test
+    void testCompiledRulesBindLikeInterpretedRules()
+        throws Exception
+    {
+        final Digester compiled = newDigester( true );
+        assertTrue( compiled.isCompileRules() );
+
+        for ( final Digester digester : new Digester[] { newDigester( false ), compiled, compiled } )
+        {
+            final List<Employee> employees = digester.parse( new StringReader( DOCUMENT ) );
+            assertEquals( 2, employees.size() );
+
+            final Employee roger = employees.get( 0 );
+            assertEquals( "Roger", roger.getFirstName() );
+            assertEquals( "Rabbit", roger.getLastName() );
+            assertEquals( 42, roger.getAge() );
+            assertEquals( 1000.5F, roger.getSalary(), 0 );
+            assertTrue( roger.isActive() );
+            assertEquals( "Toontown", roger.getAddress( "home" ).getCity() );
+            assertEquals( "1 Main St", roger.getAddress( "home" ).getStreet() );
+            assertEquals( "Hollywood", roger.getAddress( "office" ).getCity() );
+            assertEquals( "2 Studio Rd", roger.getAddress( "office" ).getStreet() );
+
+            assertEquals( "Jessica", employees.get( 1 ).getFirstName() );
+            assertEquals( 0F, employees.get( 1 ).getSalary(), 0 );
+        }
+    }
+
+    @Test
+    void testMapsBindLikeInterpretedRules()
+        throws Exception
+    {
+        final List<Object> results = new ArrayList<>();
+        for ( final boolean compileRules : new boolean[] { false, true } )
+        {
+            final Digester digester = new Digester();
+            digester.setCompileRules( compileRules );
+            digester.addObjectCreate( "r", HashMap.class );
+            digester.addSetProperties( "r" );
+            results.add( digester.parse( new StringReader( "<r a='1' b='2'/>" ) ) );
+        }
+
+        final Map<String, String> expected = new HashMap<>();
+        expected.put( "a", "1" );
+        expected.put( "b", "2" );
+        assertEquals( expected, results.get( 0 ) );
+        assertEquals( results.get( 0 ), results.get( 1 ) );
+    }
+
+    @Test
+    void testCompilation()
+    {
+        final Digester digester = newDigester( true );
+        assertNotNull( CompiledRulesHandler.compile( digester ) );
+
+        digester.addRule( "employees/employee", new Rule()
+        {
+        } );
+        assertNull( CompiledRulesHandler.compile( digester ) );
+
+        final Digester wildcard = newDigester( true );
+        wildcard.addSetProperties( "*/address" );
+        assertNull( CompiledRulesHandler.compile( wildcard ) );
+    }
+
+    @Test
+    void testRulesAddedAfterFirstParse()
+        throws Exception
+    {
+        final List<String> ends = new ArrayList<>();
+        final Digester digester = newDigester( true );
+        digester.parse( new StringReader( DOCUMENT ) );
+
+        // the custom rule cannot be compiled, the rules are interpreted from now on
+        digester.addRule( "employees/employee", new Rule()
+        {
+
+            @Override
+            public void end( final String namespace, final String name )
+            {
+                ends.add( getDigester().<Employee>peek().getFirstName() );
+            }
+
+        } );
+        digester.parse( new StringReader( DOCUMENT ) );
+        assertEquals( 2, ends.size() );
+        assertEquals( "Jessica", ends.get( 1 ) );
+    }
+
+    @Test
+    void testRulesReplacedByAsManyRules()
+        throws Exception
+    {
+        final Digester digester = new Digester();
+        digester.setCompileRules( true );
+        digester.addObjectCreate( "employees", ArrayList.class );
+        assertNull( digester.parse( new StringReader( "<addresses/>" ) ) );
+
+        digester.getRules().clear();
+        digester.addObjectCreate( "addresses", ArrayList.class );
+        assertNotNull( digester.parse( new StringReader( "<addresses/>" ) ) );
+    }
+
+    public static final class MatchRecorder
+    {
+
+        private final Digester digester;
+
+        private final List<String> matches = new ArrayList<>();
+
+        MatchRecorder( final Digester digester )
+        {
+            this.digester = digester;
+        }
+
+        public void record( final String text )
+        {
+            matches.add( digester.getMatch() + '=' + text );
+        }
+
+    }
+
+    @Test
+    void testMatchMaintained()
+        throws Exception
+    {
+        final Digester digester = new Digester();
+        digester.setCompileRules( true );
+        final MatchRecorder recorder = new MatchRecorder( digester );
+        digester.push( recorder );
+        digester.addCallMethod( "root/item", "record", 0 );
+        digester.addCallMethod( "root/group/item", "record", 0 );
+        assertNotNull( CompiledRulesHandler.compile( digester ) );
+
+        digester.parse( new StringReader( "<root><other><item>0</item></other><item>1</item>"
+            + "<group><item>2</item></group></root>" ) );
+        assertEquals( 2, recorder.matches.size() );
+        assertEquals( "root/item=1", recorder.matches.get( 0 ) );
+        assertEquals( "root/group/item=2", recorder.matches.get( 1 ) );
+        assertEquals( "", digester.getMatch() );
+    }
+
+    @Test
+    void testMissingProperties()
+    {
+        for ( final boolean compileRules : new boolean[] { false, true } )
+        {
+            final Digester digester = newDigester( compileRules );
+            digester.addBeanPropertySetter( "employees/employee/nickname" );
+            final SAXException e = assertThrows( SAXException.class, () -> digester.parse(
+                new StringReader( "<employees><employee><nickname>Bugs</nickname></employee></employees>" ) ) );
+            assertTrue( e.getException() instanceof NoSuchMethodException );
+
+            final Digester strict = new Digester();
+            strict.setCompileRules( compileRules );
+            final SetPropertiesRule setProperties = new SetPropertiesRule();
+            setProperties.setIgnoreMissingProperty( false );
+            strict.addObjectCreate( "employee", Employee.class );
+            strict.addRule( "employee", setProperties );
+            assertThrows( SAXException.class, () -> strict.parse( new StringReader( "<employee unknown='x'/>" ) ) );
+        }
+    }
+
+}
@@ -0,0 +1,193 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.apache.commons.digester3.binder.DigesterLoader.newLoader;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import javax.xml.XMLConstants;
+import javax.xml.validation.Schema;
+
+import org.apache.commons.digester3.binder.AbstractRulesModule;
+import org.apache.commons.digester3.binder.DigesterLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xml.sax.SAXException;
+
+/**
+ * Test case for {@link DefaultResourceCache}.
+ */
+public class DefaultResourceCacheTestCase
+{
+
+    private static final class CountingResourceCache
+        extends DefaultResourceCache
+    {
+
+        private int reads;
+
+        private int compilations;
+
+        CountingResourceCache( final long maxContentBytes )
+        {
+            super( maxContentBytes, 1 );
+        }
+
+        @Override
+        protected byte[] readContent( final URL url )
+            throws IOException
+        {
+            reads++;
+            return super.readContent( url );
+        }
+
+        @Override
+        protected Schema newSchema( final URL url, final String schemaLanguage )
+            throws SAXException
+        {
+            compilations++;
+            return super.newSchema( url, schemaLanguage );
+        }
+
+    }
+
+    @TempDir
+    File directory;
+
+    private URL write( final String name, final String content, final long lastModified )
+        throws IOException
+    {
+        final File file = new File( directory, name );
+        Files.write( file.toPath(), content.getBytes( StandardCharsets.UTF_8 ) );
+        file.setLastModified( lastModified );
+        return file.toURI().toURL();
+    }
+
+    @Test
+    void testInvalidateModifiedFiles()
+        throws Exception
+    {
+        final CountingResourceCache cache = new CountingResourceCache( 1024 );
+        final URL url = write( "entity.txt", "first", 1000000L );
+
+        assertArrayEquals( "first".getBytes( StandardCharsets.UTF_8 ), cache.getContent( url ) );
+        assertArrayEquals( "first".getBytes( StandardCharsets.UTF_8 ), cache.getContent( url ) );
+        assertEquals( 1, cache.reads );
+
+        write( "entity.txt", "second", 2000000L );
+        assertArrayEquals( "second".getBytes( StandardCharsets.UTF_8 ), cache.getContent( url ) );
+        assertEquals( 2, cache.reads );
+    }
+
+    @Test
+    void testEvictLeastRecentlyUsed()
+        throws Exception
+    {
+        final CountingResourceCache cache = new CountingResourceCache( 10 );
+        final URL first = write( "first.txt", "123456", 1000000L );
+        final URL second = write( "second.txt", "abcdef", 1000000L );
+        final URL tooLarge = write( "large.txt", "12345678901", 1000000L );
+
+        cache.getContent( first );
+        cache.getContent( second );
+        cache.getContent( second );
+        assertEquals( 2, cache.reads );
+        cache.getContent( first );
+        assertEquals( 3, cache.reads );
+
+        cache.getContent( tooLarge );
+        cache.getContent( tooLarge );
+        assertEquals( 5, cache.reads );
+        cache.getContent( first );
+        assertEquals( 5, cache.reads );
+    }
+
+    @Test
+    void testCacheSchemas()
+        throws Exception
+    {
+        final DefaultResourceCache cache = new DefaultResourceCache();
+        final URL url = getClass().getResource( "Test13.xsd" );
+        assertSame( cache.getSchema( url, XMLConstants.W3C_XML_SCHEMA_NS_URI ),
+                    cache.getSchema( url, XMLConstants.W3C_XML_SCHEMA_NS_URI ) );
+    }
+
+    @Test
+    void testCompileSchemasThroughCache()
+        throws Exception
+    {
+        final CountingResourceCache cache = new CountingResourceCache( 1024 );
+        final URL url = getClass().getResource( "Test13.xsd" );
+        final AbstractRulesModule module = new AbstractRulesModule()
+        {
+
+            @Override
+            protected void configure()
+            {
+                forPattern( "employee" ).createObject().ofType( Employee.class );
+            }
+
+        };
+
+        for ( int i = 0; i < 2; i++ )
+        {
+            final Digester digester = newLoader( module ).setNamespaceAware( true ).setResourceCache( cache )
+                .setSchema( url, XMLConstants.W3C_XML_SCHEMA_NS_URI ).newDigester();
+            assertNotNull( digester.parse( getClass().getResourceAsStream( "Test13-01.xml" ) ) );
+        }
+        final Digester digester = new Digester();
+        digester.setResourceCache( cache );
+        digester.setXMLSchema( url, XMLConstants.W3C_XML_SCHEMA_NS_URI );
+        assertEquals( 1, cache.compilations );
+    }
+
+    @Test
+    void testResolveEntitiesThroughCache()
+        throws Exception
+    {
+        final CountingResourceCache cache = new CountingResourceCache( 1024 );
+        final DigesterLoader loader = newLoader( new AbstractRulesModule()
+        {
+
+            @Override
+            protected void configure()
+            {
+                // do nothing
+            }
+
+        } ).setValidating( true ).setResourceCache( cache );
+
+        final File document =
+            new File( "src/test/resources/org/apache/commons/digester3/document-with-relative-dtd.xml" );
+        loader.newDigester().parse( document );
+        loader.newDigester().parse( document );
+        assertEquals( 1, cache.reads );
+    }
+
+}
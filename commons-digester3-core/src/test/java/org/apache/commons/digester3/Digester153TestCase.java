@@ -22,9 +22,13 @@ package org.apache.commons.digester3;
 import static org.apache.commons.digester3.binder.DigesterLoader.newLoader;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.StringReader;
+import java.util.List;
+
 import org.apache.commons.digester3.annotations.FromAnnotationsRuleModule;
 import org.apache.commons.digester3.binder.AbstractRulesModule;
 import org.apache.commons.digester3.binder.RulesModule;
@@ -201,4 +205,69 @@ public final class Digester153TestCase
         assertEquals( 9.99D, bean.getDoubleProperty(), 0 );
     }
 
+    @Test
+    void testConstructorWithAttributeAndElementWithoutProxy()
+        throws Exception
+    {
+        final ObjectCreateRule createRule = new ObjectCreateRule( TestBean.class );
+        createRule.setConstructorArgumentTypes( boolean.class, double.class );
+        createRule.setUseProxy( false );
+
+        final Digester digester = new Digester();
+        digester.addRule( "toplevel/bean", createRule );
+        digester.addCallParam( "toplevel/bean", 0, "boolean" );
+        digester.addCallParam( "toplevel/bean/double", 1 );
+        digester.addBeanPropertySetter( "toplevel/bean/float", "floatProperty" );
+
+        for ( int i = 0; i < 2; i++ )
+        {
+            final TestBean bean =
+                digester.parse( getClass().getResourceAsStream( "ConstructorWithAttributeAndElement.xml" ) );
+
+            assertSame( TestBean.class, bean.getClass() );
+            assertTrue( bean.getBooleanProperty() );
+            assertEquals( 9.99D, bean.getDoubleProperty(), 0 );
+            assertEquals( Float.valueOf( 5.5f ), Float.valueOf( bean.getFloatProperty() ) );
+        }
+    }
+
+    @Test
+    void testDeferredCallsWithoutProxy()
+        throws Exception
+    {
+        final List<TestBean> beans = newLoader( new AbstractRulesModule()
+        {
+
+            @Override
+            protected void configure()
+            {
+                forPattern( "toplevel" ).createObject().ofType( "java.util.ArrayList" );
+                forPattern( "toplevel/bean" )
+                    .createObject().ofType( TestBean.class ).usingConstructor( boolean.class, double.class )
+                        .usingProxy( false )
+                    .then()
+                    .callParam().fromAttribute( "boolean" ).ofIndex( 0 )
+                    .then()
+                    .callParam().fromAttribute( "double" ).ofIndex( 1 )
+                    .then()
+                    .setProperties().addAlias( "int", "intProperty" )
+                    .then()
+                    .setNext( "add" );
+                forPattern( "toplevel/bean/string" ).callMethod( "setStringProperty" ).usingElementBodyAsArgument();
+            }
+
+        } ).newDigester().parse( new StringReader( "<toplevel>"
+            + "<bean boolean='true' double='1.5' int='3'><string>first</string></bean>"
+            + "<bean boolean='false' double='2.5' int='4'/>"
+            + "</toplevel>" ) );
+
+        assertEquals( 2, beans.size() );
+        assertTrue( beans.get( 0 ).getBooleanProperty() );
+        assertEquals( 1.5D, beans.get( 0 ).getDoubleProperty(), 0 );
+        assertEquals( 3, beans.get( 0 ).getIntProperty() );
+        assertEquals( "first", beans.get( 0 ).getStringProperty() );
+        assertFalse( beans.get( 1 ).getBooleanProperty() );
+        assertEquals( 4, beans.get( 1 ).getIntProperty() );
+    }
+
 }
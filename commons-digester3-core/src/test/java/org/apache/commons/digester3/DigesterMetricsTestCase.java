@@ -0,0 +1,132 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.apache.commons.digester3.binder.DigesterLoader.newLoader;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.digester3.binder.AbstractRulesModule;
+import org.apache.commons.digester3.binder.DigesterLoader;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Test case for {@link DigesterMetrics} and the {@link ParseListener} notifications.
+ */
+public class DigesterMetricsTestCase
+{
+
+    private static final String DOCUMENT =
+        "<employee firstName='First'><address type='home'/><address type='office'/></employee>";
+
+    private final DigesterMetrics metrics = new DigesterMetrics();
+
+    private final DigesterLoader loader = newLoader( new AbstractRulesModule()
+    {
+
+        @Override
+        protected void configure()
+        {
+            forPattern( "employee" ).createObject().ofType( Employee.class ).then().setProperties();
+            forPattern( "employee/address" ).createObject().ofType( Address.class )
+                .then().setProperties()
+                .then().setNext( "addAddress" );
+        }
+
+    } ).setParseListener( metrics );
+
+    @Test
+    void testCountDocuments()
+        throws Exception
+    {
+        final byte[] bytes = DOCUMENT.getBytes( StandardCharsets.UTF_8 );
+        final Digester digester = loader.newDigester();
+        assertSame( metrics, digester.getParseListener() );
+
+        final InputSource input = new InputSource( new ByteArrayInputStream( bytes ) );
+        final Employee employee = digester.parse( input );
+        assertEquals( "First", employee.getFirstName() );
+        assertEquals( "office", employee.getAddress( "office" ).getType() );
+        assertFalse( input.getByteStream() instanceof CountingInputStream );
+
+        loader.newDigester().parse( new StringReader( DOCUMENT ) );
+
+        assertEquals( 2, metrics.getDocumentCount() );
+        assertEquals( 0, metrics.getExceptionCount() );
+        assertEquals( 6, metrics.getElementCount() );
+        assertEquals( bytes.length + DOCUMENT.length(), metrics.getByteCount() );
+        // 2 rules on employee and 3 on each address
+        assertEquals( 16, metrics.getRuleFiringCount() );
+        assertTrue( metrics.getParseTimePercentileNanos( 100 ) > 0 );
+        assertTrue( metrics.getParseTime99thPercentileMillis() <= metrics.getMaxParseTimeMillis() );
+
+        metrics.reset();
+        assertEquals( 0, metrics.getDocumentCount() );
+        assertEquals( 0, metrics.getParseTimePercentileNanos( 50 ) );
+    }
+
+    @Test
+    void testCountFailures()
+    {
+        final Digester digester = loader.newDigester();
+        assertThrows( SAXException.class, () -> digester.parse( new StringReader( "<employee><address>" ) ) );
+
+        assertEquals( 1, metrics.getDocumentCount() );
+        assertEquals( 1, metrics.getExceptionCount() );
+        assertEquals( 2, metrics.getElementCount() );
+    }
+
+    @Test
+    void testRegisterMBean()
+        throws Exception
+    {
+        final ObjectName objectName = metrics.registerMBean( "test" );
+        try
+        {
+            loader.newDigester().parse( new StringReader( DOCUMENT ) );
+
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals( 1L, server.getAttribute( objectName, "DocumentCount" ) );
+            assertEquals( 3L, server.getAttribute( objectName, "ElementCount" ) );
+            assertThrows( IllegalStateException.class, () -> metrics.registerMBean( "test" ) );
+        }
+        finally
+        {
+            metrics.unregisterMBean();
+        }
+        assertNull( metrics.getObjectName() );
+        assertFalse( ManagementFactory.getPlatformMBeanServer().isRegistered( objectName ) );
+    }
+
+}
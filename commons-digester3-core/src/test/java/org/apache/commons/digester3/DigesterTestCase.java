@@ -270,6 +270,39 @@ public class DigesterTestCase
         assertThrows( EmptyStackException.class, () -> digester.peek( "no.such.stack", 0 ), "Peeking a non-existent stack failed to throw an exception." );
     }
 
+    /** Tests that handles and names operate on the same named stacks */
+    @Test
+    void testNamedStackHandle()
+    {
+        final String testStackName = "org.apache.commons.digester3.tests.testNamedStackHandle";
+        final Digester digester = new Digester();
+        final StackHandle handle = digester.getStackHandle( testStackName );
+        assertSame( handle, digester.getStackHandle( testStackName ) );
+        assertEquals( testStackName, handle.getName() );
+        assertTrue( digester.isEmpty( handle ) );
+
+        for ( int i = 0; i < 20; i++ )
+        {
+            digester.push( handle, i );
+        }
+        digester.push( testStackName, "top" );
+        assertEquals( "top", digester.peek( handle ) );
+        assertEquals( Integer.valueOf( 19 ), digester.peek( handle, 1 ) );
+        assertEquals( "top", digester.pop( handle ) );
+        assertEquals( Integer.valueOf( 19 ), digester.pop( testStackName ) );
+        assertThrows( EmptyStackException.class, () -> digester.peek( handle, 19 ) );
+
+        // handles survive clear()
+        digester.clear();
+        assertTrue( digester.isEmpty( testStackName ) );
+        assertThrows( EmptyStackException.class, () -> digester.pop( handle ) );
+        digester.push( handle, "again" );
+        assertEquals( "again", digester.peek( testStackName ) );
+
+        // handles are bound to their digester
+        assertThrows( IllegalArgumentException.class, () -> new Digester().push( handle, "other" ) );
+    }
+
     /**
      * Test {@code null} parsing. (should lead to {@code IllegalArgumentException}s)
      */
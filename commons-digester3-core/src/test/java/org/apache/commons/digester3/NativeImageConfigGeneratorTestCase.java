@@ -0,0 +1,131 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+import org.apache.commons.digester3.annotations.fieldinjection.Contact;
+import org.apache.commons.digester3.binder.AbstractRulesModule;
+import org.apache.commons.digester3.xmlrules.FromXmlRulesModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test case for {@link NativeImageConfigGenerator}.
+ */
+public class NativeImageConfigGeneratorTestCase
+{
+
+    @TempDir
+    File outputDirectory;
+
+    private String read( final String fileName )
+        throws Exception
+    {
+        return new String( Files.readAllBytes( new File( outputDirectory, fileName ).toPath() ),
+                           StandardCharsets.UTF_8 );
+    }
+
+    @Test
+    void testGenerateMetadata()
+        throws Exception
+    {
+        final NativeImageConfigGenerator generator = new NativeImageConfigGenerator( getClass().getClassLoader() );
+        generator.addModules( new AbstractRulesModule()
+        {
+
+            @Override
+            protected void configure()
+            {
+                forPattern( "employees" ).createObject().ofType( ArrayList.class );
+                forPattern( "employees/employee" ).createObject().ofType( Employee.class )
+                    .then().setProperties()
+                    .then().setNext( "add" );
+                forPattern( "employees/employee/address" ).createObject().ofType( Address.class )
+                    .then().setNext( "addAddress" ).withParameterType( Address.class );
+                forPattern( "employees/employee/age" ).callMethod( "setAge" ).withParamTypes( Integer.class );
+            }
+
+        }, new FromXmlRulesModule()
+        {
+
+            @Override
+            protected void loadRules()
+            {
+                loadXMLRules( getClass().getResource( "xmlrules/constructor-testrules.xml" ) );
+            }
+
+        } );
+
+        assertTrue( generator.getClassNames().contains( ArrayList.class.getName() ) );
+        assertTrue( generator.getClassNames().contains( Employee.class.getName() ) );
+        assertTrue( generator.getClassNames().contains( Address.class.getName() ) );
+        assertTrue( generator.getClassNames().contains( TestBean.class.getName() ) );
+        assertTrue( generator.getClassNames().contains( Integer.class.getName() ) );
+        assertTrue( generator.getResources().contains( "org/apache/commons/digester3/xmlrules/digester-rules.dtd" ) );
+        assertTrue( generator.getResources()
+                             .contains( "org/apache/commons/digester3/xmlrules/constructor-testrules.xml" ) );
+
+        generator.write( outputDirectory );
+        final String reflectConfig = read( NativeImageConfigGenerator.REFLECT_CONFIG );
+        assertTrue( reflectConfig.contains( "\"name\" : \"" + Employee.class.getName() + "\"" ) );
+        assertEquals( generator.getClassNames().size(), reflectConfig.split( "allPublicMethods" ).length - 1 );
+
+        final String resourceConfig = read( NativeImageConfigGenerator.RESOURCE_CONFIG );
+        assertTrue( resourceConfig.contains(
+            "{ \"pattern\" : \"\\\\Qorg/apache/commons/digester3/xmlrules/digester-rules.dtd\\\\E\" }" ) );
+    }
+
+    @Test
+    void testRegisterInjectedFields()
+        throws Exception
+    {
+        final NativeImageConfigGenerator generator = new NativeImageConfigGenerator( getClass().getClassLoader() );
+        generator.addModules( new AbstractRulesModule()
+        {
+
+            @Override
+            protected void configure()
+            {
+                forPattern( "contact" ).createObject().ofType( Contact.class )
+                    .then().setField( "id" ).fromAttribute( "id" );
+                forPattern( "contact/name" ).setField( "name" );
+                forPattern( "*/score" ).setField( "score" );
+            }
+
+        } );
+
+        // the class of the object the wildcard rule assigns cannot be inferred
+        assertEquals( "[id, name]", generator.getFieldNames( Contact.class.getName() ).toString() );
+
+        generator.write( outputDirectory );
+        final String reflectConfig = read( NativeImageConfigGenerator.REFLECT_CONFIG ).replace( "\r\n", "\n" );
+        assertTrue( reflectConfig.contains( "\"allPublicMethods\" : true,\n    \"fields\" : [\n"
+            + "      { \"name\" : \"id\", \"allowWrite\" : true },\n"
+            + "      { \"name\" : \"name\", \"allowWrite\" : true }\n    ]" ) );
+    }
+
+}
@@ -0,0 +1,123 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.apache.commons.digester3.binder.DigesterLoader.newLoader;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.digester3.ParseLimits.Limit;
+import org.apache.commons.digester3.binder.AbstractRulesModule;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link ParseLimits}.
+ */
+public class ParseLimitsTestCase
+{
+
+    private static void assertExceeded( final Limit limit, final ParseLimits limits, final String document )
+    {
+        final Digester digester = new Digester();
+        digester.addObjectCreate( "*/bean", SimpleTestBean.class );
+        digester.setParseLimits( limits );
+
+        final long before = limits.getExceededCount( limit );
+        final ParseLimitExceededException e =
+            assertThrows( ParseLimitExceededException.class, () -> digester.parse( new StringReader( document ) ) );
+        assertSame( limit, e.getLimit() );
+        assertEquals( before + 1, limits.getExceededCount( limit ) );
+        assertTrue( e.getLineNumber() > 0 );
+    }
+
+    @Test
+    void testBudgets()
+    {
+        assertExceeded( Limit.DEPTH, new ParseLimits().setMaxDepth( 2 ), "<a><b><c/></b></a>" );
+        assertExceeded( Limit.ELEMENTS, new ParseLimits().setMaxElements( 3 ), "<a><b/><b/><b/></a>" );
+        assertExceeded( Limit.ATTRIBUTES, new ParseLimits().setMaxAttributes( 1 ), "<a x='1' y='2'/>" );
+        assertExceeded( Limit.BODY_CHARACTERS, new ParseLimits().setMaxBodyCharacters( 4 ), "<a>12345</a>" );
+        assertExceeded( Limit.TOTAL_CHARACTERS, new ParseLimits().setMaxTotalCharacters( 5 ),
+                        "<a><b>123</b><b>456</b></a>" );
+        assertExceeded( Limit.STACK_SIZE, new ParseLimits().setMaxStackSize( 2 ),
+                        "<a><bean><bean><bean/></bean></bean></a>" );
+    }
+
+    @Test
+    void testDuration()
+    {
+        final StringBuilder document = new StringBuilder( "<a>" );
+        for ( int i = 0; i < 1000; i++ )
+        {
+            document.append( "<b/>" );
+        }
+        document.append( "</a>" );
+        final ParseLimits limits = new ParseLimits().setMaxDuration( 1, TimeUnit.NANOSECONDS );
+        assertExceeded( Limit.DURATION, limits, document.toString() );
+        assertEquals( 1, limits.getMaxDurationNanos() );
+    }
+
+    @Test
+    void testWithinBudgets()
+        throws Exception
+    {
+        final ParseLimits limits = new ParseLimits()
+            .setMaxDepth( 3 )
+            .setMaxElements( 3 )
+            .setMaxAttributes( 1 )
+            .setMaxBodyCharacters( 3 )
+            .setMaxStackSize( 2 );
+        final Digester digester = newLoader( new AbstractRulesModule()
+        {
+
+            @Override
+            protected void configure()
+            {
+                forPattern( "a" ).createObject().ofType( SimpleTestBean.class );
+                forPattern( "a/b" ).createObject().ofType( SimpleTestBean.class );
+            }
+
+        } ).setParseLimits( limits ).newDigester();
+        assertSame( limits, digester.getParseLimits() );
+
+        // budgets apply to each document
+        for ( int i = 0; i < 2; i++ )
+        {
+            assertNotNull( digester.parse( new StringReader( "<a><b x='1'><c>abc</c></b></a>" ) ) );
+        }
+        for ( final Limit limit : Limit.values() )
+        {
+            assertEquals( 0, limits.getExceededCount( limit ) );
+        }
+    }
+
+    @Test
+    void testInvalidBudget()
+    {
+        assertThrows( IllegalArgumentException.class, () -> new ParseLimits().setMaxDepth( 0 ) );
+    }
+
+}
@@ -0,0 +1,160 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.xml.sax.Attributes;
+
+/**
+ * Test case for {@link Digester#stop()} and the stop conditions.
+ */
+public class ParseStopTestCase
+{
+
+    private static final class TrackingInputStream
+        extends ByteArrayInputStream
+    {
+
+        boolean closed;
+
+        TrackingInputStream( final String content )
+        {
+            super( content.getBytes( StandardCharsets.UTF_8 ) );
+        }
+
+        @Override
+        public void close()
+            throws IOException
+        {
+            closed = true;
+            super.close();
+        }
+
+    }
+
+    private static String newDocument()
+    {
+        // never reached, it is not well-formed
+        return BeanDocuments.newDocument( 1000 ).replace( "</beans>", "<unclosed>" );
+    }
+
+    private static Digester newDigester( final int[] finished )
+    {
+        final Digester digester = BeanDocuments.newDigester();
+        digester.addRule( "beans", new Rule()
+        {
+
+            @Override
+            public void finish()
+            {
+                finished[0]++;
+            }
+
+        } );
+        return digester;
+    }
+
+    @Test
+    void testStopRule()
+        throws Exception
+    {
+        final int[] finished = { 0 };
+        final Digester digester = newDigester( finished );
+        digester.addRule( "beans/bean", new Rule()
+        {
+
+            @Override
+            public void end( final String namespace, final String name )
+            {
+                final SimpleTestBean bean = getDigester().peek();
+                if ( "a2".equals( bean.getAlpha() ) )
+                {
+                    getDigester().stop();
+                }
+            }
+
+        } );
+
+        final TrackingInputStream input = new TrackingInputStream( newDocument() );
+        final List<SimpleTestBean> beans = digester.parse( input );
+        assertEquals( 3, beans.size() );
+        assertEquals( 1, finished[0] );
+        assertTrue( input.closed );
+        assertEquals( 0, digester.getCount() );
+
+        // the digester can be reused
+        assertEquals( 3, digester.<List<?>>parse( new TrackingInputStream( newDocument() ) ).size() );
+    }
+
+    @Test
+    void testStopOnBegin()
+        throws Exception
+    {
+        final int[] finished = { 0 };
+        final Digester digester = newDigester( finished );
+        digester.addRule( "beans/bean", new Rule()
+        {
+
+            @Override
+            public void begin( final String namespace, final String name, final Attributes attributes )
+            {
+                getDigester().stop();
+            }
+
+        } );
+
+        final List<SimpleTestBean> beans = digester.parse( new TrackingInputStream( newDocument() ) );
+        assertTrue( beans.isEmpty() );
+        assertEquals( 1, finished[0] );
+    }
+
+    @Test
+    void testAddStop()
+        throws Exception
+    {
+        final Digester digester = newDigester( new int[1] );
+        digester.addStop( "beans/bean" );
+        digester.setPipelineCapacity( 4 );
+
+        final List<SimpleTestBean> beans = digester.parse( new TrackingInputStream( newDocument() ) );
+        assertEquals( 1, beans.size() );
+        assertEquals( "a0", beans.get( 0 ).getAlpha() );
+    }
+
+    @Test
+    void testStopCondition()
+        throws Exception
+    {
+        final Digester digester = newDigester( new int[1] );
+        digester.setStopCondition( d -> d.getCount() == 1 && d.<List<?>>peek().size() == 10 );
+
+        final List<SimpleTestBean> beans = digester.parse( new TrackingInputStream( newDocument() ) );
+        assertEquals( 10, beans.size() );
+    }
+
+}
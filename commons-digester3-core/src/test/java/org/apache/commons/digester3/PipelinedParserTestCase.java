@@ -0,0 +1,300 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.LocatorImpl;
+
+/**
+ * Test case for the pipelined parsing enabled by {@link Digester#setPipelineCapacity(int)}.
+ */
+public class PipelinedParserTestCase
+{
+
+    private static final int ITEMS = 500;
+
+    private static String newDocument()
+    {
+        final StringBuilder document = new StringBuilder( "<items>\n" );
+        for ( int i = 0; i < ITEMS; i++ )
+        {
+            document.append( "<item gamma='g" ).append( i ).append( "'><alpha>a" ).append( i )
+                .append( "</alpha></item>\n" );
+        }
+        return document.append( "</items>" ).toString();
+    }
+
+    private static Digester newDigester( final List<SimpleTestBean> beans, final List<Integer> lines )
+    {
+        final Digester digester = new Digester();
+        digester.setPipelineCapacity( 8 );
+        digester.push( beans );
+        digester.addObjectCreate( "items/item", SimpleTestBean.class );
+        digester.addSetProperties( "items/item" );
+        digester.addBeanPropertySetter( "items/item/alpha" );
+        digester.addSetNext( "items/item", "add" );
+        digester.addRule( "items/item", new Rule()
+        {
+
+            @Override
+            public void begin( final String namespace, final String name, final Attributes attributes )
+            {
+                lines.add( getDigester().getDocumentLocator().getLineNumber() );
+            }
+
+        } );
+        return digester;
+    }
+
+    @Test
+    void testPipelinedParse()
+        throws Exception
+    {
+        final List<SimpleTestBean> beans = new ArrayList<>();
+        final List<Integer> lines = new ArrayList<>();
+        final Digester digester = newDigester( beans, lines );
+        assertEquals( 8, digester.getPipelineCapacity() );
+
+        assertSame( beans, digester.parse( new StringReader( newDocument() ) ) );
+        assertEquals( ITEMS, beans.size() );
+        for ( int i = 0; i < ITEMS; i++ )
+        {
+            assertEquals( "a" + i, beans.get( i ).getAlpha() );
+            assertEquals( "g" + i, beans.get( i ).getGamma() );
+            assertEquals( i + 2, lines.get( i ).intValue() );
+        }
+        assertTrue( digester.getDocumentLocator() instanceof LocatorImpl );
+    }
+
+    @Test
+    void testPipelinedBodyText()
+        throws Exception
+    {
+        final List<SimpleTestBean> beans = new ArrayList<>();
+        final Digester digester = newDigester( beans, new ArrayList<>() );
+
+        digester.parse( new StringReader( "<items><item gamma='g0'><alpha>a0 &amp; <![CDATA[<more>]]></alpha></item>"
+            + "</items>" ) );
+        assertEquals( "a0 & <more>", beans.get( 0 ).getAlpha() );
+    }
+
+    @Test
+    void testRuleFailureStopsTokenizer()
+    {
+        final Digester digester = newDigester( new ArrayList<>(), new ArrayList<>() );
+        digester.addRule( "items/item/alpha", new Rule()
+        {
+
+            @Override
+            public void body( final String namespace, final String name, final String text )
+            {
+                if ( "a100".equals( text ) )
+                {
+                    throw new IllegalStateException( text );
+                }
+            }
+
+        } );
+
+        final SAXParseException e =
+            assertThrows( SAXParseException.class, () -> digester.parse( new StringReader( newDocument() ) ) );
+        assertEquals( "a100", e.getException().getMessage() );
+        assertEquals( 102, e.getLineNumber() );
+    }
+
+    @Test
+    void testTokenizerFailure()
+    {
+        final List<SimpleTestBean> beans = new ArrayList<>();
+        final Digester digester = newDigester( beans, new ArrayList<>() );
+
+        assertThrows( SAXException.class, () -> digester.parse( new StringReader( "<items><item></items>" ) ) );
+    }
+
+    /**
+     * An input returning the beginning of a document, then blocking like a stalled network source until closed.
+     */
+    private static final class StalledInputStream
+        extends InputStream
+    {
+
+        private final byte[] head;
+
+        private int position;
+
+        private final CountDownLatch closed = new CountDownLatch( 1 );
+
+        StalledInputStream( final String head )
+        {
+            this.head = head.getBytes( StandardCharsets.UTF_8 );
+        }
+
+        @Override
+        public int read()
+            throws IOException
+        {
+            final byte[] one = new byte[1];
+            return read( one, 0, 1 ) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read( final byte[] buffer, final int offset, final int length )
+            throws IOException
+        {
+            if ( position < head.length )
+            {
+                final int count = Math.min( length, head.length - position );
+                System.arraycopy( head, position, buffer, offset, count );
+                position += count;
+                return count;
+            }
+            try
+            {
+                closed.await();
+            }
+            catch ( final InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+            throw new IOException( "Stream closed" );
+        }
+
+        @Override
+        public void close()
+        {
+            closed.countDown();
+        }
+
+    }
+
+    @Test
+    void testStopWhileTokenizerBlocked()
+    {
+        final List<SimpleTestBean> beans = new ArrayList<>();
+        final Digester digester = newDigester( beans, new ArrayList<>() );
+        digester.addStop( "items/item" );
+
+        final StalledInputStream input =
+            new StalledInputStream( "<items>\n<item gamma='g0'><alpha>a0</alpha></item>\n<item gamma='g1'>" );
+        assertTimeoutPreemptively( Duration.ofSeconds( 10 ), () -> digester.parse( input ) );
+        assertEquals( 1, beans.size() );
+        assertEquals( "a0", beans.get( 0 ).getAlpha() );
+    }
+
+    @Test
+    void testPipelineExecutor()
+        throws Exception
+    {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            final AtomicInteger tasks = new AtomicInteger();
+            final Executor counting = command ->
+            {
+                tasks.incrementAndGet();
+                executor.execute( command );
+            };
+            final List<SimpleTestBean> beans = new ArrayList<>();
+            final Digester digester = newDigester( beans, new ArrayList<>() );
+            digester.setPipelineExecutor( counting );
+            assertSame( counting, digester.getPipelineExecutor() );
+
+            digester.parse( new StringReader( newDocument() ) );
+            assertEquals( ITEMS, beans.size() );
+            assertThrows( SAXException.class, () -> digester.parse( new StringReader( "<items><item></items>" ) ) );
+
+            final Digester failing = newDigester( new ArrayList<>(), new ArrayList<>() );
+            failing.setPipelineExecutor( counting );
+            failing.addRule( "items/item", new Rule()
+            {
+
+                @Override
+                public void end( final String namespace, final String name )
+                {
+                    throw new IllegalStateException( name );
+                }
+
+            } );
+            assertThrows( SAXException.class, () -> failing.parse( new StringReader( newDocument() ) ) );
+            assertEquals( 3, tasks.get() );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testLiveLocatorRuleOptsOut()
+        throws Exception
+    {
+        final List<Boolean> snapshots = new ArrayList<>();
+        final Digester digester = newDigester( new ArrayList<>(), new ArrayList<>() );
+        digester.addRule( "items", new LiveLocatorTestRule( snapshots ) );
+
+        digester.parse( new StringReader( newDocument() ) );
+        assertEquals( 1, snapshots.size() );
+        assertFalse( snapshots.get( 0 ) );
+    }
+
+    private static final class LiveLocatorTestRule
+        extends Rule
+        implements LiveLocatorRule
+    {
+
+        private final List<Boolean> snapshots;
+
+        LiveLocatorTestRule( final List<Boolean> snapshots )
+        {
+            this.snapshots = snapshots;
+        }
+
+        @Override
+        public void begin( final String namespace, final String name, final Attributes attributes )
+        {
+            snapshots.add( getDigester().getDocumentLocator() instanceof LocatorImpl );
+        }
+
+    }
+
+}
@@ -0,0 +1,135 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test case for {@link RecordIndex} and the {@code Digester.parseRecord} methods.
+ */
+public class RecordIndexTestCase
+{
+
+    private static final String DOCUMENT = "<?xml version='1.0' encoding='UTF-8'?>\n"
+        + "<!DOCTYPE catalog [ <!ELEMENT catalog ANY> ]>\n"
+        + "<c:catalog xmlns:c='urn:catalog' name='main'>\n"
+        + "  <!-- <item id='commented'/> -->\n"
+        + "  <c:section name='a'>\n"
+        + "    <item id='first' alpha='x &gt; y'><gamma>été</gamma></item>\n"
+        + "    <item id='second' alpha='b'/>\n"
+        + "    <other><item id='nested'/></other>\n"
+        + "  </c:section>\n"
+        + "  <c:section name='b'>\n"
+        + "    <item alpha=\"c\"><gamma><![CDATA[</item>]]></gamma></item>\n"
+        + "    <item id='fourth' alpha='d'><gamma>g</gamma></item>\n"
+        + "  </c:section>\n"
+        + "</c:catalog>\n";
+
+    @TempDir
+    File directory;
+
+    private File newDocument()
+        throws IOException
+    {
+        final File document = new File( directory, "catalog.xml" );
+        Files.write( document.toPath(), DOCUMENT.getBytes( StandardCharsets.UTF_8 ) );
+        return document;
+    }
+
+    private static Digester newDigester()
+    {
+        final Digester digester = new Digester();
+        digester.push( new ArrayList<SimpleTestBean>() );
+        digester.addObjectCreate( "c:catalog/c:section/item", SimpleTestBean.class );
+        digester.addSetProperties( "c:catalog/c:section/item" );
+        digester.addBeanPropertySetter( "c:catalog/c:section/item/gamma" );
+        digester.addSetNext( "c:catalog/c:section/item", "add" );
+        return digester;
+    }
+
+    @Test
+    void testParseRecords()
+        throws Exception
+    {
+        final File document = newDocument();
+        final RecordIndex index = RecordIndex.build( document, "c:catalog/c:section/item", "id" );
+        assertEquals( 4, index.size() );
+        assertEquals( "second", index.getKey( 1 ) );
+        assertNull( index.getKey( 2 ) );
+        assertEquals( 3, index.getOrdinal( "fourth" ) );
+        assertEquals( -1, index.getOrdinal( "nested" ) );
+        assertEquals( "<item id='second' alpha='b'/>", DOCUMENT.substring( DOCUMENT.indexOf( "<item id='second'" ),
+                                    DOCUMENT.indexOf( "<item id='second'" ) + (int) index.getLength( 1 ) ) );
+
+        final List<SimpleTestBean> first = newDigester().parseRecord( document, index, "first" );
+        assertEquals( 1, first.size() );
+        assertEquals( "x > y", first.get( 0 ).getAlpha() );
+        assertEquals( "été", first.get( 0 ).getGamma() );
+
+        final List<SimpleTestBean> third = newDigester().parseRecord( document, index, 2 );
+        assertEquals( "</item>", third.get( 0 ).getGamma() );
+
+        final List<SimpleTestBean> range = newDigester().parseRecords( document, index, 2, 4 );
+        assertEquals( 2, range.size() );
+        assertEquals( "d", range.get( 1 ).getAlpha() );
+
+        assertThrows( IllegalArgumentException.class, () -> newDigester().parseRecords( document, index, 1, 3 ) );
+        assertThrows( IllegalArgumentException.class, () -> newDigester().parseRecord( document, index, "nested" ) );
+    }
+
+    @Test
+    void testWriteRead()
+        throws Exception
+    {
+        final File document = newDocument();
+        final RecordIndex index = RecordIndex.build( document, "c:catalog/c:section/item", "id" );
+        final ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        index.write( stored );
+
+        final RecordIndex loaded = RecordIndex.read( new ByteArrayInputStream( stored.toByteArray() ) );
+        assertEquals( index.size(), loaded.size() );
+        for ( int i = 0; i < index.size(); i++ )
+        {
+            assertEquals( index.getOffset( i ), loaded.getOffset( i ) );
+            assertEquals( index.getLength( i ), loaded.getLength( i ) );
+            assertEquals( index.getKey( i ), loaded.getKey( i ) );
+        }
+        final List<SimpleTestBean> fourth = newDigester().parseRecord( document, loaded, "fourth" );
+        assertEquals( "g", fourth.get( 0 ).getGamma() );
+
+        Files.write( document.toPath(), "<c:catalog/>".getBytes( StandardCharsets.UTF_8 ) );
+        assertThrows( IOException.class, () -> newDigester().parseRecord( document, loaded, 0 ) );
+    }
+
+}
@@ -0,0 +1,175 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.apache.commons.digester3.binder.DigesterLoader.newLoader;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.digester3.binder.AbstractRulesModule;
+import org.apache.commons.digester3.binder.DigesterLoadingException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link RecordRule} and {@code createRecord( ... )}.
+ */
+public class RecordRuleTestCase
+{
+
+    private static final String ROWS = "<rows>"
+        + "<row id='1'><name>first</name><address city='Rome'><zip>00100</zip></address></row>"
+        + "<row id='2'><name>second</name></row>"
+        + "</rows>";
+
+    private static Digester newDigester( final RecordRule.Format format, final boolean reuseRecord,
+                                         final List<Object> records )
+    {
+        return newLoader( new AbstractRulesModule()
+        {
+
+            @Override
+            protected void configure()
+            {
+                forPattern( "rows/row" ).createRecord( format, "id", "name", "city", "zip" )
+                    .mapAttribute( "id", 0 )
+                    .mapChild( "name", 1 )
+                    .mapChild( "address", "city", 2 )
+                    .mapChild( "address/zip", 3 )
+                    .withColumnType( 0, Long.class )
+                    .reuseRecord( reuseRecord )
+                    .then()
+                    .addRule( new Rule()
+                    {
+
+                        @Override
+                        public void end( final String namespace, final String name )
+                        {
+                            final Object record = getDigester().peek();
+                            records.add( record instanceof Object[] ? ( (Object[]) record ).clone() : record );
+                        }
+
+                    } );
+            }
+
+        } ).newDigester();
+    }
+
+    @Test
+    void testObjectArrayRecords()
+        throws Exception
+    {
+        final List<Object> records = new ArrayList<>();
+        newDigester( RecordRule.Format.OBJECT_ARRAY, false, records ).parse( new StringReader( ROWS ) );
+
+        assertEquals( 2, records.size() );
+        assertArrayEquals( new Object[] { 1L, "first", "Rome", "00100" }, (Object[]) records.get( 0 ) );
+        assertArrayEquals( new Object[] { 2L, "second", null, null }, (Object[]) records.get( 1 ) );
+    }
+
+    @Test
+    void testStringArrayRecordsIgnoreColumnTypes()
+        throws Exception
+    {
+        final List<Object> records = new ArrayList<>();
+        newDigester( RecordRule.Format.STRING_ARRAY, false, records ).parse( new StringReader( ROWS ) );
+
+        assertArrayEquals( new String[] { "1", "first", "Rome", "00100" }, (String[]) records.get( 0 ) );
+        assertEquals( String[].class, records.get( 1 ).getClass() );
+    }
+
+    @Test
+    void testMapRecords()
+        throws Exception
+    {
+        final List<Object> records = new ArrayList<>();
+        newDigester( RecordRule.Format.MAP, false, records ).parse( new StringReader( ROWS ) );
+
+        final Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put( "id", 1L );
+        expected.put( "name", "first" );
+        expected.put( "city", "Rome" );
+        expected.put( "zip", "00100" );
+        assertEquals( expected, records.get( 0 ) );
+        assertEquals( Arrays.asList( "id", "name", "city", "zip" ),
+                      new ArrayList<>( ( (Map<?, ?>) records.get( 0 ) ).keySet() ) );
+        assertEquals( 2, ( (Map<?, ?>) records.get( 1 ) ).size() );
+    }
+
+    @Test
+    void testReuseRecord()
+        throws Exception
+    {
+        final List<Object> records = new ArrayList<>();
+        newDigester( RecordRule.Format.MAP, true, records ).parse( new StringReader( ROWS ) );
+
+        assertSame( records.get( 0 ), records.get( 1 ) );
+        // the fields of the previous record are cleared
+        assertEquals( 2, ( (Map<?, ?>) records.get( 1 ) ).size() );
+    }
+
+    @Test
+    void testBatchRecords()
+        throws Exception
+    {
+        final List<List<String[]>> batches = new ArrayList<>();
+        newLoader( new AbstractRulesModule()
+        {
+
+            @Override
+            protected void configure()
+            {
+                forPattern( "rows/row" ).createRecord( RecordRule.Format.STRING_ARRAY, "id", "name" )
+                    .mapAttribute( "id", 0 )
+                    .mapChild( "name", 1 )
+                    .then()
+                    .<String[]>batchTo( batches::add, 10 );
+            }
+
+        } ).newDigester().parse( new StringReader( ROWS ) );
+
+        assertEquals( 1, batches.size() );
+        assertArrayEquals( new String[] { "2", "second" }, batches.get( 0 ).get( 1 ) );
+    }
+
+    @Test
+    void testColumnOutOfRange()
+    {
+        assertThrows( DigesterLoadingException.class, () -> newLoader( new AbstractRulesModule()
+        {
+
+            @Override
+            protected void configure()
+            {
+                forPattern( "rows/row" ).createRecord( RecordRule.Format.MAP, "id" ).mapChild( "name", 1 );
+            }
+
+        } ).newDigester() );
+    }
+
+}
@@ -0,0 +1,107 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.List;
+
+import org.apache.commons.digester3.RuleProfiler.Phase;
+import org.apache.commons.digester3.RuleProfiler.Statistics;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.Attributes;
+
+/**
+ * Test case for {@link RuleProfiler}.
+ */
+public class RuleProfilerTestCase
+{
+
+    private static final String DOCUMENT = "<root><fast/><slow/><slow/><fast/></root>";
+
+    private static final class SleepingRule
+        extends Rule
+    {
+
+        @Override
+        public void begin( final String namespace, final String name, final Attributes attributes )
+            throws Exception
+        {
+            Thread.sleep( 5 );
+        }
+
+    }
+
+    @Test
+    void testProfileRuleCallbacks()
+        throws Exception
+    {
+        final Rule fast = new Rule()
+        {
+        };
+        final Rule slow = new SleepingRule();
+
+        final Digester digester = new Digester();
+        digester.addRule( "root/fast", fast );
+        digester.addRule( "root/slow", slow );
+
+        final RuleProfiler profiler = new RuleProfiler();
+        digester.setRuleProfiler( profiler );
+        assertSame( profiler, digester.getRuleProfiler() );
+        digester.parse( new StringReader( DOCUMENT ) );
+
+        final Statistics<String> slowPattern = profiler.getPatternStatistics( "root/slow" );
+        assertEquals( 6, slowPattern.getCount() );
+        assertEquals( 2, slowPattern.getCount( Phase.BEGIN ) );
+        assertEquals( 2, slowPattern.getCount( Phase.BODY ) );
+        assertEquals( 2, slowPattern.getCount( Phase.END ) );
+        assertTrue( slowPattern.getTotalNanos() >= 10000000L );
+        assertTrue( slowPattern.getPercentileNanos( 100 ) <= slowPattern.getMaxNanos() );
+        assertNull( profiler.getPatternStatistics( "root" ) );
+
+        final Statistics<Rule> fastRule = profiler.getRuleStatistics( fast );
+        assertEquals( 7, fastRule.getCount() );
+        assertEquals( 1, fastRule.getCount( Phase.FINISH ) );
+
+        final List<Statistics<String>> topPatterns = profiler.getTopPatterns( 1 );
+        assertEquals( 1, topPatterns.size() );
+        assertEquals( "root/slow", topPatterns.get( 0 ).getKey() );
+        assertSame( slow, profiler.getTopRules( 2 ).get( 0 ).getKey() );
+        assertEquals( 2, profiler.getTopRules( 5 ).size() );
+
+        profiler.reset();
+        assertTrue( profiler.getTopPatterns( 5 ).isEmpty() );
+    }
+
+    @Test
+    void testDisabledByDefault()
+        throws Exception
+    {
+        final Digester digester = new Digester();
+        digester.addObjectCreate( "root", SimpleTestBean.class );
+        assertNull( digester.getRuleProfiler() );
+        digester.parse( new StringReader( DOCUMENT ) );
+    }
+
+}
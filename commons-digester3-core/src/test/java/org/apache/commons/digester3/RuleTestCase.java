@@ -23,14 +23,20 @@ import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.xml.sax.SAXException;
 
 /**
  * <p>
@@ -409,6 +415,88 @@ public class RuleTestCase
 
     }
 
+    /**
+     * Parent object with overloaded methods, to check the methods resolved once are the ones MethodUtils chooses.
+     */
+    public static final class OverloadedParent
+    {
+
+        private final List<String> calls = new ArrayList<>();
+
+        public void add( final Object child )
+        {
+            calls.add( "Object" );
+        }
+
+        public void add( final String child )
+        {
+            calls.add( "String" );
+        }
+
+        public void fail( final Object child )
+        {
+            throw new IllegalStateException( "Rejected " + child.getClass().getSimpleName() );
+        }
+
+    }
+
+    @Test
+    void testSetNextResolvedMethods() throws Exception
+    {
+        final OverloadedParent parent = new OverloadedParent();
+        digester.push( parent );
+        digester.addObjectCreate( "root/s", String.class );
+        digester.addObjectCreate( "root/b", StringBuilder.class );
+        digester.addObjectCreate( "root/exact", String.class );
+        digester.addObjectCreate( "root/fail", StringBuilder.class );
+        digester.addSetNext( "root/s", "add" );
+        digester.addSetNext( "root/b", "add" );
+        final SetNextRule exact = new SetNextRule( "add", Object.class );
+        exact.setExactMatch( true );
+        digester.addRule( "root/exact", exact );
+        digester.addSetNext( "root/fail", "fail" );
+
+        digester.parse( new StringReader( "<root><s/><b/><s/><b/><exact/></root>" ) );
+        assertEquals( Arrays.asList( "String", "Object", "String", "Object", "Object" ), parent.calls );
+
+        digester.push( parent );
+        final SAXException e =
+            assertThrows( SAXException.class, () -> digester.parse( new StringReader( "<root><fail/></root>" ) ) );
+        assertEquals( "Rejected StringBuilder", e.getException().getMessage() );
+    }
+
+    @Test
+    void testSetNextParameterTypeAndMatching() throws Exception
+    {
+        final OverloadedParent parent = new OverloadedParent();
+        digester.addObjectCreate( "root/b", StringBuilder.class );
+        final SetNextRule mismatch = new SetNextRule( "add", String.class );
+        digester.addRule( "root/b", mismatch );
+
+        // a child not matching the parameter type is not reported as thrown by the method
+        digester.push( parent );
+        final SAXException e =
+            assertThrows( SAXException.class, () -> digester.parse( new StringReader( "<root><b/></root>" ) ) );
+        assertInstanceOf( IllegalArgumentException.class, e.getException() );
+        assertTrue( parent.calls.isEmpty() );
+
+        final SetNextRule matching = new SetNextRule( "add", CharSequence.class );
+        final Digester other = new Digester();
+        other.addObjectCreate( "root/b", StringBuilder.class );
+        other.addRule( "root/b", matching );
+        other.push( parent );
+        other.parse( new StringReader( "<root><b/></root>" ) );
+        assertEquals( Arrays.asList( "Object" ), parent.calls );
+
+        // the protected field changes the matching without the setter, there is no add( CharSequence ) method
+        matching.useExactMatch = true;
+        other.clear();
+        other.push( parent );
+        final SAXException exact =
+            assertThrows( SAXException.class, () -> other.parse( new StringReader( "<root><b/></root>" ) ) );
+        assertInstanceOf( NoSuchMethodException.class, exact.getException() );
+    }
+
     @Test
     void testSetTop() throws Exception
     {
@@ -156,6 +156,51 @@ public class RulesBaseTestCase
 
     }
 
+    /**
+     * Namespaced matches must merge the rules with no namespace in registration order.
+     */
+    @Test
+    void testNamespaceOrdering()
+    {
+
+        // clear any existing rules
+        digester.getRules().clear();
+
+        // Set up rules
+        digester.addRule( "alpha/beta", new TestRule( "one", "euclidean" ) );
+        digester.addRule( "alpha/beta", new TestRule( "two" ) );
+        digester.addRule( "alpha/beta", new TestRule( "three", "hyperbolic" ) );
+        digester.addRule( "alpha/beta", new TestRule( "four" ) );
+        digester.addRule( "alpha/beta", new TestRule( "five", "euclidean" ) );
+        digester.addRule( "*/delta", new TestRule( "six", "hyperbolic" ) );
+
+        assertEquals( "one,two,four,five", identifiers( "euclidean", "alpha/beta" ) );
+        assertEquals( "two,three,four", identifiers( "hyperbolic", "alpha/beta" ) );
+        assertEquals( "two,four", identifiers( "elliptic", "alpha/beta" ) );
+        assertEquals( "one,two,three,four,five", identifiers( null, "alpha/beta" ) );
+        assertEquals( "six", identifiers( "hyperbolic", "alpha/beta/delta" ) );
+        assertEquals( "", identifiers( "euclidean", "alpha/beta/delta" ) );
+
+        // clean up
+        digester.getRules().clear();
+        assertEquals( "", identifiers( "euclidean", "alpha/beta" ) );
+
+    }
+
+    private String identifiers( final String namespaceURI, final String pattern )
+    {
+        final StringBuilder identifiers = new StringBuilder();
+        for ( final Rule rule : digester.getRules().match( namespaceURI, pattern, null, null ) )
+        {
+            if ( identifiers.length() > 0 )
+            {
+                identifiers.append( ',' );
+            }
+            identifiers.append( ( (TestRule) rule ).getIdentifier() );
+        }
+        return identifiers.toString();
+    }
+
     /**
      * Basic test for rule creation and matching.
      */
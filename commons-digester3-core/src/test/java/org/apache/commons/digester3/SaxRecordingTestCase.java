@@ -0,0 +1,223 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Test case for {@link SaxRecorder}, {@link SaxRecording} and {@link SaxRecordingCache}.
+ */
+public class SaxRecordingTestCase
+{
+
+    private static final String DOCUMENT = "<beans xmlns='urn:beans'>\n"
+        + "  <bean alpha='a1' beta='b1'><gamma>g1 &amp; more</gamma></bean>\n"
+        + "  <bean alpha='a2'><gamma><![CDATA[<g2>]]></gamma></bean>\n"
+        + "</beans>";
+
+    @TempDir
+    File directory;
+
+    private static Digester newDigester()
+    {
+        final Digester digester = new Digester();
+        digester.setNamespaceAware( true );
+        digester.setRuleNamespaceURI( "urn:beans" );
+        digester.addObjectCreate( "beans", ArrayList.class );
+        digester.addObjectCreate( "beans/bean", SimpleTestBean.class );
+        digester.addSetProperties( "beans/bean" );
+        digester.addBeanPropertySetter( "beans/bean/gamma" );
+        digester.addSetNext( "beans/bean", "add" );
+        return digester;
+    }
+
+    private static void assertBeans( final List<SimpleTestBean> beans )
+    {
+        assertEquals( 2, beans.size() );
+        assertEquals( "a1", beans.get( 0 ).getAlpha() );
+        assertEquals( "b1", beans.get( 0 ).getBeta() );
+        assertEquals( "g1 & more", beans.get( 0 ).getGamma() );
+        assertEquals( "a2", beans.get( 1 ).getAlpha() );
+        assertEquals( "<g2>", beans.get( 1 ).getGamma() );
+    }
+
+    @Test
+    void testRecordReplay()
+        throws Exception
+    {
+        final SaxRecorder recorder = new SaxRecorder();
+        final List<SimpleTestBean> parsed = newDigester().parse( new InputSource( new StringReader( DOCUMENT ) ),
+                                                                 recorder );
+        assertBeans( parsed );
+
+        final SaxRecording recording = recorder.getRecording();
+        assertBeans( newDigester().parse( recording ) );
+
+        final ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        recording.write( stored );
+        final SaxRecording loaded = SaxRecording.read( new ByteArrayInputStream( stored.toByteArray() ) );
+        assertEquals( recording.getEventsLength(), loaded.getEventsLength() );
+        assertBeans( newDigester().parse( loaded ) );
+    }
+
+    @Test
+    void testReplayLocation()
+        throws Exception
+    {
+        final SaxRecorder recorder = new SaxRecorder();
+        newDigester().parse( new InputSource( new StringReader( DOCUMENT ) ), recorder );
+
+        final Digester digester = newDigester();
+        digester.addRule( "beans/bean/gamma", new Rule()
+        {
+
+            @Override
+            public void body( final String namespace, final String name, final String text )
+            {
+                if ( text.startsWith( "<" ) )
+                {
+                    throw new IllegalArgumentException( text );
+                }
+            }
+
+        } );
+        final SAXParseException e =
+            assertThrows( SAXParseException.class, () -> digester.parse( recorder.getRecording() ) );
+        assertEquals( 3, e.getLineNumber() );
+    }
+
+    @Test
+    void testCache()
+        throws Exception
+    {
+        final File document = new File( directory, "beans.xml" );
+        Files.write( document.toPath(), DOCUMENT.getBytes( StandardCharsets.UTF_8 ) );
+        final String systemId = document.toURI().toURL().toExternalForm();
+        final SaxRecordingCache cache = new SaxRecordingCache();
+
+        final List<Long> inputLengths = new ArrayList<>();
+        final ParseListener listener = new ParseListener()
+        {
+
+            @Override
+            public void parseCompleted( final Digester digester, final ParseStatistics statistics )
+            {
+                inputLengths.add( statistics.getInputLength() );
+            }
+
+            @Override
+            public void parseFailed( final Digester digester, final ParseStatistics statistics,
+                                     final Exception cause )
+            {
+            }
+
+        };
+
+        for ( int i = 0; i < 2; i++ )
+        {
+            final Digester digester = newDigester();
+            digester.setParseListener( listener );
+            assertBeans( cache.parse( digester, document.toURI().toURL() ) );
+        }
+        assertEquals( 1, cache.size() );
+        final SaxRecording recording = cache.get( systemId );
+        assertNotNull( recording.getContentHash() );
+        // the second parse replayed the recording
+        assertEquals( 0, inputLengths.get( 1 ).longValue() );
+
+        Files.write( document.toPath(), DOCUMENT.replace( "a1", "changed" ).getBytes( StandardCharsets.UTF_8 ) );
+        final List<SimpleTestBean> changed = cache.parse( newDigester(), document.toURI().toURL() );
+        assertEquals( "changed", changed.get( 0 ).getAlpha() );
+        assertNotEquals( recording.getContentHash(), cache.get( systemId ).getContentHash() );
+
+        cache.clear();
+        assertNull( cache.get( systemId ) );
+    }
+
+    @Test
+    void testCacheComparesParserConfiguration()
+        throws Exception
+    {
+        final File document = new File( directory, "beans.xml" );
+        Files.write( document.toPath(), DOCUMENT.getBytes( StandardCharsets.UTF_8 ) );
+        final String systemId = document.toURI().toURL().toExternalForm();
+        final SaxRecordingCache cache = new SaxRecordingCache();
+
+        assertBeans( cache.parse( newDigester(), document.toURI().toURL() ) );
+        final SaxRecording recording = cache.get( systemId );
+        assertBeans( cache.parse( newDigester(), document.toURI().toURL() ) );
+        assertSame( recording, cache.get( systemId ) );
+
+        // a digester that is not namespace aware receives different events
+        final Digester digester = new Digester();
+        digester.addObjectCreate( "beans", ArrayList.class );
+        digester.addObjectCreate( "beans/bean", SimpleTestBean.class );
+        digester.addSetProperties( "beans/bean" );
+        digester.addBeanPropertySetter( "beans/bean/gamma" );
+        digester.addSetNext( "beans/bean", "add" );
+        assertBeans( cache.parse( digester, document.toURI().toURL() ) );
+        final SaxRecording reRecorded = cache.get( systemId );
+        assertNotSame( recording, reRecorded );
+
+        final Digester registering = newDigester();
+        registering.register( "-//Example//DTD Beans//EN", new File( directory, "beans.dtd" ).toURI().toURL() );
+        assertBeans( cache.parse( registering, document.toURI().toURL() ) );
+        assertNotSame( reRecorded, cache.get( systemId ) );
+    }
+
+    @Test
+    void testCacheSkipsStoppedParse()
+        throws Exception
+    {
+        final File document = new File( directory, "beans.xml" );
+        Files.write( document.toPath(), DOCUMENT.getBytes( StandardCharsets.UTF_8 ) );
+        final SaxRecordingCache cache = new SaxRecordingCache();
+
+        final Digester stopping = newDigester();
+        stopping.addStop( "beans/bean" );
+        final List<SimpleTestBean> first = cache.parse( stopping, document.toURI().toURL() );
+        assertEquals( 1, first.size() );
+        assertEquals( 0, cache.size() );
+
+        assertBeans( cache.parse( newDigester(), document.toURI().toURL() ) );
+        assertEquals( 1, cache.size() );
+    }
+
+}
@@ -0,0 +1,143 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.apache.commons.digester3.binder.DigesterLoader.newLoader;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+
+import org.apache.commons.digester3.binder.AbstractRulesModule;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.SAXException;
+
+/**
+ * Test case for {@link SetFieldRule} and {@code setField( ... )}.
+ */
+public class SetFieldRuleTestCase
+{
+
+    public static class Base
+    {
+
+        private long version;
+
+        public long version()
+        {
+            return version;
+        }
+
+    }
+
+    public static final class Sample
+        extends Base
+    {
+
+        private int count;
+
+        private boolean enabled;
+
+        private char grade;
+
+        private float ratio;
+
+        private Integer total;
+
+        private String label;
+
+    }
+
+    private static Digester newDigester()
+    {
+        return newLoader( new AbstractRulesModule()
+        {
+
+            @Override
+            protected void configure()
+            {
+                forPattern( "sample" ).createObject().ofType( Sample.class )
+                    .then().setField( "count" ).fromAttribute( "count" )
+                    .then().setField( "label" ).fromAttribute( "name" );
+                forPattern( "sample/version" ).setField( "version" );
+                forPattern( "sample/enabled" ).setField( "enabled" );
+                forPattern( "sample/grade" ).setField( "grade" );
+                forPattern( "sample/ratio" ).setField( "ratio" );
+                forPattern( "sample/total" ).setField( "total" );
+                forPattern( "sample/missing" ).setField( "missing" );
+            }
+
+        } ).newDigester();
+    }
+
+    @Test
+    void testAssignFields()
+        throws Exception
+    {
+        final Sample sample = newDigester().parse( new StringReader(
+            "<sample count=' 3 ' name='first'><version>42</version><enabled>yes</enabled><grade>B</grade>"
+                + "<ratio>0.5</ratio><total>12</total></sample>" ) );
+
+        assertEquals( 3, sample.count );
+        assertEquals( "first", sample.label );
+        assertEquals( 42L, sample.version() );
+        assertTrue( sample.enabled );
+        assertEquals( 'B', sample.grade );
+        assertEquals( 0.5f, sample.ratio );
+        assertEquals( Integer.valueOf( 12 ), sample.total );
+    }
+
+    @Test
+    void testConvertLikeBeanProperties()
+        throws Exception
+    {
+        final Sample sample = newDigester().parse( new StringReader(
+            "<sample count='abc'><version/><ratio></ratio><total/><grade/></sample>" ) );
+
+        // the BeanUtils converters assign their default value, whether the field is primitive or not
+        assertEquals( 0, sample.count );
+        assertEquals( 0L, sample.version() );
+        assertEquals( 0f, sample.ratio );
+        assertEquals( Integer.valueOf( 0 ), sample.total );
+        assertEquals( ' ', sample.grade );
+    }
+
+    @Test
+    void testMissingAttributeLeavesField()
+        throws Exception
+    {
+        final Sample sample = newDigester().parse( new StringReader( "<sample><version>1</version></sample>" ) );
+
+        assertEquals( 0, sample.count );
+        assertEquals( null, sample.label );
+        assertEquals( 1L, sample.version() );
+    }
+
+    @Test
+    void testMissingField()
+    {
+        final SAXException e = assertThrows( SAXException.class, () -> newDigester().parse(
+            new StringReader( "<sample><missing>1</missing></sample>" ) ) );
+
+        assertTrue( e.getMessage().contains( "does not have a field 'missing'" ), e.getMessage() );
+    }
+
+}
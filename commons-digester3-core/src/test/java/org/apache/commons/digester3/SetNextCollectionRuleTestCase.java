@@ -0,0 +1,194 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.apache.commons.digester3.binder.DigesterLoader.newLoader;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.digester3.binder.AbstractRulesModule;
+import org.apache.commons.digester3.binder.DigesterLoadingException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link SetNextCollectionRule} and {@code setNext( ... ).asCollection()}.
+ */
+public class SetNextCollectionRuleTestCase
+{
+
+    public static final class Catalog
+    {
+
+        private List<SimpleTestBean> items;
+
+        private int calls;
+
+        public List<SimpleTestBean> getItems()
+        {
+            return items;
+        }
+
+        public void setItems( final List<SimpleTestBean> items )
+        {
+            this.items = items;
+            calls++;
+        }
+
+        public int getCalls()
+        {
+            return calls;
+        }
+
+    }
+
+    private static Digester newDigester()
+    {
+        return newLoader( new AbstractRulesModule()
+        {
+
+            @Override
+            protected void configure()
+            {
+                forPattern( "catalogs" ).createObject().ofType( ArrayList.class );
+                forPattern( "catalogs/catalog" ).createObject().ofType( Catalog.class )
+                    .then().setNext( "add" );
+                forPattern( "catalogs/catalog/item" ).createObject().ofType( SimpleTestBean.class )
+                    .then().setProperties()
+                    .then().setNext( "setItems" ).asCollection( "count" );
+            }
+
+        } ).newDigester();
+    }
+
+    @Test
+    void testChildrenPassedInOneCall()
+        throws Exception
+    {
+        final List<Catalog> catalogs = newDigester().parse( new StringReader( "<catalogs>"
+            + "<catalog count='3'><item alpha='a'/><item alpha='b'/><item alpha='c'/></catalog>"
+            + "<catalog/>"
+            + "<catalog count='not a number'><item alpha='d'/></catalog>"
+            + "</catalogs>" ) );
+
+        assertEquals( 3, catalogs.size() );
+
+        final Catalog first = catalogs.get( 0 );
+        assertEquals( 1, first.getCalls() );
+        assertEquals( 3, first.getItems().size() );
+        assertEquals( "a", first.getItems().get( 0 ).getAlpha() );
+        assertEquals( "c", first.getItems().get( 2 ).getAlpha() );
+
+        assertEquals( 0, catalogs.get( 1 ).getCalls() );
+        assertNull( catalogs.get( 1 ).getItems() );
+
+        assertEquals( 1, catalogs.get( 2 ).getItems().size() );
+        assertEquals( "d", catalogs.get( 2 ).getItems().get( 0 ).getAlpha() );
+    }
+
+    @Test
+    void testUntrustedSizeHint()
+        throws Exception
+    {
+        final StringBuilder items = new StringBuilder();
+        for ( int i = 0; i < 2000; i++ )
+        {
+            items.append( "<item alpha='a" ).append( i ).append( "'/>" );
+        }
+        final List<Catalog> catalogs = newDigester().parse( new StringReader( "<catalogs>"
+            + "<catalog count='2000000000'><item alpha='a'/></catalog>"
+            + "<catalog count='-5'><item alpha='b'/></catalog>"
+            + "<catalog count='1'>" + items + "</catalog>"
+            + "</catalogs>" ) );
+
+        assertEquals( 3, catalogs.size() );
+        assertEquals( "a", catalogs.get( 0 ).getItems().get( 0 ).getAlpha() );
+        assertEquals( "b", catalogs.get( 1 ).getItems().get( 0 ).getAlpha() );
+        assertEquals( 2000, catalogs.get( 2 ).getItems().size() );
+        assertEquals( "a1999", catalogs.get( 2 ).getItems().get( 1999 ).getAlpha() );
+    }
+
+    @Test
+    void testPatternWithoutParent()
+    {
+        assertThrows( DigesterLoadingException.class, () -> newLoader( new AbstractRulesModule()
+        {
+
+            @Override
+            protected void configure()
+            {
+                forPattern( "item" ).setNext( "setItems" ).asCollection();
+            }
+
+        } ).newDigester() );
+    }
+
+    @Test
+    void testWildcardPatternNeedsParentPattern()
+    {
+        assertThrows( DigesterLoadingException.class, () -> newLoader( new AbstractRulesModule()
+        {
+
+            @Override
+            protected void configure()
+            {
+                forPattern( "*/item" ).setNext( "setItems" ).asCollection();
+            }
+
+        } ).newDigester() );
+    }
+
+    @Test
+    void testWildcardPatternWithParentPattern()
+        throws Exception
+    {
+        final Digester digester = newLoader( new AbstractRulesModule()
+        {
+
+            @Override
+            protected void configure()
+            {
+                forPattern( "*/catalogs" ).createObject().ofType( ArrayList.class );
+                forPattern( "*/catalog" ).createObject().ofType( Catalog.class )
+                    .then().setNext( "add" );
+                forPattern( "*/item" ).createObject().ofType( SimpleTestBean.class )
+                    .then().setProperties()
+                    .then().setNext( "setItems" ).asCollectionUnder( "*/catalog", null );
+            }
+
+        } ).newDigester();
+
+        final List<Catalog> catalogs = digester.parse( new StringReader( "<root><catalogs>"
+            + "<catalog><item alpha='a'/><item alpha='b'/></catalog>"
+            + "<catalog><section><item alpha='c'/></section></catalog>"
+            + "</catalogs></root>" ) );
+
+        assertEquals( 2, catalogs.size() );
+        assertEquals( 2, catalogs.get( 0 ).getItems().size() );
+        assertEquals( "b", catalogs.get( 0 ).getItems().get( 1 ).getAlpha() );
+        assertEquals( 1, catalogs.get( 1 ).getCalls() );
+        assertEquals( "c", catalogs.get( 1 ).getItems().get( 0 ).getAlpha() );
+    }
+
+}
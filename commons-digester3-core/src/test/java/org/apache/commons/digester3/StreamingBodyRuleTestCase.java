@@ -0,0 +1,211 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.apache.commons.digester3.binder.DigesterLoader.newLoader;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.digester3.binder.AbstractRulesModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xml.sax.SAXException;
+
+/**
+ * Test case for {@link StreamingBodyRule}, {@link WriteBodyRule} and {@link Base64BodyRule}.
+ */
+public class StreamingBodyRuleTestCase
+{
+
+    private static byte[] newPayload( final int length )
+    {
+        final byte[] payload = new byte[length];
+        new Random( length ).nextBytes( payload );
+        return payload;
+    }
+
+    private static byte[] decode( final String body )
+        throws Exception
+    {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final Digester digester = new Digester();
+        digester.addRule( "document/payload", new Base64BodyRule( ( namespace, name, attributes ) -> output ) );
+        digester.parse( new StringReader( "<document><payload>" + body + "</payload></document>" ) );
+        return output.toByteArray();
+    }
+
+    @Test
+    void testBodyIsStreamed()
+        throws Exception
+    {
+        final StringBuilder text = new StringBuilder();
+        for ( int i = 0; i < 100000; i++ )
+        {
+            text.append( "line " ).append( i ).append( '\n' );
+        }
+
+        final List<String> chunks = new ArrayList<>();
+        final List<String> bodies = new ArrayList<>();
+        final Digester digester = new Digester();
+        digester.addRule( "document/text", new StreamingBodyRule()
+        {
+            @Override
+            protected void bodyChunk( final char[] buffer, final int start, final int length )
+            {
+                chunks.add( new String( buffer, start, length ) );
+            }
+        } );
+        digester.addRule( "document/text", new Rule()
+        {
+            @Override
+            public void body( final String namespace, final String name, final String body )
+            {
+                bodies.add( body );
+            }
+        } );
+        digester.addRule( "document/after", new Rule()
+        {
+            @Override
+            public void body( final String namespace, final String name, final String body )
+            {
+                bodies.add( body );
+            }
+        } );
+        digester.parse( new StringReader( "<document><text>" + text + "<nested>&amp;</nested></text>"
+            + "<after>after</after></document>" ) );
+
+        assertTrue( chunks.size() > 1, "chunks: " + chunks.size() );
+        assertEquals( text + "&", String.join( "", chunks ) );
+        // the body is not buffered, and the rules fire again after the element
+        assertEquals( 2, bodies.size() );
+        assertEquals( "", bodies.get( 0 ) );
+        assertEquals( "after", bodies.get( 1 ) );
+    }
+
+    @Test
+    void testWriteBody()
+        throws Exception
+    {
+        final List<StringWriter> writers = new ArrayList<>();
+        final Digester digester = newLoader( new AbstractRulesModule()
+        {
+
+            @Override
+            protected void configure()
+            {
+                forPattern( "notes/note" ).writeBody( ( namespace, name, attributes ) ->
+                {
+                    final StringWriter writer = new StringWriter();
+                    writer.write( attributes.getValue( "id" ) + ": " );
+                    writers.add( writer );
+                    return writer;
+                } );
+            }
+
+        } ).newDigester();
+        digester.parse( new StringReader( "<notes><note id='1'>first</note><note id='2'><![CDATA[<second>]]></note>"
+            + "</notes>" ) );
+
+        assertEquals( 2, writers.size() );
+        assertEquals( "1: first", writers.get( 0 ).toString() );
+        assertEquals( "2: <second>", writers.get( 1 ).toString() );
+    }
+
+    @Test
+    void testDecodeBase64Body()
+        throws Exception
+    {
+        final byte[] payload = newPayload( 300000 );
+        assertArrayEquals( payload, decode( Base64.getMimeEncoder().encodeToString( payload ) ) );
+
+        for ( int length = 0; length < 6; length++ )
+        {
+            final byte[] bytes = newPayload( length );
+            assertArrayEquals( bytes, decode( Base64.getEncoder().encodeToString( bytes ) ) );
+            assertArrayEquals( bytes, decode( Base64.getEncoder().withoutPadding().encodeToString( bytes ) ) );
+        }
+    }
+
+    @Test
+    void testDecodeBase64BodyToPath( @TempDir final Path directory )
+        throws Exception
+    {
+        final Path file = directory.resolve( "payload.bin" );
+        final byte[] payload = newPayload( 10000 );
+        final Digester digester = new Digester();
+        digester.addRule( "document/payload", new Base64BodyRule( file ) );
+        digester.parse( new StringReader( "<document><payload>\n" + Base64.getMimeEncoder().encodeToString( payload )
+            + "\n</payload></document>" ) );
+
+        assertArrayEquals( payload, Files.readAllBytes( file ) );
+    }
+
+    @Test
+    void testInvalidBase64Body()
+    {
+        assertThrows( SAXException.class, () -> decode( "QUJD*" ) );
+        assertThrows( SAXException.class, () -> decode( "QUJDR" ) );
+        assertThrows( SAXException.class, () -> decode( "QQ==QQ==" ) );
+    }
+
+    @Test
+    void testTruncatedDocumentClosesDestination()
+    {
+        final List<String> closed = new ArrayList<>();
+        final Digester writing = new Digester();
+        writing.addRule( "document/text", new WriteBodyRule( ( namespace, name, attributes ) -> new StringWriter()
+        {
+            @Override
+            public void close()
+            {
+                closed.add( "text" );
+            }
+        } ) );
+        final Digester decoding = new Digester();
+        decoding.addRule( "document/payload", new Base64BodyRule( ( namespace, name, attributes ) ->
+            new ByteArrayOutputStream()
+            {
+                @Override
+                public void close()
+                {
+                    closed.add( "payload" );
+                }
+            } ) );
+
+        assertThrows( SAXException.class, () -> writing.parse( new StringReader( "<document><text>trunc" ) ) );
+        assertEquals( Arrays.asList( "text" ), closed );
+        assertThrows( SAXException.class, () -> decoding.parse( new StringReader( "<document><payload>QUJD" ) ) );
+        assertEquals( Arrays.asList( "text", "payload" ), closed );
+    }
+
+}
@@ -0,0 +1,360 @@
+package org.apache.commons.digester3;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import org.junit.jupiter.api.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Test case for the built-in incremental tokenizer, {@link Digester#feed(ByteBuffer)} and
+ * {@link Digester#setUseBuiltInTokenizer(boolean)}.
+ */
+public class XmlTokenizerTestCase
+{
+
+    private static final String DOCUMENT = "<?xml version='1.0' encoding='UTF-8'?>\r\n"
+        + "<!-- a comment -->\n"
+        + "<?target some data?>\n"
+        + "<catalog xmlns='urn:catalog' xmlns:b='urn:book' xmlns:xml='http://www.w3.org/XML/1998/namespace'"
+        + " version=\"1\tb\">\r\n"
+        + "  <b:book b:id='1' title='Café &amp; &lt;more&gt; &#65;&#x42;'>Text &quot;quoted&quot; &apos;"
+        + "<![CDATA[<raw> & ]]]]>after</b:book>\n"
+        + "  <empty  attribute = 'value' />]] ]> a]]b <!-- - -->\n"
+        + "  <b:book xmlns:b='urn:other' xml:lang='en'>€😀</b:book>\n"
+        + "</catalog>\n"
+        + "<!-- trailing -->";
+
+    /**
+     * Records the events as strings, the contiguous characters coalesced.
+     */
+    private static final class EventRecorder
+        extends DefaultHandler
+    {
+
+        final List<String> events = new ArrayList<>();
+
+        private final StringBuilder text = new StringBuilder();
+
+        private Locator locator;
+
+        private void flush()
+        {
+            if ( text.length() > 0 )
+            {
+                events.add( "characters " + text );
+                text.setLength( 0 );
+            }
+        }
+
+        @Override
+        public void setDocumentLocator( final Locator locator )
+        {
+            this.locator = locator;
+        }
+
+        @Override
+        public void startDocument()
+        {
+            events.add( "startDocument" );
+        }
+
+        @Override
+        public void endDocument()
+        {
+            flush();
+            events.add( "endDocument" );
+        }
+
+        @Override
+        public void startPrefixMapping( final String prefix, final String uri )
+        {
+            flush();
+            events.add( "startPrefixMapping " + prefix + "=" + uri );
+        }
+
+        @Override
+        public void endPrefixMapping( final String prefix )
+        {
+            flush();
+            events.add( "endPrefixMapping " + prefix );
+        }
+
+        @Override
+        public void startElement( final String uri, final String localName, final String qName,
+                                  final Attributes attributes )
+        {
+            flush();
+            final StringBuilder event = new StringBuilder( "startElement {" ).append( uri ).append( '}' )
+                .append( localName ).append( ' ' ).append( qName ).append( " @" ).append( locator.getLineNumber() );
+            for ( int i = 0; i < attributes.getLength(); i++ )
+            {
+                event.append( ' ' ).append( '{' ).append( attributes.getURI( i ) ).append( '}' )
+                    .append( attributes.getLocalName( i ) ).append( ' ' ).append( attributes.getQName( i ) )
+                    .append( '=' ).append( attributes.getValue( i ) ).append( ' ' ).append( attributes.getType( i ) );
+            }
+            events.add( event.toString() );
+        }
+
+        @Override
+        public void endElement( final String uri, final String localName, final String qName )
+        {
+            flush();
+            events.add( "endElement {" + uri + "}" + localName + " " + qName );
+        }
+
+        @Override
+        public void characters( final char[] ch, final int start, final int length )
+        {
+            text.append( ch, start, length );
+        }
+
+        @Override
+        public void ignorableWhitespace( final char[] ch, final int start, final int length )
+        {
+            text.append( ch, start, length );
+        }
+
+        @Override
+        public void processingInstruction( final String target, final String data )
+        {
+            flush();
+            events.add( "processingInstruction " + target + " " + data );
+        }
+
+    }
+
+    private static List<String> parseWithJaxp( final byte[] document, final boolean namespaceAware )
+        throws Exception
+    {
+        final SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware( namespaceAware );
+        final EventRecorder recorder = new EventRecorder();
+        factory.newSAXParser().parse( new InputSource( new ByteArrayInputStream( document ) ), recorder );
+        return recorder.events;
+    }
+
+    private static List<String> tokenize( final byte[] document, final boolean namespaceAware, final int chunkSize )
+        throws SAXException
+    {
+        final EventRecorder recorder = new EventRecorder();
+        final XmlTokenizer tokenizer = new XmlTokenizer( recorder, namespaceAware, null, null, null );
+        for ( int i = 0; i < document.length; i += chunkSize )
+        {
+            tokenizer.feed( ByteBuffer.wrap( document, i, Math.min( chunkSize, document.length - i ) ) );
+        }
+        tokenizer.end();
+        return recorder.events;
+    }
+
+    private static void assertMalformed( final String document )
+    {
+        assertThrows( SAXParseException.class,
+                      () -> tokenize( document.getBytes( StandardCharsets.UTF_8 ), true, 1 ), document );
+        assertThrows( SAXParseException.class,
+                      () -> tokenize( document.getBytes( StandardCharsets.UTF_8 ), true, document.length() ),
+                      document );
+    }
+
+    @Test
+    void testSameEventsAsJaxp()
+        throws Exception
+    {
+        final byte[] document = DOCUMENT.getBytes( StandardCharsets.UTF_8 );
+        for ( final boolean namespaceAware : new boolean[] { true, false } )
+        {
+            final List<String> expected = parseWithJaxp( document, namespaceAware );
+            for ( int chunkSize = 1; chunkSize <= document.length; chunkSize++ )
+            {
+                assertEquals( expected, tokenize( document, namespaceAware, chunkSize ),
+                              "chunks of " + chunkSize + " bytes" );
+            }
+        }
+    }
+
+    @Test
+    void testEncodings()
+        throws Exception
+    {
+        final String document = "<r a='é'>à 中</r>";
+        final List<String> expected = parseWithJaxp( document.getBytes( StandardCharsets.UTF_8 ), true );
+
+        final byte[] latin1 = ( "<?xml version='1.0' encoding='ISO-8859-1'?><r a='é'>à &#x4e2d;</r>" )
+            .getBytes( StandardCharsets.ISO_8859_1 );
+        assertEquals( expected, tokenize( latin1, true, 1 ) );
+
+        final byte[] utf16 = ( "\uFEFF" + document ).getBytes( StandardCharsets.UTF_16BE );
+        assertEquals( expected, tokenize( utf16, true, 3 ) );
+
+        final byte[] utf8Bom = ( "\uFEFF" + document ).getBytes( StandardCharsets.UTF_8 );
+        assertEquals( expected, tokenize( utf8Bom, true, 2 ) );
+    }
+
+    @Test
+    void testMalformedDocuments()
+    {
+        assertMalformed( "" );
+        assertMalformed( "<r>" );
+        assertMalformed( "<r></s>" );
+        assertMalformed( "<r/><s/>" );
+        assertMalformed( "text<r/>" );
+        assertMalformed( "<r a='1' a='2'/>" );
+        assertMalformed( "<r a='<'/>" );
+        assertMalformed( "<r>&unknown;</r>" );
+        assertMalformed( "<r>&#xD800;</r>" );
+        assertMalformed( "<p:r/>" );
+        assertMalformed( "<r><![CDATA[unterminated</r>" );
+        assertMalformed( "<r><!-- unterminated</r>" );
+        assertMalformed( "<r a=1/>" );
+        assertMalformed( "<r>a]]>b</r>" );
+        assertMalformed( "<r><!-- a -- b --></r>" );
+        assertMalformed( "<r><!-- a ---></r>" );
+        assertMalformed( "<r>\u0001</r>" );
+        assertMalformed( "<r a='\u0001'/>" );
+        assertMalformed( "<r xmlns:p='urn:p' xmlns:q='urn:p' p:x='1' q:x='2'/>" );
+        assertMalformed( "<r xmlns:xml='urn:other'/>" );
+        assertMalformed( "<r xmlns:p='http://www.w3.org/XML/1998/namespace'/>" );
+        assertMalformed( "<r xmlns:xmlns='urn:p'/>" );
+
+        final byte[] truncated = { '<', 'r', '>', (byte) 0xC3, '<', '/', 'r', '>' };
+        assertThrows( SAXParseException.class, () -> tokenize( truncated, false, 1 ) );
+    }
+
+    @Test
+    void testLocation()
+        throws SAXException
+    {
+        final SAXParseException e =
+            assertThrows( SAXParseException.class,
+                          () -> tokenize( "<r>\n  <s>\n  </r>".getBytes( StandardCharsets.UTF_8 ), false, 4 ) );
+        assertEquals( 3, e.getLineNumber() );
+    }
+
+    private static Digester newBeansDigester()
+    {
+        final Digester digester = new Digester();
+        digester.setUseBuiltInTokenizer( true );
+        digester.addObjectCreate( "beans", ArrayList.class );
+        digester.addObjectCreate( "beans/bean", SimpleTestBean.class );
+        digester.addSetProperties( "beans/bean" );
+        digester.addBeanPropertySetter( "beans/bean", "beta" );
+        digester.addSetNext( "beans/bean", "add" );
+        return digester;
+    }
+
+    @Test
+    void testBuiltInTokenizer()
+        throws Exception
+    {
+        final String document = "<?xml version='1.0'?><?pi before root?><beans><bean alpha='1'>one &amp; "
+            + "<![CDATA[<two>]]></bean></beans>";
+        final List<SimpleTestBean> fromReader = newBeansDigester().parse( new StringReader( document ) );
+        assertEquals( "one & <two>", fromReader.get( 0 ).getBeta() );
+        final List<SimpleTestBean> fromStream =
+            newBeansDigester().parse( new ByteArrayInputStream( document.getBytes( StandardCharsets.UTF_8 ) ) );
+        assertEquals( "1", fromStream.get( 0 ).getAlpha() );
+    }
+
+    @Test
+    void testBuiltInTokenizerFallsBackOnDoctype()
+        throws Exception
+    {
+        // the internal subset declares an entity only a DTD aware parser resolves
+        final StringBuilder document = new StringBuilder( "<?xml version='1.0'?>\n<!-- " );
+        for ( int i = 0; i < 10000; i++ )
+        {
+            document.append( "padding beyond the first chunk " );
+        }
+        document.append( "-->\n<!DOCTYPE beans [<!ENTITY one 'entity'>]><beans><bean alpha='1'>&one;</bean></beans>" );
+
+        final List<SimpleTestBean> fromReader = newBeansDigester().parse( new StringReader( document.toString() ) );
+        assertEquals( "entity", fromReader.get( 0 ).getBeta() );
+        final List<SimpleTestBean> fromStream = newBeansDigester()
+            .parse( new ByteArrayInputStream( document.toString().getBytes( StandardCharsets.UTF_8 ) ) );
+        assertEquals( "entity", fromStream.get( 0 ).getBeta() );
+    }
+
+    @Test
+    void testBuiltInTokenizerReportsErrors()
+    {
+        final Digester digester = newBeansDigester();
+        final List<SAXParseException> errors = new ArrayList<>();
+        digester.setErrorHandler( new DefaultHandler()
+        {
+            @Override
+            public void fatalError( final SAXParseException e )
+            {
+                errors.add( e );
+            }
+        } );
+        assertThrows( SAXParseException.class, () -> digester.parse( new StringReader( "<beans><bean></beans>" ) ) );
+        assertEquals( 1, errors.size() );
+    }
+
+    @Test
+    void testDigesterFeed()
+        throws Exception
+    {
+        final Digester digester = newBeansDigester();
+        final byte[] document = "<beans><bean alpha='1'>one</bean><bean alpha='2'>two</bean></beans>"
+            .getBytes( StandardCharsets.UTF_8 );
+        for ( int round = 0; round < 2; round++ )
+        {
+            // the first bean is complete, and added, before the end of the document is fed
+            digester.feed( ByteBuffer.wrap( document, 0, 36 ) );
+            final List<?> beans = (List<?>) digester.getRoot();
+            assertEquals( 1, beans.size() );
+            assertEquals( "one", ( (SimpleTestBean) beans.get( 0 ) ).getBeta() );
+
+            digester.feed( ByteBuffer.wrap( document, 36, document.length - 36 ) );
+            final List<SimpleTestBean> root = digester.endOfInput();
+            assertEquals( 2, root.size() );
+            assertEquals( "2", root.get( 1 ).getAlpha() );
+            assertEquals( "two", root.get( 1 ).getBeta() );
+        }
+    }
+
+    @Test
+    void testDigesterFeedIncompleteDocument()
+        throws Exception
+    {
+        final Digester digester = new Digester();
+        digester.feed( ByteBuffer.wrap( "<beans><bean>".getBytes( StandardCharsets.UTF_8 ) ) );
+        assertThrows( SAXParseException.class, digester::endOfInput );
+        assertThrows( IllegalStateException.class, digester::endOfInput );
+    }
+
+}
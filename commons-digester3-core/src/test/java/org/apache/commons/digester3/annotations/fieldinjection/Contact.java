@@ -0,0 +1,88 @@
+package org.apache.commons.digester3.annotations.fieldinjection;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Objects;
+
+import org.apache.commons.digester3.annotations.rules.BeanPropertySetter;
+import org.apache.commons.digester3.annotations.rules.ObjectCreate;
+import org.apache.commons.digester3.annotations.rules.SetProperty;
+
+/**
+ * An immutable bean, populated through its fields.
+ */
+@ObjectCreate( pattern = "contact" )
+public final class Contact
+{
+
+    @SetProperty( pattern = "contact", injectField = true )
+    private final int id;
+
+    @SetProperty( pattern = "contact", attributeName = "kind", injectField = true )
+    private final String category;
+
+    @BeanPropertySetter( pattern = "contact/name", injectField = true )
+    private final String name;
+
+    @BeanPropertySetter( pattern = "contact/score", injectField = true )
+    private final double score;
+
+    public Contact()
+    {
+        this( 0, null, null, 0 );
+    }
+
+    public Contact( final int id, final String category, final String name, final double score )
+    {
+        this.id = id;
+        this.category = category;
+        this.name = name;
+        this.score = score;
+    }
+
+    @Override
+    public boolean equals( final Object obj )
+    {
+        if ( this == obj )
+        {
+            return true;
+        }
+        if ( !( obj instanceof Contact ) )
+        {
+            return false;
+        }
+        final Contact other = (Contact) obj;
+        return id == other.id && Objects.equals( category, other.category ) && Objects.equals( name, other.name )
+            && Double.compare( score, other.score ) == 0;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash( id, category, name, score );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Contact [id=" + id + ", category=" + category + ", name=" + name + ", score=" + score + "]";
+    }
+
+}
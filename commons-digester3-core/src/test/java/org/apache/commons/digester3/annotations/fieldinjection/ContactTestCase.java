@@ -0,0 +1,36 @@
+package org.apache.commons.digester3.annotations.fieldinjection;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.digester3.annotations.AbstractAnnotatedPojoTestCase;
+import org.junit.jupiter.api.Test;
+
+public final class ContactTestCase
+    extends AbstractAnnotatedPojoTestCase
+{
+
+    @Test
+    void testContact()
+        throws Exception
+    {
+        verifyExpectedEqualsToParsed( new Contact( 7, "business", "Gonzo", 4.5 ) );
+    }
+
+}
@@ -0,0 +1,148 @@
+package org.apache.commons.digester3.annotations.processor;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.apache.commons.digester3.binder.DigesterLoader.newLoader;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.apache.commons.digester3.Digester;
+import org.apache.commons.digester3.annotations.FromAnnotationsRuleModule;
+import org.apache.commons.digester3.annotations.addressbook.AddressBook;
+import org.apache.commons.digester3.annotations.fieldinjection.Contact;
+import org.apache.commons.digester3.annotations.rss.Channel;
+import org.apache.commons.digester3.binder.RulesModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Verifies the generated modules bind the same rules {@link FromAnnotationsRuleModule} binds at runtime.
+ */
+public final class RulesModuleProcessorTestCase
+{
+
+    @TempDir
+    File outputDirectory;
+
+    private RulesModule generateModule( final Class<?> type )
+        throws Exception
+    {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assumeTrue( compiler != null, "A Java compiler is required" );
+
+        final String packagePath = type.getPackage().getName().replace( '.', File.separatorChar );
+        final File sourceDirectory = new File( "src/test/java", packagePath );
+        final File[] sources = sourceDirectory.listFiles( ( dir, name ) -> name.endsWith( ".java" )
+            && !name.endsWith( "TestCase.java" ) );
+        assertNotNull( sources, "Sources not found in " + sourceDirectory );
+
+        final String classPath =
+            new File( Digester.class.getProtectionDomain().getCodeSource().getLocation().toURI() ).getPath()
+            + File.pathSeparator
+            + new File( type.getProtectionDomain().getCodeSource().getLocation().toURI() ).getPath();
+
+        final List<String> arguments = new ArrayList<>( Arrays.asList( "-proc:only",
+                                                                       "-processor",
+                                                                       RulesModuleProcessor.class.getName(),
+                                                                       "-classpath",
+                                                                       classPath,
+                                                                       "-s",
+                                                                       outputDirectory.getPath() ) );
+        for ( final File source : sources )
+        {
+            arguments.add( source.getPath() );
+        }
+        assertEquals( 0, compiler.run( null, null, null, arguments.toArray( new String[0] ) ) );
+
+        final File generated = new File( new File( outputDirectory, packagePath ),
+                                         type.getSimpleName() + RulesModuleProcessor.MODULE_SUFFIX + ".java" );
+        assertTrue( generated.isFile(), generated + " not generated" );
+        assertEquals( 0, compiler.run( null, null, null, "-classpath", classPath, "-d", outputDirectory.getPath(),
+                                       generated.getPath() ) );
+
+        final ClassLoader classLoader =
+            new URLClassLoader( new URL[] { outputDirectory.toURI().toURL() }, type.getClassLoader() );
+        return (RulesModule) classLoader.loadClass( type.getName() + RulesModuleProcessor.MODULE_SUFFIX )
+            .getDeclaredConstructor().newInstance();
+    }
+
+    private Object parse( final Class<?> type, final RulesModule rulesModule )
+        throws Exception
+    {
+        try ( InputStream input = type.getResourceAsStream( type.getSimpleName() + ".xml" ) )
+        {
+            return newLoader( rulesModule ).newDigester().parse( input );
+        }
+    }
+
+    private void verifyGeneratedModule( final Class<?> type )
+        throws Exception
+    {
+        final Object expected = parse( type, new FromAnnotationsRuleModule()
+        {
+
+            @Override
+            protected void configureRules()
+            {
+                bindRulesFrom( type );
+            }
+
+        } );
+        final Object actual = parse( type, generateModule( type ) );
+
+        assertNotNull( actual );
+        assertEquals( expected, actual );
+    }
+
+    @Test
+    void testAddressBook()
+        throws Exception
+    {
+        verifyGeneratedModule( AddressBook.class );
+    }
+
+    @Test
+    void testFieldInjection()
+        throws Exception
+    {
+        verifyGeneratedModule( Contact.class );
+    }
+
+    @Test
+    void testRss()
+        throws Exception
+    {
+        verifyGeneratedModule( Channel.class );
+    }
+
+}
@@ -19,10 +19,18 @@ package org.apache.commons.digester3.binder;
  * under the License.
  */
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.apache.commons.digester3.binder.DigesterLoader.newLoader;
 
+import java.io.StringReader;
+
+import org.apache.commons.digester3.Address;
 import org.apache.commons.digester3.Digester;
+import org.apache.commons.digester3.Employee;
 import org.junit.jupiter.api.Test;
 import org.xml.sax.ErrorHandler;
 import org.xml.sax.Locator;
@@ -148,4 +156,85 @@ public final class DigesterLoaderTestCase
         assertSame( expected, actual );
     }
 
+    @Test
+    void testWarmUp()
+        throws Exception
+    {
+        final DigesterLoader loader = newLoader( new AbstractRulesModule()
+        {
+
+            @Override
+            protected void configure()
+            {
+                forPattern( "employee" ).createObject().ofType( Employee.class ).then().setProperties();
+                forPattern( "employee/firstName" ).setBeanProperty();
+                forPattern( "employee/age" ).callMethod( "setAge" ).withParamTypes( int.class )
+                    .usingElementBodyAsArgument();
+                forPattern( "employee/address" ).createObject().ofType( Address.class )
+                    .then().setProperties()
+                    .then().setNext( "addAddress" );
+            }
+
+        } );
+
+        assertSame( loader, loader.warmUp() );
+
+        final Employee employee = loader.newDigester().parse( new StringReader(
+            "<employee lastName='Doe'><firstName>John</firstName><age>42</age><address type='home' city='Rome'/></employee>" ) );
+        assertEquals( "John", employee.getFirstName() );
+        assertEquals( 42, employee.getAge() );
+        assertEquals( "Rome", employee.getAddress( "home" ).getCity() );
+    }
+
+    @Test
+    void testWarmUpReportsUnresolvedReferences()
+    {
+        final DigesterLoader loader = newLoader( new AbstractRulesModule()
+        {
+
+            @Override
+            protected void configure()
+            {
+                forPattern( "employee" ).createObject().ofType( Employee.class );
+                forPattern( "employee/nickName" ).setBeanProperty();
+                forPattern( "employee/address" ).createObject().ofType( Address.class )
+                    .then().setNext( "addAdress" );
+                forPattern( "employee/number" ).createObject().ofType( Integer.class );
+            }
+
+        } );
+
+        final DigesterLoadingException e = assertThrows( DigesterLoadingException.class, loader::warmUp );
+        final String message = e.getMessage();
+        assertTrue( message.contains( "{employee/nickName} Class '" + Employee.class.getName()
+            + "' does not have a property named 'nickName'" ), message );
+        assertTrue( message.contains( "{employee/address} Class '" + Employee.class.getName()
+            + "' does not have a public method addAdress(" + Address.class.getName() + ")" ), message );
+        assertTrue( message.contains( "{employee/number} Class 'java.lang.Integer' does not have a public"
+            + " no-arguments constructor" ), message );
+        assertTrue( message.endsWith( "3 errors" ), message );
+    }
+
+    @Test
+    void testUseBuiltInTokenizer()
+    {
+        final RulesModule module = new AbstractRulesModule()
+        {
+
+            @Override
+            protected void configure()
+            {
+                forPattern( "employee" ).createObject().ofType( Employee.class );
+            }
+
+        };
+
+        assertTrue( newLoader( module ).setUseBuiltInTokenizer( true ).newDigester().isUseBuiltInTokenizer() );
+        // validating documents requires the JAXP parser
+        assertFalse( newLoader( module ).setUseBuiltInTokenizer( true ).setValidating( true ).newDigester()
+                         .isUseBuiltInTokenizer() );
+        assertFalse( newLoader( module ).setUseBuiltInTokenizer( true ).setXIncludeAware( true ).newDigester()
+                         .isUseBuiltInTokenizer() );
+    }
+
 }
@@ -0,0 +1,110 @@
+package org.apache.commons.digester3.substitution;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.digester3.Digester;
+import org.apache.commons.digester3.SimpleTestBean;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test Case for {@link InterningSubstitutor} and {@link StringPool}.
+ */
+public class InterningSubstitutorTestCase
+{
+
+    private final List<SimpleTestBean> simpleTestBeans = new ArrayList<>();
+
+    public void addSimpleTestBean( final SimpleTestBean bean )
+    {
+        simpleTestBeans.add( bean );
+    }
+
+    @Test
+    void testDeduplicateValues()
+        throws Exception
+    {
+        final InterningSubstitutor substitutor = new InterningSubstitutor();
+        final Digester digester = new Digester();
+        digester.setSubstitutor( substitutor );
+        digester.push( this );
+        digester.addObjectCreate( "root/bean", SimpleTestBean.class );
+        digester.addSetProperties( "root/bean" );
+        digester.addBeanPropertySetter( "root/bean/beta" );
+        digester.addSetNext( "root/bean", "addSimpleTestBean" );
+
+        final String xml = "<root>"
+            + "<bean alpha='EUR'><beta>active</beta></bean>"
+            + "<bean alpha='EUR'><beta>active</beta></bean>"
+            + "<bean alpha='USD'><beta>active</beta></bean>"
+            + "</root>";
+        digester.parse( new StringReader( xml ) );
+
+        assertEquals( 3, simpleTestBeans.size() );
+        assertEquals( "EUR", simpleTestBeans.get( 0 ).getAlpha() );
+        assertSame( simpleTestBeans.get( 0 ).getAlpha(), simpleTestBeans.get( 1 ).getAlpha() );
+        assertEquals( "USD", simpleTestBeans.get( 2 ).getAlpha() );
+        assertEquals( "active", simpleTestBeans.get( 0 ).getBeta() );
+        assertSame( simpleTestBeans.get( 0 ).getBeta(), simpleTestBeans.get( 1 ).getBeta() );
+        assertSame( simpleTestBeans.get( 0 ).getBeta(), simpleTestBeans.get( 2 ).getBeta() );
+        assertTrue( substitutor.getPool().getHitRate() > 0, "Pool has never been hit" );
+    }
+
+    @Test
+    void testPoolBounds()
+    {
+        final StringPool pool = new StringPool( 2, 3 );
+        final String abc = new String( "abc" );
+        assertSame( abc, pool.intern( abc ) );
+        assertSame( abc, pool.intern( new String( "abc" ) ) );
+
+        final String tooLong = new String( "abcd" );
+        assertSame( tooLong, pool.intern( tooLong ) );
+        assertNotSame( tooLong, pool.intern( new String( "abcd" ) ) );
+        assertNull( pool.intern( null ) );
+
+        // "abc" was used last, "x" is evicted first
+        pool.intern( "x" );
+        pool.intern( abc );
+        pool.intern( "y" );
+        assertEquals( 2, pool.size() );
+        assertSame( abc, pool.intern( new String( "abc" ) ) );
+        final String x = new String( "x" );
+        assertSame( x, pool.intern( x ) );
+
+        assertEquals( 3, pool.getHitCount() );
+        assertEquals( 4, pool.getMissCount() );
+        assertEquals( 3.0 / 7, pool.getHitRate() );
+
+        pool.clear();
+        assertEquals( 0, pool.size() );
+        assertEquals( 0, pool.getHitRate() );
+    }
+
+}